@@ -0,0 +1,116 @@
+package br.sergio.math;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Mede a vazão, em GFLOP/s, de {@link Matrix#multiply(Matrix)} comparada ao
+ * laço i-j-k original sobre double[][], que percorre B coluna a coluna. Cada
+ * produto de ordem n conta 2n³ operações de ponto flutuante, e é usado o
+ * melhor de várias execuções após o aquecimento da JIT.
+ * <p>
+ * Esta classe fica fora de src e não faz parte da biblioteca. Para executar:
+ * <pre>
+ * javac -d out --add-modules jdk.incubator.vector $(find src benchmark -name "*.java")
+ * java -cp out --add-modules jdk.incubator.vector br.sergio.math.MultiplyBenchmark [ordens...] [-full] [-block=N]
+ * </pre>
+ * As ordens padrão são 256, 1024 e 4096. O laço original leva vários
+ * minutos na ordem 4096, por isso só é medido até a ordem 1024, a menos
+ * que seja passado -full. -block=N define o tamanho de bloco
+ * ({@link Matrix#setBlockSize(int)}). Sem --add-modules jdk.incubator.vector
+ * na execução, é medido o núcleo escalar em vez do vetorial.
+ * @author Sergio Luis
+ *
+ */
+public class MultiplyBenchmark {
+
+	private static final int NAIVE_LIMIT = 1024;
+
+	public static void main(String[] args) {
+		int[] orders = {256, 1024, 4096};
+		boolean full = false;
+		int count = 0;
+		int[] given = new int[args.length];
+		for(String arg : args) {
+			if(arg.equals("-full")) {
+				full = true;
+			} else if(arg.startsWith("-block=")) {
+				Matrix.setBlockSize(Integer.parseInt(arg.substring(7)));
+			} else {
+				given[count++] = Integer.parseInt(arg);
+			}
+		}
+		if(count > 0) {
+			orders = Arrays.copyOf(given, count);
+		}
+		System.out.println("bloco = " + Matrix.getBlockSize() + ", Vector API = "
+				+ (MatrixKernels.VECTORIZED ? "sim" : "não"));
+		System.out.printf("%6s %18s %18s %10s%n", "n", "i-j-k (GFLOP/s)", "blocos (GFLOP/s)", "ganho");
+		Random random = new Random(42);
+		for(int n : orders) {
+			double[][] a = random(n, random);
+			double[][] b = random(n, random);
+			Matrix ma = new Matrix(a);
+			Matrix mb = new Matrix(b);
+			int runs = runs(n);
+			double blocked = gflops(n, best(runs, () -> ma.multiply(mb)));
+			double naive = Double.NaN;
+			if(full || n <= NAIVE_LIMIT) {
+				naive = gflops(n, best(runs, () -> naive(a, b)));
+			}
+			System.out.printf("%6d %18s %18.2f %10s%n", n, Double.isNaN(naive) ? "-" : String.format("%.2f", naive),
+					blocked, Double.isNaN(naive) ? "-" : String.format("%.1fx", blocked / naive));
+		}
+	}
+
+	/**
+	 * O laço original de {@link Matrix#multiply(Matrix)}.
+	 */
+	private static double[][] naive(double[][] a, double[][] b) {
+		int m = a.length;
+		int p = b.length;
+		int n = b[0].length;
+		double[][] c = new double[m][n];
+		for(int i = 0; i < m; i++) {
+			for(int j = 0; j < n; j++) {
+				double sum = 0;
+				for(int k = 0; k < p; k++) {
+					sum += a[i][k] * b[k][j];
+				}
+				c[i][j] = sum;
+			}
+		}
+		return c;
+	}
+
+	private static int runs(int n) {
+		return n <= 256 ? 20 : n <= 1024 ? 4 : 2;
+	}
+
+	private static long best(int runs, Runnable body) {
+		// uma execução a mais, descartada, para o aquecimento da JIT
+		body.run();
+		long best = Long.MAX_VALUE;
+		for(int r = 0; r < runs; r++) {
+			long start = System.nanoTime();
+			body.run();
+			best = Math.min(best, System.nanoTime() - start);
+		}
+		return best;
+	}
+
+	private static double gflops(int n, long nanos) {
+		return 2.0 * n * n * n / nanos;
+	}
+
+	private static double[][] random(int n, Random random) {
+		double[][] data = new double[n][n];
+		for(int i = 0; i < n; i++) {
+			for(int j = 0; j < n; j++) {
+				data[i][j] = random.nextDouble() * 2 - 1;
+			}
+		}
+		return data;
+	}
+
+}
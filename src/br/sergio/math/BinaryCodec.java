@@ -0,0 +1,670 @@
+package br.sergio.math;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.util.function.IntFunction;
+
+/**
+ * Codificação binária compacta dos tipos de valor da biblioteca, como
+ * alternativa rápida à serialização padrão do Java. Cada tipo tem uma
+ * instância pronta ({@link #POINT}, {@link #VECTOR}, {@link #MATRIX} etc.)
+ * que grava apenas os campos essenciais do objeto, sem nomes de classes nem
+ * campos derivados: um {@link Vector}, por exemplo, é gravado pelas
+ * coordenadas de seus pontos, e seu módulo é recalculado na leitura.
+ * <p>Os valores podem ser gravados em um {@link DataOutput} (e lidos de um
+ * {@link DataInput}), sempre em big-endian, ou em um {@link ByteBuffer},
+ * na ordem de bytes do buffer; com a ordem padrão do buffer, os dois
+ * formatos são idênticos. Arrays de valores são gravados em bloco,
+ * precedidos pela quantidade de elementos.
+ * <p>Os formatos, em bytes, são:
+ * <ul>
+ * <li>{@link Point}: x, y e z como doubles (24);</li>
+ * <li>{@link Vector}: um byte 0 seguido da extremidade, se a origem for a
+ * origem do espaço, ou um byte 1 seguido da origem e da extremidade
+ * (25 ou 49);</li>
+ * <li>{@link Complex}: as partes real e imaginária como doubles (16);</li>
+ * <li>{@link Rational}: o numerador e o denominador como ints (8);</li>
+ * <li>{@link Line2D}: os coeficientes a, b e c como doubles (24);</li>
+ * <li>{@link Line3D} e {@link Plane}: o ponto seguido do vetor;</li>
+ * <li>{@link Polynomial}: a quantidade de coeficientes como int, seguida
+ * dos coeficientes como doubles;</li>
+ * <li>{@link Matrix}: as quantidades de linhas e de colunas como ints,
+ * seguidas dos elementos linha a linha como doubles.</li>
+ * </ul>
+ * @param <T> o tipo codificado.
+ * @author Sergio Luis
+ *
+ */
+public abstract class BinaryCodec<T> {
+
+	/**
+	 * Codificação de {@link Point}.
+	 */
+	public static final BinaryCodec<Point> POINT = new PointCodec();
+
+	/**
+	 * Codificação de {@link Vector}.
+	 */
+	public static final BinaryCodec<Vector> VECTOR = new VectorCodec();
+
+	/**
+	 * Codificação de {@link Complex}.
+	 */
+	public static final BinaryCodec<Complex> COMPLEX = new ComplexCodec();
+
+	/**
+	 * Codificação de {@link Rational}.
+	 */
+	public static final BinaryCodec<Rational> RATIONAL = new RationalCodec();
+
+	/**
+	 * Codificação de {@link Line2D}.
+	 */
+	public static final BinaryCodec<Line2D> LINE_2D = new Line2DCodec();
+
+	/**
+	 * Codificação de {@link Line3D}.
+	 */
+	public static final BinaryCodec<Line3D> LINE_3D = new Line3DCodec();
+
+	/**
+	 * Codificação de {@link Plane}.
+	 */
+	public static final BinaryCodec<Plane> PLANE = new PlaneCodec();
+
+	/**
+	 * Codificação de {@link Polynomial}.
+	 */
+	public static final BinaryCodec<Polynomial> POLYNOMIAL = new PolynomialCodec();
+
+	/**
+	 * Codificação de {@link Matrix}.
+	 */
+	public static final BinaryCodec<Matrix> MATRIX = new MatrixCodec();
+
+	/**
+	 * Quantidade máxima de doubles convertidos de uma vez nas gravações e
+	 * leituras em bloco de {@link DataOutput} e {@link DataInput}.
+	 */
+	private static final int CHUNK = 8192;
+
+	BinaryCodec() {
+	}
+
+	/**
+	 * @param value o valor.
+	 * @return a quantidade de bytes ocupada pelo valor codificado.
+	 * @throws IllegalArgumentException se o valor codificado não couber em
+	 * um array de bytes.
+	 */
+	public abstract int size(T value);
+
+	/**
+	 * Grava o valor no buffer, a partir de sua posição atual.
+	 * @param buffer o buffer.
+	 * @param value o valor.
+	 * @throws java.nio.BufferOverflowException se não houver espaço no buffer.
+	 */
+	public abstract void put(ByteBuffer buffer, T value);
+
+	/**
+	 * Lê um valor do buffer, a partir de sua posição atual.
+	 * @param buffer o buffer.
+	 * @return o valor lido.
+	 * @throws java.nio.BufferUnderflowException se o buffer terminar antes
+	 * do valor.
+	 */
+	public abstract T get(ByteBuffer buffer);
+
+	/**
+	 * Grava o valor na saída fornecida.
+	 * @param out a saída.
+	 * @param value o valor.
+	 * @throws IOException se ocorrer um erro de escrita.
+	 */
+	public abstract void write(DataOutput out, T value) throws IOException;
+
+	/**
+	 * Lê um valor da entrada fornecida.
+	 * @param in a entrada.
+	 * @return o valor lido.
+	 * @throws IOException se ocorrer um erro de leitura ou a entrada terminar
+	 * antes do valor.
+	 */
+	public abstract T read(DataInput in) throws IOException;
+
+	/**
+	 * Codifica o valor em um novo array de bytes.
+	 * @param value o valor.
+	 * @return os bytes do valor codificado.
+	 */
+	public byte[] encode(T value) {
+		ByteBuffer buffer = ByteBuffer.allocate(size(value));
+		put(buffer, value);
+		return buffer.array();
+	}
+
+	/**
+	 * Decodifica um valor gravado por {@link #encode(Object)}.
+	 * @param bytes os bytes do valor codificado.
+	 * @return o valor.
+	 */
+	public T decode(byte[] bytes) {
+		return get(ByteBuffer.wrap(bytes));
+	}
+
+	/**
+	 * @param values os valores.
+	 * @return a quantidade de bytes ocupada pelo array codificado.
+	 * @throws IllegalArgumentException se o array codificado não couber em
+	 * um array de bytes.
+	 */
+	public int size(T[] values) {
+		long size = Integer.BYTES;
+		for(T value : values) {
+			size += size(value);
+		}
+		return checkSize(size);
+	}
+
+	/**
+	 * Grava no buffer a quantidade de elementos do array seguida de cada um.
+	 * @param buffer o buffer.
+	 * @param values os valores.
+	 */
+	public void putArray(ByteBuffer buffer, T[] values) {
+		buffer.putInt(values.length);
+		for(T value : values) {
+			put(buffer, value);
+		}
+	}
+
+	/**
+	 * Lê do buffer um array gravado por {@link #putArray(ByteBuffer, Object[])}.
+	 * @param buffer o buffer.
+	 * @param generator a função que cria o array com o tamanho dado, como
+	 * Point[]::new.
+	 * @return o array lido.
+	 */
+	public T[] getArray(ByteBuffer buffer, IntFunction<T[]> generator) {
+		T[] values = generator.apply(checkLength(buffer.getInt()));
+		for(int i = 0; i < values.length; i++) {
+			values[i] = get(buffer);
+		}
+		return values;
+	}
+
+	/**
+	 * Grava na saída a quantidade de elementos do array seguida de cada um.
+	 * Os elementos são codificados em um único array de bytes, gravado de
+	 * uma vez.
+	 * @param out a saída.
+	 * @param values os valores.
+	 * @throws IOException se ocorrer um erro de escrita.
+	 */
+	public void writeArray(DataOutput out, T[] values) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(size(values));
+		putArray(buffer, values);
+		out.write(buffer.array());
+	}
+
+	/**
+	 * Lê da entrada um array gravado por {@link #writeArray(DataOutput, Object[])}.
+	 * @param in a entrada.
+	 * @param generator a função que cria o array com o tamanho dado, como
+	 * Point[]::new.
+	 * @return o array lido.
+	 * @throws IOException se ocorrer um erro de leitura ou a entrada terminar
+	 * antes do array.
+	 */
+	public T[] readArray(DataInput in, IntFunction<T[]> generator) throws IOException {
+		T[] values = generator.apply(checkLength(in.readInt()));
+		int fixedSize = fixedSize();
+		if(fixedSize > 0) {
+			int batch = Math.max(1, CHUNK * Double.BYTES / fixedSize);
+			byte[] bytes = new byte[Math.min(values.length, batch) * fixedSize];
+			ByteBuffer buffer = ByteBuffer.wrap(bytes);
+			for(int start = 0; start < values.length; start += batch) {
+				int count = Math.min(batch, values.length - start);
+				in.readFully(bytes, 0, count * fixedSize);
+				buffer.clear();
+				for(int i = 0; i < count; i++) {
+					values[start + i] = get(buffer);
+				}
+			}
+		} else {
+			for(int i = 0; i < values.length; i++) {
+				values[i] = read(in);
+			}
+		}
+		return values;
+	}
+
+	/**
+	 * @return o tamanho, em bytes, de todos os valores codificados, ou 0 se
+	 * ele variar de um valor para outro.
+	 */
+	int fixedSize() {
+		return 0;
+	}
+
+	/**
+	 * @return o tamanho fornecido, garantindo que ele caiba em um array de
+	 * bytes.
+	 * @throws IllegalArgumentException se o tamanho não couber em um array.
+	 */
+	static int checkSize(long size) {
+		if(size > Integer.MAX_VALUE - 8) {
+			throw new IllegalArgumentException("O valor codificado não cabe em um array de bytes: " + size + " bytes");
+		}
+		return (int) size;
+	}
+
+	private static int checkLength(int length) {
+		if(length < 0) {
+			throw new IllegalArgumentException("Quantidade de elementos inválida: " + length);
+		}
+		return length;
+	}
+
+	/**
+	 * Grava length doubles do array na saída, convertendo-os em bloco.
+	 */
+	static void writeDoubles(DataOutput out, double[] values, int offset, int length) throws IOException {
+		byte[] bytes = new byte[Math.min(length, CHUNK) * Double.BYTES];
+		DoubleBuffer view = ByteBuffer.wrap(bytes).asDoubleBuffer();
+		for(int start = 0; start < length; start += CHUNK) {
+			int count = Math.min(CHUNK, length - start);
+			view.clear();
+			view.put(values, offset + start, count);
+			out.write(bytes, 0, count * Double.BYTES);
+		}
+	}
+
+	/**
+	 * Lê length doubles da entrada para o array, convertendo-os em bloco.
+	 */
+	static void readDoubles(DataInput in, double[] values, int offset, int length) throws IOException {
+		byte[] bytes = new byte[Math.min(length, CHUNK) * Double.BYTES];
+		DoubleBuffer view = ByteBuffer.wrap(bytes).asDoubleBuffer();
+		for(int start = 0; start < length; start += CHUNK) {
+			int count = Math.min(CHUNK, length - start);
+			in.readFully(bytes, 0, count * Double.BYTES);
+			view.clear();
+			view.get(values, offset + start, count);
+		}
+	}
+
+	/**
+	 * Grava length doubles do array no buffer, em bloco.
+	 */
+	static void putDoubles(ByteBuffer buffer, double[] values, int offset, int length) {
+		buffer.asDoubleBuffer().put(values, offset, length);
+		buffer.position(buffer.position() + length * Double.BYTES);
+	}
+
+	/**
+	 * Lê length doubles do buffer para o array, em bloco.
+	 */
+	static void getDoubles(ByteBuffer buffer, double[] values, int offset, int length) {
+		buffer.asDoubleBuffer().get(values, offset, length);
+		buffer.position(buffer.position() + length * Double.BYTES);
+	}
+
+	private static final class PointCodec extends BinaryCodec<Point> {
+
+		@Override
+		int fixedSize() {
+			return 3 * Double.BYTES;
+		}
+
+		@Override
+		public int size(Point value) {
+			return 3 * Double.BYTES;
+		}
+
+		@Override
+		public void put(ByteBuffer buffer, Point value) {
+			buffer.putDouble(value.x).putDouble(value.y).putDouble(value.z);
+		}
+
+		@Override
+		public Point get(ByteBuffer buffer) {
+			return new Point(buffer.getDouble(), buffer.getDouble(), buffer.getDouble());
+		}
+
+		@Override
+		public void write(DataOutput out, Point value) throws IOException {
+			out.writeDouble(value.x);
+			out.writeDouble(value.y);
+			out.writeDouble(value.z);
+		}
+
+		@Override
+		public Point read(DataInput in) throws IOException {
+			return new Point(in.readDouble(), in.readDouble(), in.readDouble());
+		}
+
+	}
+
+	private static final class VectorCodec extends BinaryCodec<Vector> {
+
+		private static boolean fromOrigin(Vector value) {
+			Point origin = value.origin;
+			return origin.x == 0 && origin.y == 0 && origin.z == 0;
+		}
+
+		@Override
+		public int size(Vector value) {
+			return 1 + (fromOrigin(value) ? 1 : 2) * POINT.fixedSize();
+		}
+
+		@Override
+		public void put(ByteBuffer buffer, Vector value) {
+			if(fromOrigin(value)) {
+				buffer.put((byte) 0);
+			} else {
+				buffer.put((byte) 1);
+				POINT.put(buffer, value.origin);
+			}
+			POINT.put(buffer, value.end);
+		}
+
+		@Override
+		public Vector get(ByteBuffer buffer) {
+			if(buffer.get() == 0) {
+				return new Vector(POINT.get(buffer));
+			}
+			Point origin = POINT.get(buffer);
+			return new Vector(origin, POINT.get(buffer));
+		}
+
+		@Override
+		public void write(DataOutput out, Vector value) throws IOException {
+			if(fromOrigin(value)) {
+				out.writeByte(0);
+			} else {
+				out.writeByte(1);
+				POINT.write(out, value.origin);
+			}
+			POINT.write(out, value.end);
+		}
+
+		@Override
+		public Vector read(DataInput in) throws IOException {
+			if(in.readByte() == 0) {
+				return new Vector(POINT.read(in));
+			}
+			Point origin = POINT.read(in);
+			return new Vector(origin, POINT.read(in));
+		}
+
+	}
+
+	private static final class ComplexCodec extends BinaryCodec<Complex> {
+
+		@Override
+		int fixedSize() {
+			return 2 * Double.BYTES;
+		}
+
+		@Override
+		public int size(Complex value) {
+			return 2 * Double.BYTES;
+		}
+
+		@Override
+		public void put(ByteBuffer buffer, Complex value) {
+			buffer.putDouble(value.getReal()).putDouble(value.getImaginary());
+		}
+
+		@Override
+		public Complex get(ByteBuffer buffer) {
+			return new Complex(buffer.getDouble(), buffer.getDouble());
+		}
+
+		@Override
+		public void write(DataOutput out, Complex value) throws IOException {
+			out.writeDouble(value.getReal());
+			out.writeDouble(value.getImaginary());
+		}
+
+		@Override
+		public Complex read(DataInput in) throws IOException {
+			return new Complex(in.readDouble(), in.readDouble());
+		}
+
+	}
+
+	private static final class RationalCodec extends BinaryCodec<Rational> {
+
+		@Override
+		int fixedSize() {
+			return 2 * Integer.BYTES;
+		}
+
+		@Override
+		public int size(Rational value) {
+			return 2 * Integer.BYTES;
+		}
+
+		@Override
+		public void put(ByteBuffer buffer, Rational value) {
+			buffer.putInt(value.getNum()).putInt(value.getDenom());
+		}
+
+		@Override
+		public Rational get(ByteBuffer buffer) {
+			return new Rational(buffer.getInt(), buffer.getInt());
+		}
+
+		@Override
+		public void write(DataOutput out, Rational value) throws IOException {
+			out.writeInt(value.getNum());
+			out.writeInt(value.getDenom());
+		}
+
+		@Override
+		public Rational read(DataInput in) throws IOException {
+			return new Rational(in.readInt(), in.readInt());
+		}
+
+	}
+
+	private static final class Line2DCodec extends BinaryCodec<Line2D> {
+
+		@Override
+		int fixedSize() {
+			return 3 * Double.BYTES;
+		}
+
+		@Override
+		public int size(Line2D value) {
+			return 3 * Double.BYTES;
+		}
+
+		@Override
+		public void put(ByteBuffer buffer, Line2D value) {
+			buffer.putDouble(value.getA()).putDouble(value.getB()).putDouble(value.getC());
+		}
+
+		@Override
+		public Line2D get(ByteBuffer buffer) {
+			return new Line2D(buffer.getDouble(), buffer.getDouble(), buffer.getDouble());
+		}
+
+		@Override
+		public void write(DataOutput out, Line2D value) throws IOException {
+			out.writeDouble(value.getA());
+			out.writeDouble(value.getB());
+			out.writeDouble(value.getC());
+		}
+
+		@Override
+		public Line2D read(DataInput in) throws IOException {
+			return new Line2D(in.readDouble(), in.readDouble(), in.readDouble());
+		}
+
+	}
+
+	private static final class Line3DCodec extends BinaryCodec<Line3D> {
+
+		@Override
+		public int size(Line3D value) {
+			return POINT.fixedSize() + VECTOR.size(value.vector);
+		}
+
+		@Override
+		public void put(ByteBuffer buffer, Line3D value) {
+			POINT.put(buffer, value.point);
+			VECTOR.put(buffer, value.vector);
+		}
+
+		@Override
+		public Line3D get(ByteBuffer buffer) {
+			Point point = POINT.get(buffer);
+			return new Line3D(point, VECTOR.get(buffer));
+		}
+
+		@Override
+		public void write(DataOutput out, Line3D value) throws IOException {
+			POINT.write(out, value.point);
+			VECTOR.write(out, value.vector);
+		}
+
+		@Override
+		public Line3D read(DataInput in) throws IOException {
+			Point point = POINT.read(in);
+			return new Line3D(point, VECTOR.read(in));
+		}
+
+	}
+
+	private static final class PlaneCodec extends BinaryCodec<Plane> {
+
+		@Override
+		public int size(Plane value) {
+			return POINT.fixedSize() + VECTOR.size(value.vector);
+		}
+
+		@Override
+		public void put(ByteBuffer buffer, Plane value) {
+			POINT.put(buffer, value.point);
+			VECTOR.put(buffer, value.vector);
+		}
+
+		@Override
+		public Plane get(ByteBuffer buffer) {
+			Point point = POINT.get(buffer);
+			return new Plane(point, VECTOR.get(buffer));
+		}
+
+		@Override
+		public void write(DataOutput out, Plane value) throws IOException {
+			POINT.write(out, value.point);
+			VECTOR.write(out, value.vector);
+		}
+
+		@Override
+		public Plane read(DataInput in) throws IOException {
+			Point point = POINT.read(in);
+			return new Plane(point, VECTOR.read(in));
+		}
+
+	}
+
+	private static final class PolynomialCodec extends BinaryCodec<Polynomial> {
+
+		@Override
+		public int size(Polynomial value) {
+			return checkSize(Integer.BYTES + (long) value.coefficients.length * Double.BYTES);
+		}
+
+		@Override
+		public void put(ByteBuffer buffer, Polynomial value) {
+			double[] coefficients = value.coefficients;
+			buffer.putInt(coefficients.length);
+			putDoubles(buffer, coefficients, 0, coefficients.length);
+		}
+
+		@Override
+		public Polynomial get(ByteBuffer buffer) {
+			double[] coefficients = new double[checkLength(buffer.getInt())];
+			getDoubles(buffer, coefficients, 0, coefficients.length);
+			return new Polynomial(coefficients);
+		}
+
+		@Override
+		public void write(DataOutput out, Polynomial value) throws IOException {
+			double[] coefficients = value.coefficients;
+			out.writeInt(coefficients.length);
+			writeDoubles(out, coefficients, 0, coefficients.length);
+		}
+
+		@Override
+		public Polynomial read(DataInput in) throws IOException {
+			double[] coefficients = new double[checkLength(in.readInt())];
+			readDoubles(in, coefficients, 0, coefficients.length);
+			return new Polynomial(coefficients);
+		}
+
+	}
+
+	private static final class MatrixCodec extends BinaryCodec<Matrix> {
+
+		@Override
+		public int size(Matrix value) {
+			return checkSize(2 * Integer.BYTES + (long) value.getLines() * value.getColumns() * Double.BYTES);
+		}
+
+		@Override
+		public void put(ByteBuffer buffer, Matrix value) {
+			Matrix m = value.contiguous();
+			int lines = m.getLines();
+			int columns = m.getColumns();
+			buffer.putInt(lines).putInt(columns);
+			if(m.getStride() == columns) {
+				putDoubles(buffer, m.getData(), m.getOffset(), lines * columns);
+				return;
+			}
+			for(int i = 0; i < lines; i++) {
+				putDoubles(buffer, m.getData(), m.getOffset() + i * m.getStride(), columns);
+			}
+		}
+
+		@Override
+		public Matrix get(ByteBuffer buffer) {
+			Matrix m = new Matrix(buffer.getInt(), buffer.getInt());
+			getDoubles(buffer, m.getData(), 0, m.getLines() * m.getColumns());
+			return m;
+		}
+
+		@Override
+		public void write(DataOutput out, Matrix value) throws IOException {
+			Matrix m = value.contiguous();
+			int lines = m.getLines();
+			int columns = m.getColumns();
+			out.writeInt(lines);
+			out.writeInt(columns);
+			if(m.getStride() == columns) {
+				writeDoubles(out, m.getData(), m.getOffset(), lines * columns);
+				return;
+			}
+			for(int i = 0; i < lines; i++) {
+				writeDoubles(out, m.getData(), m.getOffset() + i * m.getStride(), columns);
+			}
+		}
+
+		@Override
+		public Matrix read(DataInput in) throws IOException {
+			Matrix m = new Matrix(in.readInt(), in.readInt());
+			readDoubles(in, m.getData(), 0, m.getLines() * m.getColumns());
+			return m;
+		}
+
+	}
+
+}
@@ -0,0 +1,324 @@
+package br.sergio.math;
+
+import java.io.Serializable;
+
+/**
+ * Decomposição LU com pivotamento parcial de uma matriz complexa quadrada,
+ * análoga a {@link LUDecomposition}: a matriz A é fatorada como PA = LU. O
+ * pivô de cada coluna é o elemento de maior |Re| + |Im|, uma aproximação do
+ * módulo que não transborda nem se anula como o seu quadrado, e as divisões
+ * pelo pivô usam o algoritmo de Smith, que escala os operandos para o mesmo
+ * fim. Assim, a decomposição funciona em toda a faixa dos doubles, como a
+ * real. As partes reais e imaginárias dos fatores ficam em arrays
+ * separados, como em {@link ComplexMatrix}.
+ * @author Sergio Luis
+ *
+ */
+public class ComplexLUDecomposition implements Serializable {
+
+	private static final long serialVersionUID = -4410672893035124517L;
+
+	private int order;
+	private double[] re;
+	private double[] im;
+	private int[] pivot;
+	private int pivotSign;
+	private boolean singular;
+
+	/**
+	 * Constrói a decomposição LU da matriz fornecida. A matriz
+	 * original não é alterada.
+	 * @param m a matriz a ser decomposta.
+	 * @throws NullPointerException se a matriz for nula.
+	 * @throws MathException se a matriz não for quadrada.
+	 */
+	public ComplexLUDecomposition(ComplexMatrix m) {
+		if(m == null) {
+			throw new NullPointerException("Matriz nula");
+		}
+		if(!m.isSquare()) {
+			throw new MathException("A decomposição LU só existe para matrizes quadradas");
+		}
+		int n = m.getOrder();
+		order = n;
+		re = m.getRealData().clone();
+		im = m.getImaginaryData().clone();
+		pivot = new int[n];
+		for(int i = 0; i < n; i++) {
+			pivot[i] = i;
+		}
+		pivotSign = 1;
+		decompose();
+	}
+
+	private void decompose() {
+		int n = order;
+		double[] ar = re;
+		double[] ai = im;
+		for(int k = 0; k < n; k++) {
+			int p = k;
+			double max = Math.abs(ar[k * n + k]) + Math.abs(ai[k * n + k]);
+			for(int i = k + 1; i < n; i++) {
+				double value = Math.abs(ar[i * n + k]) + Math.abs(ai[i * n + k]);
+				if(value > max) {
+					max = value;
+					p = i;
+				}
+			}
+			if(p != k) {
+				swapRows(ar, p, k);
+				swapRows(ai, p, k);
+				int temp = pivot[p];
+				pivot[p] = pivot[k];
+				pivot[k] = temp;
+				pivotSign = -pivotSign;
+			}
+			int rowK = k * n;
+			if(max == 0) {
+				singular = true;
+				continue;
+			}
+			double dr = ar[rowK + k];
+			double di = ai[rowK + k];
+			for(int i = k + 1; i < n; i++) {
+				int rowI = i * n;
+				divide(ar, ai, rowI + k, dr, di);
+				double factorRe = ar[rowI + k];
+				double factorIm = ai[rowI + k];
+				if(factorRe == 0 && factorIm == 0) {
+					continue;
+				}
+				for(int j = k + 1; j < n; j++) {
+					double ur = ar[rowK + j];
+					double ui = ai[rowK + j];
+					ar[rowI + j] -= factorRe * ur - factorIm * ui;
+					ai[rowI + j] -= factorRe * ui + factorIm * ur;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Divide o elemento index de (xr, xi) por dr + i di, pelo algoritmo de
+	 * Smith: o menor componente do divisor é dividido pelo maior, de modo que
+	 * nenhum produto intermediário transborde ou se anule antes do resultado.
+	 */
+	private static void divide(double[] xr, double[] xi, int index, double dr, double di) {
+		double a = xr[index];
+		double b = xi[index];
+		if(Math.abs(dr) >= Math.abs(di)) {
+			double ratio = di / dr;
+			double denominator = dr + di * ratio;
+			xr[index] = (a + b * ratio) / denominator;
+			xi[index] = (b - a * ratio) / denominator;
+		} else {
+			double ratio = dr / di;
+			double denominator = dr * ratio + di;
+			xr[index] = (a * ratio + b) / denominator;
+			xi[index] = (b * ratio - a) / denominator;
+		}
+	}
+
+	private void swapRows(double[] a, int p, int k) {
+		int rowP = p * order;
+		int rowK = k * order;
+		for(int j = 0; j < order; j++) {
+			double temp = a[rowP + j];
+			a[rowP + j] = a[rowK + j];
+			a[rowK + j] = temp;
+		}
+	}
+
+	/**
+	 * @return a ordem da matriz decomposta.
+	 */
+	public int getOrder() {
+		return order;
+	}
+
+	/**
+	 * @return true se a matriz decomposta for singular (determinante
+	 * igual a 0), false caso contrário.
+	 */
+	public boolean isSingular() {
+		return singular;
+	}
+
+	/**
+	 * @return o determinante da matriz decomposta, dado pelo produto
+	 * da diagonal de U multiplicado pelo sinal da permutação.
+	 */
+	public Complex determinant() {
+		if(singular) {
+			return new Complex(0, 0);
+		}
+		double detRe = pivotSign;
+		double detIm = 0;
+		for(int i = 0; i < order; i++) {
+			double dr = re[i * order + i];
+			double di = im[i * order + i];
+			double temp = detRe * dr - detIm * di;
+			detIm = detRe * di + detIm * dr;
+			detRe = temp;
+		}
+		return new Complex(detRe, detIm);
+	}
+
+	/**
+	 * @return a matriz triangular inferior L, com diagonal unitária.
+	 */
+	public ComplexMatrix getL() {
+		int n = order;
+		ComplexMatrix l = new ComplexMatrix(n, n);
+		for(int i = 0; i < n; i++) {
+			for(int j = 0; j < i; j++) {
+				l.setValue(i, j, re[i * n + j], im[i * n + j]);
+			}
+			l.setValue(i, i, 1, 0);
+		}
+		return l;
+	}
+
+	/**
+	 * @return a matriz triangular superior U.
+	 */
+	public ComplexMatrix getU() {
+		int n = order;
+		ComplexMatrix u = new ComplexMatrix(n, n);
+		for(int i = 0; i < n; i++) {
+			for(int j = i; j < n; j++) {
+				u.setValue(i, j, re[i * n + j], im[i * n + j]);
+			}
+		}
+		return u;
+	}
+
+	/**
+	 * Retorna o vetor de permutação. A linha i de PA é a linha
+	 * pivot[i] da matriz original.
+	 * @return uma cópia do vetor de permutação.
+	 */
+	public int[] getPivot() {
+		return pivot.clone();
+	}
+
+	/**
+	 * @return a matriz de permutação P, tal que PA = LU.
+	 */
+	public Matrix getP() {
+		Matrix p = new Matrix(order);
+		for(int i = 0; i < order; i++) {
+			p.setValue(i, pivot[i], 1);
+		}
+		return p;
+	}
+
+	/**
+	 * Resolve o sistema AX = B, sendo A a matriz decomposta. Cada coluna
+	 * de B é um termo independente diferente, de forma que vários sistemas
+	 * são resolvidos com uma única fatoração.
+	 * @param b a matriz dos termos independentes.
+	 * @return a matriz X solução.
+	 * @throws MathException se a quantidade de linhas de B for diferente da
+	 * ordem da matriz decomposta ou se ela for singular.
+	 */
+	public ComplexMatrix solve(ComplexMatrix b) {
+		if(b.getLines() != order) {
+			throw new MathException("A quantidade de linhas dos termos independentes deve ser igual à ordem da matriz");
+		}
+		int columns = b.getColumns();
+		double[] bRe = b.getRealData();
+		double[] bIm = b.getImaginaryData();
+		double[] xRe = new double[order * columns];
+		double[] xIm = new double[order * columns];
+		for(int i = 0; i < order; i++) {
+			System.arraycopy(bRe, pivot[i] * columns, xRe, i * columns, columns);
+			System.arraycopy(bIm, pivot[i] * columns, xIm, i * columns, columns);
+		}
+		substitute(xRe, xIm, columns);
+		return new ComplexMatrix(order, columns, xRe, xIm);
+	}
+
+	/**
+	 * Resolve o sistema Ax = b, sendo A a matriz decomposta, com os vetores
+	 * dados pelas partes reais e imaginárias separadas.
+	 * @param bRe as partes reais dos termos independentes.
+	 * @param bIm as partes imaginárias dos termos independentes.
+	 * @param xRe recebe as partes reais da solução.
+	 * @param xIm recebe as partes imaginárias da solução.
+	 * @throws MathException se o tamanho de algum dos vetores for diferente da
+	 * ordem da matriz decomposta ou se ela for singular.
+	 */
+	public void solve(double[] bRe, double[] bIm, double[] xRe, double[] xIm) {
+		if(bRe.length != order || bIm.length != order || xRe.length != order || xIm.length != order) {
+			throw new MathException("O tamanho dos termos independentes deve ser igual à ordem da matriz");
+		}
+		double[] tempRe = new double[order];
+		double[] tempIm = new double[order];
+		for(int i = 0; i < order; i++) {
+			tempRe[i] = bRe[pivot[i]];
+			tempIm[i] = bIm[pivot[i]];
+		}
+		substitute(tempRe, tempIm, 1);
+		System.arraycopy(tempRe, 0, xRe, 0, order);
+		System.arraycopy(tempIm, 0, xIm, 0, order);
+	}
+
+	/**
+	 * @return a matriz inversa da matriz decomposta.
+	 * @throws MathException se a matriz decomposta for singular.
+	 */
+	public ComplexMatrix inverse() {
+		int n = order;
+		double[] xRe = new double[n * n];
+		double[] xIm = new double[n * n];
+		for(int i = 0; i < n; i++) {
+			xRe[i * n + pivot[i]] = 1;
+		}
+		substitute(xRe, xIm, n);
+		return new ComplexMatrix(n, n, xRe, xIm);
+	}
+
+	private void substitute(double[] xr, double[] xi, int columns) {
+		if(singular) {
+			throw new MathException("A matriz é singular");
+		}
+		int n = order;
+		for(int k = 0; k < n; k++) {
+			int rowK = k * columns;
+			for(int i = k + 1; i < n; i++) {
+				double fr = re[i * n + k];
+				double fi = im[i * n + k];
+				if(fr == 0 && fi == 0) {
+					continue;
+				}
+				int rowI = i * columns;
+				for(int j = 0; j < columns; j++) {
+					xr[rowI + j] -= xr[rowK + j] * fr - xi[rowK + j] * fi;
+					xi[rowI + j] -= xr[rowK + j] * fi + xi[rowK + j] * fr;
+				}
+			}
+		}
+		for(int k = n - 1; k >= 0; k--) {
+			int rowK = k * columns;
+			double dr = re[k * n + k];
+			double di = im[k * n + k];
+			for(int j = 0; j < columns; j++) {
+				divide(xr, xi, rowK + j, dr, di);
+			}
+			for(int i = 0; i < k; i++) {
+				double fr = re[i * n + k];
+				double fi = im[i * n + k];
+				if(fr == 0 && fi == 0) {
+					continue;
+				}
+				int rowI = i * columns;
+				for(int j = 0; j < columns; j++) {
+					xr[rowI + j] -= xr[rowK + j] * fr - xi[rowK + j] * fi;
+					xi[rowI + j] -= xr[rowK + j] * fi + xi[rowK + j] * fr;
+				}
+			}
+		}
+	}
+
+}
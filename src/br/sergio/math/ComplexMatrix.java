@@ -0,0 +1,562 @@
+package br.sergio.math;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Matriz de números complexos. As partes reais e imaginárias ficam em dois
+ * arrays de doubles separados, linha após linha, em vez de um array de
+ * {@link Complex}: assim, as operações não criam objetos por elemento e os
+ * produtos são calculados com os mesmos núcleos em blocos de {@link Matrix}.
+ * Objetos {@link Complex} só são criados quando pedidos explicitamente, por
+ * {@link #getValue(int, int)} e {@link #determinant()}.
+ * @author Sergio Luis
+ *
+ */
+public class ComplexMatrix implements Serializable {
+
+	private static final long serialVersionUID = -1537104918264301756L;
+
+	/**
+	 * Abaixo desta quantidade de multiplicações complexas, o produto é
+	 * calculado diretamente, sem os temporários do método 3M.
+	 */
+	private static final long SMALL_PRODUCT = 32 * 32 * 32;
+
+	private final int lines;
+	private final int columns;
+	private final double[] re;
+	private final double[] im;
+
+	/**
+	 * Cria a matriz nula de m linhas por n colunas.
+	 * @param lines a quantidade de linhas.
+	 * @param columns a quantidade de colunas.
+	 * @throws IllegalArgumentException se m ou n forem menores que 1 ou se
+	 * a matriz não couber em um array.
+	 */
+	public ComplexMatrix(int lines, int columns) {
+		this(lines, columns, new double[checkedSize(lines, columns)], new double[lines * columns]);
+	}
+
+	/**
+	 * Cria a matriz sobre dois arrays já existentes, com as partes reais e
+	 * imaginárias dispostas linha após linha. Os arrays não são copiados;
+	 * alterações neles refletem na matriz e vice-versa.
+	 * @param lines a quantidade de linhas.
+	 * @param columns a quantidade de colunas.
+	 * @param re as partes reais.
+	 * @param im as partes imaginárias.
+	 * @throws NullPointerException se algum dos arrays for nulo.
+	 * @throws IllegalArgumentException se m ou n forem menores que 1 ou se
+	 * a matriz não couber em um array.
+	 * @throws MathException se algum dos arrays não comportar a matriz.
+	 */
+	public ComplexMatrix(int lines, int columns, double[] re, double[] im) {
+		if(re == null || im == null) {
+			throw new NullPointerException("Dados nulos");
+		}
+		int size = checkedSize(lines, columns);
+		if(re.length < size || im.length < size) {
+			throw new MathException("O array não comporta uma matriz " + lines + "x" + columns);
+		}
+		this.lines = lines;
+		this.columns = columns;
+		this.re = re;
+		this.im = im;
+	}
+
+	/**
+	 * Cria a matriz a partir das partes real e imaginária, que são copiadas.
+	 * @param real a parte real.
+	 * @param imaginary a parte imaginária, do mesmo tamanho da real.
+	 * @throws MathException se as matrizes tiverem tamanhos diferentes.
+	 */
+	public ComplexMatrix(Matrix real, Matrix imaginary) {
+		this(real.getLines(), real.getColumns(), real.toFlatArray(), imaginary.toFlatArray());
+		if(imaginary.getLines() != lines || imaginary.getColumns() != columns) {
+			throw new MathException("As matrizes devem ter o mesmo tamanho: " + lines + "x" + columns);
+		}
+	}
+
+	/**
+	 * Cria a matriz a partir dos elementos, que são copiados.
+	 * @param data os elementos.
+	 * @throws MathException se as linhas tiverem tamanhos diferentes.
+	 */
+	public ComplexMatrix(Complex[][] data) {
+		this(data.length, data.length == 0 ? 0 : data[0].length);
+		for(int i = 0; i < lines; i++) {
+			if(data[i].length != columns) {
+				throw new MathException("O tamanho de todas as colunas deve ser o mesmo");
+			}
+			for(int j = 0; j < columns; j++) {
+				re[i * columns + j] = data[i][j].getReal();
+				im[i * columns + j] = data[i][j].getImaginary();
+			}
+		}
+	}
+
+	/**
+	 * @param real a matriz.
+	 * @return uma matriz complexa com a parte real copiada da fornecida e a
+	 * parte imaginária nula.
+	 */
+	public static ComplexMatrix valueOf(Matrix real) {
+		return new ComplexMatrix(real.getLines(), real.getColumns(), real.toFlatArray(),
+				new double[real.getLines() * real.getColumns()]);
+	}
+
+	private static int checkedSize(int lines, int columns) {
+		if(lines < 1 || columns < 1) {
+			throw new IllegalArgumentException("Linhas e colunas não podem ser menores que 1");
+		}
+		return Matrix.checkedSize(lines, columns);
+	}
+
+	/**
+	 * @return a quantidade de linhas.
+	 */
+	public int getLines() {
+		return lines;
+	}
+
+	/**
+	 * @return a quantidade de colunas.
+	 */
+	public int getColumns() {
+		return columns;
+	}
+
+	/**
+	 * @return true se a matriz for quadrada.
+	 */
+	public boolean isSquare() {
+		return lines == columns;
+	}
+
+	/**
+	 * @return a ordem desta matriz se ela for quadrada, do contrário, -1.
+	 */
+	public int getOrder() {
+		return isSquare() ? lines : -1;
+	}
+
+	/**
+	 * @return o array das partes reais, linha após linha, sem cópia.
+	 */
+	public double[] getRealData() {
+		return re;
+	}
+
+	/**
+	 * @return o array das partes imaginárias, linha após linha, sem cópia.
+	 */
+	public double[] getImaginaryData() {
+		return im;
+	}
+
+	/**
+	 * @return uma cópia da parte real.
+	 */
+	public Matrix getRealPart() {
+		return new Matrix(lines, columns, Arrays.copyOf(re, lines * columns));
+	}
+
+	/**
+	 * @return uma cópia da parte imaginária.
+	 */
+	public Matrix getImaginaryPart() {
+		return new Matrix(lines, columns, Arrays.copyOf(im, lines * columns));
+	}
+
+	/**
+	 * @param line a linha.
+	 * @param column a coluna.
+	 * @return a parte real do elemento.
+	 */
+	public double getReal(int line, int column) {
+		return re[index(line, column)];
+	}
+
+	/**
+	 * @param line a linha.
+	 * @param column a coluna.
+	 * @return a parte imaginária do elemento.
+	 */
+	public double getImaginary(int line, int column) {
+		return im[index(line, column)];
+	}
+
+	/**
+	 * @param line a linha.
+	 * @param column a coluna.
+	 * @return um novo {@link Complex} com o elemento.
+	 */
+	public Complex getValue(int line, int column) {
+		int index = index(line, column);
+		return new Complex(re[index], im[index]);
+	}
+
+	/**
+	 * @param line a linha.
+	 * @param column a coluna.
+	 * @param real a nova parte real do elemento.
+	 * @param imaginary a nova parte imaginária do elemento.
+	 */
+	public void setValue(int line, int column, double real, double imaginary) {
+		int index = index(line, column);
+		re[index] = real;
+		im[index] = imaginary;
+	}
+
+	/**
+	 * @param line a linha.
+	 * @param column a coluna.
+	 * @param value o novo valor do elemento.
+	 */
+	public void setValue(int line, int column, Complex value) {
+		setValue(line, column, value.getReal(), value.getImaginary());
+	}
+
+	private int index(int line, int column) {
+		if(line < 0 || line >= lines || column < 0 || column >= columns) {
+			throw new ArrayIndexOutOfBoundsException("Posição (" + line + ", " + column + ") está fora dos "
+					+ "limites da matriz (" + lines + ", " + columns + ").");
+		}
+		return line * columns + column;
+	}
+
+	/**
+	 * @param m a matriz com a qual esta será somada.
+	 * @return a matriz soma.
+	 * @throws MathException se as matrizes tiverem tamanhos diferentes.
+	 */
+	public ComplexMatrix add(ComplexMatrix m) {
+		return copy().addInPlace(m);
+	}
+
+	/**
+	 * @param m a matriz subtraenda.
+	 * @return a matriz diferença.
+	 * @throws MathException se as matrizes tiverem tamanhos diferentes.
+	 */
+	public ComplexMatrix subtract(ComplexMatrix m) {
+		return copy().subtractInPlace(m);
+	}
+
+	/**
+	 * Soma a matriz fornecida a esta, sem alocar uma nova matriz.
+	 * @param m a matriz com a qual esta será somada.
+	 * @return esta matriz.
+	 * @throws MathException se as matrizes tiverem tamanhos diferentes.
+	 */
+	public ComplexMatrix addInPlace(ComplexMatrix m) {
+		checkSameSize(m);
+		int size = lines * columns;
+		MatrixKernels.axpy(1, m.re, 0, re, 0, size);
+		MatrixKernels.axpy(1, m.im, 0, im, 0, size);
+		return this;
+	}
+
+	/**
+	 * Subtrai a matriz fornecida desta, sem alocar uma nova matriz.
+	 * @param m a matriz subtraenda.
+	 * @return esta matriz.
+	 * @throws MathException se as matrizes tiverem tamanhos diferentes.
+	 */
+	public ComplexMatrix subtractInPlace(ComplexMatrix m) {
+		checkSameSize(m);
+		int size = lines * columns;
+		MatrixKernels.axpy(-1, m.re, 0, re, 0, size);
+		MatrixKernels.axpy(-1, m.im, 0, im, 0, size);
+		return this;
+	}
+
+	/**
+	 * @param scalar o escalar real.
+	 * @return esta matriz multiplicada pelo escalar.
+	 */
+	public ComplexMatrix multiplyByScalar(double scalar) {
+		ComplexMatrix result = new ComplexMatrix(lines, columns);
+		int size = lines * columns;
+		MatrixKernels.scale(scalar, re, 0, result.re, 0, size);
+		MatrixKernels.scale(scalar, im, 0, result.im, 0, size);
+		return result;
+	}
+
+	/**
+	 * @param real a parte real do escalar.
+	 * @param imaginary a parte imaginária do escalar.
+	 * @return esta matriz multiplicada pelo escalar complexo.
+	 */
+	public ComplexMatrix multiplyByScalar(double real, double imaginary) {
+		ComplexMatrix result = new ComplexMatrix(lines, columns);
+		for(int k = 0; k < lines * columns; k++) {
+			result.re[k] = re[k] * real - im[k] * imaginary;
+			result.im[k] = re[k] * imaginary + im[k] * real;
+		}
+		return result;
+	}
+
+	/**
+	 * @param scalar o escalar complexo.
+	 * @return esta matriz multiplicada pelo escalar.
+	 */
+	public ComplexMatrix multiplyByScalar(Complex scalar) {
+		return multiplyByScalar(scalar.getReal(), scalar.getImaginary());
+	}
+
+	/**
+	 * Produto elemento a elemento (produto de Hadamard) desta matriz pela
+	 * fornecida, como na aplicação de um filtro no domínio da frequência.
+	 * @param m a matriz, do mesmo tamanho desta.
+	 * @return a matriz dos produtos.
+	 * @throws MathException se as matrizes tiverem tamanhos diferentes.
+	 */
+	public ComplexMatrix multiplyElements(ComplexMatrix m) {
+		checkSameSize(m);
+		ComplexMatrix result = new ComplexMatrix(lines, columns);
+		for(int k = 0; k < lines * columns; k++) {
+			double a = re[k], b = im[k], c = m.re[k], d = m.im[k];
+			result.re[k] = a * c - b * d;
+			result.im[k] = a * d + b * c;
+		}
+		return result;
+	}
+
+	/**
+	 * @return a matriz dos módulos dos elementos desta.
+	 */
+	public Matrix modulus() {
+		double[] result = new double[lines * columns];
+		for(int k = 0; k < result.length; k++) {
+			result[k] = Math.hypot(re[k], im[k]);
+		}
+		return new Matrix(lines, columns, result);
+	}
+
+	/**
+	 * @return a matriz dos conjugados dos elementos desta.
+	 */
+	public ComplexMatrix conjugate() {
+		ComplexMatrix result = new ComplexMatrix(lines, columns);
+		System.arraycopy(re, 0, result.re, 0, lines * columns);
+		MatrixKernels.scale(-1, im, 0, result.im, 0, lines * columns);
+		return result;
+	}
+
+	/**
+	 * @return a matriz transposta desta, sem conjugar os elementos.
+	 */
+	public ComplexMatrix transposed() {
+		ComplexMatrix result = new ComplexMatrix(columns, lines);
+		MatrixKernels.transpose(re, 0, columns, result.re, 0, lines, lines, columns);
+		MatrixKernels.transpose(im, 0, columns, result.im, 0, lines, lines, columns);
+		return result;
+	}
+
+	/**
+	 * Transposta conjugada (ou adjunta hermitiana) desta matriz, denotada
+	 * por A<sup>H</sup>: o elemento ij é o conjugado do elemento ji desta.
+	 * @return a transposta conjugada.
+	 */
+	public ComplexMatrix conjugateTranspose() {
+		ComplexMatrix result = transposed();
+		MatrixKernels.scale(-1, result.im, 0, result.im, 0, lines * columns);
+		return result;
+	}
+
+	/**
+	 * @return true se esta matriz for igual à sua transposta conjugada.
+	 */
+	public boolean isHermitian() {
+		if(!isSquare()) {
+			return false;
+		}
+		for(int i = 0; i < lines; i++) {
+			for(int j = i; j < columns; j++) {
+				int ij = i * columns + j;
+				int ji = j * columns + i;
+				if(re[ij] != re[ji] || im[ij] != -im[ji]) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Multiplicação de matrizes complexas pelo método 3M (o truque de Gauss
+	 * para o produto de complexos): com A = Ar + iAi e B = Br + iBi, são
+	 * calculados apenas os três produtos reais T1 = Ar * Br, T2 = Ai * Bi e
+	 * T3 = (Ar + Ai)(Br + Bi), e o resultado é (T1 - T2) + i(T3 - T1 - T2).
+	 * Isso troca um dos quatro produtos de matrizes reais por algumas somas,
+	 * e cada produto usa o núcleo em blocos de {@link Matrix#multiply(Matrix)}.
+	 * A parte imaginária pode perder um pouco mais de precisão que no produto
+	 * direto quando T3 for muito maior que ela. Produtos pequenos são
+	 * calculados diretamente.
+	 * @param m a matriz para ser multiplicada com esta.
+	 * @return a matriz produto.
+	 * @throws MathException se a quantidade de colunas da primeira for diferente
+	 * da quantidade de linhas da segunda.
+	 */
+	public ComplexMatrix multiply(ComplexMatrix m) {
+		if(columns != m.lines) {
+			throw new MathException("Não é possível multiplicar matrizes tais que o número de colunas da "
+					+ "primeira seja diferente do número de linhas da segunda.");
+		}
+		int n = m.columns;
+		int p = columns;
+		ComplexMatrix result = new ComplexMatrix(lines, n);
+		if((long) lines * n * p <= SMALL_PRODUCT) {
+			multiplySimple(m, result);
+			return result;
+		}
+		int block = Matrix.getBlockSize();
+		double[] t2 = new double[lines * n];
+		MatrixKernels.multiply(re, 0, p, m.re, 0, n, result.re, 0, n, lines, n, p, block);
+		MatrixKernels.multiply(im, 0, p, m.im, 0, n, t2, 0, n, lines, n, p, block);
+		double[] sumA = re.clone();
+		MatrixKernels.axpy(1, im, 0, sumA, 0, lines * p);
+		double[] sumB = m.re.clone();
+		MatrixKernels.axpy(1, m.im, 0, sumB, 0, p * n);
+		MatrixKernels.multiply(sumA, 0, p, sumB, 0, n, result.im, 0, n, lines, n, p, block);
+		double[] r = result.re;
+		double[] i = result.im;
+		for(int k = 0; k < lines * n; k++) {
+			i[k] -= r[k] + t2[k];
+			r[k] -= t2[k];
+		}
+		return result;
+	}
+
+	private void multiplySimple(ComplexMatrix m, ComplexMatrix result) {
+		int n = m.columns;
+		for(int i = 0; i < lines; i++) {
+			int cRow = i * n;
+			for(int k = 0; k < columns; k++) {
+				double a = re[i * columns + k];
+				double b = im[i * columns + k];
+				int bRow = k * n;
+				for(int j = 0; j < n; j++) {
+					double c = m.re[bRow + j];
+					double d = m.im[bRow + j];
+					result.re[cRow + j] += a * c - b * d;
+					result.im[cRow + j] += a * d + b * c;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Decomposição LU com pivotamento parcial desta matriz.
+	 * @return a decomposição LU desta matriz.
+	 * @throws MathException se esta matriz não for quadrada.
+	 */
+	public ComplexLUDecomposition lu() {
+		return new ComplexLUDecomposition(this);
+	}
+
+	/**
+	 * @return o determinante desta matriz, calculado pela decomposição LU.
+	 * @throws MathException se esta matriz não for quadrada.
+	 */
+	public Complex determinant() {
+		if(!isSquare()) {
+			throw new MathException("Determinantes só existem para matrizes quadradas");
+		}
+		return lu().determinant();
+	}
+
+	/**
+	 * Retorna a matriz inversa desta, calculada pela decomposição LU. Assim
+	 * como em {@link Matrix#inverse()}, é retornado null se esta matriz não
+	 * for quadrada ou for singular.
+	 * @return a matriz inversa desta.
+	 */
+	public ComplexMatrix inverse() {
+		if(!isSquare()) {
+			return null;
+		}
+		ComplexLUDecomposition lu = lu();
+		if(lu.isSingular()) {
+			return null;
+		}
+		return lu.inverse();
+	}
+
+	/**
+	 * Resolve o sistema AX = B pela decomposição LU desta matriz.
+	 * @param b a matriz dos termos independentes.
+	 * @return a matriz X solução.
+	 * @throws MathException se esta matriz não for quadrada, for singular ou
+	 * se a quantidade de linhas de B for diferente da desta.
+	 */
+	public ComplexMatrix solve(ComplexMatrix b) {
+		return lu().solve(b);
+	}
+
+	/**
+	 * @return uma cópia desta matriz.
+	 */
+	public ComplexMatrix copy() {
+		return new ComplexMatrix(lines, columns, Arrays.copyOf(re, lines * columns), Arrays.copyOf(im, lines * columns));
+	}
+
+	private void checkSameSize(ComplexMatrix m) {
+		if(m.lines != lines || m.columns != columns) {
+			throw new MathException("As matrizes devem ter o mesmo tamanho: " + lines + "x" + columns);
+		}
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("{");
+		for(int i = 0; i < lines; i++) {
+			sb.append("{");
+			for(int j = 0; j < columns; j++) {
+				sb.append(getValue(i, j) + (j == columns - 1 ? "" : ", "));
+			}
+			sb.append("}" + (i == lines - 1 ? "" : ", "));
+		}
+		sb.append("}");
+		return sb.toString();
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if(o == null) {
+			return false;
+		}
+		if(o == this) {
+			return true;
+		}
+		if(o instanceof ComplexMatrix m) {
+			if(lines != m.lines || columns != m.columns) {
+				return false;
+			}
+			for(int k = 0; k < lines * columns; k++) {
+				if(re[k] != m.re[k] || im[k] != m.im[k]) {
+					return false;
+				}
+			}
+			return true;
+		}
+		return false;
+	}
+
+	@Override
+	public int hashCode() {
+		int hash = 31 * lines + columns;
+		for(int k = 0; k < lines * columns; k++) {
+			// 0.0 e -0.0 são iguais para equals, então precisam do mesmo hash
+			long bits = Double.doubleToLongBits(re[k] == 0 ? 0 : re[k]) * 31
+					+ Double.doubleToLongBits(im[k] == 0 ? 0 : im[k]);
+			hash = 31 * hash + (int) (bits ^ (bits >>> 32));
+		}
+		return hash;
+	}
+
+}
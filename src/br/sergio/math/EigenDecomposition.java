@@ -0,0 +1,306 @@
+package br.sergio.math;
+
+import java.io.Serializable;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Decomposição espectral de uma matriz simétrica. Toda matriz simétrica
+ * real A pode ser escrita como A = VDVᵀ, sendo D a matriz diagonal dos
+ * autovalores (todos reais) e V a matriz ortogonal cujas colunas são os
+ * autovetores correspondentes. A matriz é primeiro reduzida à forma
+ * tridiagonal por reflexões de Householder e os autovalores da matriz
+ * tridiagonal são então obtidos pelo algoritmo QL implícito. O custo total
+ * é O(n³).
+ * @author Sergio Luis
+ *
+ */
+public class EigenDecomposition implements Serializable {
+
+	private static final long serialVersionUID = -4811316394410587293L;
+
+	private int order;
+	private double[] eigenvalues;
+	private double[] eigenvectors;
+
+	/**
+	 * Constrói a decomposição espectral da matriz simétrica fornecida.
+	 * A matriz original não é alterada.
+	 * @param m a matriz simétrica a ser decomposta.
+	 * @throws NullPointerException se a matriz for nula.
+	 * @throws MathException se a matriz não for simétrica.
+	 */
+	public EigenDecomposition(Matrix m) {
+		if(m == null) {
+			throw new NullPointerException("Matriz nula");
+		}
+		if(!m.isSimetric()) {
+			throw new MathException("A decomposição espectral só está disponível para matrizes simétricas");
+		}
+		int n = m.getOrder();
+		order = n;
+		eigenvalues = new double[n];
+		eigenvectors = new double[n * n];
+		m = m.contiguous();
+		double[] data = m.getData();
+		for(int i = 0; i < n; i++) {
+			System.arraycopy(data, m.getOffset() + i * m.getStride(), eigenvectors, i * n, n);
+		}
+		double[] offDiagonal = new double[n];
+		tridiagonalize(offDiagonal);
+		diagonalize(offDiagonal);
+	}
+
+	/**
+	 * Redução à forma tridiagonal por reflexões de Householder. Ao final,
+	 * a diagonal fica em eigenvalues, a subdiagonal em e (a partir da
+	 * posição 1) e as transformações acumuladas em eigenvectors.
+	 */
+	private void tridiagonalize(double[] e) {
+		int n = order;
+		double[] v = eigenvectors;
+		double[] d = eigenvalues;
+		System.arraycopy(v, (n - 1) * n, d, 0, n);
+		for(int i = n - 1; i > 0; i--) {
+			double scale = 0;
+			double h = 0;
+			for(int k = 0; k < i; k++) {
+				scale += Math.abs(d[k]);
+			}
+			if(scale == 0) {
+				e[i] = d[i - 1];
+				for(int j = 0; j < i; j++) {
+					d[j] = v[(i - 1) * n + j];
+					v[i * n + j] = 0;
+					v[j * n + i] = 0;
+				}
+			} else {
+				for(int k = 0; k < i; k++) {
+					d[k] /= scale;
+					h += d[k] * d[k];
+				}
+				double f = d[i - 1];
+				double g = Math.sqrt(h);
+				if(f > 0) {
+					g = -g;
+				}
+				e[i] = scale * g;
+				h -= f * g;
+				d[i - 1] = f - g;
+				for(int j = 0; j < i; j++) {
+					e[j] = 0;
+				}
+				for(int j = 0; j < i; j++) {
+					f = d[j];
+					v[j * n + i] = f;
+					g = e[j] + v[j * n + j] * f;
+					for(int k = j + 1; k <= i - 1; k++) {
+						g += v[k * n + j] * d[k];
+						e[k] += v[k * n + j] * f;
+					}
+					e[j] = g;
+				}
+				f = 0;
+				for(int j = 0; j < i; j++) {
+					e[j] /= h;
+					f += e[j] * d[j];
+				}
+				double hh = f / (h + h);
+				for(int j = 0; j < i; j++) {
+					e[j] -= hh * d[j];
+				}
+				for(int j = 0; j < i; j++) {
+					f = d[j];
+					g = e[j];
+					for(int k = j; k <= i - 1; k++) {
+						v[k * n + j] -= f * e[k] + g * d[k];
+					}
+					d[j] = v[(i - 1) * n + j];
+					v[i * n + j] = 0;
+				}
+			}
+			d[i] = h;
+		}
+		for(int i = 0; i < n - 1; i++) {
+			v[(n - 1) * n + i] = v[i * n + i];
+			v[i * n + i] = 1;
+			double h = d[i + 1];
+			if(h != 0) {
+				for(int k = 0; k <= i; k++) {
+					d[k] = v[k * n + i + 1] / h;
+				}
+				for(int j = 0; j <= i; j++) {
+					double g = 0;
+					for(int k = 0; k <= i; k++) {
+						g += v[k * n + i + 1] * v[k * n + j];
+					}
+					for(int k = 0; k <= i; k++) {
+						v[k * n + j] -= g * d[k];
+					}
+				}
+			}
+			for(int k = 0; k <= i; k++) {
+				v[k * n + i + 1] = 0;
+			}
+		}
+		for(int j = 0; j < n; j++) {
+			d[j] = v[(n - 1) * n + j];
+			v[(n - 1) * n + j] = 0;
+		}
+		v[(n - 1) * n + n - 1] = 1;
+		e[0] = 0;
+	}
+
+	/**
+	 * Algoritmo QL implícito sobre a matriz tridiagonal, seguido da
+	 * ordenação crescente dos autovalores e de seus autovetores.
+	 */
+	private void diagonalize(double[] e) {
+		int n = order;
+		double[] v = eigenvectors;
+		double[] d = eigenvalues;
+		for(int i = 1; i < n; i++) {
+			e[i - 1] = e[i];
+		}
+		e[n - 1] = 0;
+		double f = 0;
+		double tst1 = 0;
+		double eps = Math.ulp(1.0);
+		for(int l = 0; l < n; l++) {
+			tst1 = Math.max(tst1, Math.abs(d[l]) + Math.abs(e[l]));
+			int m = l;
+			while(m < n) {
+				if(Math.abs(e[m]) <= eps * tst1) {
+					break;
+				}
+				m++;
+			}
+			if(m > l) {
+				int iterations = 0;
+				do {
+					if(++iterations > 30 * n) {
+						throw new MathException("O algoritmo QL não convergiu");
+					}
+					double g = d[l];
+					double p = (d[l + 1] - g) / (2 * e[l]);
+					double r = Math.hypot(p, 1);
+					if(p < 0) {
+						r = -r;
+					}
+					d[l] = e[l] / (p + r);
+					d[l + 1] = e[l] * (p + r);
+					double dl1 = d[l + 1];
+					double h = g - d[l];
+					for(int i = l + 2; i < n; i++) {
+						d[i] -= h;
+					}
+					f += h;
+					p = d[m];
+					double c = 1;
+					double c2 = c;
+					double c3 = c;
+					double el1 = e[l + 1];
+					double s = 0;
+					double s2 = 0;
+					for(int i = m - 1; i >= l; i--) {
+						c3 = c2;
+						c2 = c;
+						s2 = s;
+						g = c * e[i];
+						h = c * p;
+						r = Math.hypot(p, e[i]);
+						e[i + 1] = s * r;
+						s = e[i] / r;
+						c = p / r;
+						p = c * d[i] - s * g;
+						d[i + 1] = h + s * (c * g + s * d[i]);
+						for(int k = 0; k < n; k++) {
+							int row = k * n;
+							h = v[row + i + 1];
+							v[row + i + 1] = s * v[row + i] + c * h;
+							v[row + i] = c * v[row + i] - s * h;
+						}
+					}
+					p = -s * s2 * c3 * el1 * e[l] / dl1;
+					e[l] = s * p;
+					d[l] = c * p;
+				} while(Math.abs(e[l]) > eps * tst1);
+			}
+			d[l] += f;
+			e[l] = 0;
+		}
+		for(int i = 0; i < n - 1; i++) {
+			int k = i;
+			double p = d[i];
+			for(int j = i + 1; j < n; j++) {
+				if(d[j] < p) {
+					k = j;
+					p = d[j];
+				}
+			}
+			if(k != i) {
+				d[k] = d[i];
+				d[i] = p;
+				for(int j = 0; j < n; j++) {
+					int row = j * n;
+					double temp = v[row + i];
+					v[row + i] = v[row + k];
+					v[row + k] = temp;
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return a ordem da matriz decomposta.
+	 */
+	public int getOrder() {
+		return order;
+	}
+
+	/**
+	 * @return uma cópia dos autovalores, em ordem crescente.
+	 */
+	public double[] getEigenvalues() {
+		return eigenvalues.clone();
+	}
+
+	/**
+	 * @return a matriz ortogonal V, cuja coluna j é o autovetor
+	 * correspondente ao j-ésimo autovalor.
+	 */
+	public Matrix getEigenvectors() {
+		return new Matrix(order, order, eigenvectors.clone());
+	}
+
+	/**
+	 * @return a matriz diagonal D dos autovalores.
+	 */
+	public Matrix getD() {
+		Matrix d = new Matrix(order);
+		for(int i = 0; i < order; i++) {
+			d.setValue(i, i, eigenvalues[i]);
+		}
+		return d;
+	}
+
+	/**
+	 * Aplica uma função à matriz decomposta através de seus autovalores,
+	 * retornando Vf(D)Vᵀ. Por exemplo, a função x -> x * x retorna A², e
+	 * a função Math::exp retorna a exponencial de A.
+	 * @param function a função a ser aplicada a cada autovalor.
+	 * @return a matriz resultante.
+	 */
+	public Matrix apply(DoubleUnaryOperator function) {
+		int n = order;
+		double[] scaled = new double[n * n];
+		for(int j = 0; j < n; j++) {
+			double value = function.applyAsDouble(eigenvalues[j]);
+			for(int i = 0; i < n; i++) {
+				scaled[i * n + j] = eigenvectors[i * n + j] * value;
+			}
+		}
+		Matrix v = new Matrix(n, n, eigenvectors);
+		return new Matrix(n, n, scaled).multiply(v.transposed());
+	}
+
+}
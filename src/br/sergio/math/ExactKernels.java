@@ -0,0 +1,308 @@
+package br.sergio.math;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Núcleos de aritmética exata usados por {@link RationalMatrix}. As matrizes
+ * são arrays de inteiros guardados linha por linha, e todas as eliminações
+ * são livres de frações (algoritmo de Bareiss): cada passo multiplica pelo
+ * pivô atual e divide exatamente pelo anterior, de modo que todos os valores
+ * intermediários são inteiros, menores da matriz original, e o custo é de
+ * O(n³) operações inteiras.
+ * @author Sergio Luis
+ *
+ */
+final class ExactKernels {
+
+	/**
+	 * A partir desta ordem, o determinante de matrizes cujos elementos não
+	 * cabem em long é calculado por aritmética modular e teorema chinês do
+	 * resto, que faz O(n³) operações em long para cada primo em vez de
+	 * O(n³) operações com inteiros que crescem a cada passo.
+	 */
+	static final int MODULAR_THRESHOLD = 16;
+
+	/**
+	 * Primos menores que 2³¹ usados no determinante modular, do maior para o
+	 * menor, de modo que o produto de dois resíduos caiba em long. A lista é
+	 * estendida conforme a necessidade.
+	 */
+	private static final List<Long> PRIMES = new ArrayList<>();
+
+	private ExactKernels() {
+	}
+
+	/**
+	 * @return o determinante da matriz quadrada de ordem n. A matriz não é
+	 * alterada. É tentada primeiro a eliminação em long; se algum valor
+	 * intermediário transbordar, é usada a eliminação modular (para ordens a
+	 * partir de {@link #MODULAR_THRESHOLD}) ou a de Bareiss com BigInteger.
+	 */
+	static BigInteger determinant(BigInteger[] a, int n) {
+		if(n == 0) {
+			return BigInteger.ONE;
+		}
+		long[] small = toLong(a);
+		if(small != null) {
+			try {
+				return BigInteger.valueOf(determinant(small, n));
+			} catch(ArithmeticException e) {
+				// algum menor não cabe em long; segue com inteiros grandes
+			}
+		}
+		if(n >= MODULAR_THRESHOLD) {
+			return modularDeterminant(a, n);
+		}
+		return bareissDeterminant(a.clone(), n);
+	}
+
+	private static long[] toLong(BigInteger[] a) {
+		long[] small = new long[a.length];
+		for(int i = 0; i < a.length; i++) {
+			if(a[i].bitLength() > 62) {
+				return null;
+			}
+			small[i] = a[i].longValue();
+		}
+		return small;
+	}
+
+	/**
+	 * Eliminação de Bareiss em long, que altera a matriz.
+	 * @throws ArithmeticException se algum valor intermediário transbordar.
+	 */
+	static long determinant(long[] a, int n) {
+		long previous = 1;
+		boolean negative = false;
+		for(int k = 0; k < n - 1; k++) {
+			int pivot = k;
+			while(pivot < n && a[pivot * n + k] == 0) {
+				pivot++;
+			}
+			if(pivot == n) {
+				return 0;
+			}
+			if(pivot != k) {
+				swapRows(a, n, pivot, k);
+				negative = !negative;
+			}
+			long akk = a[k * n + k];
+			for(int i = k + 1; i < n; i++) {
+				long aik = a[i * n + k];
+				for(int j = k + 1; j < n; j++) {
+					long value = Math.subtractExact(Math.multiplyExact(akk, a[i * n + j]),
+							Math.multiplyExact(aik, a[k * n + j]));
+					a[i * n + j] = value / previous;
+				}
+				a[i * n + k] = 0;
+			}
+			previous = akk;
+		}
+		long det = a[n * n - 1];
+		return negative ? Math.negateExact(det) : det;
+	}
+
+	/**
+	 * Eliminação de Bareiss com BigInteger, que altera a matriz.
+	 */
+	static BigInteger bareissDeterminant(BigInteger[] a, int n) {
+		BigInteger previous = BigInteger.ONE;
+		boolean negative = false;
+		for(int k = 0; k < n - 1; k++) {
+			int pivot = k;
+			while(pivot < n && a[pivot * n + k].signum() == 0) {
+				pivot++;
+			}
+			if(pivot == n) {
+				return BigInteger.ZERO;
+			}
+			if(pivot != k) {
+				swapRows(a, n, pivot, k);
+				negative = !negative;
+			}
+			BigInteger akk = a[k * n + k];
+			for(int i = k + 1; i < n; i++) {
+				BigInteger aik = a[i * n + k];
+				for(int j = k + 1; j < n; j++) {
+					a[i * n + j] = akk.multiply(a[i * n + j]).subtract(aik.multiply(a[k * n + j])).divide(previous);
+				}
+				a[i * n + k] = BigInteger.ZERO;
+			}
+			previous = akk;
+		}
+		BigInteger det = a[n * n - 1];
+		return negative ? det.negate() : det;
+	}
+
+	/**
+	 * Determinante por aritmética modular: calcula o determinante módulo
+	 * primos de 31 bits por eliminação gaussiana e reconstrói o valor pelo
+	 * teorema chinês do resto (na forma de Garner). A quantidade de primos é
+	 * dada pela cota de Hadamard, que limita o valor absoluto do determinante
+	 * ao produto das normas das linhas; assim, o resultado é exato.
+	 */
+	static BigInteger modularDeterminant(BigInteger[] a, int n) {
+		long bound = 1;
+		for(int i = 0; i < n; i++) {
+			BigInteger norm = BigInteger.ZERO;
+			for(int j = 0; j < n; j++) {
+				norm = norm.add(a[i * n + j].multiply(a[i * n + j]));
+			}
+			bound += (norm.bitLength() + 1) / 2;
+		}
+		BigInteger result = BigInteger.ZERO;
+		BigInteger modulus = BigInteger.ONE;
+		long[] residues = new long[n * n];
+		for(int index = 0; modulus.bitLength() <= bound + 1; index++) {
+			long p = prime(index);
+			BigInteger bigP = BigInteger.valueOf(p);
+			for(int i = 0; i < residues.length; i++) {
+				residues[i] = a[i].mod(bigP).longValue();
+			}
+			long det = modularDeterminant(residues, n, p);
+			long current = result.mod(bigP).longValue();
+			long inverse = modulus.mod(bigP).modInverse(bigP).longValue();
+			long t = Math.floorMod(det - current, p) * inverse % p;
+			result = result.add(modulus.multiply(BigInteger.valueOf(t)));
+			modulus = modulus.multiply(bigP);
+		}
+		if(result.shiftLeft(1).compareTo(modulus) > 0) {
+			result = result.subtract(modulus);
+		}
+		return result;
+	}
+
+	private static long modularDeterminant(long[] a, int n, long p) {
+		long det = 1;
+		for(int k = 0; k < n; k++) {
+			int pivot = k;
+			while(pivot < n && a[pivot * n + k] == 0) {
+				pivot++;
+			}
+			if(pivot == n) {
+				return 0;
+			}
+			if(pivot != k) {
+				swapRows(a, n, pivot, k);
+				det = p - det;
+			}
+			long akk = a[k * n + k];
+			det = det * akk % p;
+			long inverse = modInverse(akk, p);
+			for(int i = k + 1; i < n; i++) {
+				long factor = a[i * n + k] * inverse % p;
+				if(factor == 0) {
+					continue;
+				}
+				int row = i * n;
+				int pivotRow = k * n;
+				for(int j = k + 1; j < n; j++) {
+					long value = a[row + j] - factor * a[pivotRow + j] % p;
+					a[row + j] = value < 0 ? value + p : value;
+				}
+			}
+		}
+		return det;
+	}
+
+	private static long modInverse(long value, long p) {
+		long result = 1;
+		long base = value;
+		for(long e = p - 2; e > 0; e >>= 1) {
+			if((e & 1) == 1) {
+				result = result * base % p;
+			}
+			base = base * base % p;
+		}
+		return result;
+	}
+
+	private static long prime(int index) {
+		synchronized(PRIMES) {
+			long candidate = PRIMES.isEmpty() ? Integer.MAX_VALUE : PRIMES.get(PRIMES.size() - 1) - 2;
+			while(PRIMES.size() <= index) {
+				if(BigInteger.valueOf(candidate).isProbablePrime(64)) {
+					PRIMES.add(candidate);
+				}
+				candidate -= 2;
+			}
+			return PRIMES.get(index);
+		}
+	}
+
+	/**
+	 * Eliminação livre de frações sobre a matriz rows x columns, que é
+	 * alterada. Os pivôs são procurados apenas nas primeiras pivotColumns
+	 * colunas, mas as linhas são atualizadas por inteiro. Se reduce for
+	 * falso, apenas as linhas abaixo de cada pivô são eliminadas (forma
+	 * escalonada); se for verdadeiro, também as de cima (Gauss-Jordan), e ao
+	 * final todos os pivôs têm o mesmo valor, que é retornado em pivot[0].
+	 * Pivôs nulos são pulados, o que permite matrizes singulares e
+	 * retangulares.
+	 * @param pivots recebe as colunas dos pivôs de cada linha.
+	 * @param pivot recebe o valor do último pivô.
+	 * @return o posto, ou seja, a quantidade de pivôs.
+	 */
+	static int eliminate(BigInteger[] a, int rows, int columns, int pivotColumns, boolean reduce,
+			int[] pivots, BigInteger[] pivot) {
+		BigInteger previous = BigInteger.ONE;
+		int rank = 0;
+		for(int k = 0; k < pivotColumns && rank < rows; k++) {
+			int row = rank;
+			while(row < rows && a[row * columns + k].signum() == 0) {
+				row++;
+			}
+			if(row == rows) {
+				continue;
+			}
+			swapRows(a, columns, row, rank);
+			int pivotRow = rank * columns;
+			BigInteger akk = a[pivotRow + k];
+			for(int i = reduce ? 0 : rank + 1; i < rows; i++) {
+				if(i == rank) {
+					continue;
+				}
+				int current = i * columns;
+				BigInteger aik = a[current + k];
+				// abaixo do pivô, as colunas anteriores a k já são nulas
+				for(int j = i > rank ? k + 1 : 0; j < columns; j++) {
+					if(j == k) {
+						continue;
+					}
+					BigInteger value = akk.multiply(a[current + j]);
+					if(aik.signum() != 0) {
+						value = value.subtract(aik.multiply(a[pivotRow + j]));
+					}
+					a[current + j] = value.divide(previous);
+				}
+				a[current + k] = BigInteger.ZERO;
+			}
+			pivots[rank++] = k;
+			previous = akk;
+		}
+		pivot[0] = previous;
+		return rank;
+	}
+
+	private static void swapRows(long[] a, int columns, int i, int k) {
+		for(int j = 0; j < columns; j++) {
+			long temp = a[i * columns + j];
+			a[i * columns + j] = a[k * columns + j];
+			a[k * columns + j] = temp;
+		}
+	}
+
+	private static void swapRows(BigInteger[] a, int columns, int i, int k) {
+		if(i == k) {
+			return;
+		}
+		for(int j = 0; j < columns; j++) {
+			BigInteger temp = a[i * columns + j];
+			a[i * columns + j] = a[k * columns + j];
+			a[k * columns + j] = temp;
+		}
+	}
+
+}
@@ -0,0 +1,111 @@
+package br.sergio.math;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Pré-condicionador de fatoração LU incompleta sem preenchimento, ILU(0).
+ * A matriz esparsa A é aproximada por LU, sendo L e U calculados pela
+ * eliminação gaussiana restrita às posições onde A já tem elementos não
+ * nulos. Assim, L e U ocupam a mesma memória de A, e aplicar o
+ * pré-condicionador custa duas substituições esparsas.
+ * @author Sergio Luis
+ *
+ */
+public class IncompleteLUPreconditioner implements Preconditioner, Serializable {
+
+	private static final long serialVersionUID = -5627150851330434117L;
+
+	private int order;
+	private int[] pointers;
+	private int[] indices;
+	private double[] values;
+	private int[] diagonal;
+
+	/**
+	 * Constrói o pré-condicionador com os elementos não nulos da matriz densa
+	 * fornecida. Veja {@link #IncompleteLUPreconditioner(SparseMatrix)}.
+	 * @param m a matriz do sistema.
+	 */
+	public IncompleteLUPreconditioner(Matrix m) {
+		this(new SparseMatrix(m));
+	}
+
+	/**
+	 * Constrói o pré-condicionador fatorando a matriz esparsa fornecida, que
+	 * não é alterada.
+	 * @param m a matriz do sistema.
+	 * @throws MathException se a matriz não for quadrada, se faltar algum
+	 * elemento na diagonal ou se algum pivô se anular.
+	 */
+	public IncompleteLUPreconditioner(SparseMatrix m) {
+		if(m.getLines() != m.getColumns()) {
+			throw new MathException("A fatoração LU incompleta requer uma matriz quadrada");
+		}
+		SparseMatrix csr = m.toCSR();
+		order = csr.getLines();
+		pointers = csr.getPointers();
+		indices = csr.getIndices();
+		values = Arrays.copyOf(csr.getValues(), csr.getNonZeros());
+		diagonal = new int[order];
+		for(int i = 0; i < order; i++) {
+			diagonal[i] = Arrays.binarySearch(indices, pointers[i], pointers[i + 1], i);
+			if(diagonal[i] < 0) {
+				throw new MathException("Falta o elemento da diagonal na linha " + i);
+			}
+		}
+		decompose();
+	}
+
+	private void decompose() {
+		int[] position = new int[order];
+		Arrays.fill(position, -1);
+		for(int i = 0; i < order; i++) {
+			int start = pointers[i];
+			int end = pointers[i + 1];
+			for(int k = start; k < end; k++) {
+				position[indices[k]] = k;
+			}
+			for(int k = start; k < end && indices[k] < i; k++) {
+				int column = indices[k];
+				double pivot = values[diagonal[column]];
+				if(pivot == 0) {
+					throw new MathException("Pivô nulo na linha " + column);
+				}
+				double factor = values[k] / pivot;
+				values[k] = factor;
+				for(int j = diagonal[column] + 1; j < pointers[column + 1]; j++) {
+					int target = position[indices[j]];
+					if(target != -1) {
+						values[target] -= factor * values[j];
+					}
+				}
+			}
+			if(values[diagonal[i]] == 0) {
+				throw new MathException("Pivô nulo na linha " + i);
+			}
+			for(int k = start; k < end; k++) {
+				position[indices[k]] = -1;
+			}
+		}
+	}
+
+	@Override
+	public void apply(double[] r, double[] z) {
+		for(int i = 0; i < order; i++) {
+			double sum = r[i];
+			for(int k = pointers[i]; k < diagonal[i]; k++) {
+				sum -= values[k] * z[indices[k]];
+			}
+			z[i] = sum;
+		}
+		for(int i = order - 1; i >= 0; i--) {
+			double sum = z[i];
+			for(int k = diagonal[i] + 1; k < pointers[i + 1]; k++) {
+				sum -= values[k] * z[indices[k]];
+			}
+			z[i] = sum / values[diagonal[i]];
+		}
+	}
+
+}
@@ -0,0 +1,537 @@
+package br.sergio.math;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Métodos iterativos de Krylov para sistemas lineares Ax = b. Ao contrário
+ * das decomposições, esses métodos só precisam multiplicar A por vetores,
+ * de forma que funcionam com qualquer {@link LinearOperator}: matrizes
+ * esparsas enormes ou operadores definidos implicitamente, sem nunca
+ * formar a matriz densa.
+ * <ul>
+ * <li>{@link #conjugateGradient(LinearOperator, double[])}: gradientes
+ * conjugados, para matrizes simétricas positivas definidas;</li>
+ * <li>{@link #biCGStab(LinearOperator, double[])}: gradientes biconjugados
+ * estabilizado, para matrizes quaisquer, com memória constante;</li>
+ * <li>{@link #gmres(LinearOperator, double[])}: GMRES com reinício, para
+ * matrizes quaisquer, minimizando o resíduo a cada iteração.</li>
+ * </ul>
+ * <p>Uma instância guarda apenas a configuração (tolerância, limite de
+ * iterações, pré-condicionador e observador), então pode ser reutilizada
+ * para resolver vários sistemas. O critério de parada é a norma do resíduo
+ * relativa à norma de b: ||b - Ax|| / ||b|| menor ou igual à tolerância.
+ * Se o método não convergir dentro do limite de iterações, nenhuma exceção
+ * é lançada: a melhor aproximação obtida é retornada e
+ * {@link Result#hasConverged()} retorna false.
+ * @author Sergio Luis
+ *
+ */
+public class IterativeSolver implements Serializable {
+
+	private static final long serialVersionUID = 6259931541804175328L;
+
+	/**
+	 * Tolerância padrão do resíduo relativo.
+	 */
+	public static final double DEFAULT_TOLERANCE = 1e-10;
+
+	/**
+	 * Limite padrão de iterações.
+	 */
+	public static final int DEFAULT_MAX_ITERATIONS = 1000;
+
+	/**
+	 * Quantidade padrão de iterações do GMRES entre reinícios.
+	 */
+	public static final int DEFAULT_RESTART = 30;
+
+	private double tolerance = DEFAULT_TOLERANCE;
+	private int maxIterations = DEFAULT_MAX_ITERATIONS;
+	private int restart = DEFAULT_RESTART;
+	private Preconditioner preconditioner;
+	private IterationListener listener;
+
+	/**
+	 * Observador do progresso de um método iterativo, chamado ao final de
+	 * cada iteração.
+	 */
+	@FunctionalInterface
+	public interface IterationListener {
+
+		/**
+		 * @param iteration o número da iteração, começando em 1.
+		 * @param residual a norma do resíduo relativa à norma de b.
+		 */
+		void iteration(int iteration, double residual);
+
+	}
+
+	/**
+	 * Resultado de um método iterativo.
+	 */
+	public static class Result implements Serializable {
+
+		private static final long serialVersionUID = -3088426526040953916L;
+
+		private double[] solution;
+		private int iterations;
+		private double residual;
+		private boolean converged;
+
+		private Result(double[] solution, int iterations, double residual, boolean converged) {
+			this.solution = solution;
+			this.iterations = iterations;
+			this.residual = residual;
+			this.converged = converged;
+		}
+
+		/**
+		 * @return a solução aproximada x.
+		 */
+		public double[] getSolution() {
+			return solution;
+		}
+
+		/**
+		 * @return a quantidade de iterações realizadas.
+		 */
+		public int getIterations() {
+			return iterations;
+		}
+
+		/**
+		 * @return a norma do resíduo relativa à norma de b ao final do método.
+		 */
+		public double getResidual() {
+			return residual;
+		}
+
+		/**
+		 * @return true se o resíduo relativo atingiu a tolerância.
+		 */
+		public boolean hasConverged() {
+			return converged;
+		}
+
+		@Override
+		public String toString() {
+			return "Result[iterations=" + iterations + ", residual=" + residual + ", converged=" + converged + "]";
+		}
+
+	}
+
+	/**
+	 * Constrói um resolvedor com a configuração padrão e sem pré-condicionador.
+	 */
+	public IterativeSolver() {
+	}
+
+	/**
+	 * Constrói um resolvedor com a tolerância e o limite de iterações fornecidos.
+	 * @param tolerance a tolerância do resíduo relativo.
+	 * @param maxIterations o limite de iterações.
+	 * @throws IllegalArgumentException se a tolerância for negativa ou se o
+	 * limite de iterações não for positivo.
+	 */
+	public IterativeSolver(double tolerance, int maxIterations) {
+		setTolerance(tolerance);
+		setMaxIterations(maxIterations);
+	}
+
+	/**
+	 * @return a tolerância do resíduo relativo.
+	 */
+	public double getTolerance() {
+		return tolerance;
+	}
+
+	/**
+	 * @param tolerance a tolerância do resíduo relativo.
+	 * @throws IllegalArgumentException se a tolerância for negativa ou NaN.
+	 */
+	public void setTolerance(double tolerance) {
+		if(!(tolerance >= 0)) {
+			throw new IllegalArgumentException("Tolerância inválida: " + tolerance);
+		}
+		this.tolerance = tolerance;
+	}
+
+	/**
+	 * @return o limite de iterações.
+	 */
+	public int getMaxIterations() {
+		return maxIterations;
+	}
+
+	/**
+	 * @param maxIterations o limite de iterações.
+	 * @throws IllegalArgumentException se o limite não for positivo.
+	 */
+	public void setMaxIterations(int maxIterations) {
+		if(maxIterations < 1) {
+			throw new IllegalArgumentException("O limite de iterações deve ser positivo");
+		}
+		this.maxIterations = maxIterations;
+	}
+
+	/**
+	 * @return a quantidade de iterações do GMRES entre reinícios.
+	 */
+	public int getRestart() {
+		return restart;
+	}
+
+	/**
+	 * Define a quantidade de iterações do GMRES entre reinícios. O GMRES
+	 * guarda um vetor por iteração, então valores maiores convergem em menos
+	 * iterações mas usam mais memória.
+	 * @param restart a quantidade de iterações entre reinícios.
+	 * @throws IllegalArgumentException se a quantidade não for positiva.
+	 */
+	public void setRestart(int restart) {
+		if(restart < 1) {
+			throw new IllegalArgumentException("A quantidade de iterações entre reinícios deve ser positiva");
+		}
+		this.restart = restart;
+	}
+
+	/**
+	 * @return o pré-condicionador, ou null se não houver.
+	 */
+	public Preconditioner getPreconditioner() {
+		return preconditioner;
+	}
+
+	/**
+	 * @param preconditioner o pré-condicionador, ou null para nenhum.
+	 */
+	public void setPreconditioner(Preconditioner preconditioner) {
+		this.preconditioner = preconditioner;
+	}
+
+	/**
+	 * @return o observador das iterações, ou null se não houver.
+	 */
+	public IterationListener getListener() {
+		return listener;
+	}
+
+	/**
+	 * @param listener o observador das iterações, ou null para nenhum.
+	 */
+	public void setListener(IterationListener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * Método dos gradientes conjugados partindo de x = 0.
+	 * Veja {@link #conjugateGradient(LinearOperator, double[], double[])}.
+	 */
+	public Result conjugateGradient(LinearOperator a, double[] b) {
+		return conjugateGradient(a, b, null);
+	}
+
+	/**
+	 * Método dos gradientes conjugados, para operadores simétricos positivos
+	 * definidos. Em aritmética exata converge em no máximo n iterações; na
+	 * prática, a quantidade de iterações depende do número de condição de A.
+	 * O pré-condicionador, se houver, também deve ser simétrico positivo
+	 * definido.
+	 * @param a o operador do sistema.
+	 * @param b o vetor dos termos independentes.
+	 * @param x0 a aproximação inicial, que não é alterada, ou null para o vetor nulo.
+	 * @return o resultado do método.
+	 * @throws MathException se os tamanhos forem incompatíveis.
+	 */
+	public Result conjugateGradient(LinearOperator a, double[] b, double[] x0) {
+		int n = checkSystem(a, b, x0);
+		double[] x = initial(x0, n);
+		double bNorm = norm(b);
+		if(bNorm == 0) {
+			return new Result(new double[n], 0, 0, true);
+		}
+		double[] r = residual(a, b, x);
+		double[] z = precondition(r, new double[n]);
+		double[] p = z.clone();
+		double[] q = new double[n];
+		double rz = dot(r, z);
+		double relative = norm(r) / bNorm;
+		if(relative <= tolerance) {
+			return new Result(x, 0, relative, true);
+		}
+		for(int iteration = 1; iteration <= maxIterations; iteration++) {
+			a.apply(p, q);
+			double pq = dot(p, q);
+			if(pq == 0) {
+				return new Result(x, iteration - 1, relative, false);
+			}
+			double alpha = rz / pq;
+			MatrixKernels.axpy(alpha, p, 0, x, 0, n);
+			MatrixKernels.axpy(-alpha, q, 0, r, 0, n);
+			relative = norm(r) / bNorm;
+			report(iteration, relative);
+			if(relative <= tolerance) {
+				return new Result(x, iteration, relative, true);
+			}
+			precondition(r, z);
+			double rzNew = dot(r, z);
+			double beta = rzNew / rz;
+			rz = rzNew;
+			for(int i = 0; i < n; i++) {
+				p[i] = z[i] + beta * p[i];
+			}
+		}
+		return new Result(x, maxIterations, relative, false);
+	}
+
+	/**
+	 * Método BiCGSTAB partindo de x = 0.
+	 * Veja {@link #biCGStab(LinearOperator, double[], double[])}.
+	 */
+	public Result biCGStab(LinearOperator a, double[] b) {
+		return biCGStab(a, b, null);
+	}
+
+	/**
+	 * Método dos gradientes biconjugados estabilizado (BiCGSTAB), para
+	 * operadores quaisquer. Cada iteração faz duas multiplicações por A e usa
+	 * memória constante. O pré-condicionador é aplicado à direita. Se o
+	 * método sofrer uma quebra (divisão por zero nos coeficientes), ele para e
+	 * retorna a aproximação obtida até então, sem convergência.
+	 * @param a o operador do sistema.
+	 * @param b o vetor dos termos independentes.
+	 * @param x0 a aproximação inicial, que não é alterada, ou null para o vetor nulo.
+	 * @return o resultado do método.
+	 * @throws MathException se os tamanhos forem incompatíveis.
+	 */
+	public Result biCGStab(LinearOperator a, double[] b, double[] x0) {
+		int n = checkSystem(a, b, x0);
+		double[] x = initial(x0, n);
+		double bNorm = norm(b);
+		if(bNorm == 0) {
+			return new Result(new double[n], 0, 0, true);
+		}
+		double[] r = residual(a, b, x);
+		double relative = norm(r) / bNorm;
+		if(relative <= tolerance) {
+			return new Result(x, 0, relative, true);
+		}
+		double[] shadow = r.clone();
+		double[] p = new double[n];
+		double[] v = new double[n];
+		double[] pHat = new double[n];
+		double[] sHat = new double[n];
+		double[] t = new double[n];
+		double rho = 1, alpha = 1, omega = 1;
+		for(int iteration = 1; iteration <= maxIterations; iteration++) {
+			double rhoNew = dot(shadow, r);
+			if(rhoNew == 0) {
+				return new Result(x, iteration - 1, relative, false);
+			}
+			if(iteration == 1) {
+				System.arraycopy(r, 0, p, 0, n);
+			} else {
+				double beta = (rhoNew / rho) * (alpha / omega);
+				for(int i = 0; i < n; i++) {
+					p[i] = r[i] + beta * (p[i] - omega * v[i]);
+				}
+			}
+			rho = rhoNew;
+			precondition(p, pHat);
+			a.apply(pHat, v);
+			double shadowV = dot(shadow, v);
+			if(shadowV == 0) {
+				return new Result(x, iteration - 1, relative, false);
+			}
+			alpha = rho / shadowV;
+			MatrixKernels.axpy(-alpha, v, 0, r, 0, n);
+			MatrixKernels.axpy(alpha, pHat, 0, x, 0, n);
+			relative = norm(r) / bNorm;
+			if(relative <= tolerance) {
+				report(iteration, relative);
+				return new Result(x, iteration, relative, true);
+			}
+			precondition(r, sHat);
+			a.apply(sHat, t);
+			double tt = dot(t, t);
+			omega = tt == 0 ? 0 : dot(t, r) / tt;
+			MatrixKernels.axpy(omega, sHat, 0, x, 0, n);
+			MatrixKernels.axpy(-omega, t, 0, r, 0, n);
+			relative = norm(r) / bNorm;
+			report(iteration, relative);
+			if(relative <= tolerance) {
+				return new Result(x, iteration, relative, true);
+			}
+			if(omega == 0) {
+				return new Result(x, iteration, relative, false);
+			}
+		}
+		return new Result(x, maxIterations, relative, false);
+	}
+
+	/**
+	 * Método GMRES partindo de x = 0.
+	 * Veja {@link #gmres(LinearOperator, double[], double[])}.
+	 */
+	public Result gmres(LinearOperator a, double[] b) {
+		return gmres(a, b, null);
+	}
+
+	/**
+	 * Método GMRES com reinício, para operadores quaisquer. A cada iteração,
+	 * encontra no subespaço de Krylov construído até então a aproximação de
+	 * menor resíduo, de forma que o resíduo nunca aumenta. Como a base do
+	 * subespaço cresce um vetor por iteração, o método é reiniciado a cada
+	 * {@link #getRestart()} iterações a partir da aproximação corrente. O
+	 * pré-condicionador é aplicado à direita, então o resíduo monitorado é o
+	 * do sistema original.
+	 * @param a o operador do sistema.
+	 * @param b o vetor dos termos independentes.
+	 * @param x0 a aproximação inicial, que não é alterada, ou null para o vetor nulo.
+	 * @return o resultado do método.
+	 * @throws MathException se os tamanhos forem incompatíveis.
+	 */
+	public Result gmres(LinearOperator a, double[] b, double[] x0) {
+		int n = checkSystem(a, b, x0);
+		double[] x = initial(x0, n);
+		double bNorm = norm(b);
+		if(bNorm == 0) {
+			return new Result(new double[n], 0, 0, true);
+		}
+		int m = Math.min(restart, n);
+		double[][] basis = new double[m + 1][];
+		basis[0] = new double[n];
+		double[] h = new double[(m + 1) * m];
+		double[] cosines = new double[m];
+		double[] sines = new double[m];
+		double[] g = new double[m + 1];
+		double[] y = new double[m];
+		double[] z = new double[n];
+		double[] w = new double[n];
+		double relative = Double.NaN;
+		int iteration = 0;
+		while(true) {
+			double[] r = basis[0];
+			a.apply(x, r);
+			for(int i = 0; i < n; i++) {
+				r[i] = b[i] - r[i];
+			}
+			double beta = norm(r);
+			relative = beta / bNorm;
+			if(relative <= tolerance) {
+				return new Result(x, iteration, relative, true);
+			}
+			if(iteration >= maxIterations) {
+				return new Result(x, iteration, relative, false);
+			}
+			MatrixKernels.scale(1 / beta, r, 0, r, 0, n);
+			Arrays.fill(g, 0);
+			g[0] = beta;
+			int k = 0;
+			boolean stop = false;
+			while(k < m && !stop) {
+				precondition(basis[k], z);
+				a.apply(z, w);
+				for(int i = 0; i <= k; i++) {
+					double hik = dot(w, basis[i]);
+					h[i * m + k] = hik;
+					MatrixKernels.axpy(-hik, basis[i], 0, w, 0, n);
+				}
+				double next = norm(w);
+				if(next != 0) {
+					if(basis[k + 1] == null) {
+						basis[k + 1] = new double[n];
+					}
+					MatrixKernels.scale(1 / next, w, 0, basis[k + 1], 0, n);
+				}
+				for(int i = 0; i < k; i++) {
+					double upper = h[i * m + k];
+					double lower = h[(i + 1) * m + k];
+					h[i * m + k] = cosines[i] * upper + sines[i] * lower;
+					h[(i + 1) * m + k] = -sines[i] * upper + cosines[i] * lower;
+				}
+				double diagonal = h[k * m + k];
+				double radius = Math.hypot(diagonal, next);
+				cosines[k] = diagonal / radius;
+				sines[k] = next / radius;
+				h[k * m + k] = radius;
+				h[(k + 1) * m + k] = 0;
+				g[k + 1] = -sines[k] * g[k];
+				g[k] *= cosines[k];
+				k++;
+				iteration++;
+				relative = Math.abs(g[k]) / bNorm;
+				report(iteration, relative);
+				stop = relative <= tolerance || iteration >= maxIterations || next == 0;
+			}
+			for(int i = k - 1; i >= 0; i--) {
+				double sum = g[i];
+				for(int j = i + 1; j < k; j++) {
+					sum -= h[i * m + j] * y[j];
+				}
+				y[i] = sum / h[i * m + i];
+			}
+			Arrays.fill(w, 0);
+			for(int i = 0; i < k; i++) {
+				MatrixKernels.axpy(y[i], basis[i], 0, w, 0, n);
+			}
+			precondition(w, z);
+			MatrixKernels.axpy(1, z, 0, x, 0, n);
+		}
+	}
+
+	private static int checkSystem(LinearOperator a, double[] b, double[] x0) {
+		if(a == null) {
+			throw new NullPointerException("Operador nulo");
+		}
+		int n = a.getLines();
+		if(a.getColumns() != n) {
+			throw new MathException("Os métodos iterativos requerem um operador quadrado");
+		}
+		if(b.length != n) {
+			throw new MathException("O tamanho dos termos independentes deve ser igual à ordem do operador");
+		}
+		if(x0 != null && x0.length != n) {
+			throw new MathException("O tamanho da aproximação inicial deve ser igual à ordem do operador");
+		}
+		return n;
+	}
+
+	private static double[] initial(double[] x0, int n) {
+		return x0 == null ? new double[n] : x0.clone();
+	}
+
+	private static double[] residual(LinearOperator a, double[] b, double[] x) {
+		double[] r = new double[b.length];
+		a.apply(x, r);
+		for(int i = 0; i < r.length; i++) {
+			r[i] = b[i] - r[i];
+		}
+		return r;
+	}
+
+	private double[] precondition(double[] r, double[] z) {
+		if(preconditioner == null) {
+			System.arraycopy(r, 0, z, 0, r.length);
+		} else {
+			preconditioner.apply(r, z);
+		}
+		return z;
+	}
+
+	private void report(int iteration, double residual) {
+		if(listener != null) {
+			listener.iteration(iteration, residual);
+		}
+	}
+
+	private static double dot(double[] x, double[] y) {
+		return MatrixKernels.dot(x, 0, y, 0, x.length);
+	}
+
+	private static double norm(double[] x) {
+		return Math.sqrt(dot(x, x));
+	}
+
+}
@@ -0,0 +1,64 @@
+package br.sergio.math;
+
+import java.io.Serializable;
+
+/**
+ * Pré-condicionador de Jacobi, que aproxima a matriz do sistema pela sua
+ * diagonal. É o pré-condicionador mais barato possível e funciona bem para
+ * matrizes diagonalmente dominantes.
+ * @author Sergio Luis
+ *
+ */
+public class JacobiPreconditioner implements Preconditioner, Serializable {
+
+	private static final long serialVersionUID = 3407722913549846528L;
+
+	private double[] inverseDiagonal;
+
+	/**
+	 * Constrói o pré-condicionador com a diagonal da matriz fornecida.
+	 * @param m a matriz do sistema.
+	 * @throws MathException se a matriz não for quadrada ou tiver algum
+	 * elemento nulo na diagonal.
+	 */
+	public JacobiPreconditioner(Matrix m) {
+		if(!m.isSquare()) {
+			throw new MathException("O pré-condicionador de Jacobi requer uma matriz quadrada");
+		}
+		inverseDiagonal = new double[m.getOrder()];
+		for(int i = 0; i < inverseDiagonal.length; i++) {
+			inverseDiagonal[i] = invert(m.getValue(i, i), i);
+		}
+	}
+
+	/**
+	 * Constrói o pré-condicionador com a diagonal da matriz esparsa fornecida.
+	 * @param m a matriz do sistema.
+	 * @throws MathException se a matriz não for quadrada ou tiver algum
+	 * elemento nulo na diagonal.
+	 */
+	public JacobiPreconditioner(SparseMatrix m) {
+		if(m.getLines() != m.getColumns()) {
+			throw new MathException("O pré-condicionador de Jacobi requer uma matriz quadrada");
+		}
+		inverseDiagonal = new double[m.getLines()];
+		for(int i = 0; i < inverseDiagonal.length; i++) {
+			inverseDiagonal[i] = invert(m.getValue(i, i), i);
+		}
+	}
+
+	private static double invert(double value, int index) {
+		if(value == 0) {
+			throw new MathException("Elemento nulo na diagonal, posição " + index);
+		}
+		return 1 / value;
+	}
+
+	@Override
+	public void apply(double[] r, double[] z) {
+		for(int i = 0; i < inverseDiagonal.length; i++) {
+			z[i] = r[i] * inverseDiagonal[i];
+		}
+	}
+
+}
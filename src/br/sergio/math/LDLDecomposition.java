@@ -0,0 +1,405 @@
+package br.sergio.math;
+
+import java.io.Serializable;
+
+/**
+ * Decomposição LDLᵀ de uma matriz simétrica, com pivotamento simétrico de
+ * Bunch-Kaufman. A matriz A é fatorada como PAPᵀ = LDLᵀ, sendo P uma matriz
+ * de permutação, L uma matriz triangular inferior com diagonal unitária e D
+ * uma matriz diagonal por blocos de tamanho 1 x 1 ou 2 x 2. Os blocos 2 x 2
+ * permitem fatorar de forma estável matrizes simétricas indefinidas, para as
+ * quais a decomposição de Cholesky não existe, com o mesmo custo de cerca de
+ * metade das operações da decomposição LU.
+ * <p>Apenas o triângulo inferior da matriz é lido e a fatoração é guardada
+ * no próprio triângulo inferior de um array n x n.
+ * @author Sergio Luis
+ *
+ */
+public class LDLDecomposition implements Serializable {
+
+	private static final long serialVersionUID = -2203716086744384905L;
+
+	/**
+	 * Constante de Bunch-Kaufman, que limita o crescimento dos elementos
+	 * durante a fatoração.
+	 */
+	private static final double ALPHA = (1 + Math.sqrt(17)) / 8;
+
+	private int order;
+	private double[] ldl;
+
+	/**
+	 * Linha trocada com a linha k no passo k. Para um bloco 2 x 2 que começa
+	 * na linha k, as posições k e k + 1 guardam ~p, sendo p a linha trocada
+	 * com a linha k + 1.
+	 */
+	private int[] pivot;
+	private boolean singular;
+
+	/**
+	 * Constrói a decomposição LDLᵀ da matriz fornecida. A matriz original
+	 * não é alterada.
+	 * @param m a matriz simétrica a ser decomposta.
+	 * @throws NullPointerException se a matriz for nula.
+	 * @throws MathException se a matriz não for simétrica.
+	 */
+	public LDLDecomposition(Matrix m) {
+		if(m == null) {
+			throw new NullPointerException("Matriz nula");
+		}
+		if(!m.isSimetric()) {
+			throw new MathException("A decomposição LDLᵀ só está disponível para matrizes simétricas");
+		}
+		int n = m.getOrder();
+		order = n;
+		ldl = new double[n * n];
+		m = m.contiguous();
+		double[] data = m.getData();
+		for(int i = 0; i < n; i++) {
+			System.arraycopy(data, m.getOffset() + i * m.getStride(), ldl, i * n, i + 1);
+		}
+		pivot = new int[n];
+		decompose();
+	}
+
+	private void decompose() {
+		int n = order;
+		double[] a = ldl;
+		int k = 0;
+		while(k < n) {
+			int step = 1;
+			int kp = k;
+			double absDiagonal = Math.abs(a[k * n + k]);
+			int maxIndex = k;
+			double columnMax = 0;
+			for(int i = k + 1; i < n; i++) {
+				double value = Math.abs(a[i * n + k]);
+				if(value > columnMax) {
+					columnMax = value;
+					maxIndex = i;
+				}
+			}
+			if(Math.max(absDiagonal, columnMax) == 0) {
+				singular = true;
+				pivot[k] = k;
+				k++;
+				continue;
+			}
+			if(absDiagonal < ALPHA * columnMax) {
+				double rowMax = 0;
+				for(int j = k; j < maxIndex; j++) {
+					rowMax = Math.max(rowMax, Math.abs(a[maxIndex * n + j]));
+				}
+				for(int j = maxIndex + 1; j < n; j++) {
+					rowMax = Math.max(rowMax, Math.abs(a[j * n + maxIndex]));
+				}
+				if(absDiagonal * rowMax >= ALPHA * columnMax * columnMax) {
+					kp = k;
+				} else if(Math.abs(a[maxIndex * n + maxIndex]) >= ALPHA * rowMax) {
+					kp = maxIndex;
+				} else {
+					kp = maxIndex;
+					step = 2;
+				}
+			}
+			int kk = k + step - 1;
+			if(kp != kk) {
+				interchange(k, kk, kp, step);
+			}
+			if(step == 1) {
+				double d = a[k * n + k];
+				double inverse = 1 / d;
+				for(int j = k + 1; j < n; j++) {
+					double ljk = a[j * n + k];
+					if(ljk != 0) {
+						double factor = ljk * inverse;
+						int rowJ = j * n;
+						for(int i = j; i < n; i++) {
+							a[i * n + j] -= a[i * n + k] * factor;
+						}
+						a[rowJ + k] = factor;
+					}
+				}
+				pivot[k] = kp;
+			} else {
+				double d21 = a[(k + 1) * n + k];
+				double d11 = a[(k + 1) * n + k + 1] / d21;
+				double d22 = a[k * n + k] / d21;
+				double t = 1 / (d11 * d22 - 1);
+				d21 = t / d21;
+				for(int j = k + 2; j < n; j++) {
+					double ajk = a[j * n + k];
+					double ajk1 = a[j * n + k + 1];
+					double wk = d21 * (d11 * ajk - ajk1);
+					double wk1 = d21 * (d22 * ajk1 - ajk);
+					for(int i = j; i < n; i++) {
+						a[i * n + j] -= a[i * n + k] * wk + a[i * n + k + 1] * wk1;
+					}
+					a[j * n + k] = wk;
+					a[j * n + k + 1] = wk1;
+				}
+				pivot[k] = ~kp;
+				pivot[k + 1] = ~kp;
+			}
+			k += step;
+		}
+	}
+
+	/**
+	 * Troca as linhas e colunas kk e kp da submatriz ainda não fatorada,
+	 * mantendo apenas o triângulo inferior.
+	 */
+	private void interchange(int k, int kk, int kp, int step) {
+		int n = order;
+		double[] a = ldl;
+		for(int i = kp + 1; i < n; i++) {
+			swap(a, i * n + kk, i * n + kp);
+		}
+		for(int j = kk + 1; j < kp; j++) {
+			swap(a, j * n + kk, kp * n + j);
+		}
+		swap(a, kk * n + kk, kp * n + kp);
+		if(step == 2) {
+			swap(a, (k + 1) * n + k, kp * n + k);
+		}
+	}
+
+	private static void swap(double[] x, int i, int j) {
+		double temp = x[i];
+		x[i] = x[j];
+		x[j] = temp;
+	}
+
+	/**
+	 * @return a ordem da matriz decomposta.
+	 */
+	public int getOrder() {
+		return order;
+	}
+
+	/**
+	 * @return true se a matriz decomposta for singular.
+	 */
+	public boolean isSingular() {
+		return singular;
+	}
+
+	/**
+	 * Calcula o determinante da matriz decomposta, que é o produto dos
+	 * determinantes dos blocos de D, já que as permutações simétricas não
+	 * alteram o determinante.
+	 * @return o determinante da matriz decomposta.
+	 */
+	public double determinant() {
+		if(singular) {
+			return 0;
+		}
+		int n = order;
+		double determinant = 1;
+		for(int k = 0; k < n; k++) {
+			if(pivot[k] >= 0) {
+				determinant *= ldl[k * n + k];
+			} else {
+				double offDiagonal = ldl[(k + 1) * n + k];
+				determinant *= ldl[k * n + k] * ldl[(k + 1) * n + k + 1] - offDiagonal * offDiagonal;
+				k++;
+			}
+		}
+		return determinant;
+	}
+
+	/**
+	 * Retorna a inércia da matriz decomposta, ou seja, a quantidade de
+	 * autovalores positivos, negativos e nulos. Pela lei da inércia de
+	 * Sylvester, ela é igual à inércia de D, que é obtida sem calcular
+	 * autovalor algum. Os blocos 2 x 2 escolhidos pelo pivotamento têm
+	 * sempre determinante negativo, ou seja, um autovalor de cada sinal.
+	 * @return um array com as quantidades de autovalores positivos, negativos
+	 * e nulos, nessa ordem.
+	 */
+	public int[] getInertia() {
+		int n = order;
+		int[] inertia = new int[3];
+		for(int k = 0; k < n; k++) {
+			if(pivot[k] >= 0) {
+				double d = ldl[k * n + k];
+				inertia[d > 0 ? 0 : d < 0 ? 1 : 2]++;
+			} else {
+				inertia[0]++;
+				inertia[1]++;
+				k++;
+			}
+		}
+		return inertia;
+	}
+
+	/**
+	 * @return a matriz diagonal por blocos D.
+	 */
+	public Matrix getD() {
+		int n = order;
+		Matrix d = new Matrix(n);
+		for(int k = 0; k < n; k++) {
+			d.setValue(k, k, ldl[k * n + k]);
+			if(pivot[k] < 0) {
+				double offDiagonal = ldl[(k + 1) * n + k];
+				d.setValue(k + 1, k + 1, ldl[(k + 1) * n + k + 1]);
+				d.setValue(k + 1, k, offDiagonal);
+				d.setValue(k, k + 1, offDiagonal);
+				k++;
+			}
+		}
+		return d;
+	}
+
+	/**
+	 * Resolve o sistema AX = B, sendo A a matriz decomposta. Cada coluna
+	 * de B é um termo independente diferente.
+	 * @param b a matriz dos termos independentes.
+	 * @return a matriz X solução.
+	 * @throws MathException se a quantidade de linhas de B for diferente da
+	 * ordem da matriz decomposta ou se ela for singular.
+	 */
+	public Matrix solve(Matrix b) {
+		if(b.getLines() != order) {
+			throw new MathException("A quantidade de linhas dos termos independentes deve ser igual à ordem da matriz");
+		}
+		int columns = b.getColumns();
+		double[] x = new double[order * columns];
+		b = b.contiguous();
+		double[] data = b.getData();
+		for(int i = 0; i < order; i++) {
+			System.arraycopy(data, b.getOffset() + i * b.getStride(), x, i * columns, columns);
+		}
+		substitute(x, columns);
+		return new Matrix(order, columns, x);
+	}
+
+	/**
+	 * Resolve o sistema Ax = b, sendo A a matriz decomposta.
+	 * @param b o vetor dos termos independentes.
+	 * @return o vetor solução x.
+	 * @throws MathException se o tamanho de b for diferente da ordem da matriz
+	 * decomposta ou se ela for singular.
+	 */
+	public double[] solve(double[] b) {
+		if(b.length != order) {
+			throw new MathException("O tamanho dos termos independentes deve ser igual à ordem da matriz");
+		}
+		double[] x = b.clone();
+		substitute(x, 1);
+		return x;
+	}
+
+	/**
+	 * Calcula a inversa da matriz decomposta.
+	 * @return a matriz inversa.
+	 * @throws MathException se a matriz decomposta for singular.
+	 */
+	public Matrix inverse() {
+		int n = order;
+		double[] x = new double[n * n];
+		for(int i = 0; i < n; i++) {
+			x[i * n + i] = 1;
+		}
+		substitute(x, n);
+		return new Matrix(n, n, x);
+	}
+
+	private void substitute(double[] x, int columns) {
+		if(singular) {
+			throw new MathException("A matriz é singular");
+		}
+		int n = order;
+		double[] a = ldl;
+		int k = 0;
+		while(k < n) {
+			if(pivot[k] >= 0) {
+				swapRows(x, k, pivot[k], columns);
+				eliminate(x, k, k + 1, columns);
+				double inverse = 1 / a[k * n + k];
+				for(int j = 0; j < columns; j++) {
+					x[k * columns + j] *= inverse;
+				}
+				k++;
+			} else {
+				swapRows(x, k + 1, ~pivot[k], columns);
+				eliminate(x, k, k + 2, columns);
+				eliminate(x, k + 1, k + 2, columns);
+				double d21 = a[(k + 1) * n + k];
+				double d11 = a[k * n + k] / d21;
+				double d22 = a[(k + 1) * n + k + 1] / d21;
+				double denominator = d11 * d22 - 1;
+				for(int j = 0; j < columns; j++) {
+					double x1 = x[k * columns + j] / d21;
+					double x2 = x[(k + 1) * columns + j] / d21;
+					x[k * columns + j] = (d22 * x1 - x2) / denominator;
+					x[(k + 1) * columns + j] = (d11 * x2 - x1) / denominator;
+				}
+				k += 2;
+			}
+		}
+		k = n - 1;
+		while(k >= 0) {
+			accumulate(x, k, k + 1, columns);
+			if(pivot[k] >= 0) {
+				swapRows(x, k, pivot[k], columns);
+				k--;
+			} else {
+				accumulate(x, k - 1, k + 1, columns);
+				swapRows(x, k, ~pivot[k], columns);
+				k -= 2;
+			}
+		}
+	}
+
+	/**
+	 * Subtrai a linha k de x, multiplicada pela coluna k de L, das linhas
+	 * a partir de start.
+	 */
+	private void eliminate(double[] x, int k, int start, int columns) {
+		int n = order;
+		int rowK = k * columns;
+		for(int i = start; i < n; i++) {
+			double factor = ldl[i * n + k];
+			if(factor == 0) {
+				continue;
+			}
+			int rowI = i * columns;
+			for(int j = 0; j < columns; j++) {
+				x[rowI + j] -= x[rowK + j] * factor;
+			}
+		}
+	}
+
+	/**
+	 * Subtrai da linha k de x as linhas a partir de start, multiplicadas
+	 * pela coluna k de L, ou seja, um passo da substituição com Lᵀ.
+	 */
+	private void accumulate(double[] x, int k, int start, int columns) {
+		int n = order;
+		int rowK = k * columns;
+		for(int i = start; i < n; i++) {
+			double factor = ldl[i * n + k];
+			if(factor == 0) {
+				continue;
+			}
+			int rowI = i * columns;
+			for(int j = 0; j < columns; j++) {
+				x[rowK + j] -= x[rowI + j] * factor;
+			}
+		}
+	}
+
+	private static void swapRows(double[] x, int i, int j, int columns) {
+		if(i == j) {
+			return;
+		}
+		int rowI = i * columns;
+		int rowJ = j * columns;
+		for(int c = 0; c < columns; c++) {
+			swap(x, rowI + c, rowJ + c);
+		}
+	}
+
+}
@@ -0,0 +1,274 @@
+package br.sergio.math;
+
+import java.io.Serializable;
+
+/**
+ * Decomposição LU com pivotamento parcial de uma matriz quadrada. A matriz
+ * A é fatorada como PA = LU, sendo P uma matriz de permutação, L uma matriz
+ * triangular inferior com diagonal unitária e U uma matriz triangular
+ * superior. A fatoração custa O(n³) e pode ser reutilizada para calcular o
+ * determinante, a inversa e para resolver vários sistemas lineares com a
+ * mesma matriz de coeficientes.
+ * @author Sergio Luis
+ *
+ */
+public class LUDecomposition implements Serializable {
+
+	private static final long serialVersionUID = 2618437796457024718L;
+
+	private int order;
+	private double[] lu;
+	private int[] pivot;
+	private int pivotSign;
+	private boolean singular;
+
+	/**
+	 * Constrói a decomposição LU da matriz fornecida. A matriz
+	 * original não é alterada.
+	 * @param m a matriz a ser decomposta.
+	 * @throws NullPointerException se a matriz for nula.
+	 * @throws MathException se a matriz não for quadrada.
+	 */
+	public LUDecomposition(Matrix m) {
+		if(m == null) {
+			throw new NullPointerException("Matriz nula");
+		}
+		if(!m.isSquare()) {
+			throw new MathException("A decomposição LU só existe para matrizes quadradas");
+		}
+		int n = m.getOrder();
+		order = n;
+		lu = new double[n * n];
+		m = m.contiguous();
+		double[] data = m.getData();
+		for(int i = 0; i < n; i++) {
+			System.arraycopy(data, m.getOffset() + i * m.getStride(), lu, i * n, n);
+		}
+		pivot = new int[n];
+		for(int i = 0; i < n; i++) {
+			pivot[i] = i;
+		}
+		pivotSign = 1;
+		decompose();
+	}
+
+	private void decompose() {
+		int n = order;
+		double[] a = lu;
+		for(int k = 0; k < n; k++) {
+			int p = k;
+			double max = Math.abs(a[k * n + k]);
+			for(int i = k + 1; i < n; i++) {
+				double value = Math.abs(a[i * n + k]);
+				if(value > max) {
+					max = value;
+					p = i;
+				}
+			}
+			if(p != k) {
+				int rowP = p * n;
+				int rowK = k * n;
+				for(int j = 0; j < n; j++) {
+					double temp = a[rowP + j];
+					a[rowP + j] = a[rowK + j];
+					a[rowK + j] = temp;
+				}
+				int temp = pivot[p];
+				pivot[p] = pivot[k];
+				pivot[k] = temp;
+				pivotSign = -pivotSign;
+			}
+			int rowK = k * n;
+			double diagonal = a[rowK + k];
+			if(diagonal == 0) {
+				singular = true;
+				continue;
+			}
+			for(int i = k + 1; i < n; i++) {
+				int rowI = i * n;
+				double factor = a[rowI + k] / diagonal;
+				a[rowI + k] = factor;
+				if(factor == 0) {
+					continue;
+				}
+				for(int j = k + 1; j < n; j++) {
+					a[rowI + j] -= factor * a[rowK + j];
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return a ordem da matriz decomposta.
+	 */
+	public int getOrder() {
+		return order;
+	}
+
+	/**
+	 * @return true se a matriz decomposta for singular (determinante
+	 * igual a 0), false caso contrário.
+	 */
+	public boolean isSingular() {
+		return singular;
+	}
+
+	/**
+	 * @return o determinante da matriz decomposta, dado pelo produto
+	 * da diagonal de U multiplicado pelo sinal da permutação.
+	 */
+	public double determinant() {
+		if(singular) {
+			return 0;
+		}
+		double determinant = pivotSign;
+		for(int i = 0; i < order; i++) {
+			determinant *= lu[i * order + i];
+		}
+		return determinant;
+	}
+
+	/**
+	 * @return a matriz triangular inferior L, com diagonal unitária.
+	 */
+	public Matrix getL() {
+		int n = order;
+		Matrix l = new Matrix(n);
+		for(int i = 0; i < n; i++) {
+			for(int j = 0; j < i; j++) {
+				l.setValue(i, j, lu[i * n + j]);
+			}
+			l.setValue(i, i, 1);
+		}
+		return l;
+	}
+
+	/**
+	 * @return a matriz triangular superior U.
+	 */
+	public Matrix getU() {
+		int n = order;
+		Matrix u = new Matrix(n);
+		for(int i = 0; i < n; i++) {
+			for(int j = i; j < n; j++) {
+				u.setValue(i, j, lu[i * n + j]);
+			}
+		}
+		return u;
+	}
+
+	/**
+	 * Retorna o vetor de permutação. A linha i de PA é a linha
+	 * pivot[i] da matriz original.
+	 * @return uma cópia do vetor de permutação.
+	 */
+	public int[] getPivot() {
+		return pivot.clone();
+	}
+
+	/**
+	 * @return a matriz de permutação P, tal que PA = LU.
+	 */
+	public Matrix getP() {
+		Matrix p = new Matrix(order);
+		for(int i = 0; i < order; i++) {
+			p.setValue(i, pivot[i], 1);
+		}
+		return p;
+	}
+
+	/**
+	 * Resolve o sistema AX = B, sendo A a matriz decomposta. Cada coluna
+	 * de B é um termo independente diferente, de forma que vários sistemas
+	 * são resolvidos com uma única fatoração.
+	 * @param b a matriz dos termos independentes.
+	 * @return a matriz X solução.
+	 * @throws MathException se a quantidade de linhas de B for diferente da
+	 * ordem da matriz decomposta ou se ela for singular.
+	 */
+	public Matrix solve(Matrix b) {
+		if(b.getLines() != order) {
+			throw new MathException("A quantidade de linhas dos termos independentes deve ser igual à ordem da matriz");
+		}
+		int columns = b.getColumns();
+		double[] x = new double[order * columns];
+		for(int i = 0; i < order; i++) {
+			for(int j = 0; j < columns; j++) {
+				x[i * columns + j] = b.getValue(pivot[i], j);
+			}
+		}
+		substitute(x, columns);
+		return new Matrix(order, columns, x);
+	}
+
+	/**
+	 * Resolve o sistema Ax = b, sendo A a matriz decomposta.
+	 * @param b o vetor dos termos independentes.
+	 * @return o vetor solução x.
+	 * @throws MathException se o tamanho de b for diferente da ordem da matriz
+	 * decomposta ou se ela for singular.
+	 */
+	public double[] solve(double[] b) {
+		if(b.length != order) {
+			throw new MathException("O tamanho dos termos independentes deve ser igual à ordem da matriz");
+		}
+		double[] x = new double[order];
+		for(int i = 0; i < order; i++) {
+			x[i] = b[pivot[i]];
+		}
+		substitute(x, 1);
+		return x;
+	}
+
+	/**
+	 * @return a matriz inversa da matriz decomposta.
+	 * @throws MathException se a matriz decomposta for singular.
+	 */
+	public Matrix inverse() {
+		int n = order;
+		double[] x = new double[n * n];
+		for(int i = 0; i < n; i++) {
+			x[i * n + pivot[i]] = 1;
+		}
+		substitute(x, n);
+		return new Matrix(n, n, x);
+	}
+
+	private void substitute(double[] x, int columns) {
+		if(singular) {
+			throw new MathException("A matriz é singular");
+		}
+		int n = order;
+		for(int k = 0; k < n; k++) {
+			int rowK = k * columns;
+			for(int i = k + 1; i < n; i++) {
+				double factor = lu[i * n + k];
+				if(factor == 0) {
+					continue;
+				}
+				int rowI = i * columns;
+				for(int j = 0; j < columns; j++) {
+					x[rowI + j] -= x[rowK + j] * factor;
+				}
+			}
+		}
+		for(int k = n - 1; k >= 0; k--) {
+			int rowK = k * columns;
+			double diagonal = lu[k * n + k];
+			for(int j = 0; j < columns; j++) {
+				x[rowK + j] /= diagonal;
+			}
+			for(int i = 0; i < k; i++) {
+				double factor = lu[i * n + k];
+				if(factor == 0) {
+					continue;
+				}
+				int rowI = i * columns;
+				for(int j = 0; j < columns; j++) {
+					x[rowI + j] -= x[rowK + j] * factor;
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,35 @@
+package br.sergio.math;
+
+/**
+ * Operador linear, ou seja, qualquer objeto capaz de multiplicar uma matriz
+ * por um vetor sem necessariamente guardar a matriz. É a única operação de
+ * que os métodos iterativos de {@link IterativeSolver} precisam, o que permite
+ * resolver sistemas cujas matrizes são definidas implicitamente (por exemplo,
+ * um estêncil de diferenças finitas). {@link Matrix} e {@link SparseMatrix}
+ * implementam esta interface.
+ * @author Sergio Luis
+ *
+ */
+public interface LinearOperator {
+
+	/**
+	 * @return a quantidade de linhas do operador, que é o tamanho do
+	 * vetor resultante.
+	 */
+	int getLines();
+
+	/**
+	 * @return a quantidade de colunas do operador, que é o tamanho do
+	 * vetor de entrada.
+	 */
+	int getColumns();
+
+	/**
+	 * Aplica o operador ao vetor de entrada, escrevendo o resultado no vetor
+	 * de saída. Os dois vetores nunca são o mesmo array.
+	 * @param in o vetor de entrada, com {@link #getColumns()} elementos.
+	 * @param out o vetor de saída, com {@link #getLines()} elementos.
+	 */
+	void apply(double[] in, double[] out);
+
+}
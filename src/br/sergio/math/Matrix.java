@@ -1,17 +1,88 @@
 package br.sergio.math;
 
+import java.io.IOException;
 import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.file.Path;
 import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.DoubleUnaryOperator;
 import java.util.function.Function;
 
-public class Matrix implements Serializable {
+public class Matrix implements LinearOperator, Serializable {
 	
-	private static final long serialVersionUID = -6403625144052999103L;
+	private static final long serialVersionUID = 4528150336711473907L;
+	
+	/**
+	 * Tamanho padrão dos blocos usados na multiplicação de matrizes.
+	 */
+	public static final int DEFAULT_BLOCK_SIZE = 256;
+	
+	/**
+	 * Dimensão padrão abaixo da qual {@link #strassenMultiply(Matrix)} deixa
+	 * de dividir as matrizes e usa a multiplicação em blocos.
+	 */
+	public static final int DEFAULT_STRASSEN_CUTOFF = 1024;
+	
+	private static volatile int blockSize = DEFAULT_BLOCK_SIZE;
+	
+	/**
+	 * Abaixo desta quantidade de elementos, as operações paralelas elemento
+	 * a elemento são executadas sequencialmente.
+	 */
+	private static final long PARALLEL_ELEMENTS = 1 << 14;
+	
+	/**
+	 * Métodos de resolução de sistemas lineares disponíveis em
+	 * {@link Matrix#solve(Matrix, SolveMethod)}.
+	 */
+	public enum SolveMethod {
+		
+		/**
+		 * Escolhe o método automaticamente: {@link #QR} para matrizes não
+		 * quadradas, {@link #CHOLESKY} para matrizes simétricas positivas
+		 * definidas, {@link #LDL} para as demais simétricas e {@link #LU}
+		 * para as demais.
+		 */
+		AUTO,
+		
+		/**
+		 * Decomposição LU com pivotamento parcial. Requer matriz quadrada
+		 * e não singular.
+		 */
+		LU,
+		
+		/**
+		 * Decomposição de Cholesky. Requer matriz simétrica positiva definida.
+		 */
+		CHOLESKY,
+		
+		/**
+		 * Decomposição LDLᵀ com pivotamento de Bunch-Kaufman. Requer matriz
+		 * simétrica não singular, mas não necessariamente positiva definida.
+		 */
+		LDL,
+		
+		/**
+		 * Decomposição QR por reflexões de Householder. Para matrizes com mais
+		 * linhas que colunas, retorna a solução de mínimos quadrados; para
+		 * matrizes com mais colunas que linhas, a solução de menor norma.
+		 * Requer posto completo.
+		 */
+		QR;
+		
+	}
 	
 	private int lines;
 	private int columns;
 	
-	private double[][] data;
+	private double[] data;
+	private int offset;
+	private int stride;
+	private int columnStride = 1;
 	
 	/**
 	 * Construtor usado para construir uma matriz de
@@ -19,6 +90,8 @@ public class Matrix implements Serializable {
 	 * ou iguais a 1.
 	 * @param lines a quantidade de linhas.
 	 * @param columns a quantidade de colunas.
+	 * @throws IllegalArgumentException se m ou n forem menores que 1 ou se
+	 * a matriz não couber em um array.
 	 */
 	public Matrix(int lines, int columns) {
 		if(lines < 1 || columns < 1) {
@@ -27,7 +100,8 @@ public class Matrix implements Serializable {
 		this.lines = lines;
 		this.columns = columns;
 		
-		data = new double[lines][columns];
+		data = new double[checkedSize(lines, columns)];
+		stride = columns;
 	}
 	
 	/**
@@ -43,7 +117,8 @@ public class Matrix implements Serializable {
 	/**
 	 * Construtor usado para construir uma matriz
 	 * com dados já precriados num array bidimensional
-	 * de m linhas por n colunas. 
+	 * de m linhas por n colunas. Os valores são copiados
+	 * para o armazenamento contíguo da matriz.
 	 * @param data o array com os valores precriados.
 	 * @throws NullPointerException se o array for nulo.
 	 * @throws IllegalArgumentException se m ou n forem 0.
@@ -67,9 +142,94 @@ public class Matrix implements Serializable {
 				throw new MathException("O tamanho de todas as colunas deve ser o mesmo");
 			}
 		}
+		this.lines = lines;
+		this.columns = columns;
+		this.data = new double[checkedSize(lines, columns)];
+		this.stride = columns;
+		for(int i = 0; i < lines; i++) {
+			System.arraycopy(data[i], 0, this.data, i * columns, columns);
+		}
+	}
+	
+	/**
+	 * @return a quantidade de elementos de uma matriz m x n, garantindo que
+	 * ela caiba em um único array.
+	 * @throws IllegalArgumentException se a matriz não couber em um array.
+	 */
+	static int checkedSize(int lines, int columns) {
+		long size = (long) lines * columns;
+		if(size > Integer.MAX_VALUE - 8) {
+			throw new IllegalArgumentException("Matriz muito grande para um array: " + lines + "x" + columns);
+		}
+		return (int) size;
+	}
+	
+	/**
+	 * Construtor usado para construir uma matriz de m linhas
+	 * por n colunas sobre um array contíguo já existente, cujos
+	 * valores estão dispostos linha após linha. O array não é
+	 * copiado; alterações nele refletem na matriz e vice-versa.
+	 * @param lines a quantidade de linhas.
+	 * @param columns a quantidade de colunas.
+	 * @param data o array com os valores dispostos linha após linha.
+	 * @throws NullPointerException se o array for nulo.
+	 * @throws IllegalArgumentException se m ou n forem menores que 1.
+	 * @throws MathException se o array não comportar m * n valores.
+	 */
+	public Matrix(int lines, int columns, double[] data) {
+		this(lines, columns, data, 0, columns);
+	}
+	
+	/**
+	 * Construtor usado para construir uma matriz de m linhas
+	 * por n colunas sobre um array contíguo já existente, sem
+	 * cópia. O elemento ij se encontra na posição
+	 * offset + i * stride + j do array.
+	 * @param lines a quantidade de linhas.
+	 * @param columns a quantidade de colunas.
+	 * @param data o array com os valores.
+	 * @param offset a posição do elemento 00 no array.
+	 * @param stride a distância, no array, entre o início de duas
+	 * linhas consecutivas.
+	 * @throws NullPointerException se o array for nulo.
+	 * @throws IllegalArgumentException se m ou n forem menores que 1,
+	 * se o offset for negativo ou se o stride for menor que n.
+	 * @throws MathException se o array não comportar a matriz.
+	 */
+	public Matrix(int lines, int columns, double[] data, int offset, int stride) {
+		if(data == null) {
+			throw new NullPointerException("Dados nulos");
+		}
+		if(lines < 1 || columns < 1) {
+			throw new IllegalArgumentException("Linhas e colunas não podem ser menores que 1");
+		}
+		if(offset < 0) {
+			throw new IllegalArgumentException("O offset não pode ser negativo");
+		}
+		if(stride < columns) {
+			throw new IllegalArgumentException("O stride não pode ser menor que a quantidade de colunas");
+		}
+		if((long) offset + (long) (lines - 1) * stride + columns > data.length) {
+			throw new MathException("O array não comporta uma matriz " + lines + "x" + columns);
+		}
+		this.lines = lines;
+		this.columns = columns;
+		this.data = data;
+		this.offset = offset;
+		this.stride = stride;
+	}
+	
+	/**
+	 * Construtor das visões, que compartilham o array de outra matriz sem
+	 * validação, já que os limites da visão foram verificados.
+	 */
+	private Matrix(int lines, int columns, double[] data, int offset, int stride, int columnStride) {
 		this.lines = lines;
 		this.columns = columns;
 		this.data = data;
+		this.offset = offset;
+		this.stride = stride;
+		this.columnStride = columnStride;
 	}
 	
 	/**
@@ -97,7 +257,7 @@ public class Matrix implements Serializable {
 	 * (para j) da matriz.
 	 */
 	public double getValue(int line, int column) {
-		return data[line][column];
+		return data[index(line, column)];
 	}
 	
 	/**
@@ -111,216 +271,1281 @@ public class Matrix implements Serializable {
 	 * (para j) da matriz.
 	 */
 	public void setValue(int line, int column, double value) {
-		data[line][column] = value;
+		data[index(line, column)] = value;
+	}
+	
+	/**
+	 * Retorna o array onde esta matriz armazena seus valores, sem cópia.
+	 * O elemento ij se encontra na posição {@link #getOffset()} +
+	 * i * {@link #getStride()} + j * {@link #getColumnStride()}.
+	 * @return o array de armazenamento desta matriz.
+	 */
+	public double[] getData() {
+		return data;
+	}
+	
+	/**
+	 * @return a posição do elemento 00 no array de armazenamento.
+	 */
+	public int getOffset() {
+		return offset;
+	}
+	
+	/**
+	 * @return a distância, no array de armazenamento, entre o início
+	 * de duas linhas consecutivas.
+	 */
+	public int getStride() {
+		return stride;
+	}
+	
+	/**
+	 * Retorna a distância, no array de armazenamento, entre dois elementos
+	 * consecutivos de uma linha. Vale 1 para todas as matrizes, exceto as
+	 * visões transpostas (veja {@link #transposedView()}) e as visões delas.
+	 * @return a distância entre dois elementos consecutivos de uma linha.
+	 */
+	public int getColumnStride() {
+		return columnStride;
+	}
+	
+	/**
+	 * Retorna uma visão do bloco desta matriz que começa na posição ij e
+	 * tem o tamanho fornecido. A visão compartilha o array desta matriz, sem
+	 * cópia: alterações em uma refletem na outra. Pode ser usada em qualquer
+	 * lugar onde uma matriz é aceita, inclusive como destino das operações
+	 * in-place, o que permite que algoritmos em blocos operem sobre partes
+	 * de uma matriz sem copiá-las.
+	 * @param line a linha i do primeiro elemento do bloco.
+	 * @param column a coluna j do primeiro elemento do bloco.
+	 * @param lines a quantidade de linhas do bloco.
+	 * @param columns a quantidade de colunas do bloco.
+	 * @return a visão do bloco.
+	 * @throws IllegalArgumentException se o tamanho do bloco for menor que 1.
+	 * @throws ArrayIndexOutOfBoundsException se o bloco não couber nesta matriz.
+	 */
+	public Matrix subMatrix(int line, int column, int lines, int columns) {
+		if(lines < 1 || columns < 1) {
+			throw new IllegalArgumentException("Linhas e colunas não podem ser menores que 1");
+		}
+		if(line < 0 || column < 0 || line + lines > this.lines || column + columns > this.columns) {
+			throw new ArrayIndexOutOfBoundsException("O bloco " + lines + "x" + columns + " na posição ("
+					+ line + ", " + column + ") está fora dos limites da matriz (" + this.lines + ", " + this.columns + ").");
+		}
+		return new Matrix(lines, columns, data, offset + line * stride + column * columnStride, stride, columnStride);
+	}
+	
+	/**
+	 * Retorna uma visão da linha i desta matriz, como uma matriz 1 x n que
+	 * compartilha o array desta. Veja {@link #subMatrix(int, int, int, int)}.
+	 * @param line o número i da linha.
+	 * @return a visão da linha.
+	 * @throws ArrayIndexOutOfBoundsException se a linha estiver fora dos
+	 * limites desta matriz.
+	 */
+	public Matrix row(int line) {
+		return subMatrix(line, 0, 1, columns);
+	}
+	
+	/**
+	 * Retorna uma visão da coluna j desta matriz, como uma matriz m x 1 que
+	 * compartilha o array desta. Veja {@link #subMatrix(int, int, int, int)}.
+	 * @param column o número j da coluna.
+	 * @return a visão da coluna.
+	 * @throws ArrayIndexOutOfBoundsException se a coluna estiver fora dos
+	 * limites desta matriz.
+	 */
+	public Matrix column(int column) {
+		return subMatrix(0, column, lines, 1);
+	}
+	
+	/**
+	 * Retorna uma visão da transposta desta matriz, que compartilha o array
+	 * desta, sem cópia, trocando os papéis de {@link #getStride()} e
+	 * {@link #getColumnStride()}. Ao contrário de {@link #transposed()}, não
+	 * custa nada para ser criada; em compensação, as operações que percorrem
+	 * a visão linha a linha (como a multiplicação) fazem uma cópia contígua
+	 * dela antes.
+	 * @return a visão da transposta desta matriz.
+	 */
+	public Matrix transposedView() {
+		return new Matrix(columns, lines, data, offset, columnStride, stride);
+	}
+	
+	/**
+	 * Retorna esta matriz se suas linhas forem contíguas no array de
+	 * armazenamento, ou uma cópia compacta dela do contrário. Os núcleos
+	 * numéricos e as decomposições percorrem as matrizes linha a linha e
+	 * chamam este método antes de ler o array diretamente.
+	 */
+	Matrix contiguous() {
+		if(columnStride == 1) {
+			return this;
+		}
+		Matrix copy = new Matrix(lines, columns);
+		if(stride == 1) {
+			MatrixKernels.transpose(data, offset, columnStride, copy.data, 0, columns, columns, lines);
+		} else {
+			for(int i = 0; i < lines; i++) {
+				for(int j = 0; j < columns; j++) {
+					copy.data[i * columns + j] = data[offset + i * stride + j * columnStride];
+				}
+			}
+		}
+		return copy;
+	}
+	
+	/**
+	 * @return uma cópia dos valores desta matriz num array bidimensional.
+	 */
+	public double[][] toArray() {
+		if(columnStride != 1) {
+			return contiguous().toArray();
+		}
+		double[][] array = new double[lines][columns];
+		for(int i = 0; i < lines; i++) {
+			System.arraycopy(data, offset + i * stride, array[i], 0, columns);
+		}
+		return array;
+	}
+	
+	/**
+	 * @return uma cópia dos valores desta matriz num array contíguo,
+	 * linha após linha.
+	 */
+	public double[] toFlatArray() {
+		if(columnStride != 1) {
+			return contiguous().data;
+		}
+		double[] array = new double[lines * columns];
+		for(int i = 0; i < lines; i++) {
+			System.arraycopy(data, offset + i * stride, array, i * columns, columns);
+		}
+		return array;
+	}
+	
+	/**
+	 * Grava esta matriz em um arquivo binário no formato descrito em
+	 * {@link OffHeapMatrix}: um cabeçalho com as dimensões seguido dos
+	 * elementos como doubles little-endian. Ao contrário da serialização
+	 * padrão, o arquivo pode ser mapeado na memória por {@link #map(Path)}
+	 * sem ser lido inteiro. Se o arquivo já existir, ele é substituído.
+	 * @param path o caminho do arquivo.
+	 * @throws IOException se o arquivo não puder ser escrito.
+	 */
+	public void save(Path path) throws IOException {
+		try(OffHeapMatrix file = OffHeapMatrix.create(path, lines, columns)) {
+			file.setBlock(0, 0, this);
+		}
+	}
+	
+	/**
+	 * Mapeia na memória, apenas para leitura, um arquivo de matriz gravado
+	 * por {@link #save(Path)} ou criado por
+	 * {@link OffHeapMatrix#create(Path, int, int)}. Os elementos são lidos
+	 * do disco conforme forem usados, de forma que a matriz pode ser maior
+	 * que a memória disponível; {@link OffHeapMatrix#toMatrix()} a carrega
+	 * inteira no heap. Veja {@link OffHeapMatrix#map(Path, boolean)}.
+	 * @param path o caminho do arquivo.
+	 * @return a matriz mapeada, que deve ser fechada depois de usada.
+	 * @throws IOException se o arquivo não puder ser lido ou não estiver no
+	 * formato de matriz.
+	 */
+	public static OffHeapMatrix map(Path path) throws IOException {
+		return OffHeapMatrix.map(path);
+	}
+	
+	private int index(int line, int column) {
+		if(line < 0 || line >= lines || column < 0 || column >= columns) {
+			throw new ArrayIndexOutOfBoundsException("Posição (" + line + ", " + column + ") está fora dos "
+					+ "limites da matriz (" + lines + ", " + columns + ").");
+		}
+		return offset + line * stride + column * columnStride;
+	}
+	
+	/**
+	 * Para matrizes de ordem maior que 3, o determinante é calculado
+	 * através da decomposição LU, em O(n³).
+	 * @return o determinante desta matriz.
+	 * @throws MathException se esta matriz não for quadrada.
+	 */
+	public double determinant() {
+		if(!isSquare()) {
+			throw new MathException("Determinantes só existem para matrizes quadradas");
+		}
+		if(columnStride != 1) {
+			return contiguous().determinant();
+		}
+		int o = offset;
+		int s = stride;
+		return switch(getOrder()) {
+			case 1:
+				yield data[o];
+			case 2:
+				yield data[o] * data[o + s + 1] - data[o + 1] * data[o + s];
+			case 3:
+				yield data[o + 2 * s] * data[o + 1] * data[o + s + 2] 
+						+ data[o] * data[o + s + 1] * data[o + 2 * s + 2] 
+						+ data[o + s] * data[o + 2 * s + 1] * data[o + 2]
+						- data[o + 2 * s + 2] * data[o + 1] * data[o + s]
+						- data[o + 2] * data[o + s + 1] * data[o + 2 * s]
+						- data[o + s + 2] * data[o + 2 * s + 1] * data[o];
+			default:
+				yield lu().determinant();
+		};
+	}
+	
+	/**
+	 * Determinante exato. Todo double finito é uma fração cujo denominador é
+	 * uma potência de 2, então o determinante desses valores também é, e
+	 * pode ser representado sem arredondamentos por um {@link BigDecimal}.
+	 * Em matrizes de valores inteiros, o resultado é inteiro. O cálculo é
+	 * feito por {@link RationalMatrix}, em O(n³) operações inteiras.
+	 * @return o determinante exato desta matriz.
+	 * @throws MathException se esta matriz não for quadrada ou tiver algum
+	 * elemento infinito ou NaN.
+	 */
+	public BigDecimal exactDeterminant() {
+		BigInteger[] det = toRational().determinantFraction();
+		return new BigDecimal(det[0]).divide(new BigDecimal(det[1]));
+	}
+	
+	/**
+	 * Posto exato desta matriz, calculado sem arredondamentos por
+	 * {@link RationalMatrix#rank()}.
+	 * @return a quantidade de linhas linearmente independentes.
+	 * @throws MathException se algum elemento for infinito ou NaN.
+	 */
+	public int exactRank() {
+		return toRational().rank();
+	}
+	
+	/**
+	 * @return uma {@link RationalMatrix} com exatamente os mesmos valores
+	 * desta matriz. Veja {@link RationalMatrix#valueOf(Matrix)}.
+	 * @throws MathException se algum elemento for infinito ou NaN.
+	 */
+	public RationalMatrix toRational() {
+		return RationalMatrix.valueOf(this);
+	}
+	
+	/**
+	 * Decomposição LU com pivotamento parcial desta matriz. A decomposição
+	 * custa O(n³) e pode ser reutilizada para calcular o determinante, a
+	 * inversa e para resolver vários sistemas lineares com esta matriz.
+	 * @return a decomposição LU desta matriz.
+	 * @throws MathException se esta matriz não for quadrada.
+	 */
+	public LUDecomposition lu() {
+		return new LUDecomposition(this);
+	}
+	
+	/**
+	 * Cofator de um elemento. O cofator do elemento de uma matriz quadrada
+	 * na posição ij é dado por (-1)^(i + j) * Dij, sendo Dij o menor complementar
+	 * do elemento.
+	 * @param line a linha do elemento.
+	 * @param column a coluna do elemento.
+	 * @return o cofator do elemento.
+	 */
+	public double cofactor(int line, int column) {
+		return AdvancedMath.pow(-1, line + column) * complementaryMinor(line, column);
+	}
+	
+	/**
+	 * Menor complementar. O menor complementar de um elemento é o determinante formado
+	 * pela matriz quadrada de ordem n - 1, tal que a linha e a coluna do elemento foram
+	 * excluídas. Como exemplo, o menor complementar do elemento 4 (posição 2,1 - ou 1,0
+	 * se a contagem começar do 0) da matriz {{1, 2, 3}, {4, 5, 6}, {7, 8, 9}} é o
+	 * determinante da matriz {{2, 3}, {8, 9}}, que é igual a -6;
+	 * @param line a linha do elemento.
+	 * @param column a coluna do elemento.
+	 * @return o menor complementar do elemento.
+	 * @throws MathException se a matriz não for quadrada ou tiver ordem menor que 2.
+	 * @throws ArrayIndexOutOfBoundsException se a posição dada estiver fora dos limites
+	 * da matriz.
+	 */
+	public double complementaryMinor(int line, int column) {
+		if(!isSquare()) {
+			throw new MathException("Esta matriz não é quadrada");
+		}
+		int order = getOrder();
+		if(line < 0 || line >= order || column < 0 || column >= order) {
+			throw new ArrayIndexOutOfBoundsException("Posição (" + line + ", " + column + ") está fora dos"
+					+ "limites para o tamanho da matriz quadrada (" + order + ", " + order + ").");
+		}
+		if(order == 1) {
+			throw new MathException("Esta matriz requer ser de no mínimo ordem 2.");
+		}
+		if(columnStride != 1) {
+			return contiguous().complementaryMinor(line, column);
+		}
+		Matrix complementaryMinor = new Matrix(order - 1);
+		double[] minorData = complementaryMinor.data;
+		for(int i = 0; i < order - 1; i++) {
+			int vLine = i >= line ? i + 1 : i;
+			int row = offset + vLine * stride;
+			int minorRow = i * (order - 1);
+			System.arraycopy(data, row, minorData, minorRow, column);
+			System.arraycopy(data, row + column + 1, minorData, minorRow + column, order - 1 - column);
+		}
+		return complementaryMinor.determinant();
+	}
+	
+	/**
+	 * Soma os valores desta matriz com uma nova, retornando a matriz
+	 * soma das duas. Se as matrizes não tiverem tamanhos iguais, será
+	 * retornada uma matriz que tem a maior quantidade de linhas e colunas
+	 * dentre as duas fornecidas.
+	 * @param m a matriz para ser somada com esta.
+	 * @return a matriz soma.
+	 */
+	public Matrix add(Matrix m) {
+		return sum(m, 1);
+	}
+	
+	/**
+	 * Subtrai os valores de uma nova matriz desta, retornando a matriz
+	 * diferença das duas. Se as matrizes não tiverem tamanhos iguais, será
+	 * retornada uma matriz que tem a maior quantidade de linhas e colunas
+	 * dentre as duas fornecidas.
+	 * @param m a matriz subtraendo.
+	 * @return a matriz diferença.
+	 */
+	public Matrix subtract(Matrix m) {
+		return sum(m, -1);
+	}
+	
+	private Matrix sum(Matrix m, int f) {
+		if(columnStride != 1) {
+			return contiguous().sum(m, f);
+		}
+		m = m.contiguous();
+		int lineAmount = AdvancedMath.biggest(lines, m.lines);
+		int columnAmount = AdvancedMath.biggest(columns, m.columns);
+		
+		Matrix sum = new Matrix(lineAmount, columnAmount);
+		double[] sumData = sum.data;
+		
+		for(int i = 0; i < lines; i++) {
+			System.arraycopy(data, offset + i * stride, sumData, i * columnAmount, columns);
+		}
+		for(int i = 0; i < m.lines; i++) {
+			MatrixKernels.axpy(f, m.data, m.offset + i * m.stride, sumData, i * columnAmount, m.columns);
+		}
+		return sum;
+	}
+	
+	/**
+	 * Soma os valores de uma matriz de mesmo tamanho a esta, alterando
+	 * esta matriz em vez de criar uma nova. A matriz fornecida pode ser
+	 * esta própria, mas não pode compartilhar apenas parte de sua memória
+	 * com esta.
+	 * @param m a matriz para ser somada com esta.
+	 * @return esta matriz.
+	 * @throws MathException se as matrizes não tiverem o mesmo tamanho ou
+	 * compartilharem parcialmente a mesma memória.
+	 */
+	public Matrix addInPlace(Matrix m) {
+		return sumInPlace(m, 1);
+	}
+	
+	/**
+	 * Subtrai desta matriz os valores de uma matriz de mesmo tamanho,
+	 * alterando esta matriz em vez de criar uma nova. A matriz fornecida
+	 * pode ser esta própria, mas não pode compartilhar apenas parte de sua
+	 * memória com esta.
+	 * @param m a matriz subtraendo.
+	 * @return esta matriz.
+	 * @throws MathException se as matrizes não tiverem o mesmo tamanho ou
+	 * compartilharem parcialmente a mesma memória.
+	 */
+	public Matrix subtractInPlace(Matrix m) {
+		return sumInPlace(m, -1);
+	}
+	
+	private Matrix sumInPlace(Matrix m, double f) {
+		checkSameSize(m);
+		if(overlaps(m) && !sameLayout(m)) {
+			throw new MathException("As matrizes compartilham parcialmente a mesma memória");
+		}
+		if(columnStride != 1 || m.columnStride != 1) {
+			for(int i = 0; i < lines; i++) {
+				for(int j = 0; j < columns; j++) {
+					data[index(i, j)] += f * m.data[m.index(i, j)];
+				}
+			}
+			return this;
+		}
+		for(int i = 0; i < lines; i++) {
+			MatrixKernels.axpy(f, m.data, m.offset + i * m.stride, data, offset + i * stride, columns);
+		}
+		return this;
+	}
+	
+	/**
+	 * Multiplica todos os elementos desta matriz pelo escalar fornecido,
+	 * alterando esta matriz em vez de criar uma nova.
+	 * @param scalar o valor que multiplicará todos os elementos desta matriz.
+	 * @return esta matriz.
+	 */
+	public Matrix scaleInPlace(double scalar) {
+		if(columnStride != 1) {
+			modificateAsDouble(x -> scalar * x);
+			return this;
+		}
+		for(int i = 0; i < lines; i++) {
+			int row = offset + i * stride;
+			MatrixKernels.scale(scalar, data, row, data, row, columns);
+		}
+		return this;
+	}
+	
+	/**
+	 * Multiplicação por escalar. Basicamente multiplica todos os elementos
+	 * da matriz pelo escalar fornecido. Tomando os escalares a e b, as
+	 * matrizes A e B e a matriz nula O, a multiplicação por escalar de
+	 * matrizes tem as seguintes propriedades:
+	 * <p>1. a(A + B) = aA + aB;
+	 * <p>2. (a + b)A = aA + bA;
+	 * <p>3. (ab)A = a(bA);
+	 * <p>4. 0A = O.
+	 * @param scalar o valor que multiplicará todos os elementos
+	 * desta matriz.
+	 * @return a matriz multiplicada pelo escalar.
+	 */
+	public Matrix multiplyByScalar(double scalar) {
+		if(columnStride != 1) {
+			return contiguous().multiplyByScalar(scalar);
+		}
+		Matrix result = new Matrix(lines, columns);
+		for(int i = 0; i < lines; i++) {
+			MatrixKernels.scale(scalar, data, offset + i * stride, result.data, i * columns, columns);
+		}
+		return result;
+	}
+	
+	/**
+	 * Potência de matrizes. Só funciona para matrizes quadradas e expoentes
+	 * naturais. Caso as duas condições anteriores não sejam atendidas, é
+	 * retornado null. Elevar a 0 retorna a matriz identidade.
+	 * @param exponent o expoente.
+	 * @return a matriz elevada ao expoente dado.
+	 */
+	public Matrix pow(int exponent) {
+		return pow((long) exponent);
+	}
+	
+	/**
+	 * Potência de matrizes. Funciona como {@link #pow(int)}, porém aceita
+	 * expoentes do tipo long. A potência é calculada por exponenciação
+	 * binária (elevando ao quadrado sucessivamente), de forma que são
+	 * necessárias apenas O(log k) multiplicações para o expoente k. Os
+	 * produtos intermediários reaproveitam sempre as mesmas três matrizes.
+	 * @param exponent o expoente.
+	 * @return a matriz elevada ao expoente dado, ou null se esta matriz não
+	 * for quadrada ou o expoente for negativo.
+	 */
+	public Matrix pow(long exponent) {
+		if(!isSquare() || exponent < 0) {
+			return null;
+		}
+		int order = getOrder();
+		if(exponent == 0) {
+			return getIdentity(order);
+		}
+		Matrix base = new Matrix(order).copyFrom(this);
+		Matrix temp = new Matrix(order);
+		Matrix result = null;
+		while(true) {
+			if((exponent & 1) == 1) {
+				if(result == null) {
+					result = new Matrix(order).copyFrom(base);
+				} else {
+					result.multiplyInto(base, temp);
+					Matrix swap = result;
+					result = temp;
+					temp = swap;
+				}
+			}
+			exponent >>>= 1;
+			if(exponent == 0) {
+				return result;
+			}
+			base.multiplyInto(base, temp);
+			Matrix swap = base;
+			base = temp;
+			temp = swap;
+		}
+	}
+	
+	/**
+	 * Potência de matrizes simétricas pela decomposição espectral. Sendo
+	 * A = VDVᵀ, tem-se A^k = VD^kVᵀ, de forma que o custo não depende do
+	 * expoente: são necessárias apenas uma decomposição e uma multiplicação.
+	 * O resultado pode diferir de {@link #pow(long)} por erros de
+	 * arredondamento. Se esta matriz não for simétrica, é usado
+	 * {@link #pow(long)}.
+	 * @param exponent o expoente.
+	 * @return a matriz elevada ao expoente dado, ou null se esta matriz não
+	 * for quadrada ou o expoente for negativo.
+	 */
+	public Matrix symmetricPow(long exponent) {
+		if(!isSquare() || exponent < 0) {
+			return null;
+		}
+		if(exponent <= 1 || !isSimetric()) {
+			return pow(exponent);
+		}
+		return eigen().apply(value -> Math.pow(value, exponent));
+	}
+	
+	/**
+	 * Decomposição de Cholesky desta matriz. A decomposição só existe se
+	 * esta matriz for simétrica positiva definida, o que pode ser verificado
+	 * em {@link CholeskyDecomposition#isPositiveDefinite()}.
+	 * @return a decomposição de Cholesky desta matriz.
+	 * @throws MathException se esta matriz não for quadrada.
+	 */
+	public CholeskyDecomposition cholesky() {
+		return new CholeskyDecomposition(this);
+	}
+	
+	/**
+	 * Decomposição LDLᵀ desta matriz, com pivotamento simétrico de
+	 * Bunch-Kaufman. Ao contrário da decomposição de Cholesky, funciona para
+	 * qualquer matriz simétrica, inclusive as indefinidas.
+	 * @return a decomposição LDLᵀ desta matriz.
+	 * @throws MathException se esta matriz não for simétrica.
+	 */
+	public LDLDecomposition ldl() {
+		return new LDLDecomposition(this);
+	}
+	
+	/**
+	 * Decomposição QR desta matriz, por reflexões de Householder.
+	 * @return a decomposição QR desta matriz.
+	 * @throws MathException se esta matriz tiver menos linhas que colunas.
+	 */
+	public QRDecomposition qr() {
+		return new QRDecomposition(this);
+	}
+	
+	/**
+	 * Decomposição QR desta matriz, por reflexões de Householder, com ou sem
+	 * pivotamento de colunas. O pivotamento permite estimar o posto numérico
+	 * com {@link QRDecomposition#getRank()}.
+	 * @param pivoting true para usar pivotamento de colunas.
+	 * @return a decomposição QR desta matriz.
+	 * @throws MathException se esta matriz tiver menos linhas que colunas.
+	 */
+	public QRDecomposition qr(boolean pivoting) {
+		return new QRDecomposition(this, pivoting);
+	}
+	
+	/**
+	 * Encontra o x que minimiza a norma de Ax - b, sendo A esta matriz, por
+	 * decomposição QR com pivotamento de colunas. Se as colunas desta matriz
+	 * forem linearmente dependentes, é retornada uma solução básica, com as
+	 * incógnitas excedentes valendo 0. Para dados que chegam em blocos de
+	 * linhas, veja {@link UpdatableQRDecomposition}.
+	 * @param b o vetor dos termos independentes.
+	 * @return o vetor x de mínimos quadrados.
+	 * @throws MathException se o tamanho de b for diferente da quantidade de
+	 * linhas desta matriz ou se ela tiver menos linhas que colunas.
+	 */
+	public double[] leastSquares(double[] b) {
+		return qr(true).solve(b);
+	}
+	
+	/**
+	 * Resolve o problema de mínimos quadrados para cada coluna de B.
+	 * Veja {@link #leastSquares(double[])}.
+	 * @param b a matriz dos termos independentes.
+	 * @return a matriz X de mínimos quadrados.
+	 * @throws MathException se a quantidade de linhas de B for diferente da
+	 * desta matriz ou se ela tiver menos linhas que colunas.
+	 */
+	public Matrix leastSquares(Matrix b) {
+		return qr(true).solve(b);
+	}
+	
+	/**
+	 * Resolve o sistema linear AX = B, sendo A esta matriz, escolhendo o
+	 * método automaticamente (veja {@link SolveMethod#AUTO}). Cada coluna
+	 * de B é um termo independente diferente e todas são resolvidas com uma
+	 * única fatoração. Para resolver sistemas com a mesma matriz em momentos
+	 * diferentes, guarde a decomposição retornada por {@link #lu()},
+	 * {@link #cholesky()} ou {@link #qr()} e use seus métodos solve.
+	 * @param b a matriz dos termos independentes.
+	 * @return a matriz X solução.
+	 * @throws MathException se a quantidade de linhas de B for diferente da
+	 * desta matriz ou se o sistema não tiver solução única.
+	 */
+	public Matrix solve(Matrix b) {
+		return solve(b, SolveMethod.AUTO);
+	}
+	
+	/**
+	 * Resolve o sistema linear AX = B, sendo A esta matriz, com o método
+	 * fornecido. Veja {@link #solve(Matrix)}.
+	 * @param b a matriz dos termos independentes.
+	 * @param method o método de resolução.
+	 * @return a matriz X solução.
+	 * @throws MathException se a quantidade de linhas de B for diferente da
+	 * desta matriz, se esta matriz não atender aos requisitos do método ou
+	 * se o sistema não tiver solução única.
+	 */
+	public Matrix solve(Matrix b, SolveMethod method) {
+		Objects.requireNonNull(method, "Método nulo");
+		if(b.lines != lines) {
+			throw new MathException("A quantidade de linhas dos termos independentes deve ser igual à da matriz");
+		}
+		if(method == SolveMethod.AUTO) {
+			if(!isSquare()) {
+				method = SolveMethod.QR;
+			} else if(isSimetric()) {
+				if(hasPositiveDiagonal()) {
+					CholeskyDecomposition cholesky = cholesky();
+					if(cholesky.isPositiveDefinite()) {
+						return cholesky.solve(b);
+					}
+				}
+				method = SolveMethod.LDL;
+			} else {
+				method = SolveMethod.LU;
+			}
+		}
+		return switch(method) {
+			case LU:
+				LUDecomposition lu = lu();
+				if(lu.isSingular()) {
+					throw new MathException("A matriz é singular");
+				}
+				yield lu.solve(b);
+			case CHOLESKY:
+				yield cholesky().solve(b);
+			case LDL:
+				yield ldl().solve(b);
+			case QR:
+				yield lines >= columns ? qr().solve(b) : transposed().qr().solveTransposed(b);
+			default:
+				throw new MathException("Método desconhecido: " + method);
+		};
+	}
+	
+	/**
+	 * Resolve o sistema linear Ax = b, sendo A esta matriz, escolhendo o
+	 * método automaticamente. Veja {@link #solve(Matrix)}.
+	 * @param b o vetor dos termos independentes.
+	 * @return o vetor solução x.
+	 * @throws MathException se o tamanho de b for diferente da quantidade de
+	 * linhas desta matriz ou se o sistema não tiver solução única.
+	 */
+	public double[] solve(double[] b) {
+		return solve(b, SolveMethod.AUTO);
+	}
+	
+	/**
+	 * Resolve o sistema linear Ax = b, sendo A esta matriz, com o método
+	 * fornecido. Veja {@link #solve(Matrix, SolveMethod)}.
+	 * @param b o vetor dos termos independentes.
+	 * @param method o método de resolução.
+	 * @return o vetor solução x.
+	 * @throws MathException se o tamanho de b for diferente da quantidade de
+	 * linhas desta matriz, se esta matriz não atender aos requisitos do método
+	 * ou se o sistema não tiver solução única.
+	 */
+	public double[] solve(double[] b, SolveMethod method) {
+		if(b.length != lines) {
+			throw new MathException("O tamanho dos termos independentes deve ser igual à quantidade de linhas da matriz");
+		}
+		return solve(new Matrix(b.length, 1, b), method).toFlatArray();
+	}
+	
+	private boolean hasPositiveDiagonal() {
+		for(int i = 0; i < lines; i++) {
+			if(!(data[index(i, i)] > 0)) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Decomposição espectral desta matriz, que deve ser simétrica.
+	 * Veja {@link EigenDecomposition}.
+	 * @return a decomposição espectral desta matriz.
+	 * @throws MathException se esta matriz não for simétrica.
+	 */
+	public EigenDecomposition eigen() {
+		return new EigenDecomposition(this);
+	}
+	
+	/**
+	 * Calcula apenas os k maiores autovalores desta matriz, que deve ser
+	 * simétrica, e seus autovetores, pelo método de Lanczos. Para k muito
+	 * menor que a ordem, é muito mais barato que {@link #eigen()}.
+	 * Veja {@link PartialEigenDecomposition}.
+	 * @param k a quantidade de autovalores desejada.
+	 * @return a decomposição espectral parcial desta matriz.
+	 * @throws MathException se esta matriz não for simétrica.
+	 * @throws IllegalArgumentException se k não estiver entre 1 e a ordem
+	 * desta matriz.
+	 */
+	public PartialEigenDecomposition eigen(int k) {
+		if(!isSimetric()) {
+			throw new MathException("A decomposição espectral só está disponível para matrizes simétricas");
+		}
+		return new PartialEigenDecomposition(this, k);
+	}
+	
+	/**
+	 * Decomposição em valores singulares desta matriz.
+	 * Veja {@link SingularValueDecomposition}.
+	 * @return a decomposição em valores singulares desta matriz.
+	 */
+	public SingularValueDecomposition svd() {
+		return new SingularValueDecomposition(this);
+	}
+	
+	/**
+	 * Calcula apenas os k maiores valores singulares desta matriz e seus
+	 * vetores singulares, pelo método aleatorizado com 10 vetores adicionais
+	 * e 2 iterações de potência. Veja
+	 * {@link SingularValueDecomposition#randomized(Matrix, int, int, int, long)}.
+	 * @param k a quantidade de valores singulares desejada.
+	 * @return a decomposição em valores singulares truncada desta matriz.
+	 * @throws IllegalArgumentException se k não estiver entre 1 e o menor
+	 * entre a quantidade de linhas e de colunas desta matriz.
+	 */
+	public SingularValueDecomposition svd(int k) {
+		return SingularValueDecomposition.randomized(this, k, 10, 2, 0);
+	}
+	
+	/**
+	 * Multiplicação de matrizes. É importante dizer que para que
+	 * a multiplicação de matrizes funcione, a quantidade de colunas
+	 * da primeira deve ser igual ao número de linhas da segunda. Assim
+	 * sendo, a multiplicação de uma matriz MxP por uma PxN retorna uma
+	 * matriz MxN. A multiplicação de matrizes não é comutativa; assim sendo,
+	 * uma matriz A multiplicada por uma matriz B não retorna o mesmo que
+	 * uma matriz B multiplicada por uma matriz A, salvo em dois casos: uma
+	 * matriz inversível multiplicada por sua inversa, cujo resultado será
+	 * sempre a matriz identidade; uma matriz quadrada multiplicada pela matriz
+	 * identidade de mesma ordem, cujo resultado será sempre a própria matriz.
+	 * Tomandos as matrizes A, B e C, a matriz nula O e a matriz identidade I,
+	 * a multiplicação de matrizes tem as seguintes propriedades:
+	 * <p>1. AB nem sempre é igual a BA;
+	 * <p>2. (AB)C = A(BC);
+	 * <p>3. A(B + C) = AB + AC, (B + C)A = BA + CA;
+	 * <p>4. AI = IA = A;
+	 * <p>5. AO = OA = O.
+	 * <p>O produto é calculado em blocos (ver {@link #getBlockSize()}), de forma
+	 * que os operandos sejam percorridos de forma contígua e reaproveitados
+	 * enquanto ainda estão na memória cache.
+	 * @param m a matriz para ser multiplicada com esta.
+	 * @return a matriz produto.
+	 * @throws MathException se a quantidade de colunas da primeira for diferente
+	 * da quantidade de linhas da segunda.
+	 */
+	public Matrix multiply(Matrix m) {
+		return multiply(m, blockSize);
+	}
+	
+	/**
+	 * Multiplicação de matrizes usando um tamanho de bloco específico.
+	 * Veja {@link #multiply(Matrix)}.
+	 * @param m a matriz para ser multiplicada com esta.
+	 * @param blockSize a quantidade máxima de linhas e colunas de cada bloco.
+	 * @return a matriz produto.
+	 * @throws MathException se a quantidade de colunas da primeira for diferente
+	 * da quantidade de linhas da segunda.
+	 * @throws IllegalArgumentException se o tamanho do bloco for menor que 1.
+	 */
+	public Matrix multiply(Matrix m, int blockSize) {
+		checkMultiplication(m);
+		if(blockSize < 1) {
+			throw new IllegalArgumentException("O tamanho do bloco não pode ser menor que 1");
+		}
+		if(columnStride != 1) {
+			return contiguous().multiply(m, blockSize);
+		}
+		m = m.contiguous();
+		Matrix result = new Matrix(lines, m.columns);
+		MatrixKernels.multiply(data, offset, stride, m.data, m.offset, m.stride,
+				result.data, 0, result.stride, lines, m.columns, columns, blockSize);
+		return result;
+	}
+	
+	/**
+	 * Multiplicação de matrizes em paralelo, usando a pool comum do
+	 * {@link ForkJoinPool}. O resultado é o mesmo de {@link #multiply(Matrix)};
+	 * a matriz produto é dividida em blocos de linhas e colunas calculados
+	 * simultaneamente. Produtos pequenos são calculados sequencialmente, já
+	 * que o custo de dividir o trabalho não compensaria.
+	 * @param m a matriz para ser multiplicada com esta.
+	 * @return a matriz produto.
+	 * @throws MathException se a quantidade de colunas da primeira for diferente
+	 * da quantidade de linhas da segunda.
+	 */
+	public Matrix parallelMultiply(Matrix m) {
+		return parallelMultiply(m, ForkJoinPool.commonPool());
+	}
+	
+	/**
+	 * Multiplicação de matrizes em paralelo, usando a pool fornecida. Permite
+	 * isolar o cálculo de matrizes das demais tarefas da aplicação e controlar
+	 * a quantidade de threads usadas através do paralelismo da pool.
+	 * Veja {@link #parallelMultiply(Matrix)}.
+	 * @param m a matriz para ser multiplicada com esta.
+	 * @param pool a pool onde as tarefas serão executadas.
+	 * @return a matriz produto.
+	 * @throws NullPointerException se a pool for nula.
+	 * @throws MathException se a quantidade de colunas da primeira for diferente
+	 * da quantidade de linhas da segunda.
+	 */
+	public Matrix parallelMultiply(Matrix m, ForkJoinPool pool) {
+		checkMultiplication(m);
+		Objects.requireNonNull(pool, "Pool nula");
+		if(columnStride != 1) {
+			return contiguous().parallelMultiply(m, pool);
+		}
+		m = m.contiguous();
+		Matrix result = new Matrix(lines, m.columns);
+		MatrixKernels.parallelMultiply(data, offset, stride, m.data, m.offset, m.stride,
+				result.data, 0, result.stride, lines, m.columns, columns, blockSize, pool);
+		return result;
+	}
+	
+	/**
+	 * Multiplicação de matrizes pelo algoritmo de Strassen-Winograd, em
+	 * paralelo na pool comum, com a dimensão de corte padrão
+	 * {@link #DEFAULT_STRASSEN_CUTOFF}. Veja
+	 * {@link #strassenMultiply(Matrix, int, ForkJoinPool)}.
+	 * @param m a matriz para ser multiplicada com esta.
+	 * @return a matriz produto.
+	 * @throws MathException se a quantidade de colunas da primeira for diferente
+	 * da quantidade de linhas da segunda.
+	 */
+	public Matrix strassenMultiply(Matrix m) {
+		return strassenMultiply(m, DEFAULT_STRASSEN_CUTOFF, ForkJoinPool.commonPool());
+	}
+	
+	/**
+	 * Multiplicação de matrizes pelo algoritmo de Strassen-Winograd. Cada
+	 * nível da recursão divide as matrizes em quatro blocos e calcula o
+	 * produto com 7 multiplicações de blocos em vez de 8, de forma que o custo
+	 * cai de O(n³) para O(n^2,81). A recursão para quando a menor dimensão
+	 * fica menor ou igual a cutoff, e os blocos restantes são multiplicados
+	 * por {@link #multiply(Matrix)}. As 7 multiplicações de cada nível são
+	 * executadas em paralelo na pool fornecida.
+	 * <p>O ganho só aparece em matrizes grandes, com milhares de linhas, e
+	 * tem dois custos. Primeiro, memória: cada nível aloca 15 blocos
+	 * temporários de um quarto do tamanho. Segundo, precisão: o erro deixa
+	 * de ser limitado elemento a elemento e passa a ser limitado apenas em
+	 * norma, ||C - AB|| ≤ c(n) u ||A|| ||B||, com c(n) crescendo mais rápido
+	 * que na multiplicação clássica a cada nível. Na prática o erro fica
+	 * algumas vezes maior, podendo ser muito maior para elementos pequenos de
+	 * C quando A ou B têm elementos de escalas muito diferentes. Prefira
+	 * {@link #multiply(Matrix)} quando a precisão de cada elemento importa.
+	 * @param m a matriz para ser multiplicada com esta.
+	 * @param cutoff a dimensão abaixo da qual a recursão para.
+	 * @param pool a pool onde as tarefas serão executadas.
+	 * @return a matriz produto.
+	 * @throws NullPointerException se a pool for nula.
+	 * @throws IllegalArgumentException se cutoff for menor que 1.
+	 * @throws MathException se a quantidade de colunas da primeira for diferente
+	 * da quantidade de linhas da segunda.
+	 */
+	public Matrix strassenMultiply(Matrix m, int cutoff, ForkJoinPool pool) {
+		checkMultiplication(m);
+		Objects.requireNonNull(pool, "Pool nula");
+		if(cutoff < 1) {
+			throw new IllegalArgumentException("A dimensão de corte deve ser positiva");
+		}
+		if(columnStride != 1) {
+			return contiguous().strassenMultiply(m, cutoff, pool);
+		}
+		m = m.contiguous();
+		Matrix result = new Matrix(lines, m.columns);
+		MatrixKernels.strassenMultiply(data, offset, stride, m.data, m.offset, m.stride,
+				result.data, 0, result.stride, lines, m.columns, columns, cutoff, blockSize, pool);
+		return result;
+	}
+	
+	/**
+	 * Inicia uma expressão preguiçosa a partir desta matriz. As operações
+	 * encadeadas na expressão só são calculadas em
+	 * {@link MatrixExpression#evaluate()}, todas em um único laço, sem criar
+	 * matrizes intermediárias. Veja {@link MatrixExpression}.
+	 * @param m a matriz.
+	 * @return a expressão que representa a matriz.
+	 * @throws NullPointerException se a matriz for nula.
+	 */
+	public static MatrixExpression expr(Matrix m) {
+		if(m == null) {
+			throw new NullPointerException("Matriz nula");
+		}
+		return new MatrixExpression(m);
+	}
+	
+	/**
+	 * Indica se as operações de matrizes estão usando os núcleos vetorizados
+	 * (SIMD) da Vector API. Isso acontece quando a JVM é iniciada com
+	 * --add-modules jdk.incubator.vector e a propriedade de sistema
+	 * br.sergio.math.vectorize não vale false; do contrário, são usados
+	 * núcleos escalares equivalentes.
+	 * @return true se os núcleos vetorizados estiverem em uso.
+	 */
+	public static boolean isVectorized() {
+		return MatrixKernels.VECTORIZED;
+	}
+	
+	/**
+	 * Multiplicação de matrizes com destino. Calcula o produto desta matriz
+	 * pela fornecida e o escreve na matriz de destino, sem alocar uma nova
+	 * matriz. É útil em laços onde o mesmo produto é recalculado várias vezes.
+	 * Veja {@link #multiply(Matrix)}.
+	 * @param m a matriz para ser multiplicada com esta.
+	 * @param dest a matriz onde o produto será escrito. Deve ter a quantidade
+	 * de linhas desta e a quantidade de colunas da fornecida.
+	 * @return a matriz de destino.
+	 * @throws MathException se a quantidade de colunas da primeira for diferente
+	 * da quantidade de linhas da segunda, se o destino não tiver o tamanho do
+	 * produto ou se ele compartilhar memória com algum dos operandos.
+	 */
+	public Matrix multiplyInto(Matrix m, Matrix dest) {
+		checkMultiplication(m);
+		if(dest.lines != lines || dest.columns != m.columns) {
+			throw new MathException("A matriz de destino deve ter tamanho " + lines + "x" + m.columns);
+		}
+		checkNoAliasing(dest, m);
+		Matrix a = contiguous();
+		Matrix b = m.contiguous();
+		if(dest.columnStride != 1) {
+			return dest.copyFrom(a.multiply(b, blockSize));
+		}
+		dest.fill(0);
+		MatrixKernels.multiply(a.data, a.offset, a.stride, b.data, b.offset, b.stride,
+				dest.data, dest.offset, dest.stride, lines, m.columns, columns, blockSize);
+		return dest;
+	}
+	
+	/**
+	 * Multiplica esta matriz pelo vetor de entrada, escrevendo o produto no
+	 * vetor de saída. Permite usar a matriz nos métodos de {@link IterativeSolver}.
+	 * Equivale a {@link #multiply(double[], double[])}.
+	 * @param in o vetor, com tantos elementos quanto esta matriz tem colunas.
+	 * @param out o vetor onde o produto será escrito, com tantos elementos
+	 * quanto esta matriz tem linhas.
+	 * @throws MathException se os tamanhos dos vetores forem incompatíveis ou
+	 * se forem o mesmo array.
+	 */
+	@Override
+	public void apply(double[] in, double[] out) {
+		multiply(in, out);
+	}
+	
+	/**
+	 * Produto desta matriz pelo vetor x, sem representá-lo como uma matriz
+	 * coluna. Veja {@link #multiply(double[], double[])}.
+	 * @param x o vetor, com tantos elementos quanto esta matriz tem colunas.
+	 * @return um novo vetor com o produto, com tantos elementos quanto esta
+	 * matriz tem linhas.
+	 * @throws MathException se o tamanho do vetor for incompatível.
+	 */
+	public double[] multiply(double[] x) {
+		return multiply(x, new double[lines]);
+	}
+	
+	/**
+	 * Produto desta matriz pelo vetor x, escrito em y sem nenhuma alocação.
+	 * As linhas são percorridas de quatro em quatro, lendo cada elemento de x
+	 * uma única vez para as quatro. Numa visão transposta (veja
+	 * {@link #transposedView()}), é calculado o produto pela transposta da
+	 * matriz original, que também percorre a memória de forma contígua.
+	 * @param x o vetor, com tantos elementos quanto esta matriz tem colunas.
+	 * @param y o vetor onde o produto será escrito, com tantos elementos
+	 * quanto esta matriz tem linhas.
+	 * @return o vetor y.
+	 * @throws MathException se os tamanhos dos vetores forem incompatíveis ou
+	 * se forem o mesmo array.
+	 */
+	public double[] multiply(double[] x, double[] y) {
+		checkVectors(x, columns, y, lines);
+		if(columnStride == 1) {
+			MatrixKernels.gemv(data, offset, stride, x, 0, y, 0, lines, columns);
+		} else if(stride == 1) {
+			MatrixKernels.gemvTransposed(data, offset, columnStride, x, 0, y, 0, columns, lines);
+		} else {
+			for(int i = 0; i < lines; i++) {
+				double sum = 0;
+				for(int j = 0; j < columns; j++) {
+					sum += data[index(i, j)] * x[j];
+				}
+				y[i] = sum;
+			}
+		}
+		return y;
+	}
+	
+	/**
+	 * Versão paralela de {@link #multiply(double[], double[])}, usando a pool
+	 * comum do {@link ForkJoinPool}. As linhas do produto são divididas entre
+	 * as tarefas; produtos pequenos são calculados sequencialmente.
+	 * @param x o vetor, com tantos elementos quanto esta matriz tem colunas.
+	 * @param y o vetor onde o produto será escrito, com tantos elementos
+	 * quanto esta matriz tem linhas.
+	 * @return o vetor y.
+	 * @throws MathException se os tamanhos dos vetores forem incompatíveis ou
+	 * se forem o mesmo array.
+	 */
+	public double[] parallelMultiply(double[] x, double[] y) {
+		return parallelMultiply(x, y, ForkJoinPool.commonPool());
+	}
+	
+	/**
+	 * Versão paralela de {@link #multiply(double[], double[])}, usando a pool
+	 * fornecida. Veja {@link #parallelMultiply(double[], double[])}.
+	 * @param x o vetor, com tantos elementos quanto esta matriz tem colunas.
+	 * @param y o vetor onde o produto será escrito, com tantos elementos
+	 * quanto esta matriz tem linhas.
+	 * @param pool a pool onde as tarefas serão executadas.
+	 * @return o vetor y.
+	 * @throws NullPointerException se a pool for nula.
+	 * @throws MathException se os tamanhos dos vetores forem incompatíveis ou
+	 * se forem o mesmo array.
+	 */
+	public double[] parallelMultiply(double[] x, double[] y, ForkJoinPool pool) {
+		checkVectors(x, columns, y, lines);
+		Objects.requireNonNull(pool, "Pool nula");
+		if(columnStride == 1) {
+			MatrixKernels.parallelFor(lines, MatrixKernels.grain(columns), (start, end) -> MatrixKernels.gemv(
+					data, offset + start * stride, stride, x, 0, y, start, end - start, columns), pool);
+		} else if(stride == 1) {
+			MatrixKernels.parallelFor(lines, MatrixKernels.grain(columns), (start, end) -> MatrixKernels.gemvTransposed(
+					data, offset + start, columnStride, x, 0, y, start, columns, end - start), pool);
+		} else {
+			multiply(x, y);
+		}
+		return y;
 	}
 	
 	/**
-	 * @return o determinante desta matriz.
-	 * @throws MathException se esta matriz não for quadrada.
+	 * Aplica esta matriz ao vetor, sem representá-lo como uma matriz coluna.
+	 * A matriz deve ter 2 ou 3 colunas, que multiplicam as componentes i, j e,
+	 * se houver a terceira coluna, k do vetor; e 2 ou 3 linhas, que formam as
+	 * componentes do vetor resultante, cuja origem é a origem do espaço.
+	 * Para transformações 2x2, 3x3 e 4x4 frequentes, prefira {@link Matrix2},
+	 * {@link Matrix3} e {@link Matrix4}.
+	 * @param v o vetor.
+	 * @return o vetor transformado.
+	 * @throws MathException se a matriz não tiver 2 ou 3 linhas e colunas.
 	 */
-	public double determinant() {
-		if(!isSquare()) {
-			throw new MathException("Determinantes só existem para matrizes quadradas");
+	public Vector multiply(Vector v) {
+		if(lines < 2 || lines > 3 || columns < 2 || columns > 3) {
+			throw new MathException("Apenas matrizes com 2 ou 3 linhas e colunas podem multiplicar vetores");
 		}
-		return switch(getOrder()) {
-			case 1:
-				yield data[0][0];
-			case 2:
-				yield data[0][0] * data[1][1] - data[0][1] * data[1][0];
-			case 3:
-				yield data[2][0] * data[0][1] * data[1][2] 
-						+ data[0][0] * data[1][1] * data[2][2] 
-						+ data[1][0] * data[2][1] * data[0][2]
-						- data[2][2] * data[0][1] * data[1][0]
-						- data[0][2] * data[1][1] * data[2][0]
-						- data[1][2] * data[2][1] * data[0][0];
-			default:
-				double determinant = 0;
-				for(int i = 0; i < columns; i++) {
-					double value = data[0][i];
-					if(value == 0) {
-						continue;
-					}
-					determinant += value * cofactor(0, i);
-				}
-				yield determinant;
-		};
+		double[] x = columns == 2 ? new double[] {v.getX(), v.getY()} : new double[] {v.getX(), v.getY(), v.getZ()};
+		double[] y = multiply(x, new double[lines]);
+		return lines == 2 ? new Vector(y[0], y[1]) : new Vector(y[0], y[1], y[2]);
 	}
 	
 	/**
-	 * Cofator de um elemento. O cofator do elemento de uma matriz quadrada
-	 * na posição ij é dado por (-1)^(i + j) * Dij, sendo Dij o menor complementar
-	 * do elemento.
-	 * @param line a linha do elemento.
-	 * @param column a coluna do elemento.
-	 * @return o cofator do elemento.
+	 * Produto da transposta desta matriz pelo vetor x, sem transpor a matriz.
+	 * Veja {@link #transposeMultiply(double[], double[])}.
+	 * @param x o vetor, com tantos elementos quanto esta matriz tem linhas.
+	 * @return um novo vetor com o produto, com tantos elementos quanto esta
+	 * matriz tem colunas.
+	 * @throws MathException se o tamanho do vetor for incompatível.
 	 */
-	public double cofactor(int line, int column) {
-		return AdvancedMath.pow(-1, line + column) * complementaryMinor(line, column);
+	public double[] transposeMultiply(double[] x) {
+		return transposeMultiply(x, new double[columns]);
 	}
 	
 	/**
-	 * Menor complementar. O menor complementar de um elemento é o determinante formado
-	 * pela matriz quadrada de ordem n - 1, tal que a linha e a coluna do elemento foram
-	 * excluídas. Como exemplo, o menor complementar do elemento 4 (posição 2,1 - ou 1,0
-	 * se a contagem começar do 0) da matriz {{1, 2, 3}, {4, 5, 6}, {7, 8, 9}} é o
-	 * determinante da matriz {{2, 3}, {8, 9}}, que é igual a -6;
-	 * @param line a linha do elemento.
-	 * @param column a coluna do elemento.
-	 * @return o menor complementar do elemento.
-	 * @throws MathException se a matriz não for quadrada ou tiver ordem menor que 2.
-	 * @throws ArrayIndexOutOfBoundsException se a posição dada estiver fora dos limites
-	 * da matriz.
+	 * Produto da transposta desta matriz pelo vetor x, escrito em y sem
+	 * transpor a matriz e sem nenhuma alocação. O resultado é a combinação
+	 * das linhas desta matriz com os coeficientes de x, acumuladas de quatro
+	 * em quatro linhas em y, de modo que a matriz é lida de forma contígua.
+	 * @param x o vetor, com tantos elementos quanto esta matriz tem linhas.
+	 * @param y o vetor onde o produto será escrito, com tantos elementos
+	 * quanto esta matriz tem colunas.
+	 * @return o vetor y.
+	 * @throws MathException se os tamanhos dos vetores forem incompatíveis ou
+	 * se forem o mesmo array.
 	 */
-	public double complementaryMinor(int line, int column) {
-		if(!isSquare()) {
-			throw new MathException("Esta matriz não é quadrada");
-		}
-		int order = getOrder();
-		if(line < 0 || line >= order || column < 0 || column >= order) {
-			throw new ArrayIndexOutOfBoundsException("Posição (" + line + ", " + column + ") está fora dos"
-					+ "limites para o tamanho da matriz quadrada (" + order + ", " + order + ").");
-		}
-		if(order == 1) {
-			throw new MathException("Esta matriz requer ser de no mínimo ordem 2.");
-		}
-		double[][] complementaryMinorData = new double[order - 1][order - 1];
-		for(int i = 0; i < order - 1; i++) {
-			for(int j = 0; j < order - 1; j++) {
-				int vLine = i >= line ? i + 1 : i;
-				int vColumn = j >= column ? j + 1 : j;
-				complementaryMinorData[i][j] = data[vLine][vColumn];
+	public double[] transposeMultiply(double[] x, double[] y) {
+		checkVectors(x, lines, y, columns);
+		if(columnStride == 1) {
+			MatrixKernels.gemvTransposed(data, offset, stride, x, 0, y, 0, lines, columns);
+		} else if(stride == 1) {
+			MatrixKernels.gemv(data, offset, columnStride, x, 0, y, 0, columns, lines);
+		} else {
+			for(int j = 0; j < columns; j++) {
+				double sum = 0;
+				for(int i = 0; i < lines; i++) {
+					sum += data[index(i, j)] * x[i];
+				}
+				y[j] = sum;
 			}
 		}
-		return new Matrix(complementaryMinorData).determinant();
+		return y;
 	}
 	
 	/**
-	 * Soma os valores desta matriz com uma nova, retornando a matriz
-	 * soma das duas. Se as matrizes não tiverem tamanhos iguais, será
-	 * retornada uma matriz que tem a maior quantidade de linhas e colunas
-	 * dentre as duas fornecidas.
-	 * @param m a matriz para ser somada com esta.
-	 * @return a matriz soma.
+	 * Versão paralela de {@link #transposeMultiply(double[], double[])},
+	 * usando a pool comum do {@link ForkJoinPool}. As colunas desta matriz,
+	 * que correspondem aos elementos do produto, são divididas entre as
+	 * tarefas, de modo que nenhuma soma precisa ser combinada no final.
+	 * @param x o vetor, com tantos elementos quanto esta matriz tem linhas.
+	 * @param y o vetor onde o produto será escrito, com tantos elementos
+	 * quanto esta matriz tem colunas.
+	 * @return o vetor y.
+	 * @throws MathException se os tamanhos dos vetores forem incompatíveis ou
+	 * se forem o mesmo array.
 	 */
-	public Matrix add(Matrix m) {
-		return sum(m, 1);
+	public double[] parallelTransposeMultiply(double[] x, double[] y) {
+		return parallelTransposeMultiply(x, y, ForkJoinPool.commonPool());
 	}
 	
 	/**
-	 * Subtrai os valores de uma nova matriz desta, retornando a matriz
-	 * diferença das duas. Se as matrizes não tiverem tamanhos iguais, será
-	 * retornada uma matriz que tem a maior quantidade de linhas e colunas
-	 * dentre as duas fornecidas.
-	 * @param m a matriz subtraendo.
-	 * @return a matriz diferença.
+	 * Versão paralela de {@link #transposeMultiply(double[], double[])},
+	 * usando a pool fornecida. Veja {@link #parallelTransposeMultiply(double[], double[])}.
+	 * @param x o vetor, com tantos elementos quanto esta matriz tem linhas.
+	 * @param y o vetor onde o produto será escrito, com tantos elementos
+	 * quanto esta matriz tem colunas.
+	 * @param pool a pool onde as tarefas serão executadas.
+	 * @return o vetor y.
+	 * @throws NullPointerException se a pool for nula.
+	 * @throws MathException se os tamanhos dos vetores forem incompatíveis ou
+	 * se forem o mesmo array.
 	 */
-	public Matrix subtract(Matrix m) {
-		return sum(m, -1);
+	public double[] parallelTransposeMultiply(double[] x, double[] y, ForkJoinPool pool) {
+		checkVectors(x, lines, y, columns);
+		Objects.requireNonNull(pool, "Pool nula");
+		if(columnStride == 1) {
+			MatrixKernels.parallelFor(columns, MatrixKernels.grain(lines), (start, end) -> MatrixKernels.gemvTransposed(
+					data, offset + start, stride, x, 0, y, start, lines, end - start), pool);
+		} else if(stride == 1) {
+			MatrixKernels.parallelFor(columns, MatrixKernels.grain(lines), (start, end) -> MatrixKernels.gemv(
+					data, offset + start * columnStride, columnStride, x, 0, y, start, end - start, lines), pool);
+		} else {
+			transposeMultiply(x, y);
+		}
+		return y;
 	}
 	
-	private Matrix sum(Matrix m, int f) {
-		int lineAmount = AdvancedMath.biggest(lines, m.lines);
-		int columnAmount = AdvancedMath.biggest(columns, m.columns);
-		
-		Matrix sum = new Matrix(lineAmount, columnAmount);
-		
-		for(int i = 0; i < lineAmount; i++) {
-			for(int j = 0; j < columnAmount; j++) {
-				double value1, value2;
-				try {
-					value1 = data[i][j];
-				} catch(ArrayIndexOutOfBoundsException e) {
-					value1 = 0;
-				}
-				try {
-					value2 = m.data[i][j];
-				} catch(ArrayIndexOutOfBoundsException e) {
-					value2 = 0;
+	/**
+	 * Atualização de posto 1: soma alpha * x * y<sup>T</sup> a esta matriz,
+	 * sem formar a matriz x * y<sup>T</sup>. Cada linha i recebe y
+	 * multiplicado por alpha * x[i]; linhas cujo coeficiente é zero não são
+	 * percorridas.
+	 * @param alpha o escalar.
+	 * @param x o vetor coluna, com tantos elementos quanto esta matriz tem linhas.
+	 * @param y o vetor linha, com tantos elementos quanto esta matriz tem colunas.
+	 * @return esta matriz.
+	 * @throws MathException se os tamanhos dos vetores forem incompatíveis.
+	 */
+	public Matrix rankOneUpdate(double alpha, double[] x, double[] y) {
+		checkRankOne(x, y);
+		if(columnStride == 1) {
+			MatrixKernels.rankOneUpdate(alpha, x, 0, y, 0, data, offset, stride, lines, columns);
+		} else if(stride == 1) {
+			MatrixKernels.rankOneUpdate(alpha, y, 0, x, 0, data, offset, columnStride, columns, lines);
+		} else {
+			for(int i = 0; i < lines; i++) {
+				double factor = alpha * x[i];
+				for(int j = 0; j < columns; j++) {
+					data[index(i, j)] += factor * y[j];
 				}
-				sum.setValue(i, j, value1 + f * value2);
 			}
 		}
-		return sum;
+		return this;
 	}
 	
 	/**
-	 * Multiplicação por escalar. Basicamente multiplica todos os elementos
-	 * da matriz pelo escalar fornecido. Tomando os escalares a e b, as
-	 * matrizes A e B e a matriz nula O, a multiplicação por escalar de
-	 * matrizes tem as seguintes propriedades:
-	 * <p>1. a(A + B) = aA + aB;
-	 * <p>2. (a + b)A = aA + bA;
-	 * <p>3. (ab)A = a(bA);
-	 * <p>4. 0A = O.
-	 * @param scalar o valor que multiplicará todos os elementos
-	 * desta matriz.
-	 * @return a matriz multiplicada pelo escalar.
+	 * Versão paralela de {@link #rankOneUpdate(double, double[], double[])},
+	 * usando a pool comum do {@link ForkJoinPool}. As linhas desta matriz são
+	 * divididas entre as tarefas.
+	 * @param alpha o escalar.
+	 * @param x o vetor coluna, com tantos elementos quanto esta matriz tem linhas.
+	 * @param y o vetor linha, com tantos elementos quanto esta matriz tem colunas.
+	 * @return esta matriz.
+	 * @throws MathException se os tamanhos dos vetores forem incompatíveis.
 	 */
-	public Matrix multiplyByScalar(double scalar) {
-		Matrix result = new Matrix(Arrays.copyOf(data, data.length));
-		result.modificate(v -> v * scalar);
-		return result;
+	public Matrix parallelRankOneUpdate(double alpha, double[] x, double[] y) {
+		return parallelRankOneUpdate(alpha, x, y, ForkJoinPool.commonPool());
 	}
 	
 	/**
-	 * Potência de matrizes. Só funciona para matrizes quadradas e expoentes
-	 * naturais. Caso as duas condições anteriores não sejam atendidas, é
-	 * retornado null. Elevar a 0 retorna a matriz identidade.
-	 * @param exponent o expoente.
-	 * @return a matriz elevada ao expoente dado.
+	 * Versão paralela de {@link #rankOneUpdate(double, double[], double[])},
+	 * usando a pool fornecida. Veja {@link #parallelRankOneUpdate(double, double[], double[])}.
+	 * @param alpha o escalar.
+	 * @param x o vetor coluna, com tantos elementos quanto esta matriz tem linhas.
+	 * @param y o vetor linha, com tantos elementos quanto esta matriz tem colunas.
+	 * @param pool a pool onde as tarefas serão executadas.
+	 * @return esta matriz.
+	 * @throws NullPointerException se a pool for nula.
+	 * @throws MathException se os tamanhos dos vetores forem incompatíveis.
 	 */
-	public Matrix pow(int exponent) {
-		if(!isSquare() || exponent < 0) {
-			return null;
+	public Matrix parallelRankOneUpdate(double alpha, double[] x, double[] y, ForkJoinPool pool) {
+		checkRankOne(x, y);
+		Objects.requireNonNull(pool, "Pool nula");
+		if(columnStride == 1) {
+			MatrixKernels.parallelFor(lines, MatrixKernels.grain(columns), (start, end) -> MatrixKernels.rankOneUpdate(
+					alpha, x, start, y, 0, data, offset + start * stride, stride, end - start, columns), pool);
+		} else if(stride == 1) {
+			MatrixKernels.parallelFor(columns, MatrixKernels.grain(lines), (start, end) -> MatrixKernels.rankOneUpdate(
+					alpha, y, start, x, 0, data, offset + start * columnStride, columnStride, end - start, lines), pool);
+		} else {
+			rankOneUpdate(alpha, x, y);
+		}
+		return this;
+	}
+	
+	private void checkVectors(double[] x, int xLength, double[] y, int yLength) {
+		if(x.length != xLength || y.length != yLength) {
+			throw new MathException("Os vetores devem ter tamanhos " + xLength + " e " + yLength);
 		}
-		Matrix result = getIdentity(getOrder());
-		for(int i = 0; i < exponent; i++) {
-			result = result.multiply(this);
+		if(x == y) {
+			throw new MathException("O vetor de destino não pode ser o mesmo vetor multiplicado");
 		}
-		return result;
 	}
 	
-	/**
-	 * Multiplicação de matrizes. É importante dizer que para que
-	 * a multiplicação de matrizes funcione, a quantidade de colunas
-	 * da primeira deve ser igual ao número de linhas da segunda. Assim
-	 * sendo, a multiplicação de uma matriz MxP por uma PxN retorna uma
-	 * matriz MxN. A multiplicação de matrizes não é comutativa; assim sendo,
-	 * uma matriz A multiplicada por uma matriz B não retorna o mesmo que
-	 * uma matriz B multiplicada por uma matriz A, salvo em dois casos: uma
-	 * matriz inversível multiplicada por sua inversa, cujo resultado será
-	 * sempre a matriz identidade; uma matriz quadrada multiplicada pela matriz
-	 * identidade de mesma ordem, cujo resultado será sempre a própria matriz.
-	 * Tomandos as matrizes A, B e C, a matriz nula O e a matriz identidade I,
-	 * a multiplicação de matrizes tem as seguintes propriedades:
-	 * <p>1. AB nem sempre é igual a BA;
-	 * <p>2. (AB)C = A(BC);
-	 * <p>3. A(B + C) = AB + AC, (B + C)A = BA + CA;
-	 * <p>4. AI = IA = A;
-	 * <p>5. AO = OA = O.
-	 * @param m a matriz para ser multiplicada com esta.
-	 * @return a matriz produto.
-	 * @throws MathException se a quantidade de colunas da primeira for diferente
-	 * da quantidade de linhas da segunda.
-	 */
-	public Matrix multiply(Matrix m) {
+	private void checkRankOne(double[] x, double[] y) {
+		if(x.length != lines || y.length != columns) {
+			throw new MathException("Os vetores devem ter tamanhos " + lines + " e " + columns);
+		}
+	}
+	
+	private void checkMultiplication(Matrix m) {
 		if(columns != m.lines) {
 			throw new MathException("Não é possível multiplicar matrizes tais que o número de colunas da "
 					+ "primeira seja diferente do número de linhas da segunda.");
 		}
-		Matrix result = new Matrix(lines, m.columns);
-		int size = columns;
-		for(int i = 0; i < result.lines; i++) {
-			for(int j = 0; j < result.columns; j++) {
-				double sum = 0;
-				for(int k = 0; k < size; k++) {
-					sum += data[i][k] * m.data[k][j];
-				}
-				result.data[i][j] = sum;
-			}
+	}
+	
+	/**
+	 * @return o tamanho de bloco usado por {@link #multiply(Matrix)}.
+	 */
+	public static int getBlockSize() {
+		return blockSize;
+	}
+	
+	/**
+	 * Define o tamanho de bloco usado por {@link #multiply(Matrix)}. Blocos
+	 * menores cabem em caches menores; blocos maiores reduzem o custo de
+	 * empacotamento. O valor é arredondado para baixo para um múltiplo de 4.
+	 * @param size a quantidade máxima de linhas e colunas de cada bloco.
+	 * @throws IllegalArgumentException se o tamanho for menor que 4.
+	 */
+	public static void setBlockSize(int size) {
+		if(size < MatrixKernels.MICRO_TILE) {
+			throw new IllegalArgumentException("O tamanho do bloco não pode ser menor que " + MatrixKernels.MICRO_TILE);
 		}
-		return result;
+		blockSize = size - size % MatrixKernels.MICRO_TILE;
 	}
 	
 	/**
@@ -347,7 +1572,17 @@ public class Matrix implements Serializable {
 	 * @return se esta matriz é simétrica (igual à sua transposta).
 	 */
 	public boolean isSimetric() {
-		return equals(transposed());
+		if(!isSquare()) {
+			return false;
+		}
+		for(int i = 1; i < lines; i++) {
+			for(int j = 0; j < i; j++) {
+				if(data[index(i, j)] != data[index(j, i)]) {
+					return false;
+				}
+			}
+		}
+		return true;
 	}
 	
 	/**
@@ -358,7 +1593,17 @@ public class Matrix implements Serializable {
 	 * @return se esta matriz é antissimétrica (transposta igual a -original).
 	 */
 	public boolean isAntiSimetric() {
-		return transposed().equals(multiplyByScalar(-1));
+		if(!isSquare()) {
+			return false;
+		}
+		for(int i = 0; i < lines; i++) {
+			for(int j = 0; j <= i; j++) {
+				if(data[index(i, j)] != -data[index(j, i)]) {
+					return false;
+				}
+			}
+		}
+		return true;
 	}
 	
 	/**
@@ -368,13 +1613,117 @@ public class Matrix implements Serializable {
 	 * @return a matriz transposta desta.
 	 */
 	public Matrix transposed() {
+		if(columnStride != 1) {
+			return transposedView().contiguous();
+		}
 		Matrix transposed = new Matrix(columns, lines);
+		MatrixKernels.transpose(data, offset, stride, transposed.data, 0, lines, lines, columns);
+		return transposed;
+	}
+	
+	/**
+	 * Escreve a transposta desta matriz na matriz de destino, sem alocar
+	 * uma nova matriz. Veja {@link #transposed()}.
+	 * @param dest a matriz onde a transposta será escrita. Deve ter tantas
+	 * linhas quanto esta tem colunas e vice-versa.
+	 * @return a matriz de destino.
+	 * @throws MathException se o destino não tiver o tamanho da transposta
+	 * ou se compartilhar memória com esta matriz.
+	 */
+	public Matrix transposeInto(Matrix dest) {
+		if(dest.lines != columns || dest.columns != lines) {
+			throw new MathException("A matriz de destino deve ter tamanho " + columns + "x" + lines);
+		}
+		checkNoAliasing(dest);
+		if(columnStride != 1 || dest.columnStride != 1) {
+			return dest.copyFrom(transposedView());
+		}
+		MatrixKernels.transpose(data, offset, stride, dest.data, dest.offset, dest.stride, lines, columns);
+		return dest;
+	}
+	
+	/**
+	 * Define todos os elementos desta matriz com o valor fornecido.
+	 * @param value o valor.
+	 * @return esta matriz.
+	 */
+	public Matrix fill(double value) {
+		if(columnStride != 1) {
+			modificateAsDouble(x -> value);
+			return this;
+		}
 		for(int i = 0; i < lines; i++) {
-			for(int j = 0; j < columns; j++) {
-				transposed.data[j][i] = data[i][j];
+			int row = offset + i * stride;
+			Arrays.fill(data, row, row + columns, value);
+		}
+		return this;
+	}
+	
+	/**
+	 * Copia os valores de uma matriz de mesmo tamanho para esta.
+	 * @param m a matriz cujos valores serão copiados.
+	 * @return esta matriz.
+	 * @throws MathException se as matrizes não tiverem o mesmo tamanho.
+	 */
+	public Matrix copyFrom(Matrix m) {
+		checkSameSize(m);
+		if(m == this) {
+			return this;
+		}
+		if(columnStride != 1 || m.columnStride != 1) {
+			if(overlaps(m) && !sameLayout(m)) {
+				m = new Matrix(m.lines, m.columns, m.toFlatArray());
+			}
+			for(int i = 0; i < lines; i++) {
+				for(int j = 0; j < columns; j++) {
+					data[index(i, j)] = m.data[m.index(i, j)];
+				}
+			}
+			return this;
+		}
+		for(int i = 0; i < lines; i++) {
+			System.arraycopy(m.data, m.offset + i * m.stride, data, offset + i * stride, columns);
+		}
+		return this;
+	}
+	
+	/**
+	 * Verifica se esta matriz e a fornecida compartilham alguma região
+	 * do mesmo array de armazenamento. A verificação é conservadora: leva
+	 * em conta o intervalo do array entre o primeiro e o último elemento
+	 * de cada matriz.
+	 * @param m a outra matriz.
+	 * @return true se as regiões de armazenamento se sobrepõem.
+	 */
+	public boolean overlaps(Matrix m) {
+		if(data != m.data) {
+			return false;
+		}
+		long end = (long) offset + (long) (lines - 1) * stride + (long) (columns - 1) * columnStride + 1;
+		long mEnd = (long) m.offset + (long) (m.lines - 1) * m.stride + (long) (m.columns - 1) * m.columnStride + 1;
+		return offset < mEnd && m.offset < end;
+	}
+	
+	private boolean sameLayout(Matrix m) {
+		return data == m.data && offset == m.offset && stride == m.stride && columnStride == m.columnStride;
+	}
+	
+	private void checkSameSize(Matrix m) {
+		if(lines != m.lines || columns != m.columns) {
+			throw new MathException("As matrizes devem ter o mesmo tamanho: " + lines + "x" + columns
+					+ " e " + m.lines + "x" + m.columns);
+		}
+	}
+	
+	private void checkNoAliasing(Matrix dest, Matrix... operands) {
+		if(dest.overlaps(this)) {
+			throw new MathException("A matriz de destino não pode compartilhar memória com os operandos");
+		}
+		for(Matrix operand : operands) {
+			if(dest.overlaps(operand)) {
+				throw new MathException("A matriz de destino não pode compartilhar memória com os operandos");
 			}
 		}
-		return transposed;
 	}
 	
 	/**
@@ -410,6 +1759,7 @@ public class Matrix implements Serializable {
 	 * quadrada, é retornado null. A matriz inversa de uma matriz A, denotada
 	 * por A^-1, é a matriz tal que A * A^-1 = A^-1 * A = I, sendo I a matriz
 	 * identidade. Se a matriz inversa desta não existir, é retornado null.
+	 * A inversa é calculada através da decomposição LU, em O(n³).
 	 * @return a matriz inversa desta.
 	 */
 	public Matrix inverse() {
@@ -417,25 +1767,141 @@ public class Matrix implements Serializable {
 			return null;
 		}
 		if(getOrder() == 1) {
-			return new Matrix(new double[][] {{1 / data[0][0]}});
+			return new Matrix(new double[][] {{1 / data[offset]}});
 		}
-		double determinant = determinant();
-		if(determinant == 0) {
+		LUDecomposition lu = lu();
+		if(lu.isSingular()) {
 			return null;
 		}
-		return adjugate().multiplyByScalar(1 / determinant);
+		return lu.inverse();
 	}
 	
 	/**
 	 * Transforma todos os elementos desta matriz com base nos atuais.
+	 * Como a função trabalha com objetos Double, cada elemento é convertido
+	 * em objeto e de volta; prefira {@link #modificateAsDouble(DoubleUnaryOperator)}.
 	 * @param function a função a ser aplicada aos elementos da matriz.
 	 */
 	public void modificate(Function<Double, Double> function) {
 		for(int i = 0; i < lines; i++) {
+			int row = offset + i * stride;
+			for(int j = 0; j < columns; j++) {
+				data[row + j * columnStride] = function.apply(data[row + j * columnStride]);
+			}
+		}
+	}
+	
+	/**
+	 * Transforma todos os elementos desta matriz com base nos atuais,
+	 * usando uma função sobre o tipo primitivo double.
+	 * @param function a função a ser aplicada aos elementos da matriz.
+	 */
+	public void modificateAsDouble(DoubleUnaryOperator function) {
+		modificateRows(function, 0, lines);
+	}
+	
+	/**
+	 * Transforma todos os elementos desta matriz com base nos atuais e
+	 * em suas posições.
+	 * @param function a função a ser aplicada aos elementos da matriz, que
+	 * recebe a linha, a coluna e o valor atual de cada elemento.
+	 */
+	public void modificate(MatrixElementFunction function) {
+		modificateRows(function, 0, lines);
+	}
+	
+	/**
+	 * Versão paralela de {@link #modificateAsDouble(DoubleUnaryOperator)}. As
+	 * linhas da matriz são divididas entre as threads da pool comum do
+	 * {@link ForkJoinPool}. A função deve poder ser chamada simultaneamente
+	 * por várias threads. Matrizes pequenas são transformadas sequencialmente.
+	 * @param function a função a ser aplicada aos elementos da matriz.
+	 */
+	public void parallelModificate(DoubleUnaryOperator function) {
+		Objects.requireNonNull(function, "Função nula");
+		if((long) lines * columns < PARALLEL_ELEMENTS || lines == 1) {
+			modificateRows(function, 0, lines);
+			return;
+		}
+		ForkJoinPool.commonPool().invoke(new RowTask(lines, (start, end) -> modificateRows(function, start, end)));
+	}
+	
+	/**
+	 * Versão paralela de {@link #modificate(MatrixElementFunction)}. As
+	 * linhas da matriz são divididas entre as threads da pool comum do
+	 * {@link ForkJoinPool}. A função deve poder ser chamada simultaneamente
+	 * por várias threads. Matrizes pequenas são transformadas sequencialmente.
+	 * @param function a função a ser aplicada aos elementos da matriz.
+	 */
+	public void parallelModificate(MatrixElementFunction function) {
+		Objects.requireNonNull(function, "Função nula");
+		if((long) lines * columns < PARALLEL_ELEMENTS || lines == 1) {
+			modificateRows(function, 0, lines);
+			return;
+		}
+		ForkJoinPool.commonPool().invoke(new RowTask(lines, (start, end) -> modificateRows(function, start, end)));
+	}
+	
+	private void modificateRows(DoubleUnaryOperator function, int start, int end) {
+		for(int i = start; i < end; i++) {
+			int row = offset + i * stride;
+			for(int j = 0; j < columns; j++) {
+				data[row + j * columnStride] = function.applyAsDouble(data[row + j * columnStride]);
+			}
+		}
+	}
+	
+	private void modificateRows(MatrixElementFunction function, int start, int end) {
+		for(int i = start; i < end; i++) {
+			int row = offset + i * stride;
 			for(int j = 0; j < columns; j++) {
-				data[i][j] = function.apply(data[i][j]);
+				data[row + j * columnStride] = function.apply(i, j, data[row + j * columnStride]);
+			}
+		}
+	}
+	
+	/**
+	 * Tarefa que divide recursivamente um intervalo de linhas ao meio até que
+	 * cada parte tenha no máximo {@link #minimumRows} linhas, executando então
+	 * a ação sobre cada parte.
+	 */
+	private static final class RowTask extends RecursiveAction {
+		
+		private static final long serialVersionUID = 6142197781460357711L;
+		
+		private final RowAction action;
+		private final int start;
+		private final int end;
+		private final int minimumRows;
+		
+		RowTask(int lines, RowAction action) {
+			this(action, 0, lines, Math.max(1, lines / (4 * ForkJoinPool.getCommonPoolParallelism())));
+		}
+		
+		private RowTask(RowAction action, int start, int end, int minimumRows) {
+			this.action = action;
+			this.start = start;
+			this.end = end;
+			this.minimumRows = minimumRows;
+		}
+		
+		@Override
+		protected void compute() {
+			if(end - start <= minimumRows) {
+				action.apply(start, end);
+				return;
 			}
+			int middle = (start + end) >>> 1;
+			invokeAll(new RowTask(action, start, middle, minimumRows), new RowTask(action, middle, end, minimumRows));
 		}
+		
+	}
+	
+	@FunctionalInterface
+	private interface RowAction {
+		
+		void apply(int start, int end);
+		
 	}
 	
 	/**
@@ -451,11 +1917,19 @@ public class Matrix implements Serializable {
 	public static Matrix getIdentity(int order) {
 		Matrix identity = new Matrix(order);
 		for(int i = 0; i < order; i++) {
-			identity.data[i][i] = 1;
+			identity.data[i * order + i] = 1;
 		}
 		return identity;
 	}
 	
+	/**
+	 * @return esta matriz no formato esparso CSR, contendo apenas os seus
+	 * elementos não nulos.
+	 */
+	public SparseMatrix toSparse() {
+		return new SparseMatrix(this);
+	}
+	
 	/**
 	 * Exibe a matriz no formato tradicional de linhas e colunas.
 	 * É útil para visualização em console ou outros lugares onde haja
@@ -470,7 +1944,7 @@ public class Matrix implements Serializable {
 			double[] column = new double[lines];
 			int maxSize = 0;
 			for(int j = 0; j < lines; j++) {
-				column[j] = data[j][i];
+				column[j] = data[index(j, i)];
 				int size = String.valueOf(column[j]).length();
 				if(size > maxSize) {
 					maxSize = size;
@@ -507,7 +1981,7 @@ public class Matrix implements Serializable {
 			StringBuilder line = new StringBuilder();
 			line.append("{");
 			for(int j = 0; j < columns; j++) {
-				line.append(data[i][j] + (j == columns - 1 ? "" : ", "));
+				line.append(data[index(i, j)] + (j == columns - 1 ? "" : ", "));
 			}
 			line.append("}");
 			sb.append(line.toString() + (i == lines - 1 ? "" : ", "));
@@ -530,7 +2004,7 @@ public class Matrix implements Serializable {
 			}
 			for(int i = 0; i < lines; i++) {
 				for(int j = 0; j < columns; j++) {
-					if(data[i][j] != m.data[i][j]) {
+					if(data[index(i, j)] != m.data[m.index(i, j)]) {
 						return false;
 					}
 				}
@@ -542,7 +2016,16 @@ public class Matrix implements Serializable {
 	
 	@Override
 	public int hashCode() {
-		return Arrays.hashCode(data);
+		int hash = 31 * lines + columns;
+		for(int i = 0; i < lines; i++) {
+			for(int j = 0; j < columns; j++) {
+				double value = data[index(i, j)];
+				// 0.0 e -0.0 são iguais para equals, então precisam do mesmo hash
+				long bits = Double.doubleToLongBits(value == 0 ? 0 : value);
+				hash = 31 * hash + (int) (bits ^ (bits >>> 32));
+			}
+		}
+		return hash;
 	}
 	
 }
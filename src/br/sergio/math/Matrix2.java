@@ -0,0 +1,246 @@
+package br.sergio.math;
+
+import java.io.Serializable;
+
+/**
+ * Matriz 2x2 imutável, usada em transformações lineares do plano. Os elementos ficam
+ * em campos, e não em arrays, e todas as operações são desenroladas, o que
+ * evita alocações intermediárias e verificações de índice. Use
+ * {@link #Matrix2(Matrix)} e {@link #toMatrix()} para converter de e para
+ * {@link Matrix}.
+ * @author Sergio Luis
+ *
+ */
+public final class Matrix2 implements Serializable {
+	
+	private static final long serialVersionUID = 1541757716486595338L;
+	
+	/**
+	 * A matriz identidade de ordem 2.
+	 */
+	public static final Matrix2 IDENTITY = new Matrix2(1, 0, 0, 1);
+	
+	/**
+	 * A matriz nula de ordem 2.
+	 */
+	public static final Matrix2 ZERO = new Matrix2(0, 0, 0, 0);
+	
+	private final double m00, m01;
+	private final double m10, m11;
+	
+	/**
+	 * Constrói a matriz a partir dos elementos, linha por linha.
+	 * @param m00 o elemento da linha 0 e coluna 0.
+	 * @param m01 o elemento da linha 0 e coluna 1.
+	 * @param m10 o elemento da linha 1 e coluna 0.
+	 * @param m11 o elemento da linha 1 e coluna 1.
+	 */
+	public Matrix2(double m00, double m01,
+			double m10, double m11) {
+		this.m00 = m00;
+		this.m01 = m01;
+		this.m10 = m10;
+		this.m11 = m11;
+	}
+	
+	/**
+	 * Constrói a matriz copiando os elementos de uma {@link Matrix} 2x2.
+	 * A matriz fornecida pode ser uma visão.
+	 * @param m a matriz.
+	 * @throws MathException se a matriz não for 2x2.
+	 */
+	public Matrix2(Matrix m) {
+		this(check(m).getData(), m.getOffset(), m.getStride(), m.getColumnStride());
+	}
+	
+	private Matrix2(double[] d, int offset, int stride, int columnStride) {
+		m00 = d[offset];
+		m01 = d[offset + columnStride];
+		m10 = d[offset + stride];
+		m11 = d[offset + stride + columnStride];
+	}
+	
+	private static Matrix check(Matrix m) {
+		if(m == null) {
+			throw new NullPointerException("Matriz nula");
+		}
+		if(m.getLines() != 2 || m.getColumns() != 2) {
+			throw new MathException("A matriz deve ser 2x2");
+		}
+		return m;
+	}
+	
+	/**
+	 * Cria a matriz a partir de um array com os elementos linha por linha.
+	 * @param data o array, com ao menos 4 elementos.
+	 * @return a matriz.
+	 * @throws MathException se o array tiver menos de 4 elementos.
+	 */
+	public static Matrix2 of(double[] data) {
+		if(data.length < 4) {
+			throw new MathException("O array não comporta uma matriz 2x2");
+		}
+		return new Matrix2(data, 0, 2, 1);
+	}
+	
+	/**
+	 * @return uma nova {@link Matrix} 2x2 com os elementos desta.
+	 */
+	public Matrix toMatrix() {
+		return new Matrix(2, 2, toFlatArray());
+	}
+	
+	/**
+	 * @return um novo array com os elementos desta matriz, linha por linha.
+	 */
+	public double[] toFlatArray() {
+		return new double[] {m00, m01, m10, m11};
+	}
+	
+	/**
+	 * @param line a linha.
+	 * @param column a coluna.
+	 * @return o elemento na posição dada.
+	 * @throws IndexOutOfBoundsException se a posição estiver fora da matriz.
+	 */
+	public double getValue(int line, int column) {
+		if(line < 0 || line >= 2 || column < 0 || column >= 2) {
+			throw new IndexOutOfBoundsException("Posição fora da matriz: " + line + ", " + column);
+		}
+		return switch(line * 2 + column) {
+			case 0 -> m00;
+			case 1 -> m01;
+			case 2 -> m10;
+			default -> m11;
+		};
+	}
+	
+	/**
+	 * Soma desta matriz com a fornecida.
+	 * @param m a matriz com a qual esta será somada.
+	 * @return o resultado.
+	 */
+	public Matrix2 add(Matrix2 m) {
+		return new Matrix2(m00 + m.m00, m01 + m.m01,
+				m10 + m.m10, m11 + m.m11);
+	}
+	
+	/**
+	 * Subtração da fornecida desta matriz.
+	 * @param m a matriz subtraenda.
+	 * @return o resultado.
+	 */
+	public Matrix2 subtract(Matrix2 m) {
+		return new Matrix2(m00 - m.m00, m01 - m.m01,
+				m10 - m.m10, m11 - m.m11);
+	}
+	
+	/**
+	 * @param scalar o escalar.
+	 * @return esta matriz multiplicada pelo escalar.
+	 */
+	public Matrix2 multiplyByScalar(double scalar) {
+		return new Matrix2(m00 * scalar, m01 * scalar,
+				m10 * scalar, m11 * scalar);
+	}
+	
+	/**
+	 * Produto desta matriz pela fornecida, nesta ordem.
+	 * @param m a matriz da direita.
+	 * @return o produto.
+	 */
+	public Matrix2 multiply(Matrix2 m) {
+		return new Matrix2(
+				m00 * m.m00 + m01 * m.m10,
+				m00 * m.m01 + m01 * m.m11,
+				m10 * m.m00 + m11 * m.m10,
+				m10 * m.m01 + m11 * m.m11);
+	}
+	
+	/**
+	 * @return a matriz transposta desta.
+	 */
+	public Matrix2 transposed() {
+		return new Matrix2(m00, m10,
+				m01, m11);
+	}
+	
+	/**
+	 * @return o determinante desta matriz.
+	 */
+	public double determinant() {
+		return m00 * m11 - m01 * m10;
+	}
+	
+	/**
+	 * Retorna a matriz inversa desta. Assim como em {@link Matrix#inverse()},
+	 * é retornado null se a matriz for singular.
+	 * @return a matriz inversa desta, ou null se ela não existir.
+	 */
+	public Matrix2 inverse() {
+		double det = m00 * m11 - m01 * m10;
+		if(det == 0) {
+			return null;
+		}
+		double inv = 1 / det;
+		return new Matrix2(m11 * inv, -m01 * inv,
+				-m10 * inv, m00 * inv);
+	}
+	
+	/**
+	 * Aplica esta matriz ao ponto do plano, tratado como o vetor coluna
+	 * (x, y). A cota do ponto é ignorada e o ponto retornado está no plano.
+	 * @param p o ponto.
+	 * @return o ponto transformado.
+	 */
+	public Point transform(Point p) {
+		double x = p.getX();
+		double y = p.getY();
+		return new Point(m00 * x + m01 * y, m10 * x + m11 * y);
+	}
+	
+	/**
+	 * Aplica esta matriz ao vetor do plano. A componente k do vetor é
+	 * ignorada, e o vetor resultante tem origem na origem do plano.
+	 * @param v o vetor.
+	 * @return o vetor transformado.
+	 */
+	public Vector transform(Vector v) {
+		double x = v.getX();
+		double y = v.getY();
+		return new Vector(m00 * x + m01 * y, m10 * x + m11 * y);
+	}
+	
+	@Override
+	public boolean equals(Object o) {
+		if(o == null) {
+			return false;
+		}
+		if(o == this) {
+			return true;
+		}
+		if(o instanceof Matrix2 m) {
+			return m00 == m.m00 && m01 == m.m01
+					&& m10 == m.m10 && m11 == m.m11;
+		}
+		return false;
+	}
+	
+	@Override
+	public int hashCode() {
+		int hash = 31 * 2 + 2;
+		for(double value : toFlatArray()) {
+			// 0.0 e -0.0 são iguais para equals, então precisam do mesmo hash
+			long bits = Double.doubleToLongBits(value == 0 ? 0 : value);
+			hash = 31 * hash + (int) (bits ^ (bits >>> 32));
+		}
+		return hash;
+	}
+	
+	@Override
+	public String toString() {
+		return "{{" + m00 + ", " + m01 + "}, {"
+				+ m10 + ", " + m11 + "}}";
+	}
+	
+}
@@ -0,0 +1,291 @@
+package br.sergio.math;
+
+import java.io.Serializable;
+
+/**
+ * Matriz 3x3 imutável, usada em transformações lineares do espaço. Os elementos ficam
+ * em campos, e não em arrays, e todas as operações são desenroladas, o que
+ * evita alocações intermediárias e verificações de índice. Use
+ * {@link #Matrix3(Matrix)} e {@link #toMatrix()} para converter de e para
+ * {@link Matrix}.
+ * @author Sergio Luis
+ *
+ */
+public final class Matrix3 implements Serializable {
+	
+	private static final long serialVersionUID = 1812576717127593537L;
+	
+	/**
+	 * A matriz identidade de ordem 3.
+	 */
+	public static final Matrix3 IDENTITY = new Matrix3(1, 0, 0, 0, 1, 0, 0, 0, 1);
+	
+	/**
+	 * A matriz nula de ordem 3.
+	 */
+	public static final Matrix3 ZERO = new Matrix3(0, 0, 0, 0, 0, 0, 0, 0, 0);
+	
+	private final double m00, m01, m02;
+	private final double m10, m11, m12;
+	private final double m20, m21, m22;
+	
+	/**
+	 * Constrói a matriz a partir dos elementos, linha por linha.
+	 * @param m00 o elemento da linha 0 e coluna 0.
+	 * @param m01 o elemento da linha 0 e coluna 1.
+	 * @param m02 o elemento da linha 0 e coluna 2.
+	 * @param m10 o elemento da linha 1 e coluna 0.
+	 * @param m11 o elemento da linha 1 e coluna 1.
+	 * @param m12 o elemento da linha 1 e coluna 2.
+	 * @param m20 o elemento da linha 2 e coluna 0.
+	 * @param m21 o elemento da linha 2 e coluna 1.
+	 * @param m22 o elemento da linha 2 e coluna 2.
+	 */
+	public Matrix3(double m00, double m01, double m02,
+			double m10, double m11, double m12,
+			double m20, double m21, double m22) {
+		this.m00 = m00;
+		this.m01 = m01;
+		this.m02 = m02;
+		this.m10 = m10;
+		this.m11 = m11;
+		this.m12 = m12;
+		this.m20 = m20;
+		this.m21 = m21;
+		this.m22 = m22;
+	}
+	
+	/**
+	 * Constrói a matriz copiando os elementos de uma {@link Matrix} 3x3.
+	 * A matriz fornecida pode ser uma visão.
+	 * @param m a matriz.
+	 * @throws MathException se a matriz não for 3x3.
+	 */
+	public Matrix3(Matrix m) {
+		this(check(m).getData(), m.getOffset(), m.getStride(), m.getColumnStride());
+	}
+	
+	private Matrix3(double[] d, int offset, int stride, int columnStride) {
+		m00 = d[offset];
+		m01 = d[offset + columnStride];
+		m02 = d[offset + 2 * columnStride];
+		m10 = d[offset + stride];
+		m11 = d[offset + stride + columnStride];
+		m12 = d[offset + stride + 2 * columnStride];
+		m20 = d[offset + 2 * stride];
+		m21 = d[offset + 2 * stride + columnStride];
+		m22 = d[offset + 2 * stride + 2 * columnStride];
+	}
+	
+	private static Matrix check(Matrix m) {
+		if(m == null) {
+			throw new NullPointerException("Matriz nula");
+		}
+		if(m.getLines() != 3 || m.getColumns() != 3) {
+			throw new MathException("A matriz deve ser 3x3");
+		}
+		return m;
+	}
+	
+	/**
+	 * Cria a matriz a partir de um array com os elementos linha por linha.
+	 * @param data o array, com ao menos 9 elementos.
+	 * @return a matriz.
+	 * @throws MathException se o array tiver menos de 9 elementos.
+	 */
+	public static Matrix3 of(double[] data) {
+		if(data.length < 9) {
+			throw new MathException("O array não comporta uma matriz 3x3");
+		}
+		return new Matrix3(data, 0, 3, 1);
+	}
+	
+	/**
+	 * @return uma nova {@link Matrix} 3x3 com os elementos desta.
+	 */
+	public Matrix toMatrix() {
+		return new Matrix(3, 3, toFlatArray());
+	}
+	
+	/**
+	 * @return um novo array com os elementos desta matriz, linha por linha.
+	 */
+	public double[] toFlatArray() {
+		return new double[] {m00, m01, m02, m10, m11, m12, m20, m21, m22};
+	}
+	
+	/**
+	 * @param line a linha.
+	 * @param column a coluna.
+	 * @return o elemento na posição dada.
+	 * @throws IndexOutOfBoundsException se a posição estiver fora da matriz.
+	 */
+	public double getValue(int line, int column) {
+		if(line < 0 || line >= 3 || column < 0 || column >= 3) {
+			throw new IndexOutOfBoundsException("Posição fora da matriz: " + line + ", " + column);
+		}
+		return switch(line * 3 + column) {
+			case 0 -> m00;
+			case 1 -> m01;
+			case 2 -> m02;
+			case 3 -> m10;
+			case 4 -> m11;
+			case 5 -> m12;
+			case 6 -> m20;
+			case 7 -> m21;
+			default -> m22;
+		};
+	}
+	
+	/**
+	 * Soma desta matriz com a fornecida.
+	 * @param m a matriz com a qual esta será somada.
+	 * @return o resultado.
+	 */
+	public Matrix3 add(Matrix3 m) {
+		return new Matrix3(m00 + m.m00, m01 + m.m01, m02 + m.m02,
+				m10 + m.m10, m11 + m.m11, m12 + m.m12,
+				m20 + m.m20, m21 + m.m21, m22 + m.m22);
+	}
+	
+	/**
+	 * Subtração da fornecida desta matriz.
+	 * @param m a matriz subtraenda.
+	 * @return o resultado.
+	 */
+	public Matrix3 subtract(Matrix3 m) {
+		return new Matrix3(m00 - m.m00, m01 - m.m01, m02 - m.m02,
+				m10 - m.m10, m11 - m.m11, m12 - m.m12,
+				m20 - m.m20, m21 - m.m21, m22 - m.m22);
+	}
+	
+	/**
+	 * @param scalar o escalar.
+	 * @return esta matriz multiplicada pelo escalar.
+	 */
+	public Matrix3 multiplyByScalar(double scalar) {
+		return new Matrix3(m00 * scalar, m01 * scalar, m02 * scalar,
+				m10 * scalar, m11 * scalar, m12 * scalar,
+				m20 * scalar, m21 * scalar, m22 * scalar);
+	}
+	
+	/**
+	 * Produto desta matriz pela fornecida, nesta ordem.
+	 * @param m a matriz da direita.
+	 * @return o produto.
+	 */
+	public Matrix3 multiply(Matrix3 m) {
+		return new Matrix3(
+				m00 * m.m00 + m01 * m.m10 + m02 * m.m20,
+				m00 * m.m01 + m01 * m.m11 + m02 * m.m21,
+				m00 * m.m02 + m01 * m.m12 + m02 * m.m22,
+				m10 * m.m00 + m11 * m.m10 + m12 * m.m20,
+				m10 * m.m01 + m11 * m.m11 + m12 * m.m21,
+				m10 * m.m02 + m11 * m.m12 + m12 * m.m22,
+				m20 * m.m00 + m21 * m.m10 + m22 * m.m20,
+				m20 * m.m01 + m21 * m.m11 + m22 * m.m21,
+				m20 * m.m02 + m21 * m.m12 + m22 * m.m22);
+	}
+	
+	/**
+	 * @return a matriz transposta desta.
+	 */
+	public Matrix3 transposed() {
+		return new Matrix3(m00, m10, m20,
+				m01, m11, m21,
+				m02, m12, m22);
+	}
+	
+	/**
+	 * @return o determinante desta matriz, pela regra de Sarrus.
+	 */
+	public double determinant() {
+		return m00 * (m11 * m22 - m12 * m21)
+				- m01 * (m10 * m22 - m12 * m20)
+				+ m02 * (m10 * m21 - m11 * m20);
+	}
+	
+	/**
+	 * Retorna a matriz inversa desta, calculada pela adjunta dividida pelo
+	 * determinante. Assim como em {@link Matrix#inverse()}, é retornado null
+	 * se a matriz for singular.
+	 * @return a matriz inversa desta, ou null se ela não existir.
+	 */
+	public Matrix3 inverse() {
+		double c00 = m11 * m22 - m12 * m21;
+		double c01 = m12 * m20 - m10 * m22;
+		double c02 = m10 * m21 - m11 * m20;
+		double det = m00 * c00 + m01 * c01 + m02 * c02;
+		if(det == 0) {
+			return null;
+		}
+		double inv = 1 / det;
+		return new Matrix3(c00 * inv, (m02 * m21 - m01 * m22) * inv, (m01 * m12 - m02 * m11) * inv,
+				c01 * inv, (m00 * m22 - m02 * m20) * inv, (m02 * m10 - m00 * m12) * inv,
+				c02 * inv, (m01 * m20 - m00 * m21) * inv, (m00 * m11 - m01 * m10) * inv);
+	}
+	
+	/**
+	 * Aplica esta matriz ao ponto, tratado como o vetor coluna (x, y, z).
+	 * @param p o ponto.
+	 * @return o ponto transformado.
+	 */
+	public Point transform(Point p) {
+		double x = p.getX();
+		double y = p.getY();
+		double z = p.getZ();
+		return new Point(m00 * x + m01 * y + m02 * z,
+				m10 * x + m11 * y + m12 * z,
+				m20 * x + m21 * y + m22 * z);
+	}
+	
+	/**
+	 * Aplica esta matriz ao vetor. O vetor resultante tem origem na origem
+	 * do espaço, como os vetores criados a partir das componentes.
+	 * @param v o vetor.
+	 * @return o vetor transformado.
+	 */
+	public Vector transform(Vector v) {
+		double x = v.getX();
+		double y = v.getY();
+		double z = v.getZ();
+		return new Vector(m00 * x + m01 * y + m02 * z,
+				m10 * x + m11 * y + m12 * z,
+				m20 * x + m21 * y + m22 * z);
+	}
+	
+	@Override
+	public boolean equals(Object o) {
+		if(o == null) {
+			return false;
+		}
+		if(o == this) {
+			return true;
+		}
+		if(o instanceof Matrix3 m) {
+			return m00 == m.m00 && m01 == m.m01 && m02 == m.m02
+					&& m10 == m.m10 && m11 == m.m11 && m12 == m.m12
+					&& m20 == m.m20 && m21 == m.m21 && m22 == m.m22;
+		}
+		return false;
+	}
+	
+	@Override
+	public int hashCode() {
+		int hash = 31 * 3 + 3;
+		for(double value : toFlatArray()) {
+			// 0.0 e -0.0 são iguais para equals, então precisam do mesmo hash
+			long bits = Double.doubleToLongBits(value == 0 ? 0 : value);
+			hash = 31 * hash + (int) (bits ^ (bits >>> 32));
+		}
+		return hash;
+	}
+	
+	@Override
+	public String toString() {
+		return "{{" + m00 + ", " + m01 + ", " + m02 + "}, {"
+				+ m10 + ", " + m11 + ", " + m12 + "}, {"
+				+ m20 + ", " + m21 + ", " + m22 + "}}";
+	}
+	
+}
@@ -0,0 +1,381 @@
+package br.sergio.math;
+
+import java.io.Serializable;
+
+/**
+ * Matriz 4x4 imutável, usada em transformações afins e projetivas do espaço
+ * em coordenadas homogêneas. Os elementos ficam
+ * em campos, e não em arrays, e todas as operações são desenroladas, o que
+ * evita alocações intermediárias e verificações de índice. Use
+ * {@link #Matrix4(Matrix)} e {@link #toMatrix()} para converter de e para
+ * {@link Matrix}.
+ * @author Sergio Luis
+ *
+ */
+public final class Matrix4 implements Serializable {
+	
+	private static final long serialVersionUID = 2160145211719475188L;
+	
+	/**
+	 * A matriz identidade de ordem 4.
+	 */
+	public static final Matrix4 IDENTITY = new Matrix4(1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1);
+	
+	/**
+	 * A matriz nula de ordem 4.
+	 */
+	public static final Matrix4 ZERO = new Matrix4(0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0);
+	
+	private final double m00, m01, m02, m03;
+	private final double m10, m11, m12, m13;
+	private final double m20, m21, m22, m23;
+	private final double m30, m31, m32, m33;
+	
+	/**
+	 * Constrói a matriz a partir dos elementos, linha por linha.
+	 * @param m00 o elemento da linha 0 e coluna 0.
+	 * @param m01 o elemento da linha 0 e coluna 1.
+	 * @param m02 o elemento da linha 0 e coluna 2.
+	 * @param m03 o elemento da linha 0 e coluna 3.
+	 * @param m10 o elemento da linha 1 e coluna 0.
+	 * @param m11 o elemento da linha 1 e coluna 1.
+	 * @param m12 o elemento da linha 1 e coluna 2.
+	 * @param m13 o elemento da linha 1 e coluna 3.
+	 * @param m20 o elemento da linha 2 e coluna 0.
+	 * @param m21 o elemento da linha 2 e coluna 1.
+	 * @param m22 o elemento da linha 2 e coluna 2.
+	 * @param m23 o elemento da linha 2 e coluna 3.
+	 * @param m30 o elemento da linha 3 e coluna 0.
+	 * @param m31 o elemento da linha 3 e coluna 1.
+	 * @param m32 o elemento da linha 3 e coluna 2.
+	 * @param m33 o elemento da linha 3 e coluna 3.
+	 */
+	public Matrix4(double m00, double m01, double m02, double m03,
+			double m10, double m11, double m12, double m13,
+			double m20, double m21, double m22, double m23,
+			double m30, double m31, double m32, double m33) {
+		this.m00 = m00;
+		this.m01 = m01;
+		this.m02 = m02;
+		this.m03 = m03;
+		this.m10 = m10;
+		this.m11 = m11;
+		this.m12 = m12;
+		this.m13 = m13;
+		this.m20 = m20;
+		this.m21 = m21;
+		this.m22 = m22;
+		this.m23 = m23;
+		this.m30 = m30;
+		this.m31 = m31;
+		this.m32 = m32;
+		this.m33 = m33;
+	}
+	
+	/**
+	 * Constrói a matriz copiando os elementos de uma {@link Matrix} 4x4.
+	 * A matriz fornecida pode ser uma visão.
+	 * @param m a matriz.
+	 * @throws MathException se a matriz não for 4x4.
+	 */
+	public Matrix4(Matrix m) {
+		this(check(m).getData(), m.getOffset(), m.getStride(), m.getColumnStride());
+	}
+	
+	private Matrix4(double[] d, int offset, int stride, int columnStride) {
+		m00 = d[offset];
+		m01 = d[offset + columnStride];
+		m02 = d[offset + 2 * columnStride];
+		m03 = d[offset + 3 * columnStride];
+		m10 = d[offset + stride];
+		m11 = d[offset + stride + columnStride];
+		m12 = d[offset + stride + 2 * columnStride];
+		m13 = d[offset + stride + 3 * columnStride];
+		m20 = d[offset + 2 * stride];
+		m21 = d[offset + 2 * stride + columnStride];
+		m22 = d[offset + 2 * stride + 2 * columnStride];
+		m23 = d[offset + 2 * stride + 3 * columnStride];
+		m30 = d[offset + 3 * stride];
+		m31 = d[offset + 3 * stride + columnStride];
+		m32 = d[offset + 3 * stride + 2 * columnStride];
+		m33 = d[offset + 3 * stride + 3 * columnStride];
+	}
+	
+	private static Matrix check(Matrix m) {
+		if(m == null) {
+			throw new NullPointerException("Matriz nula");
+		}
+		if(m.getLines() != 4 || m.getColumns() != 4) {
+			throw new MathException("A matriz deve ser 4x4");
+		}
+		return m;
+	}
+	
+	/**
+	 * Cria a matriz a partir de um array com os elementos linha por linha.
+	 * @param data o array, com ao menos 16 elementos.
+	 * @return a matriz.
+	 * @throws MathException se o array tiver menos de 16 elementos.
+	 */
+	public static Matrix4 of(double[] data) {
+		if(data.length < 16) {
+			throw new MathException("O array não comporta uma matriz 4x4");
+		}
+		return new Matrix4(data, 0, 4, 1);
+	}
+	
+	/**
+	 * @return uma nova {@link Matrix} 4x4 com os elementos desta.
+	 */
+	public Matrix toMatrix() {
+		return new Matrix(4, 4, toFlatArray());
+	}
+	
+	/**
+	 * @return um novo array com os elementos desta matriz, linha por linha.
+	 */
+	public double[] toFlatArray() {
+		return new double[] {m00, m01, m02, m03, m10, m11, m12, m13, m20, m21, m22, m23, m30, m31, m32, m33};
+	}
+	
+	/**
+	 * @param line a linha.
+	 * @param column a coluna.
+	 * @return o elemento na posição dada.
+	 * @throws IndexOutOfBoundsException se a posição estiver fora da matriz.
+	 */
+	public double getValue(int line, int column) {
+		if(line < 0 || line >= 4 || column < 0 || column >= 4) {
+			throw new IndexOutOfBoundsException("Posição fora da matriz: " + line + ", " + column);
+		}
+		return switch(line * 4 + column) {
+			case 0 -> m00;
+			case 1 -> m01;
+			case 2 -> m02;
+			case 3 -> m03;
+			case 4 -> m10;
+			case 5 -> m11;
+			case 6 -> m12;
+			case 7 -> m13;
+			case 8 -> m20;
+			case 9 -> m21;
+			case 10 -> m22;
+			case 11 -> m23;
+			case 12 -> m30;
+			case 13 -> m31;
+			case 14 -> m32;
+			default -> m33;
+		};
+	}
+	
+	/**
+	 * Soma desta matriz com a fornecida.
+	 * @param m a matriz com a qual esta será somada.
+	 * @return o resultado.
+	 */
+	public Matrix4 add(Matrix4 m) {
+		return new Matrix4(m00 + m.m00, m01 + m.m01, m02 + m.m02, m03 + m.m03,
+				m10 + m.m10, m11 + m.m11, m12 + m.m12, m13 + m.m13,
+				m20 + m.m20, m21 + m.m21, m22 + m.m22, m23 + m.m23,
+				m30 + m.m30, m31 + m.m31, m32 + m.m32, m33 + m.m33);
+	}
+	
+	/**
+	 * Subtração da fornecida desta matriz.
+	 * @param m a matriz subtraenda.
+	 * @return o resultado.
+	 */
+	public Matrix4 subtract(Matrix4 m) {
+		return new Matrix4(m00 - m.m00, m01 - m.m01, m02 - m.m02, m03 - m.m03,
+				m10 - m.m10, m11 - m.m11, m12 - m.m12, m13 - m.m13,
+				m20 - m.m20, m21 - m.m21, m22 - m.m22, m23 - m.m23,
+				m30 - m.m30, m31 - m.m31, m32 - m.m32, m33 - m.m33);
+	}
+	
+	/**
+	 * @param scalar o escalar.
+	 * @return esta matriz multiplicada pelo escalar.
+	 */
+	public Matrix4 multiplyByScalar(double scalar) {
+		return new Matrix4(m00 * scalar, m01 * scalar, m02 * scalar, m03 * scalar,
+				m10 * scalar, m11 * scalar, m12 * scalar, m13 * scalar,
+				m20 * scalar, m21 * scalar, m22 * scalar, m23 * scalar,
+				m30 * scalar, m31 * scalar, m32 * scalar, m33 * scalar);
+	}
+	
+	/**
+	 * Produto desta matriz pela fornecida, nesta ordem.
+	 * @param m a matriz da direita.
+	 * @return o produto.
+	 */
+	public Matrix4 multiply(Matrix4 m) {
+		return new Matrix4(
+				m00 * m.m00 + m01 * m.m10 + m02 * m.m20 + m03 * m.m30,
+				m00 * m.m01 + m01 * m.m11 + m02 * m.m21 + m03 * m.m31,
+				m00 * m.m02 + m01 * m.m12 + m02 * m.m22 + m03 * m.m32,
+				m00 * m.m03 + m01 * m.m13 + m02 * m.m23 + m03 * m.m33,
+				m10 * m.m00 + m11 * m.m10 + m12 * m.m20 + m13 * m.m30,
+				m10 * m.m01 + m11 * m.m11 + m12 * m.m21 + m13 * m.m31,
+				m10 * m.m02 + m11 * m.m12 + m12 * m.m22 + m13 * m.m32,
+				m10 * m.m03 + m11 * m.m13 + m12 * m.m23 + m13 * m.m33,
+				m20 * m.m00 + m21 * m.m10 + m22 * m.m20 + m23 * m.m30,
+				m20 * m.m01 + m21 * m.m11 + m22 * m.m21 + m23 * m.m31,
+				m20 * m.m02 + m21 * m.m12 + m22 * m.m22 + m23 * m.m32,
+				m20 * m.m03 + m21 * m.m13 + m22 * m.m23 + m23 * m.m33,
+				m30 * m.m00 + m31 * m.m10 + m32 * m.m20 + m33 * m.m30,
+				m30 * m.m01 + m31 * m.m11 + m32 * m.m21 + m33 * m.m31,
+				m30 * m.m02 + m31 * m.m12 + m32 * m.m22 + m33 * m.m32,
+				m30 * m.m03 + m31 * m.m13 + m32 * m.m23 + m33 * m.m33);
+	}
+	
+	/**
+	 * @return a matriz transposta desta.
+	 */
+	public Matrix4 transposed() {
+		return new Matrix4(m00, m10, m20, m30,
+				m01, m11, m21, m31,
+				m02, m12, m22, m32,
+				m03, m13, m23, m33);
+	}
+	
+	/**
+	 * @return o determinante desta matriz, calculado pela expansão de
+	 * Laplace nos menores 2x2 das duas primeiras e das duas últimas linhas.
+	 */
+	public double determinant() {
+		double s0 = m00 * m11 - m10 * m01;
+		double s1 = m00 * m12 - m10 * m02;
+		double s2 = m00 * m13 - m10 * m03;
+		double s3 = m01 * m12 - m11 * m02;
+		double s4 = m01 * m13 - m11 * m03;
+		double s5 = m02 * m13 - m12 * m03;
+		double c5 = m22 * m33 - m32 * m23;
+		double c4 = m21 * m33 - m31 * m23;
+		double c3 = m21 * m32 - m31 * m22;
+		double c2 = m20 * m33 - m30 * m23;
+		double c1 = m20 * m32 - m30 * m22;
+		double c0 = m20 * m31 - m30 * m21;
+		return s0 * c5 - s1 * c4 + s2 * c3 + s3 * c2 - s4 * c1 + s5 * c0;
+	}
+	
+	/**
+	 * Retorna a matriz inversa desta, calculada pela adjunta a partir dos
+	 * mesmos menores 2x2 usados em {@link #determinant()}. Assim como em
+	 * {@link Matrix#inverse()}, é retornado null se a matriz for singular.
+	 * @return a matriz inversa desta, ou null se ela não existir.
+	 */
+	public Matrix4 inverse() {
+		double s0 = m00 * m11 - m10 * m01;
+		double s1 = m00 * m12 - m10 * m02;
+		double s2 = m00 * m13 - m10 * m03;
+		double s3 = m01 * m12 - m11 * m02;
+		double s4 = m01 * m13 - m11 * m03;
+		double s5 = m02 * m13 - m12 * m03;
+		double c5 = m22 * m33 - m32 * m23;
+		double c4 = m21 * m33 - m31 * m23;
+		double c3 = m21 * m32 - m31 * m22;
+		double c2 = m20 * m33 - m30 * m23;
+		double c1 = m20 * m32 - m30 * m22;
+		double c0 = m20 * m31 - m30 * m21;
+		double det = s0 * c5 - s1 * c4 + s2 * c3 + s3 * c2 - s4 * c1 + s5 * c0;
+		if(det == 0) {
+			return null;
+		}
+		double inv = 1 / det;
+		return new Matrix4(
+				(m11 * c5 - m12 * c4 + m13 * c3) * inv,
+				(-m01 * c5 + m02 * c4 - m03 * c3) * inv,
+				(m31 * s5 - m32 * s4 + m33 * s3) * inv,
+				(-m21 * s5 + m22 * s4 - m23 * s3) * inv,
+				(-m10 * c5 + m12 * c2 - m13 * c1) * inv,
+				(m00 * c5 - m02 * c2 + m03 * c1) * inv,
+				(-m30 * s5 + m32 * s2 - m33 * s1) * inv,
+				(m20 * s5 - m22 * s2 + m23 * s1) * inv,
+				(m10 * c4 - m11 * c2 + m13 * c0) * inv,
+				(-m00 * c4 + m01 * c2 - m03 * c0) * inv,
+				(m30 * s4 - m31 * s2 + m33 * s0) * inv,
+				(-m20 * s4 + m21 * s2 - m23 * s0) * inv,
+				(-m10 * c3 + m11 * c1 - m12 * c0) * inv,
+				(m00 * c3 - m01 * c1 + m02 * c0) * inv,
+				(-m30 * s3 + m31 * s1 - m32 * s0) * inv,
+				(m20 * s3 - m21 * s1 + m22 * s0) * inv);
+	}
+	
+	/**
+	 * Aplica esta matriz ao ponto em coordenadas homogêneas (x, y, z, 1).
+	 * Se a coordenada homogênea resultante for diferente de 1, como em
+	 * projeções, as coordenadas são divididas por ela.
+	 * @param p o ponto.
+	 * @return o ponto transformado.
+	 */
+	public Point transform(Point p) {
+		double x = p.getX();
+		double y = p.getY();
+		double z = p.getZ();
+		double tx = m00 * x + m01 * y + m02 * z + m03;
+		double ty = m10 * x + m11 * y + m12 * z + m13;
+		double tz = m20 * x + m21 * y + m22 * z + m23;
+		double tw = m30 * x + m31 * y + m32 * z + m33;
+		if(tw != 1) {
+			double inv = 1 / tw;
+			tx *= inv;
+			ty *= inv;
+			tz *= inv;
+		}
+		return new Point(tx, ty, tz);
+	}
+	
+	/**
+	 * Aplica esta matriz ao vetor em coordenadas homogêneas (x, y, z, 0), ou
+	 * seja, apenas o bloco 3x3 superior esquerdo: vetores representam
+	 * direções e não são afetados pela translação. O vetor resultante tem
+	 * origem na origem do espaço.
+	 * @param v o vetor.
+	 * @return o vetor transformado.
+	 */
+	public Vector transform(Vector v) {
+		double x = v.getX();
+		double y = v.getY();
+		double z = v.getZ();
+		return new Vector(m00 * x + m01 * y + m02 * z,
+				m10 * x + m11 * y + m12 * z,
+				m20 * x + m21 * y + m22 * z);
+	}
+	
+	@Override
+	public boolean equals(Object o) {
+		if(o == null) {
+			return false;
+		}
+		if(o == this) {
+			return true;
+		}
+		if(o instanceof Matrix4 m) {
+			return m00 == m.m00 && m01 == m.m01 && m02 == m.m02 && m03 == m.m03
+					&& m10 == m.m10 && m11 == m.m11 && m12 == m.m12 && m13 == m.m13
+					&& m20 == m.m20 && m21 == m.m21 && m22 == m.m22 && m23 == m.m23
+					&& m30 == m.m30 && m31 == m.m31 && m32 == m.m32 && m33 == m.m33;
+		}
+		return false;
+	}
+	
+	@Override
+	public int hashCode() {
+		int hash = 31 * 4 + 4;
+		for(double value : toFlatArray()) {
+			// 0.0 e -0.0 são iguais para equals, então precisam do mesmo hash
+			long bits = Double.doubleToLongBits(value == 0 ? 0 : value);
+			hash = 31 * hash + (int) (bits ^ (bits >>> 32));
+		}
+		return hash;
+	}
+	
+	@Override
+	public String toString() {
+		return "{{" + m00 + ", " + m01 + ", " + m02 + ", " + m03 + "}, {"
+				+ m10 + ", " + m11 + ", " + m12 + ", " + m13 + "}, {"
+				+ m20 + ", " + m21 + ", " + m22 + ", " + m23 + "}, {"
+				+ m30 + ", " + m31 + ", " + m32 + ", " + m33 + "}}";
+	}
+	
+}
@@ -0,0 +1,520 @@
+package br.sergio.math;
+
+import java.io.Serializable;
+
+/**
+ * Lote de matrizes quadradas pequenas (ordem 2, 3 ou 4), todas da mesma
+ * ordem, guardadas num único array no formato estrutura de arrays: o
+ * elemento (i, j) da matriz k fica na posição {@code (i * ordem + j) *
+ * quantidade + k}. Assim, cada elemento de todas as matrizes é contíguo na
+ * memória, e as operações do lote (determinante, inversa, multiplicação e
+ * resolução de sistemas) são laços simples sobre k, sem objetos por matriz,
+ * que o compilador JIT consegue vetorizar.
+ * <p>
+ * Os vetores usados em {@link #solve(double[])} seguem o mesmo formato: a
+ * componente i do vetor k fica na posição {@code i * quantidade + k}.
+ * @author Sergio Luis
+ *
+ */
+public final class MatrixBatch implements Serializable {
+
+	private static final long serialVersionUID = -7402935148623518874L;
+
+	private final int order;
+	private final int count;
+	private final double[] data;
+
+	/**
+	 * Cria um lote de matrizes nulas.
+	 * @param order a ordem das matrizes: 2, 3 ou 4.
+	 * @param count a quantidade de matrizes.
+	 */
+	public MatrixBatch(int order, int count) {
+		this(order, count, new double[checkedSize(order, count)]);
+	}
+
+	/**
+	 * Cria um lote sobre um array já existente, sem copiá-lo; alterações em
+	 * um refletem no outro.
+	 * @param order a ordem das matrizes: 2, 3 ou 4.
+	 * @param count a quantidade de matrizes.
+	 * @param data o array, no formato descrito em {@link MatrixBatch}.
+	 * @throws MathException se o array não comportar o lote.
+	 */
+	public MatrixBatch(int order, int count, double[] data) {
+		int size = checkedSize(order, count);
+		if(data.length < size) {
+			throw new MathException("O array não comporta " + count + " matrizes " + order + "x" + order);
+		}
+		this.order = order;
+		this.count = count;
+		this.data = data;
+	}
+
+	private static int checkedSize(int order, int count) {
+		if(order < 2 || order > 4) {
+			throw new IllegalArgumentException("A ordem deve ser 2, 3 ou 4: " + order);
+		}
+		if(count < 0) {
+			throw new IllegalArgumentException("Quantidade negativa: " + count);
+		}
+		long size = (long) order * order * count;
+		if(size > Integer.MAX_VALUE - 8) {
+			throw new IllegalArgumentException("Lote muito grande para um array: " + count);
+		}
+		return (int) size;
+	}
+
+	/**
+	 * @return a ordem das matrizes.
+	 */
+	public int getOrder() {
+		return order;
+	}
+
+	/**
+	 * @return a quantidade de matrizes.
+	 */
+	public int getCount() {
+		return count;
+	}
+
+	/**
+	 * @return o array do lote, no formato descrito em {@link MatrixBatch}.
+	 */
+	public double[] getData() {
+		return data;
+	}
+
+	/**
+	 * @param index o índice da matriz no lote.
+	 * @param line a linha.
+	 * @param column a coluna.
+	 * @return o elemento da matriz dada.
+	 */
+	public double getValue(int index, int line, int column) {
+		return data[index(index, line, column)];
+	}
+
+	/**
+	 * @param index o índice da matriz no lote.
+	 * @param line a linha.
+	 * @param column a coluna.
+	 * @param value o novo valor do elemento.
+	 */
+	public void setValue(int index, int line, int column, double value) {
+		data[index(index, line, column)] = value;
+	}
+
+	private int index(int index, int line, int column) {
+		if(index < 0 || index >= count || line < 0 || line >= order || column < 0 || column >= order) {
+			throw new IndexOutOfBoundsException("Posição fora do lote: " + index + ", " + line + ", " + column);
+		}
+		return (line * order + column) * count + index;
+	}
+
+	/**
+	 * @param index o índice da matriz no lote.
+	 * @return uma cópia da matriz dada.
+	 */
+	public Matrix get(int index) {
+		Matrix m = new Matrix(order);
+		for(int i = 0; i < order; i++) {
+			for(int j = 0; j < order; j++) {
+				m.setValue(i, j, getValue(index, i, j));
+			}
+		}
+		return m;
+	}
+
+	/**
+	 * Copia os elementos da matriz fornecida para a posição dada do lote.
+	 * @param index o índice da matriz no lote.
+	 * @param m a matriz, da mesma ordem do lote.
+	 * @throws MathException se a matriz não tiver a ordem do lote.
+	 */
+	public void set(int index, Matrix m) {
+		if(m == null) {
+			throw new NullPointerException("Matriz nula");
+		}
+		if(m.getLines() != order || m.getColumns() != order) {
+			throw new MathException("A matriz deve ser " + order + "x" + order);
+		}
+		for(int i = 0; i < order; i++) {
+			for(int j = 0; j < order; j++) {
+				setValue(index, i, j, m.getValue(i, j));
+			}
+		}
+	}
+
+	/**
+	 * @return os determinantes de todas as matrizes do lote.
+	 */
+	public double[] determinants() {
+		return determinants(new double[count]);
+	}
+
+	/**
+	 * Calcula os determinantes de todas as matrizes do lote.
+	 * @param dest o array de destino, com ao menos {@link #getCount()} posições.
+	 * @return o array de destino.
+	 */
+	public double[] determinants(double[] dest) {
+		checkLength(dest, count);
+		switch(order) {
+			case 2 -> determinant2(data, dest, count);
+			case 3 -> determinant3(data, dest, count);
+			default -> determinant4(data, dest, count);
+		}
+		return dest;
+	}
+
+	/**
+	 * Calcula as inversas de todas as matrizes do lote pela adjunta dividida
+	 * pelo determinante. Os laços não têm desvios; por isso, em vez de null
+	 * como em {@link Matrix#inverse()}, a inversa de uma matriz singular tem
+	 * elementos infinitos ou NaN. Use {@link #determinants()} para
+	 * identificá-las.
+	 * @return um novo lote com as inversas.
+	 */
+	public MatrixBatch inverse() {
+		return inverseInto(new MatrixBatch(order, count));
+	}
+
+	/**
+	 * Calcula as inversas de todas as matrizes do lote no lote de destino,
+	 * como em {@link #inverse()}.
+	 * @param dest o lote de destino, de mesma ordem e quantidade, que pode
+	 * ser este mesmo lote.
+	 * @return o lote de destino.
+	 */
+	public MatrixBatch inverseInto(MatrixBatch dest) {
+		checkSameShape(dest);
+		switch(order) {
+			case 2 -> inverse2(data, dest.data, count);
+			case 3 -> inverse3(data, dest.data, count);
+			default -> inverse4(data, dest.data, count);
+		}
+		return dest;
+	}
+
+	/**
+	 * Multiplica cada matriz deste lote pela matriz de mesmo índice do lote
+	 * fornecido, nesta ordem.
+	 * @param m o lote das matrizes da direita.
+	 * @return um novo lote com os produtos.
+	 */
+	public MatrixBatch multiply(MatrixBatch m) {
+		return multiplyInto(m, new MatrixBatch(order, count));
+	}
+
+	/**
+	 * Multiplica cada matriz deste lote pela matriz de mesmo índice do lote
+	 * fornecido, escrevendo os produtos no lote de destino.
+	 * @param m o lote das matrizes da direita.
+	 * @param dest o lote de destino, de mesma ordem e quantidade, que pode
+	 * ser um dos operandos.
+	 * @return o lote de destino.
+	 */
+	public MatrixBatch multiplyInto(MatrixBatch m, MatrixBatch dest) {
+		checkSameShape(m);
+		checkSameShape(dest);
+		switch(order) {
+			case 2 -> multiply2(data, m.data, dest.data, count);
+			case 3 -> multiply3(data, m.data, dest.data, count);
+			default -> multiply4(data, m.data, dest.data, count);
+		}
+		return dest;
+	}
+
+	/**
+	 * Resolve os sistemas A<sub>k</sub>x<sub>k</sub> = b<sub>k</sub> para
+	 * todas as matrizes do lote pela regra de Cramer, na forma de adjunta
+	 * vezes b dividida pelo determinante. Isso dispensa pivoteamento e
+	 * mantém os laços sem desvios, ao custo de menos estabilidade que a
+	 * decomposição LU em sistemas mal condicionados. Sistemas singulares
+	 * resultam em componentes infinitas ou NaN.
+	 * @param b os termos independentes, no formato descrito em {@link MatrixBatch}.
+	 * @return as soluções, no mesmo formato.
+	 */
+	public double[] solve(double[] b) {
+		return solve(b, new double[order * count]);
+	}
+
+	/**
+	 * Resolve os sistemas como em {@link #solve(double[])}.
+	 * @param b os termos independentes.
+	 * @param x o array das soluções, que pode ser o próprio b.
+	 * @return o array das soluções.
+	 */
+	public double[] solve(double[] b, double[] x) {
+		checkLength(b, order * count);
+		checkLength(x, order * count);
+		switch(order) {
+			case 2 -> solve2(data, b, x, count);
+			case 3 -> solve3(data, b, x, count);
+			default -> solve4(data, b, x, count);
+		}
+		return x;
+	}
+
+	private void checkSameShape(MatrixBatch m) {
+		if(m == null) {
+			throw new NullPointerException("Lote nulo");
+		}
+		if(m.order != order || m.count != count) {
+			throw new MathException("Os lotes devem ter " + count + " matrizes " + order + "x" + order);
+		}
+	}
+
+	private static void checkLength(double[] array, int length) {
+		if(array.length < length) {
+			throw new MathException("O array deve ter ao menos " + length + " posições");
+		}
+	}
+
+	private static void determinant2(double[] a, double[] det, int n) {
+		for(int k = 0; k < n; k++) {
+			det[k] = a[k] * a[3 * n + k] - a[n + k] * a[2 * n + k];
+		}
+	}
+
+	private static void determinant3(double[] a, double[] det, int n) {
+		for(int k = 0; k < n; k++) {
+			double a00 = a[k], a01 = a[n + k], a02 = a[2 * n + k];
+			double a10 = a[3 * n + k], a11 = a[4 * n + k], a12 = a[5 * n + k];
+			double a20 = a[6 * n + k], a21 = a[7 * n + k], a22 = a[8 * n + k];
+			det[k] = a00 * (a11 * a22 - a12 * a21)
+					- a01 * (a10 * a22 - a12 * a20)
+					+ a02 * (a10 * a21 - a11 * a20);
+		}
+	}
+
+	private static void determinant4(double[] a, double[] det, int n) {
+		for(int k = 0; k < n; k++) {
+			double a00 = a[k], a01 = a[n + k], a02 = a[2 * n + k], a03 = a[3 * n + k];
+			double a10 = a[4 * n + k], a11 = a[5 * n + k], a12 = a[6 * n + k], a13 = a[7 * n + k];
+			double a20 = a[8 * n + k], a21 = a[9 * n + k], a22 = a[10 * n + k], a23 = a[11 * n + k];
+			double a30 = a[12 * n + k], a31 = a[13 * n + k], a32 = a[14 * n + k], a33 = a[15 * n + k];
+			double s0 = a00 * a11 - a10 * a01;
+			double s1 = a00 * a12 - a10 * a02;
+			double s2 = a00 * a13 - a10 * a03;
+			double s3 = a01 * a12 - a11 * a02;
+			double s4 = a01 * a13 - a11 * a03;
+			double s5 = a02 * a13 - a12 * a03;
+			double c5 = a22 * a33 - a32 * a23;
+			double c4 = a21 * a33 - a31 * a23;
+			double c3 = a21 * a32 - a31 * a22;
+			double c2 = a20 * a33 - a30 * a23;
+			double c1 = a20 * a32 - a30 * a22;
+			double c0 = a20 * a31 - a30 * a21;
+			det[k] = s0 * c5 - s1 * c4 + s2 * c3 + s3 * c2 - s4 * c1 + s5 * c0;
+		}
+	}
+
+	private static void inverse2(double[] a, double[] r, int n) {
+		for(int k = 0; k < n; k++) {
+			double a00 = a[k], a01 = a[n + k];
+			double a10 = a[2 * n + k], a11 = a[3 * n + k];
+			double inv = 1 / (a00 * a11 - a01 * a10);
+			r[k] = a11 * inv;
+			r[n + k] = -a01 * inv;
+			r[2 * n + k] = -a10 * inv;
+			r[3 * n + k] = a00 * inv;
+		}
+	}
+
+	private static void inverse3(double[] a, double[] r, int n) {
+		for(int k = 0; k < n; k++) {
+			double a00 = a[k], a01 = a[n + k], a02 = a[2 * n + k];
+			double a10 = a[3 * n + k], a11 = a[4 * n + k], a12 = a[5 * n + k];
+			double a20 = a[6 * n + k], a21 = a[7 * n + k], a22 = a[8 * n + k];
+			double c00 = a11 * a22 - a12 * a21;
+			double c01 = a12 * a20 - a10 * a22;
+			double c02 = a10 * a21 - a11 * a20;
+			double inv = 1 / (a00 * c00 + a01 * c01 + a02 * c02);
+			r[k] = c00 * inv;
+			r[n + k] = (a02 * a21 - a01 * a22) * inv;
+			r[2 * n + k] = (a01 * a12 - a02 * a11) * inv;
+			r[3 * n + k] = c01 * inv;
+			r[4 * n + k] = (a00 * a22 - a02 * a20) * inv;
+			r[5 * n + k] = (a02 * a10 - a00 * a12) * inv;
+			r[6 * n + k] = c02 * inv;
+			r[7 * n + k] = (a01 * a20 - a00 * a21) * inv;
+			r[8 * n + k] = (a00 * a11 - a01 * a10) * inv;
+		}
+	}
+
+	private static void inverse4(double[] a, double[] r, int n) {
+		for(int k = 0; k < n; k++) {
+			double a00 = a[k], a01 = a[n + k], a02 = a[2 * n + k], a03 = a[3 * n + k];
+			double a10 = a[4 * n + k], a11 = a[5 * n + k], a12 = a[6 * n + k], a13 = a[7 * n + k];
+			double a20 = a[8 * n + k], a21 = a[9 * n + k], a22 = a[10 * n + k], a23 = a[11 * n + k];
+			double a30 = a[12 * n + k], a31 = a[13 * n + k], a32 = a[14 * n + k], a33 = a[15 * n + k];
+			double s0 = a00 * a11 - a10 * a01;
+			double s1 = a00 * a12 - a10 * a02;
+			double s2 = a00 * a13 - a10 * a03;
+			double s3 = a01 * a12 - a11 * a02;
+			double s4 = a01 * a13 - a11 * a03;
+			double s5 = a02 * a13 - a12 * a03;
+			double c5 = a22 * a33 - a32 * a23;
+			double c4 = a21 * a33 - a31 * a23;
+			double c3 = a21 * a32 - a31 * a22;
+			double c2 = a20 * a33 - a30 * a23;
+			double c1 = a20 * a32 - a30 * a22;
+			double c0 = a20 * a31 - a30 * a21;
+			double inv = 1 / (s0 * c5 - s1 * c4 + s2 * c3 + s3 * c2 - s4 * c1 + s5 * c0);
+			r[k] = (a11 * c5 - a12 * c4 + a13 * c3) * inv;
+			r[n + k] = (-a01 * c5 + a02 * c4 - a03 * c3) * inv;
+			r[2 * n + k] = (a31 * s5 - a32 * s4 + a33 * s3) * inv;
+			r[3 * n + k] = (-a21 * s5 + a22 * s4 - a23 * s3) * inv;
+			r[4 * n + k] = (-a10 * c5 + a12 * c2 - a13 * c1) * inv;
+			r[5 * n + k] = (a00 * c5 - a02 * c2 + a03 * c1) * inv;
+			r[6 * n + k] = (-a30 * s5 + a32 * s2 - a33 * s1) * inv;
+			r[7 * n + k] = (a20 * s5 - a22 * s2 + a23 * s1) * inv;
+			r[8 * n + k] = (a10 * c4 - a11 * c2 + a13 * c0) * inv;
+			r[9 * n + k] = (-a00 * c4 + a01 * c2 - a03 * c0) * inv;
+			r[10 * n + k] = (a30 * s4 - a31 * s2 + a33 * s0) * inv;
+			r[11 * n + k] = (-a20 * s4 + a21 * s2 - a23 * s0) * inv;
+			r[12 * n + k] = (-a10 * c3 + a11 * c1 - a12 * c0) * inv;
+			r[13 * n + k] = (a00 * c3 - a01 * c1 + a02 * c0) * inv;
+			r[14 * n + k] = (-a30 * s3 + a31 * s1 - a32 * s0) * inv;
+			r[15 * n + k] = (a20 * s3 - a21 * s1 + a22 * s0) * inv;
+		}
+	}
+
+	private static void multiply2(double[] a, double[] b, double[] c, int n) {
+		for(int k = 0; k < n; k++) {
+			double b00 = b[k], b01 = b[n + k];
+			double b10 = b[2 * n + k], b11 = b[3 * n + k];
+			double a0 = a[k], a1 = a[n + k];
+			c[k] = a0 * b00 + a1 * b10;
+			c[n + k] = a0 * b01 + a1 * b11;
+			a0 = a[2 * n + k];
+			a1 = a[3 * n + k];
+			c[2 * n + k] = a0 * b00 + a1 * b10;
+			c[3 * n + k] = a0 * b01 + a1 * b11;
+		}
+	}
+
+	private static void multiply3(double[] a, double[] b, double[] c, int n) {
+		for(int k = 0; k < n; k++) {
+			double b00 = b[k], b01 = b[n + k], b02 = b[2 * n + k];
+			double b10 = b[3 * n + k], b11 = b[4 * n + k], b12 = b[5 * n + k];
+			double b20 = b[6 * n + k], b21 = b[7 * n + k], b22 = b[8 * n + k];
+			double a0 = a[k], a1 = a[n + k], a2 = a[2 * n + k];
+			c[k] = a0 * b00 + a1 * b10 + a2 * b20;
+			c[n + k] = a0 * b01 + a1 * b11 + a2 * b21;
+			c[2 * n + k] = a0 * b02 + a1 * b12 + a2 * b22;
+			a0 = a[3 * n + k];
+			a1 = a[4 * n + k];
+			a2 = a[5 * n + k];
+			c[3 * n + k] = a0 * b00 + a1 * b10 + a2 * b20;
+			c[4 * n + k] = a0 * b01 + a1 * b11 + a2 * b21;
+			c[5 * n + k] = a0 * b02 + a1 * b12 + a2 * b22;
+			a0 = a[6 * n + k];
+			a1 = a[7 * n + k];
+			a2 = a[8 * n + k];
+			c[6 * n + k] = a0 * b00 + a1 * b10 + a2 * b20;
+			c[7 * n + k] = a0 * b01 + a1 * b11 + a2 * b21;
+			c[8 * n + k] = a0 * b02 + a1 * b12 + a2 * b22;
+		}
+	}
+
+	private static void multiply4(double[] a, double[] b, double[] c, int n) {
+		for(int k = 0; k < n; k++) {
+			double b00 = b[k], b01 = b[n + k], b02 = b[2 * n + k], b03 = b[3 * n + k];
+			double b10 = b[4 * n + k], b11 = b[5 * n + k], b12 = b[6 * n + k], b13 = b[7 * n + k];
+			double b20 = b[8 * n + k], b21 = b[9 * n + k], b22 = b[10 * n + k], b23 = b[11 * n + k];
+			double b30 = b[12 * n + k], b31 = b[13 * n + k], b32 = b[14 * n + k], b33 = b[15 * n + k];
+			double a0 = a[k], a1 = a[n + k], a2 = a[2 * n + k], a3 = a[3 * n + k];
+			c[k] = a0 * b00 + a1 * b10 + a2 * b20 + a3 * b30;
+			c[n + k] = a0 * b01 + a1 * b11 + a2 * b21 + a3 * b31;
+			c[2 * n + k] = a0 * b02 + a1 * b12 + a2 * b22 + a3 * b32;
+			c[3 * n + k] = a0 * b03 + a1 * b13 + a2 * b23 + a3 * b33;
+			a0 = a[4 * n + k];
+			a1 = a[5 * n + k];
+			a2 = a[6 * n + k];
+			a3 = a[7 * n + k];
+			c[4 * n + k] = a0 * b00 + a1 * b10 + a2 * b20 + a3 * b30;
+			c[5 * n + k] = a0 * b01 + a1 * b11 + a2 * b21 + a3 * b31;
+			c[6 * n + k] = a0 * b02 + a1 * b12 + a2 * b22 + a3 * b32;
+			c[7 * n + k] = a0 * b03 + a1 * b13 + a2 * b23 + a3 * b33;
+			a0 = a[8 * n + k];
+			a1 = a[9 * n + k];
+			a2 = a[10 * n + k];
+			a3 = a[11 * n + k];
+			c[8 * n + k] = a0 * b00 + a1 * b10 + a2 * b20 + a3 * b30;
+			c[9 * n + k] = a0 * b01 + a1 * b11 + a2 * b21 + a3 * b31;
+			c[10 * n + k] = a0 * b02 + a1 * b12 + a2 * b22 + a3 * b32;
+			c[11 * n + k] = a0 * b03 + a1 * b13 + a2 * b23 + a3 * b33;
+			a0 = a[12 * n + k];
+			a1 = a[13 * n + k];
+			a2 = a[14 * n + k];
+			a3 = a[15 * n + k];
+			c[12 * n + k] = a0 * b00 + a1 * b10 + a2 * b20 + a3 * b30;
+			c[13 * n + k] = a0 * b01 + a1 * b11 + a2 * b21 + a3 * b31;
+			c[14 * n + k] = a0 * b02 + a1 * b12 + a2 * b22 + a3 * b32;
+			c[15 * n + k] = a0 * b03 + a1 * b13 + a2 * b23 + a3 * b33;
+		}
+	}
+
+	private static void solve2(double[] a, double[] b, double[] x, int n) {
+		for(int k = 0; k < n; k++) {
+			double a00 = a[k], a01 = a[n + k];
+			double a10 = a[2 * n + k], a11 = a[3 * n + k];
+			double b0 = b[k], b1 = b[n + k];
+			double inv = 1 / (a00 * a11 - a01 * a10);
+			x[k] = (a11 * b0 - a01 * b1) * inv;
+			x[n + k] = (a00 * b1 - a10 * b0) * inv;
+		}
+	}
+
+	private static void solve3(double[] a, double[] b, double[] x, int n) {
+		for(int k = 0; k < n; k++) {
+			double a00 = a[k], a01 = a[n + k], a02 = a[2 * n + k];
+			double a10 = a[3 * n + k], a11 = a[4 * n + k], a12 = a[5 * n + k];
+			double a20 = a[6 * n + k], a21 = a[7 * n + k], a22 = a[8 * n + k];
+			double b0 = b[k], b1 = b[n + k], b2 = b[2 * n + k];
+			double c00 = a11 * a22 - a12 * a21;
+			double c01 = a12 * a20 - a10 * a22;
+			double c02 = a10 * a21 - a11 * a20;
+			double inv = 1 / (a00 * c00 + a01 * c01 + a02 * c02);
+			x[k] = (c00 * b0 + (a02 * a21 - a01 * a22) * b1 + (a01 * a12 - a02 * a11) * b2) * inv;
+			x[n + k] = (c01 * b0 + (a00 * a22 - a02 * a20) * b1 + (a02 * a10 - a00 * a12) * b2) * inv;
+			x[2 * n + k] = (c02 * b0 + (a01 * a20 - a00 * a21) * b1 + (a00 * a11 - a01 * a10) * b2) * inv;
+		}
+	}
+
+	private static void solve4(double[] a, double[] b, double[] x, int n) {
+		for(int k = 0; k < n; k++) {
+			double a00 = a[k], a01 = a[n + k], a02 = a[2 * n + k], a03 = a[3 * n + k];
+			double a10 = a[4 * n + k], a11 = a[5 * n + k], a12 = a[6 * n + k], a13 = a[7 * n + k];
+			double a20 = a[8 * n + k], a21 = a[9 * n + k], a22 = a[10 * n + k], a23 = a[11 * n + k];
+			double a30 = a[12 * n + k], a31 = a[13 * n + k], a32 = a[14 * n + k], a33 = a[15 * n + k];
+			double b0 = b[k], b1 = b[n + k], b2 = b[2 * n + k], b3 = b[3 * n + k];
+			double s0 = a00 * a11 - a10 * a01;
+			double s1 = a00 * a12 - a10 * a02;
+			double s2 = a00 * a13 - a10 * a03;
+			double s3 = a01 * a12 - a11 * a02;
+			double s4 = a01 * a13 - a11 * a03;
+			double s5 = a02 * a13 - a12 * a03;
+			double c5 = a22 * a33 - a32 * a23;
+			double c4 = a21 * a33 - a31 * a23;
+			double c3 = a21 * a32 - a31 * a22;
+			double c2 = a20 * a33 - a30 * a23;
+			double c1 = a20 * a32 - a30 * a22;
+			double c0 = a20 * a31 - a30 * a21;
+			double inv = 1 / (s0 * c5 - s1 * c4 + s2 * c3 + s3 * c2 - s4 * c1 + s5 * c0);
+			x[k] = ((a11 * c5 - a12 * c4 + a13 * c3) * b0 + (-a01 * c5 + a02 * c4 - a03 * c3) * b1
+					+ (a31 * s5 - a32 * s4 + a33 * s3) * b2 + (-a21 * s5 + a22 * s4 - a23 * s3) * b3) * inv;
+			x[n + k] = ((-a10 * c5 + a12 * c2 - a13 * c1) * b0 + (a00 * c5 - a02 * c2 + a03 * c1) * b1
+					+ (-a30 * s5 + a32 * s2 - a33 * s1) * b2 + (a20 * s5 - a22 * s2 + a23 * s1) * b3) * inv;
+			x[2 * n + k] = ((a10 * c4 - a11 * c2 + a13 * c0) * b0 + (-a00 * c4 + a01 * c2 - a03 * c0) * b1
+					+ (a30 * s4 - a31 * s2 + a33 * s0) * b2 + (-a20 * s4 + a21 * s2 - a23 * s0) * b3) * inv;
+			x[3 * n + k] = ((-a10 * c3 + a11 * c1 - a12 * c0) * b0 + (a00 * c3 - a01 * c1 + a02 * c0) * b1
+					+ (-a30 * s3 + a31 * s1 - a32 * s0) * b2 + (a20 * s3 - a21 * s1 + a22 * s0) * b3) * inv;
+		}
+	}
+
+}
@@ -0,0 +1,21 @@
+package br.sergio.math;
+
+/**
+ * Função aplicada a um elemento de uma matriz que também recebe a posição
+ * do elemento. Trabalha apenas com tipos primitivos, evitando a criação de
+ * objetos Double a cada elemento.
+ * @author Sergio Luis
+ *
+ */
+@FunctionalInterface
+public interface MatrixElementFunction {
+
+	/**
+	 * @param line a linha do elemento.
+	 * @param column a coluna do elemento.
+	 * @param value o valor atual do elemento.
+	 * @return o novo valor do elemento.
+	 */
+	double apply(int line, int column, double value);
+
+}
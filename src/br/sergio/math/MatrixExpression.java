@@ -0,0 +1,590 @@
+package br.sergio.math;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Expressão de matrizes avaliada de forma preguiçosa. Encadear operações de
+ * {@link Matrix}, como em a.add(b).multiplyByScalar(2).subtract(c), cria uma
+ * matriz intermediária por operação e percorre a memória uma vez para cada
+ * uma. Uma expressão, criada por {@link Matrix#expr(Matrix)}, apenas monta a
+ * árvore das operações:
+ * <pre>
+ * Matrix r = Matrix.expr(a).plus(b).times(2).minus(c).evaluate();
+ * </pre>
+ * <p>Na avaliação, a árvore inteira é calculada em um único laço, linha a
+ * linha: cada linha do resultado é montada em arrays temporários do tamanho
+ * de uma linha, que permanecem na memória cache, e escrita uma única vez.
+ * Cada matriz da expressão é lida uma única vez, e nenhuma matriz
+ * intermediária é criada.
+ * <p>Produtos de matrizes ({@link #multiply(Matrix)}) também podem aparecer
+ * na expressão. Eles são calculados em faixas de linhas, e as operações
+ * elemento a elemento aplicadas sobre o produto (como somar um viés com
+ * {@link #plusRow(double[])} e aplicar uma função com
+ * {@link #map(DoubleUnaryOperator)}) são executadas sobre cada faixa logo
+ * após ela ser calculada, enquanto ainda está na memória cache, sem que o
+ * produto completo seja guardado. Os operandos de um produto, quando não são
+ * matrizes, são avaliados antes.
+ * <p>As matrizes são lidas no momento da avaliação, e não quando a expressão
+ * é criada. Uma expressão pode ser avaliada várias vezes, mas não por várias
+ * threads ao mesmo tempo.
+ * @author Sergio Luis
+ *
+ */
+public class MatrixExpression {
+
+	/**
+	 * Quantidade aproximada de elementos de cada faixa de linhas calculada
+	 * de uma vez, escolhida para que a faixa caiba na memória cache.
+	 */
+	private static final int PANEL_ELEMENTS = 1 << 15;
+
+	private final Node node;
+
+	MatrixExpression(Matrix m) {
+		this(new Leaf(m));
+	}
+
+	private MatrixExpression(Node node) {
+		this.node = node;
+	}
+
+	/**
+	 * @return a quantidade de linhas da matriz resultante.
+	 */
+	public int getLines() {
+		return node.lines;
+	}
+
+	/**
+	 * @return a quantidade de colunas da matriz resultante.
+	 */
+	public int getColumns() {
+		return node.columns;
+	}
+
+	/**
+	 * Soma elemento a elemento com uma matriz de mesmo tamanho.
+	 * @param m a matriz.
+	 * @return a nova expressão.
+	 * @throws NullPointerException se a matriz for nula.
+	 * @throws MathException se os tamanhos forem diferentes.
+	 */
+	public MatrixExpression plus(Matrix m) {
+		return plus(leaf(m));
+	}
+
+	/**
+	 * Soma elemento a elemento com outra expressão de mesmo tamanho.
+	 * @param e a expressão.
+	 * @return a nova expressão.
+	 * @throws MathException se os tamanhos forem diferentes.
+	 */
+	public MatrixExpression plus(MatrixExpression e) {
+		checkSameSize(e.node);
+		return new MatrixExpression(new Sum(node, e.node, 1));
+	}
+
+	/**
+	 * Subtrai elemento a elemento uma matriz de mesmo tamanho.
+	 * @param m a matriz subtraendo.
+	 * @return a nova expressão.
+	 * @throws NullPointerException se a matriz for nula.
+	 * @throws MathException se os tamanhos forem diferentes.
+	 */
+	public MatrixExpression minus(Matrix m) {
+		return minus(leaf(m));
+	}
+
+	/**
+	 * Subtrai elemento a elemento outra expressão de mesmo tamanho.
+	 * @param e a expressão subtraendo.
+	 * @return a nova expressão.
+	 * @throws MathException se os tamanhos forem diferentes.
+	 */
+	public MatrixExpression minus(MatrixExpression e) {
+		checkSameSize(e.node);
+		return new MatrixExpression(new Sum(node, e.node, -1));
+	}
+
+	/**
+	 * Multiplica todos os elementos pelo escalar fornecido.
+	 * @param scalar o escalar.
+	 * @return a nova expressão.
+	 */
+	public MatrixExpression times(double scalar) {
+		return new MatrixExpression(new Scale(node, scalar));
+	}
+
+	/**
+	 * Soma o vetor fornecido a todas as linhas, ou seja, soma row[j] a todos
+	 * os elementos da coluna j. É o viés das camadas lineares: aplicado sobre
+	 * um produto, como em Matrix.expr(x).multiply(w).plusRow(bias), é
+	 * executado junto com o cálculo do produto.
+	 * @param row o vetor, com tantos elementos quanto a expressão tem colunas.
+	 * @return a nova expressão.
+	 * @throws MathException se o tamanho do vetor for diferente da quantidade
+	 * de colunas.
+	 */
+	public MatrixExpression plusRow(double[] row) {
+		if(row.length != node.columns) {
+			throw new MathException("O vetor deve ter " + node.columns + " elementos");
+		}
+		return new MatrixExpression(new RowSum(node, row));
+	}
+
+	/**
+	 * Aplica uma função a todos os elementos.
+	 * @param function a função.
+	 * @return a nova expressão.
+	 * @throws NullPointerException se a função for nula.
+	 */
+	public MatrixExpression map(DoubleUnaryOperator function) {
+		if(function == null) {
+			throw new NullPointerException("Função nula");
+		}
+		return new MatrixExpression(new Map(node, function));
+	}
+
+	/**
+	 * Multiplicação de matrizes. Veja {@link Matrix#multiply(Matrix)}.
+	 * @param m a matriz para ser multiplicada à direita.
+	 * @return a nova expressão.
+	 * @throws NullPointerException se a matriz for nula.
+	 * @throws MathException se a quantidade de colunas desta expressão for
+	 * diferente da quantidade de linhas da matriz.
+	 */
+	public MatrixExpression multiply(Matrix m) {
+		return multiply(leaf(m));
+	}
+
+	/**
+	 * Multiplicação de matrizes por outra expressão, que é avaliada antes.
+	 * Veja {@link Matrix#multiply(Matrix)}.
+	 * @param e a expressão para ser multiplicada à direita.
+	 * @return a nova expressão.
+	 * @throws MathException se a quantidade de colunas desta expressão for
+	 * diferente da quantidade de linhas da outra.
+	 */
+	public MatrixExpression multiply(MatrixExpression e) {
+		if(node.columns != e.node.lines) {
+			throw new MathException("Não é possível multiplicar matrizes tais que o número de colunas da "
+					+ "primeira seja diferente do número de linhas da segunda.");
+		}
+		return new MatrixExpression(new Product(node, e.node));
+	}
+
+	/**
+	 * Avalia a expressão em uma nova matriz.
+	 * @return a matriz resultante.
+	 */
+	public Matrix evaluate() {
+		Matrix result = new Matrix(node.lines, node.columns);
+		run(result);
+		return result;
+	}
+
+	/**
+	 * Avalia a expressão na matriz de destino, sem alocar uma nova matriz
+	 * para o resultado. Útil quando a mesma expressão é recalculada várias
+	 * vezes.
+	 * @param dest a matriz onde o resultado será escrito.
+	 * @return a matriz de destino.
+	 * @throws NullPointerException se o destino for nulo.
+	 * @throws MathException se o destino não tiver o tamanho do resultado ou
+	 * compartilhar memória com alguma das matrizes da expressão.
+	 */
+	public Matrix evaluateInto(Matrix dest) {
+		if(dest == null) {
+			throw new NullPointerException("Matriz nula");
+		}
+		if(dest.getLines() != node.lines || dest.getColumns() != node.columns) {
+			throw new MathException("A matriz de destino deve ter tamanho " + node.lines + "x" + node.columns);
+		}
+		if(node.reads(dest)) {
+			throw new MathException("A matriz de destino não pode compartilhar memória com as matrizes da expressão");
+		}
+		if(dest.getColumnStride() != 1) {
+			return dest.copyFrom(evaluate());
+		}
+		run(dest);
+		return dest;
+	}
+
+	private void run(Matrix dest) {
+		List<Product> products = new ArrayList<>();
+		node.prepare(products);
+		int lines = node.lines;
+		int columns = node.columns;
+		Product direct = spine(node);
+		if(direct != null && Collections.frequency(products, direct) != 1) {
+			direct = null;
+		}
+		Set<Product> distinct = new LinkedHashSet<>(products);
+		int panel = panelRows(lines, columns, !distinct.isEmpty());
+		double[] data = dest.getData();
+		for(int start = 0; start < lines; start += panel) {
+			int end = Math.min(lines, start + panel);
+			for(Product product : distinct) {
+				product.compute(start, end, product == direct ? dest : null);
+			}
+			for(int i = start; i < end; i++) {
+				node.row(i, data, dest.getOffset() + i * dest.getStride());
+			}
+		}
+	}
+
+	/**
+	 * Produto no início da cadeia de nós que escrevem diretamente na linha de
+	 * saída (o operando esquerdo das somas e o operando das operações
+	 * unárias). Se ele aparecer uma única vez na expressão, a multiplicação
+	 * é feita direto no destino e as operações seguintes são aplicadas sobre
+	 * o resultado, sem cópia intermediária.
+	 */
+	private static Product spine(Node node) {
+		while(true) {
+			if(node instanceof Unary unary) {
+				node = unary.child;
+			} else if(node instanceof Sum sum) {
+				node = sum.left;
+			} else {
+				return node instanceof Product product ? product : null;
+			}
+		}
+	}
+
+	/**
+	 * Quantidade de linhas de cada faixa. Todos os produtos calculados na
+	 * mesma avaliação têm o tamanho do resultado e, portanto, faixas iguais.
+	 * Quando há produtos, as faixas têm ao menos o tamanho dos blocos da
+	 * multiplicação (veja {@link Matrix#getBlockSize()}), já que cada faixa
+	 * empacota a matriz da direita novamente.
+	 */
+	private static int panelRows(int lines, int columns, boolean products) {
+		int rows = Math.max(MatrixKernels.MICRO_TILE, PANEL_ELEMENTS / columns);
+		if(products) {
+			rows = Math.max(rows, Matrix.getBlockSize());
+		}
+		return Math.min(lines, rows);
+	}
+
+	private static MatrixExpression leaf(Matrix m) {
+		if(m == null) {
+			throw new NullPointerException("Matriz nula");
+		}
+		return new MatrixExpression(m);
+	}
+
+	private void checkSameSize(Node other) {
+		if(node.lines != other.lines || node.columns != other.columns) {
+			throw new MathException("As expressões devem ter o mesmo tamanho: " + node.lines + "x" + node.columns
+					+ " e " + other.lines + "x" + other.columns);
+		}
+	}
+
+	/**
+	 * Nó da árvore da expressão. Cada nó sabe escrever uma linha de seu
+	 * resultado em um array, depois de preparado para a avaliação.
+	 */
+	private abstract static class Node {
+
+		final int lines;
+		final int columns;
+
+		Node(int lines, int columns) {
+			this.lines = lines;
+			this.columns = columns;
+		}
+
+		/**
+		 * Aloca os arrays temporários do nó e de seus filhos e registra os
+		 * produtos que devem ser calculados a cada faixa de linhas.
+		 */
+		abstract void prepare(List<Product> products);
+
+		/**
+		 * Escreve a linha i do resultado no array, a partir da posição dada.
+		 */
+		abstract void row(int i, double[] out, int offset);
+
+		/**
+		 * Acumula f vezes a linha i do resultado no array. A implementação
+		 * padrão usa um array temporário; as folhas acumulam diretamente.
+		 */
+		abstract void accumulate(int i, double f, double[] out, int offset);
+
+		/**
+		 * @return true se algum nó da árvore lê uma matriz que compartilha
+		 * memória com a fornecida.
+		 */
+		abstract boolean reads(Matrix m);
+
+	}
+
+	private static final class Leaf extends Node {
+
+		private final Matrix matrix;
+
+		Leaf(Matrix matrix) {
+			super(matrix.getLines(), matrix.getColumns());
+			this.matrix = matrix;
+		}
+
+		@Override
+		void prepare(List<Product> products) {
+		}
+
+		@Override
+		void row(int i, double[] out, int offset) {
+			double[] data = matrix.getData();
+			int start = matrix.getOffset() + i * matrix.getStride();
+			int step = matrix.getColumnStride();
+			if(step == 1) {
+				System.arraycopy(data, start, out, offset, columns);
+				return;
+			}
+			for(int j = 0; j < columns; j++) {
+				out[offset + j] = data[start + j * step];
+			}
+		}
+
+		@Override
+		void accumulate(int i, double f, double[] out, int offset) {
+			double[] data = matrix.getData();
+			int start = matrix.getOffset() + i * matrix.getStride();
+			int step = matrix.getColumnStride();
+			if(step == 1) {
+				MatrixKernels.axpy(f, data, start, out, offset, columns);
+				return;
+			}
+			for(int j = 0; j < columns; j++) {
+				out[offset + j] += f * data[start + j * step];
+			}
+		}
+
+		@Override
+		boolean reads(Matrix m) {
+			return matrix.overlaps(m);
+		}
+
+	}
+
+	/**
+	 * Nó com um único filho e um array temporário do tamanho de uma linha.
+	 */
+	private abstract static class Unary extends Node {
+
+		final Node child;
+		double[] scratch;
+
+		Unary(Node child) {
+			super(child.lines, child.columns);
+			this.child = child;
+		}
+
+		@Override
+		void prepare(List<Product> products) {
+			if(scratch == null) {
+				scratch = new double[columns];
+			}
+			child.prepare(products);
+		}
+
+		@Override
+		void accumulate(int i, double f, double[] out, int offset) {
+			row(i, scratch, 0);
+			MatrixKernels.axpy(f, scratch, 0, out, offset, columns);
+		}
+
+		@Override
+		boolean reads(Matrix m) {
+			return child.reads(m);
+		}
+
+	}
+
+	private static final class Sum extends Node {
+
+		private final Node left;
+		private final Node right;
+		private final double f;
+
+		Sum(Node left, Node right, double f) {
+			super(left.lines, left.columns);
+			this.left = left;
+			this.right = right;
+			this.f = f;
+		}
+
+		@Override
+		void prepare(List<Product> products) {
+			left.prepare(products);
+			right.prepare(products);
+		}
+
+		@Override
+		void row(int i, double[] out, int offset) {
+			left.row(i, out, offset);
+			right.accumulate(i, f, out, offset);
+		}
+
+		@Override
+		void accumulate(int i, double g, double[] out, int offset) {
+			left.accumulate(i, g, out, offset);
+			right.accumulate(i, g * f, out, offset);
+		}
+
+		@Override
+		boolean reads(Matrix m) {
+			return left.reads(m) || right.reads(m);
+		}
+
+	}
+
+	private static final class Scale extends Unary {
+
+		private final double scalar;
+
+		Scale(Node child, double scalar) {
+			super(child);
+			this.scalar = scalar;
+		}
+
+		@Override
+		void row(int i, double[] out, int offset) {
+			child.row(i, out, offset);
+			MatrixKernels.scale(scalar, out, offset, out, offset, columns);
+		}
+
+		@Override
+		void accumulate(int i, double f, double[] out, int offset) {
+			child.accumulate(i, f * scalar, out, offset);
+		}
+
+	}
+
+	private static final class RowSum extends Unary {
+
+		private final double[] vector;
+
+		RowSum(Node child, double[] vector) {
+			super(child);
+			this.vector = vector;
+		}
+
+		@Override
+		void row(int i, double[] out, int offset) {
+			child.row(i, out, offset);
+			MatrixKernels.axpy(1, vector, 0, out, offset, columns);
+		}
+
+	}
+
+	private static final class Map extends Unary {
+
+		private final DoubleUnaryOperator function;
+
+		Map(Node child, DoubleUnaryOperator function) {
+			super(child);
+			this.function = function;
+		}
+
+		@Override
+		void row(int i, double[] out, int offset) {
+			child.row(i, out, offset);
+			for(int j = offset; j < offset + columns; j++) {
+				out[j] = function.applyAsDouble(out[j]);
+			}
+		}
+
+	}
+
+	/**
+	 * Produto de matrizes, calculado uma faixa de linhas por vez em um array
+	 * do tamanho da faixa.
+	 */
+	private static final class Product extends Node {
+
+		private final Node left;
+		private final Node right;
+		private Matrix a;
+		private Matrix b;
+		private double[] panel;
+		private int start;
+		private boolean direct;
+
+		Product(Node left, Node right) {
+			super(left.lines, right.columns);
+			this.left = left;
+			this.right = right;
+		}
+
+		@Override
+		void prepare(List<Product> products) {
+			boolean seen = products.contains(this);
+			products.add(this);
+			if(seen) {
+				return;
+			}
+			a = materialize(left);
+			b = materialize(right);
+			int rows = panelRows(lines, columns, true);
+			if(panel == null || panel.length < rows * columns) {
+				panel = new double[rows * columns];
+			}
+		}
+
+		private static Matrix materialize(Node node) {
+			if(node instanceof Leaf leaf) {
+				return leaf.matrix.contiguous();
+			}
+			return new MatrixExpression(node).evaluate();
+		}
+
+		void compute(int start, int end, Matrix dest) {
+			this.start = start;
+			direct = dest != null;
+			double[] c = panel;
+			int cOffset = 0;
+			int cStride = columns;
+			if(direct) {
+				c = dest.getData();
+				cOffset = dest.getOffset() + start * dest.getStride();
+				cStride = dest.getStride();
+				for(int i = 0; i < end - start; i++) {
+					Arrays.fill(c, cOffset + i * cStride, cOffset + i * cStride + columns, 0);
+				}
+			} else {
+				Arrays.fill(panel, 0, (end - start) * columns, 0);
+			}
+			MatrixKernels.multiply(a.getData(), a.getOffset() + start * a.getStride(), a.getStride(),
+					b.getData(), b.getOffset(), b.getStride(), c, cOffset, cStride,
+					end - start, columns, a.getColumns(), Matrix.getBlockSize());
+		}
+
+		@Override
+		void row(int i, double[] out, int offset) {
+			if(direct) {
+				return; // a linha já foi escrita no destino por compute
+			}
+			System.arraycopy(panel, (i - start) * columns, out, offset, columns);
+		}
+
+		@Override
+		void accumulate(int i, double f, double[] out, int offset) {
+			MatrixKernels.axpy(f, panel, (i - start) * columns, out, offset, columns);
+		}
+
+		@Override
+		boolean reads(Matrix m) {
+			return left.reads(m) || right.reads(m);
+		}
+
+	}
+
+}
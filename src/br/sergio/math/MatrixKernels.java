@@ -0,0 +1,686 @@
+package br.sergio.math;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Núcleos numéricos usados internamente pela classe {@link Matrix}.
+ * Todos os métodos operam diretamente sobre arrays contíguos, recebendo
+ * para cada operando o array, a posição do primeiro elemento e a distância
+ * entre o início de duas linhas consecutivas.
+ * @author Sergio Luis
+ *
+ */
+final class MatrixKernels {
+
+	/**
+	 * Tamanho, em linhas e colunas, dos micro-blocos mantidos em registradores.
+	 */
+	static final int MICRO_TILE = 4;
+
+	/**
+	 * Abaixo desta quantidade de multiplicações escalares, o custo de
+	 * empacotar os blocos não compensa e é usado o laço i-k-j simples.
+	 */
+	private static final long SMALL_PRODUCT = 32 * 32 * 32;
+
+	/**
+	 * Abaixo desta quantidade de multiplicações escalares, a multiplicação
+	 * paralela não divide mais o trabalho e executa o núcleo sequencial.
+	 */
+	static final long PARALLEL_THRESHOLD = 128 * 128 * 128;
+
+	/**
+	 * Quantidade de elementos da matriz processados por cada tarefa das
+	 * versões paralelas das operações entre matriz e vetor. Essas operações
+	 * fazem apenas uma multiplicação por elemento lido, então as tarefas
+	 * precisam de mais elementos que as da multiplicação de matrizes.
+	 */
+	static final int PARALLEL_LEVEL2 = 1 << 16;
+
+	/**
+	 * Lado dos blocos usados na transposição.
+	 */
+	private static final int TRANSPOSE_TILE = 32;
+
+	/**
+	 * Indica se os núcleos da Vector API (jdk.incubator.vector) estão em uso.
+	 * Eles são usados quando o módulo foi adicionado à JVM (com
+	 * --add-modules jdk.incubator.vector) e a propriedade de sistema
+	 * br.sergio.math.vectorize não vale false.
+	 */
+	static final boolean VECTORIZED = vectorApiAvailable();
+
+	private MatrixKernels() {
+	}
+
+	private static boolean vectorApiAvailable() {
+		if(!Boolean.parseBoolean(System.getProperty("br.sergio.math.vectorize", "true"))) {
+			return false;
+		}
+		if(ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+			return false;
+		}
+		try {
+			return VectorKernels.isSupported();
+		} catch(LinkageError e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Acumula alpha * x em y, ou seja, y[i] += alpha * x[i] para os length
+	 * elementos a partir das posições dadas.
+	 */
+	static void axpy(double alpha, double[] x, int xOffset, double[] y, int yOffset, int length) {
+		if(VECTORIZED) {
+			VectorKernels.axpy(alpha, x, xOffset, y, yOffset, length);
+			return;
+		}
+		for(int i = 0; i < length; i++) {
+			y[yOffset + i] += alpha * x[xOffset + i];
+		}
+	}
+
+	/**
+	 * Produto escalar entre os length elementos de x e de y a partir das
+	 * posições dadas.
+	 */
+	static double dot(double[] x, int xOffset, double[] y, int yOffset, int length) {
+		if(VECTORIZED) {
+			return VectorKernels.dot(x, xOffset, y, yOffset, length);
+		}
+		double sum0 = 0, sum1 = 0, sum2 = 0, sum3 = 0;
+		int i = 0;
+		for(; i + 3 < length; i += 4) {
+			sum0 += x[xOffset + i] * y[yOffset + i];
+			sum1 += x[xOffset + i + 1] * y[yOffset + i + 1];
+			sum2 += x[xOffset + i + 2] * y[yOffset + i + 2];
+			sum3 += x[xOffset + i + 3] * y[yOffset + i + 3];
+		}
+		for(; i < length; i++) {
+			sum0 += x[xOffset + i] * y[yOffset + i];
+		}
+		return (sum0 + sum1) + (sum2 + sum3);
+	}
+
+	/**
+	 * Escreve em y os valores de x multiplicados pelo escalar, ou seja,
+	 * y[i] = scalar * x[i] para os length elementos a partir das posições dadas.
+	 */
+	static void scale(double scalar, double[] x, int xOffset, double[] y, int yOffset, int length) {
+		if(VECTORIZED) {
+			VectorKernels.scale(scalar, x, xOffset, y, yOffset, length);
+			return;
+		}
+		for(int i = 0; i < length; i++) {
+			y[yOffset + i] = scalar * x[xOffset + i];
+		}
+	}
+
+	/**
+	 * Escreve em B a transposta de A (rows x columns). A matriz é percorrida em
+	 * blocos quadrados pequenos o suficiente para que as linhas de A e de B
+	 * envolvidas em cada bloco permaneçam na memória cache.
+	 */
+	static void transpose(double[] a, int aOffset, int aStride,
+			double[] b, int bOffset, int bStride, int rows, int columns) {
+		for(int ii = 0; ii < rows; ii += TRANSPOSE_TILE) {
+			int iEnd = Math.min(rows, ii + TRANSPOSE_TILE);
+			for(int jj = 0; jj < columns; jj += TRANSPOSE_TILE) {
+				int jEnd = Math.min(columns, jj + TRANSPOSE_TILE);
+				for(int i = ii; i < iEnd; i++) {
+					int aRow = aOffset + i * aStride;
+					for(int j = jj; j < jEnd; j++) {
+						b[bOffset + j * bStride + i] = a[aRow + j];
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Escreve em y o produto de A (rows x columns) pelo vetor x. As linhas de A
+	 * são percorridas de quatro em quatro, de modo que cada elemento de x é
+	 * lido uma única vez para as quatro somas.
+	 */
+	static void gemv(double[] a, int aOffset, int aStride, double[] x, int xOffset,
+			double[] y, int yOffset, int rows, int columns) {
+		if(VECTORIZED) {
+			VectorKernels.gemv(a, aOffset, aStride, x, xOffset, y, yOffset, rows, columns);
+			return;
+		}
+		int i = 0;
+		for(; i + 3 < rows; i += 4) {
+			int r0 = aOffset + i * aStride;
+			int r1 = r0 + aStride;
+			int r2 = r1 + aStride;
+			int r3 = r2 + aStride;
+			double sum0 = 0, sum1 = 0, sum2 = 0, sum3 = 0;
+			for(int j = 0; j < columns; j++) {
+				double value = x[xOffset + j];
+				sum0 += a[r0 + j] * value;
+				sum1 += a[r1 + j] * value;
+				sum2 += a[r2 + j] * value;
+				sum3 += a[r3 + j] * value;
+			}
+			y[yOffset + i] = sum0;
+			y[yOffset + i + 1] = sum1;
+			y[yOffset + i + 2] = sum2;
+			y[yOffset + i + 3] = sum3;
+		}
+		for(; i < rows; i++) {
+			y[yOffset + i] = dot(a, aOffset + i * aStride, x, xOffset, columns);
+		}
+	}
+
+	/**
+	 * Escreve em y (columns) o produto da transposta de A (rows x columns) pelo
+	 * vetor x, sem transpor A: y é a combinação das linhas de A com os
+	 * coeficientes de x. As linhas são somadas de quatro em quatro, o que
+	 * reduz a quatro vezes menos as leituras e escritas de y.
+	 */
+	static void gemvTransposed(double[] a, int aOffset, int aStride, double[] x, int xOffset,
+			double[] y, int yOffset, int rows, int columns) {
+		Arrays.fill(y, yOffset, yOffset + columns, 0);
+		int i = 0;
+		for(; i + 3 < rows; i += 4) {
+			int r0 = aOffset + i * aStride;
+			double x0 = x[xOffset + i];
+			double x1 = x[xOffset + i + 1];
+			double x2 = x[xOffset + i + 2];
+			double x3 = x[xOffset + i + 3];
+			if(VECTORIZED) {
+				VectorKernels.axpy4(x0, x1, x2, x3, a, r0, aStride, y, yOffset, columns);
+				continue;
+			}
+			int r1 = r0 + aStride;
+			int r2 = r1 + aStride;
+			int r3 = r2 + aStride;
+			for(int j = 0; j < columns; j++) {
+				y[yOffset + j] += x0 * a[r0 + j] + x1 * a[r1 + j] + x2 * a[r2 + j] + x3 * a[r3 + j];
+			}
+		}
+		for(; i < rows; i++) {
+			axpy(x[xOffset + i], a, aOffset + i * aStride, y, yOffset, columns);
+		}
+	}
+
+	/**
+	 * Atualização de posto 1: acumula alpha * x * y<sup>T</sup> em A
+	 * (rows x columns), linha a linha. Como no BLAS, linhas cujo coeficiente
+	 * alpha * x[i] é zero não são percorridas.
+	 */
+	static void rankOneUpdate(double alpha, double[] x, int xOffset, double[] y, int yOffset,
+			double[] a, int aOffset, int aStride, int rows, int columns) {
+		for(int i = 0; i < rows; i++) {
+			double factor = alpha * x[xOffset + i];
+			if(factor != 0) {
+				axpy(factor, y, yOffset, a, aOffset + i * aStride, columns);
+			}
+		}
+	}
+
+	/**
+	 * Executa body sobre o intervalo [0, size) na pool fornecida, dividindo-o
+	 * recursivamente ao meio até que cada parte tenha no máximo grain itens.
+	 * É usado pelas versões paralelas das operações entre matriz e vetor, em
+	 * que as partes escrevem em regiões disjuntas do resultado.
+	 */
+	static void parallelFor(int size, int grain, RangeBody body, ForkJoinPool pool) {
+		if(size <= grain) {
+			body.run(0, size);
+			return;
+		}
+		pool.invoke(new RangeTask(0, size, Math.max(1, grain), body));
+	}
+
+	/**
+	 * Quantidade de itens de cada parte de {@link #parallelFor} para que cada
+	 * parte processe cerca de {@link #PARALLEL_LEVEL2} elementos, sabendo
+	 * que cada item processa cost elementos.
+	 */
+	static int grain(int cost) {
+		return Math.max(MICRO_TILE, PARALLEL_LEVEL2 / Math.max(1, cost));
+	}
+
+	/**
+	 * Trecho de trabalho sobre o intervalo de itens [start, end).
+	 */
+	@FunctionalInterface
+	interface RangeBody {
+
+		void run(int start, int end);
+
+	}
+
+	private static final class RangeTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 2871935566045727315L;
+
+		private final int start, end, grain;
+		private final RangeBody body;
+
+		RangeTask(int start, int end, int grain, RangeBody body) {
+			this.start = start;
+			this.end = end;
+			this.grain = grain;
+			this.body = body;
+		}
+
+		@Override
+		protected void compute() {
+			if(end - start <= grain) {
+				body.run(start, end);
+				return;
+			}
+			int middle = start + (end - start) / 2;
+			int aligned = middle - (middle - start) % MICRO_TILE;
+			if(aligned > start) {
+				middle = aligned;
+			}
+			invokeAll(new RangeTask(start, middle, grain, body), new RangeTask(middle, end, grain, body));
+		}
+
+	}
+
+	/**
+	 * Acumula em C o produto de A (m x p) por B (p x n), ou seja, C += AB.
+	 * Os operandos são divididos em blocos de no máximo blockSize linhas e
+	 * colunas, que são empacotados em painéis contíguos de {@link #MICRO_TILE}
+	 * linhas (de A) e colunas (de B) antes de serem multiplicados em
+	 * micro-blocos 4x4 mantidos em variáveis locais.
+	 */
+	static void multiply(double[] a, int aOffset, int aStride,
+			double[] b, int bOffset, int bStride,
+			double[] c, int cOffset, int cStride,
+			int m, int n, int p, int blockSize) {
+		if((long) m * n * p <= SMALL_PRODUCT) {
+			multiplySimple(a, aOffset, aStride, b, bOffset, bStride, c, cOffset, cStride, m, n, p);
+			return;
+		}
+		if(VECTORIZED) {
+			VectorKernels.multiply(a, aOffset, aStride, b, bOffset, bStride, c, cOffset, cStride, m, n, p, blockSize);
+			return;
+		}
+		int block = Math.max(MICRO_TILE, blockSize - blockSize % MICRO_TILE);
+		double[] aPack = new double[block * Math.min(block, p)];
+		double[] bPack = new double[block * Math.min(block, p)];
+		for(int kk = 0; kk < p; kk += block) {
+			int kb = Math.min(block, p - kk);
+			for(int jj = 0; jj < n; jj += block) {
+				int nb = Math.min(block, n - jj);
+				packB(b, bOffset + kk * bStride + jj, bStride, kb, nb, MICRO_TILE, bPack);
+				for(int ii = 0; ii < m; ii += block) {
+					int mb = Math.min(block, m - ii);
+					packA(a, aOffset + ii * aStride + kk, aStride, mb, kb, aPack);
+					for(int i = 0; i < mb; i += MICRO_TILE) {
+						int rows = Math.min(MICRO_TILE, mb - i);
+						int aPanel = i * kb;
+						for(int j = 0; j < nb; j += MICRO_TILE) {
+							int cols = Math.min(MICRO_TILE, nb - j);
+							microKernel(aPack, aPanel, bPack, j * kb, kb,
+									c, cOffset + (ii + i) * cStride + jj + j, cStride, rows, cols);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Versão paralela de {@link #multiply}. O bloco de C a ser calculado é
+	 * dividido recursivamente ao meio, sempre na maior dimensão, até que
+	 * cada parte custe menos que {@link #PARALLEL_THRESHOLD} multiplicações
+	 * escalares. Cada parte é então calculada pelo núcleo sequencial na pool
+	 * fornecida. Como as partes escrevem em regiões disjuntas de C, não é
+	 * necessária nenhuma sincronização além da junção das tarefas.
+	 */
+	static void parallelMultiply(double[] a, int aOffset, int aStride,
+			double[] b, int bOffset, int bStride,
+			double[] c, int cOffset, int cStride,
+			int m, int n, int p, int blockSize, ForkJoinPool pool) {
+		if((long) m * n * p <= PARALLEL_THRESHOLD) {
+			multiply(a, aOffset, aStride, b, bOffset, bStride, c, cOffset, cStride, m, n, p, blockSize);
+			return;
+		}
+		pool.invoke(new MultiplyTask(a, aOffset, aStride, b, bOffset, bStride, c, cOffset, cStride, m, n, p, blockSize));
+	}
+
+	private static final class MultiplyTask extends RecursiveAction {
+
+		private static final long serialVersionUID = -3385247541860541174L;
+
+		private final double[] a, b, c;
+		private final int aOffset, aStride, bOffset, bStride, cOffset, cStride;
+		private final int m, n, p, blockSize;
+
+		MultiplyTask(double[] a, int aOffset, int aStride,
+				double[] b, int bOffset, int bStride,
+				double[] c, int cOffset, int cStride,
+				int m, int n, int p, int blockSize) {
+			this.a = a;
+			this.aOffset = aOffset;
+			this.aStride = aStride;
+			this.b = b;
+			this.bOffset = bOffset;
+			this.bStride = bStride;
+			this.c = c;
+			this.cOffset = cOffset;
+			this.cStride = cStride;
+			this.m = m;
+			this.n = n;
+			this.p = p;
+			this.blockSize = blockSize;
+		}
+
+		@Override
+		protected void compute() {
+			if((long) m * n * p <= PARALLEL_THRESHOLD || (m <= MICRO_TILE && n <= MICRO_TILE)) {
+				multiply(a, aOffset, aStride, b, bOffset, bStride, c, cOffset, cStride, m, n, p, blockSize);
+				return;
+			}
+			if(m >= n) {
+				int half = split(m);
+				invokeAll(new MultiplyTask(a, aOffset, aStride, b, bOffset, bStride,
+								c, cOffset, cStride, half, n, p, blockSize),
+						new MultiplyTask(a, aOffset + half * aStride, aStride, b, bOffset, bStride,
+								c, cOffset + half * cStride, cStride, m - half, n, p, blockSize));
+			} else {
+				int half = split(n);
+				invokeAll(new MultiplyTask(a, aOffset, aStride, b, bOffset, bStride,
+								c, cOffset, cStride, m, half, p, blockSize),
+						new MultiplyTask(a, aOffset, aStride, b, bOffset + half, bStride,
+								c, cOffset + half, cStride, m, n - half, p, blockSize));
+			}
+		}
+
+		private static int split(int size) {
+			int half = size / 2;
+			int aligned = half - half % MICRO_TILE;
+			return aligned == 0 ? half : aligned;
+		}
+
+	}
+
+	/**
+	 * Escreve em C (m x n) o produto de A (m x p) por B (p x n) pelo
+	 * algoritmo de Strassen na variante de Winograd, que troca uma das oito
+	 * multiplicações de submatrizes de cada nível por 15 somas. Os operandos
+	 * são divididos ao meio enquanto a menor dimensão for maior que cutoff;
+	 * abaixo disso, é usado o núcleo em blocos. Se alguma dimensão não for
+	 * múltipla de 2 elevado à quantidade de níveis, os operandos são copiados
+	 * para arrays completados com zeros. As sete multiplicações de cada
+	 * nível são executadas como tarefas da pool fornecida.
+	 */
+	static void strassenMultiply(double[] a, int aOffset, int aStride,
+			double[] b, int bOffset, int bStride,
+			double[] c, int cOffset, int cStride,
+			int m, int n, int p, int cutoff, int blockSize, ForkJoinPool pool) {
+		int levels = 0;
+		while(Math.min(m, Math.min(n, p)) >> levels > cutoff) {
+			levels++;
+		}
+		if(levels == 0) {
+			parallelMultiply(a, aOffset, aStride, b, bOffset, bStride, c, cOffset, cStride, m, n, p, blockSize, pool);
+			return;
+		}
+		int mask = (1 << levels) - 1;
+		int pm = (m + mask) & ~mask;
+		int pn = (n + mask) & ~mask;
+		int pp = (p + mask) & ~mask;
+		if(pm == m && pn == n && pp == p) {
+			pool.invoke(new StrassenTask(a, aOffset, aStride, b, bOffset, bStride,
+					c, cOffset, cStride, m, n, p, levels, blockSize));
+			return;
+		}
+		double[] paddedA = new double[pm * pp];
+		double[] paddedB = new double[pp * pn];
+		double[] paddedC = new double[pm * pn];
+		for(int i = 0; i < m; i++) {
+			System.arraycopy(a, aOffset + i * aStride, paddedA, i * pp, p);
+		}
+		for(int i = 0; i < p; i++) {
+			System.arraycopy(b, bOffset + i * bStride, paddedB, i * pn, n);
+		}
+		pool.invoke(new StrassenTask(paddedA, 0, pp, paddedB, 0, pn, paddedC, 0, pn, pm, pn, pp, levels, blockSize));
+		for(int i = 0; i < m; i++) {
+			System.arraycopy(paddedC, i * pn, c, cOffset + i * cStride, n);
+		}
+	}
+
+	private static final class StrassenTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 6098271418553328126L;
+
+		private final double[] a, b, c;
+		private final int aOffset, aStride, bOffset, bStride, cOffset, cStride;
+		private final int m, n, p, levels, blockSize;
+
+		StrassenTask(double[] a, int aOffset, int aStride,
+				double[] b, int bOffset, int bStride,
+				double[] c, int cOffset, int cStride,
+				int m, int n, int p, int levels, int blockSize) {
+			this.a = a;
+			this.aOffset = aOffset;
+			this.aStride = aStride;
+			this.b = b;
+			this.bOffset = bOffset;
+			this.bStride = bStride;
+			this.c = c;
+			this.cOffset = cOffset;
+			this.cStride = cStride;
+			this.m = m;
+			this.n = n;
+			this.p = p;
+			this.levels = levels;
+			this.blockSize = blockSize;
+		}
+
+		/**
+		 * Com A = [A11 A12; A21 A22], B = [B11 B12; B21 B22] e C análogo:
+		 * S1 = A21 + A22, S2 = S1 - A11, S3 = A11 - A21, S4 = A12 - S2,
+		 * T1 = B12 - B11, T2 = B22 - T1, T3 = B22 - B12, T4 = T2 - B21,
+		 * P1 = A11B11, P2 = A12B21, P3 = S4B22, P4 = A22T4, P5 = S1T1,
+		 * P6 = S2T2, P7 = S3T3, U2 = P1 + P6, U3 = U2 + P7, U4 = U2 + P5,
+		 * C11 = P1 + P2, C12 = U4 + P3, C21 = U3 - P4 e C22 = U3 + P5.
+		 */
+		@Override
+		protected void compute() {
+			if(levels == 0) {
+				fill(c, cOffset, cStride, m, n);
+				multiply(a, aOffset, aStride, b, bOffset, bStride, c, cOffset, cStride, m, n, p, blockSize);
+				return;
+			}
+			int hm = m / 2, hn = n / 2, hp = p / 2;
+			int a11 = aOffset, a12 = aOffset + hp, a21 = aOffset + hm * aStride, a22 = a21 + hp;
+			int b11 = bOffset, b12 = bOffset + hn, b21 = bOffset + hp * bStride, b22 = b21 + hn;
+			double[] s1 = new double[hm * hp], s2 = new double[hm * hp];
+			double[] s3 = new double[hm * hp], s4 = new double[hm * hp];
+			double[] t1 = new double[hp * hn], t2 = new double[hp * hn];
+			double[] t3 = new double[hp * hn], t4 = new double[hp * hn];
+			combine(a, a21, aStride, a, a22, aStride, 1, s1, 0, hp, hm, hp);
+			combine(s1, 0, hp, a, a11, aStride, -1, s2, 0, hp, hm, hp);
+			combine(a, a11, aStride, a, a21, aStride, -1, s3, 0, hp, hm, hp);
+			combine(a, a12, aStride, s2, 0, hp, -1, s4, 0, hp, hm, hp);
+			combine(b, b12, bStride, b, b11, bStride, -1, t1, 0, hn, hp, hn);
+			combine(b, b22, bStride, t1, 0, hn, -1, t2, 0, hn, hp, hn);
+			combine(b, b22, bStride, b, b12, bStride, -1, t3, 0, hn, hp, hn);
+			combine(t2, 0, hn, b, b21, bStride, -1, t4, 0, hn, hp, hn);
+			int c11 = cOffset, c12 = cOffset + hn, c21 = cOffset + hm * cStride, c22 = c21 + hn;
+			double[] p2 = new double[hm * hn], p3 = new double[hm * hn], p4 = new double[hm * hn];
+			double[] p5 = new double[hm * hn], p6 = new double[hm * hn], p7 = new double[hm * hn];
+			int next = levels - 1;
+			invokeAll(new StrassenTask(a, a11, aStride, b, b11, bStride, c, c11, cStride, hm, hn, hp, next, blockSize),
+					new StrassenTask(a, a12, aStride, b, b21, bStride, p2, 0, hn, hm, hn, hp, next, blockSize),
+					new StrassenTask(s4, 0, hp, b, b22, bStride, p3, 0, hn, hm, hn, hp, next, blockSize),
+					new StrassenTask(a, a22, aStride, t4, 0, hn, p4, 0, hn, hm, hn, hp, next, blockSize),
+					new StrassenTask(s1, 0, hp, t1, 0, hn, p5, 0, hn, hm, hn, hp, next, blockSize),
+					new StrassenTask(s2, 0, hp, t2, 0, hn, p6, 0, hn, hm, hn, hp, next, blockSize),
+					new StrassenTask(s3, 0, hp, t3, 0, hn, p7, 0, hn, hm, hn, hp, next, blockSize));
+			for(int i = 0; i < hm; i++) {
+				int row11 = c11 + i * cStride, row12 = c12 + i * cStride;
+				int row21 = c21 + i * cStride, row22 = c22 + i * cStride;
+				int row = i * hn;
+				for(int j = 0; j < hn; j++) {
+					double p1 = c[row11 + j];
+					double u2 = p1 + p6[row + j];
+					double u3 = u2 + p7[row + j];
+					c[row11 + j] = p1 + p2[row + j];
+					c[row12 + j] = u2 + p5[row + j] + p3[row + j];
+					c[row21 + j] = u3 - p4[row + j];
+					c[row22 + j] = u3 + p5[row + j];
+				}
+			}
+		}
+
+		private static void fill(double[] x, int offset, int stride, int rows, int columns) {
+			for(int i = 0; i < rows; i++) {
+				int start = offset + i * stride;
+				Arrays.fill(x, start, start + columns, 0);
+			}
+		}
+
+		/**
+		 * z = x + sign * y, para blocos rows x columns.
+		 */
+		private static void combine(double[] x, int xOffset, int xStride, double[] y, int yOffset, int yStride,
+				double sign, double[] z, int zOffset, int zStride, int rows, int columns) {
+			for(int i = 0; i < rows; i++) {
+				int xRow = xOffset + i * xStride;
+				int yRow = yOffset + i * yStride;
+				int zRow = zOffset + i * zStride;
+				for(int j = 0; j < columns; j++) {
+					z[zRow + j] = x[xRow + j] + sign * y[yRow + j];
+				}
+			}
+		}
+
+	}
+
+	/**
+	 * Laço i-k-j sem blocos, usado para produtos pequenos. Percorre B e C
+	 * linha a linha, de forma contígua.
+	 */
+	static void multiplySimple(double[] a, int aOffset, int aStride,
+			double[] b, int bOffset, int bStride,
+			double[] c, int cOffset, int cStride,
+			int m, int n, int p) {
+		for(int i = 0; i < m; i++) {
+			int aRow = aOffset + i * aStride;
+			int cRow = cOffset + i * cStride;
+			for(int k = 0; k < p; k++) {
+				double value = a[aRow + k];
+				int bRow = bOffset + k * bStride;
+				for(int j = 0; j < n; j++) {
+					c[cRow + j] += value * b[bRow + j];
+				}
+			}
+		}
+	}
+
+	/**
+	 * Empacota um bloco de A (rows x depth) em painéis de {@link #MICRO_TILE}
+	 * linhas. Dentro de cada painel, os valores ficam dispostos coluna a coluna,
+	 * completando com zeros as linhas que faltarem no último painel.
+	 */
+	static void packA(double[] a, int offset, int stride, int rows, int depth, double[] pack) {
+		int index = 0;
+		for(int i = 0; i < rows; i += MICRO_TILE) {
+			int height = Math.min(MICRO_TILE, rows - i);
+			int row = offset + i * stride;
+			if(height == MICRO_TILE) {
+				int row1 = row + stride;
+				int row2 = row1 + stride;
+				int row3 = row2 + stride;
+				for(int k = 0; k < depth; k++) {
+					pack[index] = a[row + k];
+					pack[index + 1] = a[row1 + k];
+					pack[index + 2] = a[row2 + k];
+					pack[index + 3] = a[row3 + k];
+					index += MICRO_TILE;
+				}
+			} else {
+				for(int k = 0; k < depth; k++) {
+					for(int r = 0; r < MICRO_TILE; r++) {
+						pack[index + r] = r < height ? a[row + r * stride + k] : 0;
+					}
+					index += MICRO_TILE;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Empacota um bloco de B (depth x columns) em painéis de panelWidth
+	 * colunas. Dentro de cada painel, os valores ficam dispostos linha a linha,
+	 * completando com zeros as colunas que faltarem no último painel.
+	 */
+	static void packB(double[] b, int offset, int stride, int depth, int columns, int panelWidth, double[] pack) {
+		int index = 0;
+		for(int j = 0; j < columns; j += panelWidth) {
+			int width = Math.min(panelWidth, columns - j);
+			for(int k = 0; k < depth; k++) {
+				int row = offset + k * stride + j;
+				System.arraycopy(b, row, pack, index, width);
+				for(int c = width; c < panelWidth; c++) {
+					pack[index + c] = 0;
+				}
+				index += panelWidth;
+			}
+		}
+	}
+
+	/**
+	 * Multiplica um painel de A por um painel de B, acumulando o micro-bloco
+	 * 4x4 resultante em C. Apenas as primeiras rows linhas e cols colunas do
+	 * micro-bloco são escritas.
+	 */
+	private static void microKernel(double[] aPack, int aIndex, double[] bPack, int bIndex, int depth,
+			double[] c, int cIndex, int cStride, int rows, int cols) {
+		double c00 = 0, c01 = 0, c02 = 0, c03 = 0;
+		double c10 = 0, c11 = 0, c12 = 0, c13 = 0;
+		double c20 = 0, c21 = 0, c22 = 0, c23 = 0;
+		double c30 = 0, c31 = 0, c32 = 0, c33 = 0;
+		for(int k = 0; k < depth; k++) {
+			double a0 = aPack[aIndex];
+			double a1 = aPack[aIndex + 1];
+			double a2 = aPack[aIndex + 2];
+			double a3 = aPack[aIndex + 3];
+			double b0 = bPack[bIndex];
+			double b1 = bPack[bIndex + 1];
+			double b2 = bPack[bIndex + 2];
+			double b3 = bPack[bIndex + 3];
+			c00 += a0 * b0; c01 += a0 * b1; c02 += a0 * b2; c03 += a0 * b3;
+			c10 += a1 * b0; c11 += a1 * b1; c12 += a1 * b2; c13 += a1 * b3;
+			c20 += a2 * b0; c21 += a2 * b1; c22 += a2 * b2; c23 += a2 * b3;
+			c30 += a3 * b0; c31 += a3 * b1; c32 += a3 * b2; c33 += a3 * b3;
+			aIndex += MICRO_TILE;
+			bIndex += MICRO_TILE;
+		}
+		if(rows == MICRO_TILE && cols == MICRO_TILE) {
+			c[cIndex] += c00; c[cIndex + 1] += c01; c[cIndex + 2] += c02; c[cIndex + 3] += c03;
+			cIndex += cStride;
+			c[cIndex] += c10; c[cIndex + 1] += c11; c[cIndex + 2] += c12; c[cIndex + 3] += c13;
+			cIndex += cStride;
+			c[cIndex] += c20; c[cIndex + 1] += c21; c[cIndex + 2] += c22; c[cIndex + 3] += c23;
+			cIndex += cStride;
+			c[cIndex] += c30; c[cIndex + 1] += c31; c[cIndex + 2] += c32; c[cIndex + 3] += c33;
+			return;
+		}
+		double[] tile = {
+			c00, c01, c02, c03,
+			c10, c11, c12, c13,
+			c20, c21, c22, c23,
+			c30, c31, c32, c33
+		};
+		for(int r = 0; r < rows; r++) {
+			int row = cIndex + r * cStride;
+			for(int col = 0; col < cols; col++) {
+				c[row + col] += tile[r * MICRO_TILE + col];
+			}
+		}
+	}
+
+}
@@ -0,0 +1,1354 @@
+package br.sergio.math;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.Function;
+
+/**
+ * Matriz armazenada fora do heap do Java, em memória nativa. Serve para
+ * matrizes de vários gigabytes, que no heap causariam pausas longas do
+ * coletor de lixo: a memória nativa não é percorrida nem copiada por ele.
+ * <p>Os elementos ficam linha a linha em buffers diretos
+ * ({@link ByteBuffer#allocateDirect(int)}), cada um com no máximo 2 GB e
+ * sempre com linhas inteiras, de forma que a quantidade total de elementos
+ * pode passar de 2³¹. As operações percorrem a matriz em painéis de linhas
+ * ou em blocos quadrados copiados para arrays temporários pequenos, sobre os
+ * quais são usados os mesmos núcleos de {@link Matrix}.
+ * <p>A memória é liberada por {@link #close()}, preferencialmente em um
+ * try-with-resources, sem esperar o coletor de lixo. Depois disso, qualquer
+ * operação lança {@link IllegalStateException}. A matriz não pode ser
+ * fechada enquanto outra thread ainda a usa. Se {@link #close()} nunca for
+ * chamado, a memória só é liberada quando o coletor descartar o objeto.
+ * <p>As operações de {@link Matrix} que percorrem os elementos em ordem
+ * (soma, subtração, multiplicação por escalar e por outra matriz,
+ * transposição, potência, {@link #modificate(MatrixElementFunction)},
+ * simetria, comparação e conversão em texto) são feitas diretamente na
+ * memória nativa, linha a linha ou em blocos. As que precisam de acesso
+ * aleatório à matriz inteira ({@link #determinant()},
+ * {@link #cofactor(int, int)}, {@link #complementaryMinor(int, int)},
+ * {@link #cofactorMatrix()}, {@link #adjugate()}, {@link #inverse()},
+ * {@link #lu()} e {@link #solve(Matrix)}) copiam a matriz para o heap e
+ * lançam {@link UnsupportedOperationException} se ela não couber em um
+ * array. Não estão disponíveis aqui, e devem ser feitas sobre
+ * {@link #toMatrix()} ou bloco a bloco: as visões
+ * ({@link Matrix#subMatrix(int, int, int, int)}, {@link Matrix#row(int)},
+ * {@link Matrix#column(int)} e {@link Matrix#transposedView()}), o acesso ao
+ * array interno, as versões paralelas e as de Strassen, as demais
+ * decomposições (Cholesky, LDL, QR, autovalores e SVD), os mínimos
+ * quadrados, {@link Matrix#symmetricPow(long)}, os cálculos exatos,
+ * {@link Matrix#toSparse()} e {@link Matrix#expr(Matrix)}. Esta classe não
+ * é uma subclasse de {@link Matrix}, cujos elementos ficam em um único
+ * array do heap; o tipo comum às duas é {@link LinearOperator}.
+ * <p>Trechos da matriz podem ser trazidos para o heap por
+ * {@link #getBlock(int, int, int, int)} e devolvidos por
+ * {@link #setBlock(int, int, Matrix)}, o que permite aplicar qualquer
+ * operação de {@link Matrix} bloco a bloco. Como implementa
+ * {@link LinearOperator}, pode ser usada diretamente em
+ * {@link IterativeSolver} e {@link PartialEigenDecomposition}.
+ * <p>A matriz também pode estar em um arquivo mapeado na memória por
+ * {@link #map(Path, boolean)} ou {@link #create(Path, int, int)}. Nesse
+ * caso, o sistema operacional carrega do disco apenas as páginas usadas, e
+ * as operações em blocos ({@link #multiplyInto(OffHeapMatrix, OffHeapMatrix, int)}
+ * e {@link #transposeInto(OffHeapMatrix)}) processam matrizes maiores que a
+ * memória RAM. O arquivo tem um cabeçalho de {@value #HEADER_SIZE} bytes,
+ * seguido dos elementos linha a linha, como doubles little-endian de 8
+ * bytes. Todos os campos do cabeçalho são little-endian:
+ * <ul>
+ * <li>bytes 0 a 3: os caracteres ASCII "MTRX";</li>
+ * <li>byte 4: a versão do formato, atualmente 1;</li>
+ * <li>byte 5: o tipo dos elementos, 1 para double;</li>
+ * <li>byte 6: a disposição dos elementos, 0 para linha a linha;</li>
+ * <li>byte 7: reservado, 0;</li>
+ * <li>bytes 8 a 11: a quantidade de linhas, como int;</li>
+ * <li>bytes 12 a 15: a quantidade de colunas, como int;</li>
+ * <li>bytes 16 a 31: reservados, 0.</li>
+ * </ul>
+ * @author Sergio Luis
+ *
+ */
+public class OffHeapMatrix implements LinearOperator, AutoCloseable {
+
+	/**
+	 * Lado padrão dos blocos copiados para o heap nas operações em blocos.
+	 * Cada bloco ocupa 8 MB.
+	 */
+	public static final int DEFAULT_TILE_SIZE = 1024;
+
+	/**
+	 * Quantidade máxima de elementos de cada buffer, limitada pelo índice
+	 * int dos buffers.
+	 */
+	private static final int MAX_CHUNK = Integer.MAX_VALUE / Double.BYTES;
+
+	/**
+	 * Tamanho, em bytes, do cabeçalho dos arquivos de matriz.
+	 */
+	public static final int HEADER_SIZE = 32;
+
+	private static final byte[] MAGIC = "MTRX".getBytes(StandardCharsets.US_ASCII);
+	private static final byte VERSION = 1;
+	private static final byte TYPE_DOUBLE = 1;
+	private static final byte LAYOUT_ROWS = 0;
+
+	private static final MethodHandle CLEANER = cleaner();
+
+	private int lines;
+	private int columns;
+	private int rowsPerChunk;
+	private ByteBuffer[] buffers;
+	private DoubleBuffer[] chunks;
+	private boolean readOnly;
+	private volatile boolean closed;
+
+	/**
+	 * Aloca uma matriz de m linhas por n colunas com todos os elementos
+	 * iguais a 0.
+	 * @param lines a quantidade de linhas.
+	 * @param columns a quantidade de colunas.
+	 * @throws IllegalArgumentException se m ou n forem menores que 1 ou se
+	 * uma única linha não couber em um buffer.
+	 */
+	public OffHeapMatrix(int lines, int columns) {
+		layout(lines, columns);
+		try {
+			for(int c = 0; c < chunks.length; c++) {
+				buffers[c] = ByteBuffer.allocateDirect(chunkRows(c) * columns * Double.BYTES).order(ByteOrder.nativeOrder());
+				chunks[c] = buffers[c].asDoubleBuffer();
+			}
+		} catch(OutOfMemoryError e) {
+			close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Mapeia os elementos de um arquivo de matriz, que começam logo após o
+	 * cabeçalho, em buffers de linhas inteiras.
+	 */
+	private OffHeapMatrix(FileChannel channel, MapMode mode, int lines, int columns) throws IOException {
+		layout(lines, columns);
+		readOnly = mode == MapMode.READ_ONLY;
+		try {
+			for(int c = 0; c < chunks.length; c++) {
+				long position = HEADER_SIZE + (long) c * rowsPerChunk * columns * Double.BYTES;
+				buffers[c] = channel.map(mode, position, (long) chunkRows(c) * columns * Double.BYTES)
+						.order(ByteOrder.LITTLE_ENDIAN);
+				chunks[c] = buffers[c].asDoubleBuffer();
+			}
+		} catch(IOException | RuntimeException | Error e) {
+			close();
+			throw e;
+		}
+	}
+
+	private void layout(int lines, int columns) {
+		if(lines < 1 || columns < 1) {
+			throw new IllegalArgumentException("Linhas e colunas não podem ser menores que 1");
+		}
+		if(columns > MAX_CHUNK) {
+			throw new IllegalArgumentException("Uma linha não pode ter mais que " + MAX_CHUNK + " elementos");
+		}
+		this.lines = lines;
+		this.columns = columns;
+		rowsPerChunk = Math.min(lines, MAX_CHUNK / columns);
+		int count = (lines + rowsPerChunk - 1) / rowsPerChunk;
+		buffers = new ByteBuffer[count];
+		chunks = new DoubleBuffer[count];
+	}
+
+	private int chunkRows(int chunk) {
+		return Math.min(rowsPerChunk, lines - chunk * rowsPerChunk);
+	}
+
+	/**
+	 * Mapeia um arquivo de matriz apenas para leitura. Veja
+	 * {@link #map(Path, boolean)}.
+	 * @param path o caminho do arquivo.
+	 * @return a matriz mapeada.
+	 * @throws IOException se o arquivo não puder ser lido ou não estiver no
+	 * formato de matriz.
+	 */
+	public static OffHeapMatrix map(Path path) throws IOException {
+		return map(path, false);
+	}
+
+	/**
+	 * Mapeia na memória um arquivo de matriz no formato descrito em
+	 * {@link OffHeapMatrix}, sem ler os elementos: eles são carregados do
+	 * disco pelo sistema operacional conforme forem acessados. Se o
+	 * mapeamento permitir escrita, as alterações feitas na matriz são
+	 * gravadas no arquivo; {@link #force()} garante que elas cheguem ao disco.
+	 * O mapeamento continua válido até {@link #close()}.
+	 * @param path o caminho do arquivo.
+	 * @param writable true para permitir alterações na matriz.
+	 * @return a matriz mapeada.
+	 * @throws NullPointerException se o caminho for nulo.
+	 * @throws IOException se o arquivo não puder ser aberto ou não estiver no
+	 * formato de matriz.
+	 */
+	public static OffHeapMatrix map(Path path, boolean writable) throws IOException {
+		if(path == null) {
+			throw new NullPointerException("Caminho nulo");
+		}
+		try(FileChannel channel = writable
+				? FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)
+				: FileChannel.open(path, StandardOpenOption.READ)) {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			while(header.hasRemaining()) {
+				if(channel.read(header, header.position()) < 0) {
+					throw new IOException("O arquivo é menor que o cabeçalho de uma matriz: " + path);
+				}
+			}
+			header.flip();
+			byte[] magic = new byte[MAGIC.length];
+			header.get(magic);
+			if(!Arrays.equals(magic, MAGIC)) {
+				throw new IOException("O arquivo não está no formato de matriz: " + path);
+			}
+			byte version = header.get();
+			byte type = header.get();
+			byte layout = header.get();
+			header.get();
+			if(version != VERSION || type != TYPE_DOUBLE || layout != LAYOUT_ROWS) {
+				throw new IOException("Versão, tipo ou disposição não suportados: " + version + ", " + type + ", " + layout);
+			}
+			int lines = header.getInt();
+			int columns = header.getInt();
+			if(lines < 1 || columns < 1) {
+				throw new IOException("Tamanho inválido no cabeçalho: " + lines + "x" + columns);
+			}
+			long size = HEADER_SIZE + (long) lines * columns * Double.BYTES;
+			if(channel.size() < size) {
+				throw new IOException("O arquivo tem " + channel.size() + " bytes, mas uma matriz "
+						+ lines + "x" + columns + " requer " + size);
+			}
+			return new OffHeapMatrix(channel, writable ? MapMode.READ_WRITE : MapMode.READ_ONLY, lines, columns);
+		}
+	}
+
+	/**
+	 * Cria um arquivo de matriz de m linhas por n colunas, com todos os
+	 * elementos iguais a 0, e o mapeia na memória para leitura e escrita.
+	 * Se o arquivo já existir, ele é substituído. Como os elementos não são
+	 * escritos explicitamente, o arquivo é esparso nos sistemas de arquivos
+	 * que suportam isso. Veja {@link #map(Path, boolean)}.
+	 * @param path o caminho do arquivo.
+	 * @param lines a quantidade de linhas.
+	 * @param columns a quantidade de colunas.
+	 * @return a matriz mapeada.
+	 * @throws NullPointerException se o caminho for nulo.
+	 * @throws IllegalArgumentException se m ou n forem menores que 1.
+	 * @throws IOException se o arquivo não puder ser criado.
+	 */
+	public static OffHeapMatrix create(Path path, int lines, int columns) throws IOException {
+		if(path == null) {
+			throw new NullPointerException("Caminho nulo");
+		}
+		if(lines < 1 || columns < 1) {
+			throw new IllegalArgumentException("Linhas e colunas não podem ser menores que 1");
+		}
+		try(FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			header.put(MAGIC).put(VERSION).put(TYPE_DOUBLE).put(LAYOUT_ROWS).put((byte) 0);
+			header.putInt(lines).putInt(columns);
+			header.position(HEADER_SIZE).flip();
+			while(header.hasRemaining()) {
+				channel.write(header, header.position());
+			}
+			return new OffHeapMatrix(channel, MapMode.READ_WRITE, lines, columns);
+		}
+	}
+
+	/**
+	 * Copia uma matriz do heap para a memória nativa.
+	 * @param m a matriz a ser copiada.
+	 * @throws NullPointerException se a matriz for nula.
+	 */
+	public OffHeapMatrix(Matrix m) {
+		this(checkNotNull(m).getLines(), m.getColumns());
+		setBlock(0, 0, m);
+	}
+
+	private static Matrix checkNotNull(Matrix m) {
+		if(m == null) {
+			throw new NullPointerException("Matriz nula");
+		}
+		return m;
+	}
+
+	/**
+	 * Retorna a matriz identidade de ordem n fora do heap. Veja
+	 * {@link Matrix#getIdentity(int)}.
+	 * @param order a ordem da matriz identidade.
+	 * @return a matriz identidade da ordem dada.
+	 * @throws IllegalArgumentException se a ordem for menor que 1.
+	 */
+	public static OffHeapMatrix getIdentity(int order) {
+		OffHeapMatrix identity = new OffHeapMatrix(order, order);
+		for(int i = 0; i < order; i++) {
+			identity.setValue(i, i, 1);
+		}
+		return identity;
+	}
+
+	/**
+	 * @return a quantidade de linhas desta matriz.
+	 */
+	@Override
+	public int getLines() {
+		return lines;
+	}
+
+	/**
+	 * @return a quantidade de colunas desta matriz.
+	 */
+	@Override
+	public int getColumns() {
+		return columns;
+	}
+
+	/**
+	 * @return a ordem desta matriz se ela for quadrada,
+	 * do contrário, -1.
+	 */
+	public int getOrder() {
+		return isSquare() ? lines : -1;
+	}
+
+	/**
+	 * @return true se esta matriz for quadrada (quantidade de linhas
+	 * igual à quantidade de colunas), false caso contrário.
+	 */
+	public boolean isSquare() {
+		return lines == columns;
+	}
+
+	/**
+	 * Retorna o valor do elemento na posição ij.
+	 * @param line a linha i.
+	 * @param column a coluna j.
+	 * @return o valor do elemento.
+	 * @throws ArrayIndexOutOfBoundsException se a posição estiver fora dos
+	 * limites da matriz.
+	 * @throws IllegalStateException se a matriz já tiver sido fechada.
+	 */
+	public double getValue(int line, int column) {
+		checkPosition(line, column);
+		int c = line / rowsPerChunk;
+		return chunks[c].get((line - c * rowsPerChunk) * columns + column);
+	}
+
+	/**
+	 * Define o valor do elemento na posição ij.
+	 * @param line a linha i.
+	 * @param column a coluna j.
+	 * @param value o novo valor.
+	 * @throws ArrayIndexOutOfBoundsException se a posição estiver fora dos
+	 * limites da matriz.
+	 * @throws IllegalStateException se a matriz já tiver sido fechada.
+	 */
+	public void setValue(int line, int column, double value) {
+		checkPosition(line, column);
+		int c = line / rowsPerChunk;
+		chunks[c].put((line - c * rowsPerChunk) * columns + column, value);
+	}
+
+	/**
+	 * Copia para o heap o bloco desta matriz que começa na posição ij e tem
+	 * o tamanho fornecido.
+	 * @param line a linha i do primeiro elemento do bloco.
+	 * @param column a coluna j do primeiro elemento do bloco.
+	 * @param lines a quantidade de linhas do bloco.
+	 * @param columns a quantidade de colunas do bloco.
+	 * @return uma matriz com a cópia do bloco.
+	 * @throws IllegalArgumentException se o tamanho do bloco for menor que 1
+	 * ou se ele não couber em uma {@link Matrix}.
+	 * @throws ArrayIndexOutOfBoundsException se o bloco não couber nesta matriz.
+	 * @throws IllegalStateException se a matriz já tiver sido fechada.
+	 */
+	public Matrix getBlock(int line, int column, int lines, int columns) {
+		checkBlock(line, column, lines, columns);
+		if((long) lines * columns > Integer.MAX_VALUE - 8) {
+			throw new IllegalArgumentException("O bloco " + lines + "x" + columns + " é grande demais para o heap");
+		}
+		Matrix block = new Matrix(lines, columns);
+		read(line, column, lines, columns, block.getData(), columns);
+		return block;
+	}
+
+	/**
+	 * Copia os valores de uma matriz do heap para o bloco desta que começa
+	 * na posição ij.
+	 * @param line a linha i do primeiro elemento do bloco.
+	 * @param column a coluna j do primeiro elemento do bloco.
+	 * @param m a matriz cujos valores serão copiados.
+	 * @throws NullPointerException se a matriz for nula.
+	 * @throws ArrayIndexOutOfBoundsException se a matriz fornecida não couber
+	 * nesta a partir da posição dada.
+	 * @throws IllegalStateException se a matriz já tiver sido fechada.
+	 */
+	public void setBlock(int line, int column, Matrix m) {
+		checkNotNull(m);
+		checkBlock(line, column, m.getLines(), m.getColumns());
+		m = m.contiguous();
+		for(int i = 0; i < m.getLines(); i++) {
+			write(line + i, column, m.getData(), m.getOffset() + i * m.getStride(), m.getColumns());
+		}
+	}
+
+	/**
+	 * Copia esta matriz inteira para o heap.
+	 * @return uma {@link Matrix} com os mesmos valores.
+	 * @throws IllegalArgumentException se esta matriz não couber em uma
+	 * {@link Matrix}, ou seja, se tiver mais elementos que cabem em um array.
+	 * @throws IllegalStateException se a matriz já tiver sido fechada.
+	 */
+	public Matrix toMatrix() {
+		return getBlock(0, 0, lines, columns);
+	}
+
+	/**
+	 * Define todos os elementos desta matriz com o valor fornecido.
+	 * @param value o valor.
+	 * @return esta matriz.
+	 * @throws IllegalStateException se a matriz já tiver sido fechada.
+	 */
+	public OffHeapMatrix fill(double value) {
+		checkOpen();
+		double[] row = new double[columns];
+		Arrays.fill(row, value);
+		for(int i = 0; i < lines; i++) {
+			write(i, 0, row, 0, columns);
+		}
+		return this;
+	}
+
+	/**
+	 * Soma esta matriz com outra de mesmo tamanho, retornando a soma em uma
+	 * nova matriz fora do heap.
+	 * @param m a matriz para ser somada com esta.
+	 * @return a matriz soma.
+	 * @throws MathException se as matrizes não tiverem o mesmo tamanho.
+	 * @throws IllegalStateException se alguma das matrizes já tiver sido fechada.
+	 */
+	public OffHeapMatrix add(OffHeapMatrix m) {
+		return sum(m, 1);
+	}
+
+	/**
+	 * Subtrai desta matriz outra de mesmo tamanho, retornando a diferença
+	 * em uma nova matriz fora do heap.
+	 * @param m a matriz subtraendo.
+	 * @return a matriz diferença.
+	 * @throws MathException se as matrizes não tiverem o mesmo tamanho.
+	 * @throws IllegalStateException se alguma das matrizes já tiver sido fechada.
+	 */
+	public OffHeapMatrix subtract(OffHeapMatrix m) {
+		return sum(m, -1);
+	}
+
+	private OffHeapMatrix sum(OffHeapMatrix m, double f) {
+		checkOpen();
+		m.checkOpen();
+		if(lines != m.lines || columns != m.columns) {
+			throw new MathException("As matrizes devem ter o mesmo tamanho: " + lines + "x" + columns
+					+ " e " + m.lines + "x" + m.columns);
+		}
+		OffHeapMatrix result = new OffHeapMatrix(lines, columns);
+		try {
+			double[] row = new double[columns];
+			double[] mRow = new double[columns];
+			for(int i = 0; i < lines; i++) {
+				read(i, 0, row, 0, columns);
+				m.read(i, 0, mRow, 0, columns);
+				MatrixKernels.axpy(f, mRow, 0, row, 0, columns);
+				result.write(i, 0, row, 0, columns);
+			}
+			return result;
+		} catch(RuntimeException | Error e) {
+			result.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Multiplica todos os elementos desta matriz pelo escalar fornecido,
+	 * retornando o resultado em uma nova matriz fora do heap.
+	 * @param scalar o valor que multiplicará todos os elementos desta matriz.
+	 * @return a matriz multiplicada pelo escalar.
+	 * @throws IllegalStateException se a matriz já tiver sido fechada.
+	 */
+	public OffHeapMatrix multiplyByScalar(double scalar) {
+		checkOpen();
+		OffHeapMatrix result = new OffHeapMatrix(lines, columns);
+		try {
+			double[] row = new double[columns];
+			for(int i = 0; i < lines; i++) {
+				read(i, 0, row, 0, columns);
+				MatrixKernels.scale(scalar, row, 0, row, 0, columns);
+				result.write(i, 0, row, 0, columns);
+			}
+			return result;
+		} catch(RuntimeException | Error e) {
+			result.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Transforma todos os elementos desta matriz com base nos atuais.
+	 * Como a função trabalha com objetos Double, cada elemento é convertido
+	 * em objeto e de volta; prefira {@link #modificateAsDouble(DoubleUnaryOperator)}.
+	 * @param function a função a ser aplicada aos elementos da matriz.
+	 * @throws IllegalStateException se a matriz já tiver sido fechada.
+	 */
+	public void modificate(Function<Double, Double> function) {
+		Objects.requireNonNull(function, "Função nula");
+		modificate((line, column, value) -> function.apply(value));
+	}
+
+	/**
+	 * Transforma todos os elementos desta matriz com base nos atuais,
+	 * usando uma função sobre o tipo primitivo double.
+	 * @param function a função a ser aplicada aos elementos da matriz.
+	 * @throws IllegalStateException se a matriz já tiver sido fechada.
+	 */
+	public void modificateAsDouble(DoubleUnaryOperator function) {
+		Objects.requireNonNull(function, "Função nula");
+		modificate((line, column, value) -> function.applyAsDouble(value));
+	}
+
+	/**
+	 * Transforma todos os elementos desta matriz com base nos atuais e
+	 * em suas posições. A matriz é lida e escrita de volta linha a linha.
+	 * @param function a função a ser aplicada aos elementos da matriz, que
+	 * recebe a linha, a coluna e o valor atual de cada elemento.
+	 * @throws IllegalStateException se a matriz já tiver sido fechada.
+	 */
+	public void modificate(MatrixElementFunction function) {
+		Objects.requireNonNull(function, "Função nula");
+		checkOpen();
+		double[] row = new double[columns];
+		for(int i = 0; i < lines; i++) {
+			read(i, 0, row, 0, columns);
+			for(int j = 0; j < columns; j++) {
+				row[j] = function.apply(i, j, row[j]);
+			}
+			write(i, 0, row, 0, columns);
+		}
+	}
+
+	/**
+	 * Multiplica esta matriz por uma matriz do heap, retornando o produto em
+	 * uma nova matriz fora do heap. Esta matriz é percorrida em painéis de
+	 * linhas, cada um multiplicado pela matriz fornecida com
+	 * {@link Matrix#parallelMultiply(Matrix)}.
+	 * @param m a matriz para ser multiplicada com esta.
+	 * @return a matriz produto.
+	 * @throws NullPointerException se a matriz for nula.
+	 * @throws MathException se a quantidade de colunas desta for diferente da
+	 * quantidade de linhas da fornecida.
+	 * @throws IllegalStateException se a matriz já tiver sido fechada.
+	 */
+	public OffHeapMatrix multiply(Matrix m) {
+		checkNotNull(m);
+		checkOpen();
+		checkMultiplication(m.getLines());
+		m = m.contiguous();
+		int n = m.getColumns();
+		OffHeapMatrix result = new OffHeapMatrix(lines, n);
+		try {
+			int panel = Math.max(1, Math.min(lines, DEFAULT_TILE_SIZE * DEFAULT_TILE_SIZE / Math.max(columns, n)));
+			double[] a = new double[panel * columns];
+			double[] c = new double[panel * n];
+			for(int i0 = 0; i0 < lines; i0 += panel) {
+				int rows = Math.min(panel, lines - i0);
+				read(i0, 0, rows, columns, a, columns);
+				Arrays.fill(c, 0);
+				MatrixKernels.parallelMultiply(a, 0, columns, m.getData(), m.getOffset(), m.getStride(),
+						c, 0, n, rows, n, columns, Matrix.getBlockSize(), ForkJoinPool.commonPool());
+				result.write(i0, 0, rows, n, c, n);
+			}
+			return result;
+		} catch(RuntimeException | Error e) {
+			result.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Multiplica esta matriz por outra matriz fora do heap, em blocos de
+	 * tamanho {@link #DEFAULT_TILE_SIZE}. Veja
+	 * {@link #multiply(OffHeapMatrix, int)}.
+	 * @param m a matriz para ser multiplicada com esta.
+	 * @return a matriz produto.
+	 */
+	public OffHeapMatrix multiply(OffHeapMatrix m) {
+		return multiply(m, DEFAULT_TILE_SIZE);
+	}
+
+	/**
+	 * Multiplica esta matriz por outra matriz fora do heap, retornando o
+	 * produto em uma nova matriz fora do heap. O produto é calculado bloco a
+	 * bloco: para cada bloco do resultado, os blocos correspondentes dos
+	 * operandos são copiados, um par de cada vez, para arrays temporários e
+	 * multiplicados em paralelo na pool comum. Apenas três blocos de
+	 * tileSize x tileSize ficam no heap ao mesmo tempo.
+	 * @param m a matriz para ser multiplicada com esta.
+	 * @param tileSize o lado dos blocos.
+	 * @return a matriz produto.
+	 * @throws NullPointerException se a matriz for nula.
+	 * @throws IllegalArgumentException se o lado dos blocos for menor que 1
+	 * ou se um bloco não couber em um array.
+	 * @throws MathException se a quantidade de colunas desta for diferente da
+	 * quantidade de linhas da fornecida.
+	 * @throws IllegalStateException se alguma das matrizes já tiver sido fechada.
+	 */
+	public OffHeapMatrix multiply(OffHeapMatrix m, int tileSize) {
+		if(m == null) {
+			throw new NullPointerException("Matriz nula");
+		}
+		if(tileSize < 1) {
+			throw new IllegalArgumentException("O lado dos blocos não pode ser menor que 1");
+		}
+		checkOpen();
+		m.checkOpen();
+		checkMultiplication(m.lines);
+		OffHeapMatrix result = new OffHeapMatrix(lines, m.columns);
+		try {
+			return multiplyInto(m, result, tileSize);
+		} catch(RuntimeException | Error e) {
+			result.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Multiplica esta matriz por outra matriz fora do heap, escrevendo o
+	 * produto na matriz de destino, em blocos de tamanho
+	 * {@link #DEFAULT_TILE_SIZE}. Veja
+	 * {@link #multiplyInto(OffHeapMatrix, OffHeapMatrix, int)}.
+	 * @param m a matriz para ser multiplicada com esta.
+	 * @param dest a matriz onde o produto será escrito.
+	 * @return a matriz de destino.
+	 */
+	public OffHeapMatrix multiplyInto(OffHeapMatrix m, OffHeapMatrix dest) {
+		return multiplyInto(m, dest, DEFAULT_TILE_SIZE);
+	}
+
+	/**
+	 * Multiplica esta matriz por outra matriz fora do heap, escrevendo o
+	 * produto na matriz de destino, bloco a bloco como em
+	 * {@link #multiply(OffHeapMatrix, int)}. Se as três matrizes forem
+	 * arquivos mapeados (veja {@link #create(Path, int, int)}), o produto é
+	 * calculado fora da memória: cada bloco dos operandos é lido do disco
+	 * quando usado e cada bloco do produto é escrito uma única vez, de forma
+	 * que o tamanho das matrizes é limitado apenas pelo disco. Os blocos de
+	 * uma mesma faixa de linhas de A são lidos em sequência, e B é lido
+	 * inteiro uma vez para cada faixa; blocos maiores reduzem a quantidade
+	 * de leituras de B.
+	 * @param m a matriz para ser multiplicada com esta.
+	 * @param dest a matriz onde o produto será escrito. Deve ter a quantidade
+	 * de linhas desta e a quantidade de colunas da fornecida.
+	 * @param tileSize o lado dos blocos.
+	 * @return a matriz de destino.
+	 * @throws NullPointerException se alguma das matrizes for nula.
+	 * @throws IllegalArgumentException se o lado dos blocos for menor que 1
+	 * ou se um bloco não couber em um array.
+	 * @throws MathException se a quantidade de colunas desta for diferente da
+	 * quantidade de linhas da fornecida, se o destino não tiver o tamanho do
+	 * produto ou se ele for um dos operandos.
+	 * @throws IllegalStateException se alguma das matrizes já tiver sido fechada.
+	 */
+	public OffHeapMatrix multiplyInto(OffHeapMatrix m, OffHeapMatrix dest, int tileSize) {
+		if(m == null || dest == null) {
+			throw new NullPointerException("Matriz nula");
+		}
+		if(tileSize < 1) {
+			throw new IllegalArgumentException("O lado dos blocos não pode ser menor que 1");
+		}
+		checkOpen();
+		m.checkOpen();
+		dest.checkOpen();
+		checkMultiplication(m.lines);
+		int n = m.columns;
+		if(dest.lines != lines || dest.columns != n) {
+			throw new MathException("A matriz de destino deve ter tamanho " + lines + "x" + n);
+		}
+		if(dest == this || dest == m) {
+			throw new MathException("A matriz de destino não pode ser um dos operandos");
+		}
+		int tile = Math.min(tileSize, Math.max(lines, Math.max(columns, n)));
+		if((long) tile * tile > Integer.MAX_VALUE - 8) {
+			throw new IllegalArgumentException("O lado dos blocos é grande demais: " + tileSize);
+		}
+		double[] a = new double[Math.min(tile, lines) * Math.min(tile, columns)];
+		double[] b = new double[Math.min(tile, columns) * Math.min(tile, n)];
+		double[] c = new double[Math.min(tile, lines) * Math.min(tile, n)];
+		int blockSize = Matrix.getBlockSize();
+		for(int i0 = 0; i0 < lines; i0 += tile) {
+			int ib = Math.min(tile, lines - i0);
+			for(int j0 = 0; j0 < n; j0 += tile) {
+				int jb = Math.min(tile, n - j0);
+				Arrays.fill(c, 0);
+				for(int k0 = 0; k0 < columns; k0 += tile) {
+					int kb = Math.min(tile, columns - k0);
+					read(i0, k0, ib, kb, a, kb);
+					m.read(k0, j0, kb, jb, b, jb);
+					MatrixKernels.parallelMultiply(a, 0, kb, b, 0, jb, c, 0, jb, ib, jb, kb,
+							blockSize, ForkJoinPool.commonPool());
+				}
+				dest.write(i0, j0, ib, jb, c, jb);
+			}
+		}
+		return dest;
+	}
+
+	/**
+	 * Retorna a transposta desta matriz em uma nova matriz fora do heap. A
+	 * transposição é feita em blocos de {@link #DEFAULT_TILE_SIZE} linhas e
+	 * colunas.
+	 * @return a matriz transposta desta.
+	 * @throws IllegalStateException se a matriz já tiver sido fechada.
+	 */
+	public OffHeapMatrix transposed() {
+		checkOpen();
+		OffHeapMatrix result = new OffHeapMatrix(columns, lines);
+		try {
+			return transposeInto(result);
+		} catch(RuntimeException | Error e) {
+			result.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Escreve a transposta desta matriz na matriz de destino, em blocos de
+	 * {@link #DEFAULT_TILE_SIZE} linhas e colunas. Cada bloco é lido e
+	 * escrito uma única vez, de forma que, com matrizes mapeadas em arquivos,
+	 * a transposição é feita fora da memória em uma única passagem pelo disco.
+	 * @param dest a matriz onde a transposta será escrita. Deve ter tantas
+	 * linhas quanto esta tem colunas e vice-versa.
+	 * @return a matriz de destino.
+	 * @throws NullPointerException se o destino for nulo.
+	 * @throws MathException se o destino não tiver o tamanho da transposta
+	 * ou se for esta própria matriz.
+	 * @throws IllegalStateException se alguma das matrizes já tiver sido fechada.
+	 */
+	public OffHeapMatrix transposeInto(OffHeapMatrix dest) {
+		if(dest == null) {
+			throw new NullPointerException("Matriz nula");
+		}
+		checkOpen();
+		dest.checkOpen();
+		if(dest.lines != columns || dest.columns != lines) {
+			throw new MathException("A matriz de destino deve ter tamanho " + columns + "x" + lines);
+		}
+		if(dest == this) {
+			throw new MathException("A matriz de destino não pode ser a própria matriz");
+		}
+		int tile = Math.min(DEFAULT_TILE_SIZE, Math.max(lines, columns));
+		double[] block = new double[tile * tile];
+		double[] transposed = new double[tile * tile];
+		for(int i0 = 0; i0 < lines; i0 += tile) {
+			int ib = Math.min(tile, lines - i0);
+			for(int j0 = 0; j0 < columns; j0 += tile) {
+				int jb = Math.min(tile, columns - j0);
+				read(i0, j0, ib, jb, block, jb);
+				MatrixKernels.transpose(block, 0, jb, transposed, 0, ib, ib, jb);
+				dest.write(j0, i0, jb, ib, transposed, ib);
+			}
+		}
+		return dest;
+	}
+
+	/**
+	 * Potência de matrizes. Veja {@link #pow(long)}.
+	 * @param exponent o expoente.
+	 * @return a matriz elevada ao expoente dado, ou null se esta matriz não
+	 * for quadrada ou o expoente for negativo.
+	 */
+	public OffHeapMatrix pow(int exponent) {
+		return pow((long) exponent);
+	}
+
+	/**
+	 * Potência de matrizes por exponenciação binária, como em
+	 * {@link Matrix#pow(long)}, com as multiplicações em blocos de
+	 * {@link #multiplyInto(OffHeapMatrix, OffHeapMatrix)}. Além do resultado,
+	 * são usadas duas matrizes temporárias fora do heap, do tamanho desta,
+	 * que são fechadas ao final. Elevar a 0 retorna a matriz identidade.
+	 * @param exponent o expoente.
+	 * @return a matriz elevada ao expoente dado, ou null se esta matriz não
+	 * for quadrada ou o expoente for negativo.
+	 * @throws IllegalStateException se a matriz já tiver sido fechada.
+	 */
+	public OffHeapMatrix pow(long exponent) {
+		checkOpen();
+		if(!isSquare() || exponent < 0) {
+			return null;
+		}
+		if(exponent == 0) {
+			return getIdentity(lines);
+		}
+		OffHeapMatrix base = copy();
+		OffHeapMatrix temp = null;
+		OffHeapMatrix result = null;
+		try {
+			temp = new OffHeapMatrix(lines, lines);
+			while(true) {
+				if((exponent & 1) == 1) {
+					if(result == null) {
+						result = base.copy();
+					} else {
+						result.multiplyInto(base, temp);
+						OffHeapMatrix swap = result;
+						result = temp;
+						temp = swap;
+					}
+				}
+				exponent >>>= 1;
+				if(exponent == 0) {
+					base.close();
+					temp.close();
+					return result;
+				}
+				base.multiplyInto(base, temp);
+				OffHeapMatrix swap = base;
+				base = temp;
+				temp = swap;
+			}
+		} catch(RuntimeException | Error e) {
+			base.close();
+			if(temp != null) {
+				temp.close();
+			}
+			if(result != null) {
+				result.close();
+			}
+			throw e;
+		}
+	}
+
+	private OffHeapMatrix copy() {
+		OffHeapMatrix result = new OffHeapMatrix(lines, columns);
+		try {
+			double[] row = new double[columns];
+			for(int i = 0; i < lines; i++) {
+				read(i, 0, row, 0, columns);
+				result.write(i, 0, row, 0, columns);
+			}
+			return result;
+		} catch(RuntimeException | Error e) {
+			result.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Retorna se esta matriz é simétrica, ou seja, igual à sua transposta.
+	 * Cada bloco abaixo da diagonal é comparado com o bloco simétrico, de
+	 * forma que a matriz é lida duas vezes. Veja {@link Matrix#isSimetric()}.
+	 * @return se esta matriz é simétrica (igual à sua transposta).
+	 * @throws IllegalStateException se a matriz já tiver sido fechada.
+	 */
+	public boolean isSimetric() {
+		checkOpen();
+		return isSquare() && mirrors(1);
+	}
+
+	/**
+	 * Retorna se esta matriz é antissimétrica, ou seja, se a sua transposta
+	 * é igual à original multiplicada por -1. Veja
+	 * {@link Matrix#isAntiSimetric()}.
+	 * @return se esta matriz é antissimétrica (transposta igual a -original).
+	 * @throws IllegalStateException se a matriz já tiver sido fechada.
+	 */
+	public boolean isAntiSimetric() {
+		checkOpen();
+		return isSquare() && mirrors(-1);
+	}
+
+	/**
+	 * @return true se cada elemento ij, com j menor ou igual a i, for igual
+	 * ao elemento ji multiplicado por sign.
+	 */
+	private boolean mirrors(double sign) {
+		int tile = Math.min(DEFAULT_TILE_SIZE, lines);
+		double[] lower = new double[tile * tile];
+		double[] upper = new double[tile * tile];
+		for(int i0 = 0; i0 < lines; i0 += tile) {
+			int ib = Math.min(tile, lines - i0);
+			for(int j0 = 0; j0 <= i0; j0 += tile) {
+				int jb = Math.min(tile, lines - j0);
+				read(i0, j0, ib, jb, lower, jb);
+				read(j0, i0, jb, ib, upper, ib);
+				for(int i = 0; i < ib; i++) {
+					for(int j = 0; j < jb; j++) {
+						if(lower[i * jb + j] != sign * upper[j * ib + i]) {
+							return false;
+						}
+					}
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Determinante desta matriz, calculado por {@link Matrix#determinant()}
+	 * sobre uma cópia no heap.
+	 * @return o determinante desta matriz.
+	 * @throws MathException se esta matriz não for quadrada.
+	 * @throws UnsupportedOperationException se esta matriz não couber no heap.
+	 * @throws IllegalStateException se a matriz já tiver sido fechada.
+	 */
+	public double determinant() {
+		checkOpen();
+		if(!isSquare()) {
+			throw new MathException("Determinantes só existem para matrizes quadradas");
+		}
+		return heapCopy("o determinante").determinant();
+	}
+
+	/**
+	 * Cofator de um elemento, calculado por
+	 * {@link Matrix#cofactor(int, int)} sobre uma cópia no heap.
+	 * @param line a linha do elemento.
+	 * @param column a coluna do elemento.
+	 * @return o cofator do elemento.
+	 * @throws MathException se a matriz não for quadrada ou tiver ordem menor que 2.
+	 * @throws UnsupportedOperationException se esta matriz não couber no heap.
+	 * @throws IllegalStateException se a matriz já tiver sido fechada.
+	 */
+	public double cofactor(int line, int column) {
+		return heapCopy("o cofator").cofactor(line, column);
+	}
+
+	/**
+	 * Menor complementar de um elemento, calculado por
+	 * {@link Matrix#complementaryMinor(int, int)} sobre uma cópia no heap.
+	 * @param line a linha do elemento.
+	 * @param column a coluna do elemento.
+	 * @return o menor complementar do elemento.
+	 * @throws MathException se a matriz não for quadrada ou tiver ordem menor que 2.
+	 * @throws UnsupportedOperationException se esta matriz não couber no heap.
+	 * @throws IllegalStateException se a matriz já tiver sido fechada.
+	 */
+	public double complementaryMinor(int line, int column) {
+		return heapCopy("o menor complementar").complementaryMinor(line, column);
+	}
+
+	/**
+	 * Matriz dos cofatores, calculada por {@link Matrix#cofactorMatrix()}
+	 * sobre uma cópia no heap.
+	 * @return uma nova matriz fora do heap com os cofatores dos elementos
+	 * desta, ou null se esta matriz não for quadrada ou tiver ordem menor que 2.
+	 * @throws UnsupportedOperationException se esta matriz não couber no heap.
+	 * @throws IllegalStateException se a matriz já tiver sido fechada.
+	 */
+	public OffHeapMatrix cofactorMatrix() {
+		checkOpen();
+		if(!isSquare() || lines == 1) {
+			return null;
+		}
+		return new OffHeapMatrix(heapCopy("a matriz dos cofatores").cofactorMatrix());
+	}
+
+	/**
+	 * Matriz adjunta, calculada por {@link Matrix#adjugate()} sobre uma
+	 * cópia no heap.
+	 * @return uma nova matriz fora do heap com a adjunta desta.
+	 * @throws UnsupportedOperationException se esta matriz não couber no heap.
+	 * @throws IllegalStateException se a matriz já tiver sido fechada.
+	 */
+	public OffHeapMatrix adjugate() {
+		return new OffHeapMatrix(heapCopy("a matriz adjunta").adjugate());
+	}
+
+	/**
+	 * Matriz inversa, calculada por {@link Matrix#inverse()} sobre uma cópia
+	 * no heap.
+	 * @return uma nova matriz fora do heap com a inversa desta, ou null se
+	 * esta matriz não for quadrada ou for singular.
+	 * @throws UnsupportedOperationException se esta matriz não couber no heap.
+	 * @throws IllegalStateException se a matriz já tiver sido fechada.
+	 */
+	public OffHeapMatrix inverse() {
+		checkOpen();
+		if(!isSquare()) {
+			return null;
+		}
+		Matrix inverse = heapCopy("a inversa").inverse();
+		return inverse == null ? null : new OffHeapMatrix(inverse);
+	}
+
+	/**
+	 * Decomposição LU com pivotamento parcial de uma cópia desta matriz no
+	 * heap. Veja {@link Matrix#lu()}.
+	 * @return a decomposição LU desta matriz.
+	 * @throws MathException se esta matriz não for quadrada.
+	 * @throws UnsupportedOperationException se esta matriz não couber no heap.
+	 * @throws IllegalStateException se a matriz já tiver sido fechada.
+	 */
+	public LUDecomposition lu() {
+		checkOpen();
+		if(!isSquare()) {
+			throw new MathException("A decomposição LU só existe para matrizes quadradas");
+		}
+		return heapCopy("a decomposição LU").lu();
+	}
+
+	/**
+	 * Resolve o sistema AX = B, sendo A esta matriz, por
+	 * {@link Matrix#solve(Matrix)} sobre uma cópia no heap.
+	 * @param b a matriz dos termos independentes.
+	 * @return a matriz X solução.
+	 * @throws MathException nos mesmos casos de {@link Matrix#solve(Matrix)}.
+	 * @throws UnsupportedOperationException se esta matriz não couber no heap.
+	 * @throws IllegalStateException se a matriz já tiver sido fechada.
+	 */
+	public Matrix solve(Matrix b) {
+		checkNotNull(b);
+		return heapCopy("a solução do sistema").solve(b);
+	}
+
+	/**
+	 * Resolve o sistema Ax = b, sendo A esta matriz, por
+	 * {@link Matrix#solve(double[])} sobre uma cópia no heap.
+	 * @param b o vetor dos termos independentes.
+	 * @return o vetor solução x.
+	 * @throws MathException nos mesmos casos de {@link Matrix#solve(double[])}.
+	 * @throws UnsupportedOperationException se esta matriz não couber no heap.
+	 * @throws IllegalStateException se a matriz já tiver sido fechada.
+	 */
+	public double[] solve(double[] b) {
+		return heapCopy("a solução do sistema").solve(b);
+	}
+
+	/**
+	 * @return uma cópia desta matriz no heap, para as operações que precisam
+	 * de acesso aleatório a todos os elementos.
+	 * @throws UnsupportedOperationException se esta matriz não couber em um
+	 * array.
+	 */
+	private Matrix heapCopy(String operation) {
+		checkOpen();
+		if((long) lines * columns > Integer.MAX_VALUE - 8) {
+			throw new UnsupportedOperationException("O cálculo de " + operation + " precisa da matriz inteira "
+					+ "no heap, e uma matriz " + lines + "x" + columns + " não cabe em um array");
+		}
+		return toMatrix();
+	}
+
+	/**
+	 * Multiplica esta matriz pelo vetor de entrada, escrevendo o produto no
+	 * vetor de saída. A matriz é lida uma única vez, linha a linha.
+	 * @param in o vetor, com tantos elementos quanto esta matriz tem colunas.
+	 * @param out o vetor onde o produto será escrito, com tantos elementos
+	 * quanto esta matriz tem linhas.
+	 * @throws MathException se os tamanhos dos vetores forem incompatíveis ou
+	 * se forem o mesmo array.
+	 * @throws IllegalStateException se a matriz já tiver sido fechada.
+	 */
+	@Override
+	public void apply(double[] in, double[] out) {
+		checkOpen();
+		if(in.length != columns || out.length != lines) {
+			throw new MathException("Os vetores devem ter tamanhos " + columns + " e " + lines);
+		}
+		if(in == out) {
+			throw new MathException("O vetor de destino não pode ser o mesmo vetor multiplicado");
+		}
+		double[] row = new double[columns];
+		for(int i = 0; i < lines; i++) {
+			read(i, 0, row, 0, columns);
+			out[i] = MatrixKernels.dot(row, 0, in, 0, columns);
+		}
+	}
+
+	/**
+	 * @return true se esta matriz for um arquivo mapeado apenas para
+	 * leitura, caso em que qualquer escrita lança
+	 * {@link java.nio.ReadOnlyBufferException}.
+	 */
+	public boolean isReadOnly() {
+		return readOnly;
+	}
+
+	/**
+	 * Garante que as alterações feitas em uma matriz mapeada em arquivo
+	 * sejam gravadas no disco. Não tem efeito nas matrizes em memória.
+	 * @throws IllegalStateException se a matriz já tiver sido fechada.
+	 */
+	public void force() {
+		checkOpen();
+		if(readOnly) {
+			return;
+		}
+		for(ByteBuffer buffer : buffers) {
+			if(buffer instanceof MappedByteBuffer mapped) {
+				mapped.force();
+			}
+		}
+	}
+
+	/**
+	 * @return true se esta matriz já tiver sido fechada.
+	 */
+	public boolean isClosed() {
+		return closed;
+	}
+
+	/**
+	 * Libera imediatamente a memória nativa desta matriz, ou desfaz o
+	 * mapeamento do arquivo, sem forçar a gravação das alterações no disco
+	 * (veja {@link #force()}); o sistema operacional as grava depois. Chamadas
+	 * repetidas não têm efeito. Nenhuma outra thread pode estar usando a
+	 * matriz durante a chamada.
+	 */
+	@Override
+	public void close() {
+		if(closed) {
+			return;
+		}
+		closed = true;
+		ByteBuffer[] released = buffers;
+		buffers = null;
+		chunks = null;
+		for(ByteBuffer buffer : released) {
+			if(buffer != null) {
+				release(buffer);
+			}
+		}
+	}
+
+	/**
+	 * Exibe a matriz no formato tradicional de linhas e colunas, como
+	 * {@link Matrix#toFormattedString()}. A matriz é lida duas vezes: uma
+	 * para a largura de cada coluna e outra para montar o texto.
+	 * @return a string formatada.
+	 * @throws IllegalStateException se a matriz já tiver sido fechada.
+	 */
+	public String toFormattedString() {
+		checkOpen();
+		int[] widths = new int[columns];
+		double[] row = new double[columns];
+		for(int i = 0; i < lines; i++) {
+			read(i, 0, row, 0, columns);
+			for(int j = 0; j < columns; j++) {
+				widths[j] = Math.max(widths[j], String.valueOf(row[j]).length());
+			}
+		}
+		StringBuilder sb = new StringBuilder();
+		for(int i = 0; i < lines; i++) {
+			read(i, 0, row, 0, columns);
+			for(int j = 0; j < columns; j++) {
+				String value = String.valueOf(row[j]);
+				sb.append(j == 0 ? "|" : " ");
+				for(int k = value.length(); k < widths[j]; k++) {
+					sb.append(' ');
+				}
+				sb.append(value);
+			}
+			sb.append(i == lines - 1 ? "|" : "|\n");
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * @return os elementos desta matriz no mesmo formato de
+	 * {@link Matrix#toString()}, lidos linha a linha.
+	 * @throws IllegalStateException se a matriz já tiver sido fechada.
+	 */
+	@Override
+	public String toString() {
+		checkOpen();
+		StringBuilder sb = new StringBuilder();
+		sb.append("{");
+		double[] row = new double[columns];
+		for(int i = 0; i < lines; i++) {
+			read(i, 0, row, 0, columns);
+			sb.append("{");
+			for(int j = 0; j < columns; j++) {
+				sb.append(row[j]).append(j == columns - 1 ? "" : ", ");
+			}
+			sb.append("}").append(i == lines - 1 ? "" : ", ");
+		}
+		sb.append("}");
+		return sb.toString();
+	}
+
+	/**
+	 * Compara esta matriz com outra matriz fora do heap, linha a linha, com
+	 * o mesmo critério de {@link Matrix#equals(Object)}.
+	 * @throws IllegalStateException se alguma das matrizes já tiver sido
+	 * fechada.
+	 */
+	@Override
+	public boolean equals(Object o) {
+		if(o == null) {
+			return false;
+		}
+		if(o == this) {
+			return true;
+		}
+		if(o instanceof OffHeapMatrix m) {
+			if(lines != m.lines || columns != m.columns) {
+				return false;
+			}
+			checkOpen();
+			m.checkOpen();
+			double[] row = new double[columns];
+			double[] mRow = new double[columns];
+			for(int i = 0; i < lines; i++) {
+				read(i, 0, row, 0, columns);
+				m.read(i, 0, mRow, 0, columns);
+				for(int j = 0; j < columns; j++) {
+					if(row[j] != mRow[j]) {
+						return false;
+					}
+				}
+			}
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * @return o mesmo valor de {@link Matrix#hashCode()} para uma matriz com
+	 * os mesmos elementos.
+	 * @throws IllegalStateException se a matriz já tiver sido fechada.
+	 */
+	@Override
+	public int hashCode() {
+		checkOpen();
+		int hash = 31 * lines + columns;
+		double[] row = new double[columns];
+		for(int i = 0; i < lines; i++) {
+			read(i, 0, row, 0, columns);
+			for(int j = 0; j < columns; j++) {
+				double value = row[j];
+				// 0.0 e -0.0 são iguais para equals, então precisam do mesmo hash
+				long bits = Double.doubleToLongBits(value == 0 ? 0 : value);
+				hash = 31 * hash + (int) (bits ^ (bits >>> 32));
+			}
+		}
+		return hash;
+	}
+
+	/**
+	 * Copia count elementos da linha i, a partir da coluna j, para o array.
+	 */
+	void read(int line, int column, double[] dest, int destOffset, int count) {
+		int c = line / rowsPerChunk;
+		chunks[c].get((line - c * rowsPerChunk) * columns + column, dest, destOffset, count);
+	}
+
+	/**
+	 * Copia count elementos do array para a linha i, a partir da coluna j.
+	 */
+	void write(int line, int column, double[] src, int srcOffset, int count) {
+		int c = line / rowsPerChunk;
+		chunks[c].put((line - c * rowsPerChunk) * columns + column, src, srcOffset, count);
+	}
+
+	/**
+	 * Copia o bloco de rows x count elementos que começa na posição ij para o
+	 * array, com a distância dada entre o início de duas linhas.
+	 */
+	void read(int line, int column, int rows, int count, double[] dest, int destStride) {
+		for(int i = 0; i < rows; i++) {
+			read(line + i, column, dest, i * destStride, count);
+		}
+	}
+
+	/**
+	 * Copia um bloco de rows x count elementos do array para esta matriz, a
+	 * partir da posição ij.
+	 */
+	void write(int line, int column, int rows, int count, double[] src, int srcStride) {
+		for(int i = 0; i < rows; i++) {
+			write(line + i, column, src, i * srcStride, count);
+		}
+	}
+
+	private void checkMultiplication(int mLines) {
+		if(columns != mLines) {
+			throw new MathException("Não é possível multiplicar matrizes tais que o número de colunas da "
+					+ "primeira seja diferente do número de linhas da segunda.");
+		}
+	}
+
+	private void checkOpen() {
+		if(closed) {
+			throw new IllegalStateException("A matriz já foi fechada");
+		}
+	}
+
+	private void checkPosition(int line, int column) {
+		checkOpen();
+		if(line < 0 || line >= lines || column < 0 || column >= columns) {
+			throw new ArrayIndexOutOfBoundsException("Posição (" + line + ", " + column + ") está fora dos "
+					+ "limites da matriz (" + lines + ", " + columns + ").");
+		}
+	}
+
+	private void checkBlock(int line, int column, int lines, int columns) {
+		checkOpen();
+		if(lines < 1 || columns < 1) {
+			throw new IllegalArgumentException("Linhas e colunas não podem ser menores que 1");
+		}
+		if(line < 0 || column < 0 || line + lines > this.lines || column + columns > this.columns) {
+			throw new ArrayIndexOutOfBoundsException("O bloco " + lines + "x" + columns + " na posição ("
+					+ line + ", " + column + ") está fora dos limites da matriz (" + this.lines + ", " + this.columns + ").");
+		}
+	}
+
+	/**
+	 * Libera um buffer direto sem esperar o coletor de lixo, através de
+	 * sun.misc.Unsafe.invokeCleaner. Se o método não estiver disponível, o
+	 * buffer é apenas abandonado e liberado pelo coletor.
+	 */
+	static void release(ByteBuffer buffer) {
+		if(CLEANER == null) {
+			return;
+		}
+		try {
+			CLEANER.invokeExact(buffer);
+		} catch(Throwable e) {
+			// o buffer será liberado pelo coletor de lixo
+		}
+	}
+
+	private static MethodHandle cleaner() {
+		try {
+			Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+			Field field = unsafeClass.getDeclaredField("theUnsafe");
+			field.setAccessible(true);
+			MethodHandle invokeCleaner = MethodHandles.lookup().findVirtual(unsafeClass, "invokeCleaner",
+					MethodType.methodType(void.class, ByteBuffer.class));
+			return invokeCleaner.bindTo(field.get(null));
+		} catch(ReflectiveOperationException | RuntimeException e) {
+			return null;
+		}
+	}
+
+}
@@ -0,0 +1,281 @@
+package br.sergio.math;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Decomposição espectral parcial de um operador simétrico: apenas os k
+ * maiores (ou menores) autovalores e seus autovetores, calculados pelo
+ * método de Lanczos. O método constrói uma base ortonormal do subespaço de
+ * Krylov gerado por um vetor aleatório, na qual o operador é tridiagonal;
+ * os autovalores extremos dessa matriz tridiagonal pequena convergem
+ * rapidamente para os autovalores extremos do operador.
+ * <p>Como só são necessárias multiplicações por vetores, o operador pode ser
+ * uma matriz densa, esparsa ou implícita. Para evitar a perda de
+ * ortogonalidade típica do método, cada novo vetor da base é
+ * reortogonalizado contra todos os anteriores. A base tem no máximo
+ * max(2k + 20, 40) vetores: ao atingir esse tamanho, o método é reiniciado
+ * mantendo apenas os melhores vetores de Ritz (reinício espesso), de forma
+ * que a memória usada é O(nk) mesmo quando os autovalores procurados estão
+ * próximos uns dos outros e a convergência é lenta.
+ * @author Sergio Luis
+ *
+ */
+public class PartialEigenDecomposition implements Serializable {
+
+	private static final long serialVersionUID = 2684510293870342247L;
+
+	/**
+	 * Tolerância padrão dos resíduos dos autopares, relativa ao maior
+	 * autovalor em valor absoluto.
+	 */
+	public static final double DEFAULT_TOLERANCE = 1e-10;
+
+	private static final int MAX_PRODUCTS = 20000;
+
+	private int order;
+	private int count;
+	private double[] eigenvalues;
+	private double[] eigenvectors;
+	private int iterations;
+
+	/**
+	 * Calcula os k maiores autovalores do operador simétrico fornecido.
+	 * Veja {@link #PartialEigenDecomposition(LinearOperator, int, boolean, double)}.
+	 * @param a o operador simétrico.
+	 * @param k a quantidade de autovalores desejada.
+	 */
+	public PartialEigenDecomposition(LinearOperator a, int k) {
+		this(a, k, true, DEFAULT_TOLERANCE);
+	}
+
+	/**
+	 * Calcula os k maiores ou menores autovalores do operador simétrico
+	 * fornecido. A simetria não é verificada.
+	 * @param a o operador simétrico.
+	 * @param k a quantidade de autovalores desejada.
+	 * @param largest true para os maiores autovalores, false para os menores.
+	 * @param tolerance a tolerância dos resíduos ||Ax - λx||, relativa ao
+	 * maior autovalor em valor absoluto.
+	 * @throws NullPointerException se o operador for nulo.
+	 * @throws MathException se o operador não for quadrado.
+	 * @throws IllegalArgumentException se k não estiver entre 1 e a ordem
+	 * do operador ou se a tolerância for negativa.
+	 * @throws MathException se o método não convergir em 20000 multiplicações.
+	 */
+	public PartialEigenDecomposition(LinearOperator a, int k, boolean largest, double tolerance) {
+		if(a == null) {
+			throw new NullPointerException("Operador nulo");
+		}
+		int n = a.getLines();
+		if(a.getColumns() != n) {
+			throw new MathException("A decomposição espectral requer um operador quadrado");
+		}
+		if(k < 1 || k > n) {
+			throw new IllegalArgumentException("k deve estar entre 1 e " + n);
+		}
+		if(!(tolerance >= 0)) {
+			throw new IllegalArgumentException("Tolerância inválida: " + tolerance);
+		}
+		order = n;
+		count = k;
+		decompose(a, largest, tolerance);
+	}
+
+	private void decompose(LinearOperator a, boolean largest, double tolerance) {
+		int n = order;
+		int maxSize = Math.min(n, Math.max(2 * count + 20, 40));
+		int maxProducts = Math.max(MAX_PRODUCTS, 10 * maxSize);
+		double[][] basis = new double[maxSize + 1][];
+		double[] h = new double[maxSize * maxSize];
+		Random random = new Random(n);
+		basis[0] = randomUnit(random, basis, 0);
+		double[] w = new double[n];
+		int size = 0;
+		int nextCheck = Math.min(maxSize, Math.max(count + 5, 10));
+		while(true) {
+			int j = size;
+			a.apply(basis[j], w);
+			iterations++;
+			for(int pass = 0; pass < 2; pass++) {
+				for(int i = 0; i <= j; i++) {
+					double projection = MatrixKernels.dot(w, 0, basis[i], 0, n);
+					MatrixKernels.axpy(-projection, basis[i], 0, w, 0, n);
+					h[i * maxSize + j] += projection;
+				}
+			}
+			for(int i = 0; i < j; i++) {
+				h[j * maxSize + i] = h[i * maxSize + j];
+			}
+			size++;
+			double norm = Math.sqrt(MatrixKernels.dot(w, 0, w, 0, n));
+			boolean invariant = norm <= Math.ulp(1.0) * n * Math.max(Math.abs(h[j * maxSize + j]), Double.MIN_NORMAL);
+			double beta = invariant ? 0 : norm;
+			if(size >= count && (size == n || size == maxSize || size >= nextCheck || invariant)) {
+				EigenDecomposition ritz = new EigenDecomposition(projected(h, maxSize, size));
+				if(size == n || converged(ritz, beta, largest, tolerance)) {
+					assemble(ritz, basis, largest);
+					return;
+				}
+				if(iterations >= maxProducts) {
+					throw new MathException("O método de Lanczos não convergiu");
+				}
+				if(size == maxSize) {
+					size = restart(ritz, basis, h, maxSize, largest);
+				}
+				nextCheck = Math.min(maxSize, size + Math.max(5, size / 4));
+			}
+			if(invariant) {
+				basis[size] = randomUnit(random, basis, size);
+			} else {
+				if(basis[size] == null) {
+					basis[size] = new double[n];
+				}
+				MatrixKernels.scale(1 / norm, w, 0, basis[size], 0, n);
+			}
+		}
+	}
+
+	/**
+	 * Reinício espesso: substitui a base pelos vetores de Ritz mais próximos
+	 * dos autovalores procurados, para os quais a matriz projetada é
+	 * diagonal. O próximo vetor da base continua sendo o resíduo, e os
+	 * acoplamentos entre ele e os vetores mantidos aparecem naturalmente nas
+	 * projeções da iteração seguinte.
+	 * @return a quantidade de vetores mantidos.
+	 */
+	private int restart(EigenDecomposition ritz, double[][] basis, double[] h, int maxSize, boolean largest) {
+		int n = order;
+		int kept = count + (maxSize - count) / 2;
+		double[] values = ritz.getEigenvalues();
+		Matrix vectors = ritz.getEigenvectors();
+		double[][] ritzVectors = new double[kept][];
+		for(int c = 0; c < kept; c++) {
+			int index = largest ? maxSize - 1 - c : c;
+			double[] vector = new double[n];
+			for(int i = 0; i < maxSize; i++) {
+				MatrixKernels.axpy(vectors.getValue(i, index), basis[i], 0, vector, 0, n);
+			}
+			ritzVectors[c] = vector;
+		}
+		Arrays.fill(h, 0);
+		for(int c = 0; c < kept; c++) {
+			basis[c] = ritzVectors[c];
+			h[c * maxSize + c] = values[largest ? maxSize - 1 - c : c];
+		}
+		return kept;
+	}
+
+	private static Matrix projected(double[] h, int maxSize, int size) {
+		Matrix t = new Matrix(size);
+		for(int i = 0; i < size; i++) {
+			System.arraycopy(h, i * maxSize, t.getData(), i * size, size);
+		}
+		return t;
+	}
+
+	/**
+	 * Gera um vetor aleatório unitário ortogonal aos count primeiros vetores
+	 * da base.
+	 */
+	private double[] randomUnit(Random random, double[][] basis, int count) {
+		int n = order;
+		double[] x = new double[n];
+		while(true) {
+			for(int i = 0; i < n; i++) {
+				x[i] = random.nextGaussian();
+			}
+			for(int pass = 0; pass < 2; pass++) {
+				for(int i = 0; i < count; i++) {
+					double projection = MatrixKernels.dot(x, 0, basis[i], 0, n);
+					MatrixKernels.axpy(-projection, basis[i], 0, x, 0, n);
+				}
+			}
+			double norm = Math.sqrt(MatrixKernels.dot(x, 0, x, 0, n));
+			if(norm > 1e-8) {
+				MatrixKernels.scale(1 / norm, x, 0, x, 0, n);
+				return x;
+			}
+		}
+	}
+
+	/**
+	 * O resíduo do autopar de Ritz i é o último elemento do autovetor i da
+	 * matriz projetada vezes a norma do resíduo da base, sem precisar
+	 * multiplicar pelo operador.
+	 */
+	private boolean converged(EigenDecomposition ritz, double lastBeta, boolean largest, double tolerance) {
+		int size = ritz.getOrder();
+		double[] values = ritz.getEigenvalues();
+		Matrix vectors = ritz.getEigenvectors();
+		double reference = Math.max(Math.abs(values[0]), Math.abs(values[size - 1]));
+		for(int i = 0; i < count; i++) {
+			int index = largest ? size - 1 - i : i;
+			double residual = Math.abs(lastBeta * vectors.getValue(size - 1, index));
+			if(residual > tolerance * reference) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void assemble(EigenDecomposition ritz, double[][] basis, boolean largest) {
+		int n = order;
+		int size = ritz.getOrder();
+		double[] values = ritz.getEigenvalues();
+		Matrix vectors = ritz.getEigenvectors();
+		eigenvalues = new double[count];
+		eigenvectors = new double[n * count];
+		double[] column = new double[n];
+		for(int c = 0; c < count; c++) {
+			int index = largest ? size - 1 - c : c;
+			eigenvalues[c] = values[index];
+			Arrays.fill(column, 0);
+			for(int i = 0; i < size; i++) {
+				MatrixKernels.axpy(vectors.getValue(i, index), basis[i], 0, column, 0, n);
+			}
+			for(int i = 0; i < n; i++) {
+				eigenvectors[i * count + c] = column[i];
+			}
+		}
+	}
+
+	/**
+	 * @return a ordem do operador decomposto.
+	 */
+	public int getOrder() {
+		return order;
+	}
+
+	/**
+	 * @return a quantidade de autopares calculados.
+	 */
+	public int getCount() {
+		return count;
+	}
+
+	/**
+	 * @return a quantidade de multiplicações pelo operador realizadas.
+	 */
+	public int getIterations() {
+		return iterations;
+	}
+
+	/**
+	 * @return uma cópia dos autovalores calculados, em ordem decrescente se
+	 * forem os maiores e crescente se forem os menores.
+	 */
+	public double[] getEigenvalues() {
+		return eigenvalues.clone();
+	}
+
+	/**
+	 * @return a matriz n x k cuja coluna j é o autovetor unitário
+	 * correspondente ao j-ésimo autovalor.
+	 */
+	public Matrix getEigenvectors() {
+		return new Matrix(order, count, eigenvectors.clone());
+	}
+
+}
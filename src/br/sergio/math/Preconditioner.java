@@ -0,0 +1,21 @@
+package br.sergio.math;
+
+/**
+ * Pré-condicionador de um método iterativo. Um pré-condicionador M é uma
+ * aproximação da matriz A do sistema cuja inversa é barata de aplicar; os
+ * métodos de {@link IterativeSolver} resolvem então um sistema equivalente
+ * com número de condição menor, convergindo em menos iterações.
+ * @author Sergio Luis
+ *
+ */
+public interface Preconditioner {
+
+	/**
+	 * Resolve Mz = r, ou seja, aplica a inversa do pré-condicionador ao vetor
+	 * r, escrevendo o resultado em z. Os dois vetores nunca são o mesmo array.
+	 * @param r o vetor de entrada.
+	 * @param z o vetor de saída.
+	 */
+	void apply(double[] r, double[] z);
+
+}
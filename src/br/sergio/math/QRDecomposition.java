@@ -0,0 +1,445 @@
+package br.sergio.math;
+
+import java.io.Serializable;
+
+/**
+ * Decomposição QR de uma matriz m x n com m maior ou igual a n, calculada por
+ * reflexões de Householder. A matriz A é fatorada como A = QR, sendo Q uma
+ * matriz ortogonal e R uma matriz triangular superior. A decomposição QR
+ * resolve sistemas sobredeterminados no sentido dos mínimos quadrados, ou
+ * seja, encontra o x que minimiza a norma de Ax - b.
+ * <p>Internamente, a matriz Q não é formada: são guardados apenas os vetores
+ * de Householder, um por coluna, e as reflexões são aplicadas diretamente
+ * aos termos independentes.
+ * <p>Com pivotamento de colunas, a cada passo é escolhida a coluna restante
+ * de maior norma, de forma que AP = QR, sendo P uma matriz de permutação, e
+ * a diagonal de R fica em ordem decrescente de valor absoluto. Isso permite
+ * determinar o posto numérico da matriz e resolver sistemas com colunas
+ * linearmente dependentes.
+ * @author Sergio Luis
+ *
+ */
+public class QRDecomposition implements Serializable {
+
+	private static final long serialVersionUID = -1396210472615783502L;
+
+	private static final double SQRT_EPSILON = Math.sqrt(Math.ulp(1.0));
+
+	private int lines;
+	private int columns;
+
+	/**
+	 * Vetores de Householder (abaixo da diagonal) e parte estritamente
+	 * superior de R, guardados coluna a coluna: o elemento ij está na
+	 * posição j * lines + i, de forma que cada coluna é contígua.
+	 */
+	private double[] qr;
+	private double[] rDiagonal;
+	private int[] permutation;
+	private int rank;
+
+	/**
+	 * Constrói a decomposição QR da matriz fornecida, sem pivotamento.
+	 * A matriz original não é alterada.
+	 * @param m a matriz a ser decomposta.
+	 * @throws NullPointerException se a matriz for nula.
+	 * @throws MathException se a matriz tiver menos linhas que colunas.
+	 */
+	public QRDecomposition(Matrix m) {
+		this(m, false);
+	}
+
+	/**
+	 * Constrói a decomposição QR da matriz fornecida, com ou sem
+	 * pivotamento de colunas. A matriz original não é alterada.
+	 * @param m a matriz a ser decomposta.
+	 * @param pivoting true para usar pivotamento de colunas.
+	 * @throws NullPointerException se a matriz for nula.
+	 * @throws MathException se a matriz tiver menos linhas que colunas.
+	 */
+	public QRDecomposition(Matrix m, boolean pivoting) {
+		if(m == null) {
+			throw new NullPointerException("Matriz nula");
+		}
+		if(m.getLines() < m.getColumns()) {
+			throw new MathException("A decomposição QR requer ao menos tantas linhas quanto colunas");
+		}
+		lines = m.getLines();
+		columns = m.getColumns();
+		qr = new double[lines * columns];
+		m = m.contiguous();
+		MatrixKernels.transpose(m.getData(), m.getOffset(), m.getStride(), qr, 0, lines, lines, columns);
+		rDiagonal = new double[columns];
+		if(pivoting) {
+			permutation = new int[columns];
+			for(int j = 0; j < columns; j++) {
+				permutation[j] = j;
+			}
+		}
+		decompose();
+		double tolerance = Math.max(lines, columns) * Math.ulp(1.0) * maxAbs(rDiagonal);
+		for(int k = 0; k < columns; k++) {
+			if(Math.abs(rDiagonal[k]) > tolerance) {
+				rank++;
+			}
+		}
+	}
+
+	private void decompose() {
+		int m = lines;
+		double[] norms = null;
+		double[] references = null;
+		if(permutation != null) {
+			norms = new double[columns];
+			references = new double[columns];
+			for(int j = 0; j < columns; j++) {
+				double norm = norm(qr, j * m, m);
+				norms[j] = norm * norm;
+				references[j] = norms[j];
+			}
+		}
+		for(int k = 0; k < columns; k++) {
+			int columnK = k * m;
+			if(permutation != null) {
+				pivot(k, norms, references);
+			}
+			double norm = norm(qr, columnK + k, m - k);
+			if(norm != 0) {
+				if(qr[columnK + k] < 0) {
+					norm = -norm;
+				}
+				for(int i = k; i < m; i++) {
+					qr[columnK + i] /= norm;
+				}
+				qr[columnK + k] += 1;
+				for(int j = k + 1; j < columns; j++) {
+					reflect(k, qr, j * m);
+				}
+			}
+			rDiagonal[k] = -norm;
+			if(permutation != null) {
+				for(int j = k + 1; j < columns; j++) {
+					double value = qr[j * m + k];
+					norms[j] -= value * value;
+					if(norms[j] <= SQRT_EPSILON * references[j]) {
+						double exact = norm(qr, j * m + k + 1, m - k - 1);
+						norms[j] = exact * exact;
+						references[j] = norms[j];
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Troca a coluna k com a coluna restante de maior norma. As normas são
+	 * atualizadas a cada passo subtraindo o quadrado do elemento eliminado e
+	 * recalculadas quando o cancelamento compromete a precisão.
+	 */
+	private void pivot(int k, double[] norms, double[] references) {
+		int best = k;
+		for(int j = k + 1; j < columns; j++) {
+			if(norms[j] > norms[best]) {
+				best = j;
+			}
+		}
+		if(best == k) {
+			return;
+		}
+		int m = lines;
+		for(int i = 0; i < m; i++) {
+			double temp = qr[k * m + i];
+			qr[k * m + i] = qr[best * m + i];
+			qr[best * m + i] = temp;
+		}
+		double temp = norms[k];
+		norms[k] = norms[best];
+		norms[best] = temp;
+		temp = references[k];
+		references[k] = references[best];
+		references[best] = temp;
+		int index = permutation[k];
+		permutation[k] = permutation[best];
+		permutation[best] = index;
+	}
+
+	private static double maxAbs(double[] x) {
+		double max = 0;
+		for(double value : x) {
+			max = Math.max(max, Math.abs(value));
+		}
+		return max;
+	}
+
+	/**
+	 * Aplica a k-ésima reflexão de Householder ao vetor de m elementos que
+	 * começa na posição start do array fornecido.
+	 */
+	void reflect(int k, double[] x, int start) {
+		int columnK = k * lines;
+		double sum = 0;
+		for(int i = k; i < lines; i++) {
+			sum += qr[columnK + i] * x[start + i];
+		}
+		if(sum == 0) {
+			return;
+		}
+		sum = -sum / qr[columnK + k];
+		for(int i = k; i < lines; i++) {
+			x[start + i] += sum * qr[columnK + i];
+		}
+	}
+
+	/**
+	 * Norma euclidiana de um trecho de array, com escala para evitar
+	 * overflow e underflow nos quadrados.
+	 */
+	static double norm(double[] x, int start, int length) {
+		double scale = 0;
+		for(int i = 0; i < length; i++) {
+			scale = Math.max(scale, Math.abs(x[start + i]));
+		}
+		if(scale == 0 || Double.isInfinite(scale)) {
+			return scale;
+		}
+		double sum = 0;
+		for(int i = 0; i < length; i++) {
+			double value = x[start + i] / scale;
+			sum += value * value;
+		}
+		return scale * Math.sqrt(sum);
+	}
+
+	/**
+	 * @return a quantidade de linhas da matriz decomposta.
+	 */
+	public int getLines() {
+		return lines;
+	}
+
+	/**
+	 * @return a quantidade de colunas da matriz decomposta.
+	 */
+	public int getColumns() {
+		return columns;
+	}
+
+	/**
+	 * @return true se a decomposição foi feita com pivotamento de colunas.
+	 */
+	public boolean isPivoting() {
+		return permutation != null;
+	}
+
+	/**
+	 * Retorna a permutação das colunas, tal que a coluna j de AP é a coluna
+	 * permutation[j] de A. Sem pivotamento, é a permutação identidade.
+	 * @return a permutação das colunas.
+	 */
+	public int[] getPermutation() {
+		if(permutation == null) {
+			int[] identity = new int[columns];
+			for(int j = 0; j < columns; j++) {
+				identity[j] = j;
+			}
+			return identity;
+		}
+		return permutation.clone();
+	}
+
+	/**
+	 * Retorna o posto numérico da matriz decomposta: a quantidade de
+	 * elementos da diagonal de R cujo valor absoluto excede
+	 * max(m, n) * ε * max|rkk|. A estimativa só é confiável com pivotamento
+	 * de colunas.
+	 * @return o posto numérico da matriz decomposta.
+	 */
+	public int getRank() {
+		return rank;
+	}
+
+	/**
+	 * @return true se a matriz decomposta tiver posto completo, ou seja,
+	 * se suas colunas forem linearmente independentes.
+	 */
+	public boolean isFullRank() {
+		for(int j = 0; j < columns; j++) {
+			if(rDiagonal[j] == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return a matriz m x n cuja coluna k é o k-ésimo vetor de Householder,
+	 * ou seja, a forma implícita de Q. A reflexão k é I - vvᵀ / v[k].
+	 */
+	public Matrix getH() {
+		Matrix h = new Matrix(lines, columns);
+		for(int j = 0; j < columns; j++) {
+			for(int i = j; i < lines; i++) {
+				h.setValue(i, j, qr[j * lines + i]);
+			}
+		}
+		return h;
+	}
+
+	/**
+	 * Forma explicitamente as n primeiras colunas de Q, aplicando as
+	 * reflexões às colunas da identidade.
+	 * @return a matriz m x n de colunas ortonormais Q, tal que A = QR (ou
+	 * AP = QR, com pivotamento).
+	 */
+	public Matrix getQ() {
+		int m = lines;
+		double[] q = new double[m * columns];
+		for(int j = 0; j < columns; j++) {
+			q[j * m + j] = 1;
+			for(int k = columns - 1; k >= 0; k--) {
+				reflect(k, q, j * m);
+			}
+		}
+		Matrix result = new Matrix(m, columns);
+		MatrixKernels.transpose(q, 0, m, result.getData(), 0, columns, columns, m);
+		return result;
+	}
+
+	/**
+	 * @return a matriz triangular superior R, de tamanho n x n.
+	 */
+	public Matrix getR() {
+		Matrix r = new Matrix(columns);
+		for(int i = 0; i < columns; i++) {
+			r.setValue(i, i, rDiagonal[i]);
+			for(int j = i + 1; j < columns; j++) {
+				r.setValue(i, j, qr[j * lines + i]);
+			}
+		}
+		return r;
+	}
+
+	/**
+	 * Resolve o sistema AX = B no sentido dos mínimos quadrados, sendo A a
+	 * matriz decomposta. Cada coluna de B é um termo independente diferente.
+	 * @param b a matriz dos termos independentes, com m linhas.
+	 * @return a matriz X, de n linhas, que minimiza a norma de AX - B.
+	 * @throws MathException se a quantidade de linhas de B for diferente da
+	 * quantidade de linhas da matriz decomposta ou se ela não tiver posto
+	 * completo e a decomposição não tiver pivotamento.
+	 */
+	public Matrix solve(Matrix b) {
+		if(b.getLines() != lines) {
+			throw new MathException("A quantidade de linhas dos termos independentes deve ser igual à da matriz");
+		}
+		checkSolvable();
+		int count = b.getColumns();
+		double[] x = new double[lines * count];
+		b = b.contiguous();
+		MatrixKernels.transpose(b.getData(), b.getOffset(), b.getStride(), x, 0, lines, lines, count);
+		for(int j = 0; j < count; j++) {
+			solveColumn(x, j * lines);
+		}
+		Matrix result = new Matrix(columns, count);
+		for(int i = 0; i < columns; i++) {
+			int line = permutation == null ? i : permutation[i];
+			for(int j = 0; j < count; j++) {
+				result.setValue(line, j, x[j * lines + i]);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Resolve o sistema Ax = b no sentido dos mínimos quadrados, sendo A a
+	 * matriz decomposta.
+	 * @param b o vetor dos termos independentes, com m elementos.
+	 * @return o vetor x, de n elementos, que minimiza a norma de Ax - b.
+	 * @throws MathException se o tamanho de b for diferente da quantidade de
+	 * linhas da matriz decomposta ou se ela não tiver posto completo e a
+	 * decomposição não tiver pivotamento.
+	 */
+	public double[] solve(double[] b) {
+		if(b.length != lines) {
+			throw new MathException("O tamanho dos termos independentes deve ser igual à quantidade de linhas da matriz");
+		}
+		checkSolvable();
+		double[] x = b.clone();
+		solveColumn(x, 0);
+		double[] result = new double[columns];
+		for(int i = 0; i < columns; i++) {
+			result[permutation == null ? i : permutation[i]] = x[i];
+		}
+		return result;
+	}
+
+	/**
+	 * Aplica Qᵀ ao vetor e resolve Rx = Qᵀb por substituição regressiva.
+	 * A solução fica nas primeiras n posições do vetor. Com pivotamento, só
+	 * as primeiras {@link #getRank()} incógnitas são calculadas e as demais
+	 * valem 0, o que dá uma solução básica de mínimos quadrados mesmo para
+	 * matrizes de posto incompleto.
+	 */
+	private void solveColumn(double[] x, int start) {
+		for(int k = 0; k < columns; k++) {
+			reflect(k, x, start);
+		}
+		int count = permutation == null ? columns : rank;
+		for(int k = count; k < columns; k++) {
+			x[start + k] = 0;
+		}
+		for(int k = count - 1; k >= 0; k--) {
+			x[start + k] /= rDiagonal[k];
+			double value = x[start + k];
+			int columnK = k * lines;
+			for(int i = 0; i < k; i++) {
+				x[start + i] -= value * qr[columnK + i];
+			}
+		}
+	}
+
+	/**
+	 * Considerando que a matriz decomposta é Aᵀ, encontra a solução de menor
+	 * norma do sistema subdeterminado AX = B. Como A = RᵀQᵀ, a solução é
+	 * X = Q(Rᵀ)⁻¹B.
+	 * @param b a matriz dos termos independentes, com n linhas.
+	 * @return a matriz X, de m linhas.
+	 */
+	Matrix solveTransposed(Matrix b) {
+		if(b.getLines() != columns) {
+			throw new MathException("A quantidade de linhas dos termos independentes deve ser igual à quantidade de linhas da matriz");
+		}
+		checkFullRank();
+		int count = b.getColumns();
+		double[] x = new double[lines * count];
+		for(int j = 0; j < count; j++) {
+			int start = j * lines;
+			for(int k = 0; k < columns; k++) {
+				double sum = b.getValue(k, j);
+				for(int i = 0; i < k; i++) {
+					sum -= qr[k * lines + i] * x[start + i];
+				}
+				x[start + k] = sum / rDiagonal[k];
+			}
+			for(int k = columns - 1; k >= 0; k--) {
+				reflect(k, x, start);
+			}
+		}
+		Matrix result = new Matrix(lines, count);
+		MatrixKernels.transpose(x, 0, lines, result.getData(), 0, count, count, lines);
+		return result;
+	}
+
+	private void checkSolvable() {
+		if(permutation == null) {
+			checkFullRank();
+		}
+	}
+
+	private void checkFullRank() {
+		if(!isFullRank()) {
+			throw new MathException("A matriz não tem posto completo");
+		}
+	}
+
+}
@@ -0,0 +1,391 @@
+package br.sergio.math;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.util.Arrays;
+
+/**
+ * Matriz imutável de números racionais com aritmética exata. Os elementos
+ * são trocados com o restante da biblioteca como {@link Rational}, mas são
+ * guardados internamente como numeradores e denominadores
+ * {@link BigInteger}, já que os resultados de determinantes, inversas e
+ * formas escalonadas costumam ultrapassar os limites de int.
+ * <p>
+ * Todas as operações usam eliminação livre de frações (algoritmo de
+ * Bareiss): cada linha é multiplicada pelo mínimo múltiplo comum dos seus
+ * denominadores, e a eliminação sobre os inteiros resultantes divide
+ * exatamente pelo pivô anterior, em O(n³) operações inteiras. Determinantes
+ * de matrizes grandes com elementos grandes são calculados por aritmética
+ * modular e teorema chinês do resto.
+ * @author Sergio Luis
+ *
+ */
+public final class RationalMatrix implements Serializable {
+
+	private static final long serialVersionUID = 3318203871507236942L;
+	private final int lines;
+	private final int columns;
+	private final BigInteger[] num;
+	private final BigInteger[] denom;
+
+	/**
+	 * Cria a matriz a partir dos elementos racionais, linha por linha.
+	 * @param data os elementos.
+	 * @throws MathException se as linhas tiverem tamanhos diferentes.
+	 */
+	public RationalMatrix(Rational[][] data) {
+		this(data.length, data.length == 0 ? 0 : data[0].length);
+		for(int i = 0; i < lines; i++) {
+			if(data[i].length != columns) {
+				throw new MathException("O tamanho de todas as colunas deve ser o mesmo");
+			}
+			for(int j = 0; j < columns; j++) {
+				num[i * columns + j] = BigInteger.valueOf(data[i][j].getNum());
+				denom[i * columns + j] = BigInteger.valueOf(data[i][j].getDenom());
+			}
+		}
+	}
+
+	/**
+	 * Cria uma matriz de inteiros.
+	 * @param data os elementos, linha por linha.
+	 * @throws MathException se as linhas tiverem tamanhos diferentes.
+	 */
+	public RationalMatrix(long[][] data) {
+		this(data.length, data.length == 0 ? 0 : data[0].length);
+		for(int i = 0; i < lines; i++) {
+			if(data[i].length != columns) {
+				throw new MathException("O tamanho de todas as colunas deve ser o mesmo");
+			}
+			for(int j = 0; j < columns; j++) {
+				num[i * columns + j] = BigInteger.valueOf(data[i][j]);
+				denom[i * columns + j] = BigInteger.ONE;
+			}
+		}
+	}
+
+	private RationalMatrix(int lines, int columns) {
+		this.lines = lines;
+		this.columns = columns;
+		num = new BigInteger[lines * columns];
+		denom = new BigInteger[lines * columns];
+	}
+
+	/**
+	 * Converte uma matriz de doubles de forma exata: cada double finito é
+	 * uma fração cujo denominador é uma potência de 2, e é essa fração que
+	 * é guardada, sem arredondamentos.
+	 * @param m a matriz.
+	 * @return a matriz racional com os mesmos valores.
+	 * @throws MathException se algum elemento for infinito ou NaN.
+	 */
+	public static RationalMatrix valueOf(Matrix m) {
+		RationalMatrix result = new RationalMatrix(m.getLines(), m.getColumns());
+		for(int i = 0; i < result.lines; i++) {
+			for(int j = 0; j < result.columns; j++) {
+				double value = m.getValue(i, j);
+				if(!Double.isFinite(value)) {
+					throw new MathException("Elemento não finito na posição (" + i + ", " + j + "): " + value);
+				}
+				BigDecimal exact = new BigDecimal(value);
+				if(exact.scale() <= 0) {
+					result.set(i * result.columns + j, exact.toBigIntegerExact(), BigInteger.ONE);
+				} else {
+					result.set(i * result.columns + j, exact.unscaledValue(), BigInteger.TEN.pow(exact.scale()));
+				}
+			}
+		}
+		return result;
+	}
+
+	private void set(int index, BigInteger n, BigInteger d) {
+		if(d.signum() < 0) {
+			n = n.negate();
+			d = d.negate();
+		}
+		BigInteger gcd = n.gcd(d);
+		if(!gcd.equals(BigInteger.ONE)) {
+			n = n.divide(gcd);
+			d = d.divide(gcd);
+		}
+		num[index] = n;
+		denom[index] = d;
+	}
+
+	/**
+	 * @return a quantidade de linhas.
+	 */
+	public int getLines() {
+		return lines;
+	}
+
+	/**
+	 * @return a quantidade de colunas.
+	 */
+	public int getColumns() {
+		return columns;
+	}
+
+	/**
+	 * @return true se a matriz for quadrada.
+	 */
+	public boolean isSquare() {
+		return lines == columns;
+	}
+
+	/**
+	 * @return true se todos os elementos forem inteiros.
+	 */
+	public boolean isInteger() {
+		for(BigInteger d : denom) {
+			if(!d.equals(BigInteger.ONE)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @param line a linha.
+	 * @param column a coluna.
+	 * @return o elemento na posição dada como {@link Rational}.
+	 * @throws MathException se o numerador ou o denominador não couberem em int.
+	 */
+	public Rational getValue(int line, int column) {
+		int index = index(line, column);
+		return toRational(num[index], denom[index]);
+	}
+
+	/**
+	 * @param line a linha.
+	 * @param column a coluna.
+	 * @return o numerador do elemento na posição dada, na forma irredutível.
+	 */
+	public BigInteger getNumerator(int line, int column) {
+		return num[index(line, column)];
+	}
+
+	/**
+	 * @param line a linha.
+	 * @param column a coluna.
+	 * @return o denominador, sempre positivo, do elemento na posição dada,
+	 * na forma irredutível.
+	 */
+	public BigInteger getDenominator(int line, int column) {
+		return denom[index(line, column)];
+	}
+
+	private int index(int line, int column) {
+		if(line < 0 || line >= lines || column < 0 || column >= columns) {
+			throw new ArrayIndexOutOfBoundsException("Posição (" + line + ", " + column + ") está fora dos "
+					+ "limites da matriz (" + lines + ", " + columns + ").");
+		}
+		return line * columns + column;
+	}
+
+	private static Rational toRational(BigInteger n, BigInteger d) {
+		if(n.bitLength() > 31 || d.bitLength() > 31) {
+			throw new MathException("O valor " + n + "/" + d + " não cabe em um Rational");
+		}
+		return new Rational(n.intValue(), d.intValue());
+	}
+
+	/**
+	 * Determinante exato. Veja {@link #integerDeterminant()} para matrizes
+	 * de inteiros cujo determinante não cabe em int.
+	 * @return o determinante desta matriz.
+	 * @throws MathException se esta matriz não for quadrada ou se o
+	 * determinante não couber em um {@link Rational}.
+	 */
+	public Rational determinant() {
+		BigInteger[] det = determinantFraction();
+		return toRational(det[0], det[1]);
+	}
+
+	/**
+	 * Determinante exato de uma matriz de inteiros, sem limite de tamanho.
+	 * A eliminação é feita em long enquanto os valores intermediários
+	 * couberem; depois, por aritmética modular (matrizes de ordem 16 ou
+	 * mais) ou por eliminação de Bareiss com {@link BigInteger}.
+	 * @return o determinante desta matriz.
+	 * @throws MathException se esta matriz não for quadrada ou se algum
+	 * elemento não for inteiro.
+	 */
+	public BigInteger integerDeterminant() {
+		checkSquare();
+		if(!isInteger()) {
+			throw new MathException("Todos os elementos da matriz devem ser inteiros");
+		}
+		return ExactKernels.determinant(num, lines);
+	}
+
+	/**
+	 * @return o determinante como numerador e denominador irredutíveis.
+	 */
+	BigInteger[] determinantFraction() {
+		checkSquare();
+		BigInteger[] scales = new BigInteger[lines];
+		BigInteger n = ExactKernels.determinant(scaledRows(scales), lines);
+		BigInteger d = BigInteger.ONE;
+		for(BigInteger scale : scales) {
+			d = d.multiply(scale);
+		}
+		BigInteger gcd = n.gcd(d);
+		return new BigInteger[] {n.divide(gcd), d.divide(gcd)};
+	}
+
+	private void checkSquare() {
+		if(!isSquare()) {
+			throw new MathException("Determinantes só existem para matrizes quadradas");
+		}
+	}
+
+	/**
+	 * @return o posto desta matriz, ou seja, a quantidade de linhas
+	 * linearmente independentes.
+	 */
+	public int rank() {
+		return ExactKernels.eliminate(scaledRows(new BigInteger[lines]), lines, columns, columns, false,
+				new int[lines], new BigInteger[1]);
+	}
+
+	/**
+	 * Forma escalonada reduzida por linhas desta matriz: cada linha não nula
+	 * começa por 1, numa coluna em que todas as outras linhas são nulas, e as
+	 * linhas nulas ficam no final. É calculada por eliminação de
+	 * Gauss-Jordan livre de frações; as divisões pelos pivôs são feitas apenas
+	 * no final, uma vez por elemento.
+	 * @return a forma escalonada reduzida por linhas.
+	 */
+	public RationalMatrix rref() {
+		BigInteger[] a = scaledRows(new BigInteger[lines]);
+		BigInteger[] pivot = new BigInteger[1];
+		int rank = ExactKernels.eliminate(a, lines, columns, columns, true, new int[lines], pivot);
+		RationalMatrix result = new RationalMatrix(lines, columns);
+		for(int i = 0; i < lines * columns; i++) {
+			if(i < rank * columns) {
+				result.set(i, a[i], pivot[0]);
+			} else {
+				result.set(i, BigInteger.ZERO, BigInteger.ONE);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Retorna a matriz inversa desta, caso exista, calculada por eliminação de
+	 * Gauss-Jordan livre de frações sobre a matriz aumentada [A | I]. Assim
+	 * como em {@link Matrix#inverse()}, é retornado null se esta matriz não
+	 * for quadrada ou for singular.
+	 * @return a matriz inversa desta.
+	 */
+	public RationalMatrix inverse() {
+		if(!isSquare()) {
+			return null;
+		}
+		int n = lines;
+		BigInteger[] scales = new BigInteger[n];
+		BigInteger[] scaled = scaledRows(scales);
+		BigInteger[] augmented = new BigInteger[2 * n * n];
+		for(int i = 0; i < n; i++) {
+			System.arraycopy(scaled, i * n, augmented, 2 * i * n, n);
+			for(int j = 0; j < n; j++) {
+				augmented[2 * i * n + n + j] = i == j ? BigInteger.ONE : BigInteger.ZERO;
+			}
+		}
+		BigInteger[] pivot = new BigInteger[1];
+		if(ExactKernels.eliminate(augmented, n, 2 * n, n, true, new int[n], pivot) < n) {
+			return null;
+		}
+		// [B | I] virou [dI | X], com X = d * B^-1; como A = S^-1 * B, A^-1 = B^-1 * S
+		RationalMatrix result = new RationalMatrix(n, n);
+		for(int i = 0; i < n; i++) {
+			for(int j = 0; j < n; j++) {
+				result.set(i * n + j, augmented[2 * i * n + n + j].multiply(scales[j]), pivot[0]);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Multiplica cada linha pelo mínimo múltiplo comum dos seus
+	 * denominadores, resultando numa matriz de inteiros.
+	 * @param scales recebe o fator de cada linha.
+	 * @return a matriz de inteiros, linha por linha.
+	 */
+	private BigInteger[] scaledRows(BigInteger[] scales) {
+		BigInteger[] result = new BigInteger[lines * columns];
+		for(int i = 0; i < lines; i++) {
+			BigInteger lcm = BigInteger.ONE;
+			for(int j = 0; j < columns; j++) {
+				BigInteger d = denom[i * columns + j];
+				if(!d.equals(BigInteger.ONE)) {
+					lcm = lcm.divide(lcm.gcd(d)).multiply(d);
+				}
+			}
+			scales[i] = lcm;
+			for(int j = 0; j < columns; j++) {
+				int index = i * columns + j;
+				BigInteger d = denom[index];
+				result[index] = d.equals(lcm) ? num[index] : num[index].multiply(lcm.divide(d));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return uma {@link Matrix} com os valores desta arredondados para double.
+	 */
+	public Matrix toMatrix() {
+		Matrix m = new Matrix(lines, columns);
+		for(int i = 0; i < lines; i++) {
+			for(int j = 0; j < columns; j++) {
+				int index = i * columns + j;
+				double value = denom[index].equals(BigInteger.ONE) ? num[index].doubleValue()
+						: new BigDecimal(num[index]).divide(new BigDecimal(denom[index]), MathContext.DECIMAL64).doubleValue();
+				m.setValue(i, j, value);
+			}
+		}
+		return m;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if(o == null) {
+			return false;
+		}
+		if(o == this) {
+			return true;
+		}
+		if(o instanceof RationalMatrix m) {
+			return lines == m.lines && columns == m.columns && Arrays.equals(num, m.num) && Arrays.equals(denom, m.denom);
+		}
+		return false;
+	}
+
+	@Override
+	public int hashCode() {
+		int hash = 31 * lines + columns;
+		hash = 31 * hash + Arrays.hashCode(num);
+		return 31 * hash + Arrays.hashCode(denom);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("{");
+		for(int i = 0; i < lines; i++) {
+			sb.append("{");
+			for(int j = 0; j < columns; j++) {
+				int index = i * columns + j;
+				sb.append(num[index] + "/" + denom[index] + (j == columns - 1 ? "" : ", "));
+			}
+			sb.append("}" + (i == lines - 1 ? "" : ", "));
+		}
+		sb.append("}");
+		return sb.toString();
+	}
+
+}
@@ -0,0 +1,372 @@
+package br.sergio.math;
+
+import java.io.Serializable;
+import java.util.Random;
+
+/**
+ * Decomposição em valores singulares (SVD) de uma matriz m x n. A matriz A
+ * é fatorada como A = USVᵀ, sendo U uma matriz m x r de colunas ortonormais,
+ * S a matriz diagonal r x r dos valores singulares (não negativos, em ordem
+ * decrescente) e V uma matriz n x r de colunas ortonormais, com r = min(m, n).
+ * <p>A decomposição completa é calculada pelo método de Jacobi unilateral:
+ * rotações planas são aplicadas a pares de colunas até que todas sejam
+ * ortogonais entre si, quando suas normas são os valores singulares. O método
+ * é simples e calcula os valores singulares pequenos com alta precisão
+ * relativa. Para obter apenas os k maiores valores singulares de uma matriz
+ * grande, use {@link #randomized(Matrix, int, int, int, long)}.
+ * @author Sergio Luis
+ *
+ */
+public class SingularValueDecomposition implements Serializable {
+
+	private static final long serialVersionUID = -806019127232212340L;
+
+	private static final int MAX_SWEEPS = 60;
+
+	private int lines;
+	private int columns;
+
+	/**
+	 * Vetores singulares guardados coluna a coluna: o elemento ij de U está
+	 * na posição j * lines + i, e o de V na posição j * columns + i.
+	 */
+	private double[] u;
+	private double[] v;
+	private double[] singularValues;
+
+	/**
+	 * Constrói a decomposição em valores singulares completa da matriz
+	 * fornecida. A matriz original não é alterada.
+	 * @param m a matriz a ser decomposta.
+	 * @throws NullPointerException se a matriz for nula.
+	 * @throws MathException se o método não convergir.
+	 */
+	public SingularValueDecomposition(Matrix m) {
+		if(m == null) {
+			throw new NullPointerException("Matriz nula");
+		}
+		lines = m.getLines();
+		columns = m.getColumns();
+		m = m.contiguous();
+		boolean wide = lines < columns;
+		int tall = wide ? columns : lines;
+		int narrow = wide ? lines : columns;
+		double[] a = new double[tall * narrow];
+		if(wide) {
+			double[] data = m.getData();
+			for(int i = 0; i < lines; i++) {
+				System.arraycopy(data, m.getOffset() + i * m.getStride(), a, i * columns, columns);
+			}
+		} else {
+			MatrixKernels.transpose(m.getData(), m.getOffset(), m.getStride(), a, 0, lines, lines, columns);
+		}
+		double[] w = new double[narrow * narrow];
+		for(int j = 0; j < narrow; j++) {
+			w[j * narrow + j] = 1;
+		}
+		double[] s = new double[narrow];
+		orthogonalize(a, tall, w, narrow);
+		for(int j = 0; j < narrow; j++) {
+			s[j] = QRDecomposition.norm(a, j * tall, tall);
+			if(s[j] != 0) {
+				MatrixKernels.scale(1 / s[j], a, j * tall, a, j * tall, tall);
+			}
+		}
+		sort(s, a, tall, w, narrow);
+		complete(a, tall, s);
+		singularValues = s;
+		u = wide ? w : a;
+		v = wide ? a : w;
+	}
+
+	private SingularValueDecomposition(int lines, int columns, double[] u, double[] singularValues, double[] v) {
+		this.lines = lines;
+		this.columns = columns;
+		this.u = u;
+		this.singularValues = singularValues;
+		this.v = v;
+	}
+
+	/**
+	 * Método de Jacobi unilateral: rotaciona pares de colunas de a (de
+	 * tamanho length) até que sejam todas ortogonais, acumulando as rotações
+	 * nas colunas de w (de tamanho count).
+	 */
+	private static void orthogonalize(double[] a, int length, double[] w, int count) {
+		double eps = Math.ulp(1.0);
+		for(int sweep = 0; sweep < MAX_SWEEPS; sweep++) {
+			boolean rotated = false;
+			for(int p = 0; p < count - 1; p++) {
+				int columnP = p * length;
+				for(int q = p + 1; q < count; q++) {
+					int columnQ = q * length;
+					double alpha = MatrixKernels.dot(a, columnP, a, columnP, length);
+					double beta = MatrixKernels.dot(a, columnQ, a, columnQ, length);
+					double gamma = MatrixKernels.dot(a, columnP, a, columnQ, length);
+					if(gamma == 0 || Math.abs(gamma) <= eps * Math.sqrt(alpha * beta)) {
+						continue;
+					}
+					rotated = true;
+					double zeta = (beta - alpha) / (2 * gamma);
+					double t = Math.signum(zeta) / (Math.abs(zeta) + Math.hypot(1, zeta));
+					if(zeta == 0) {
+						t = 1;
+					}
+					double c = 1 / Math.sqrt(1 + t * t);
+					double s = c * t;
+					rotate(a, columnP, columnQ, length, c, s);
+					rotate(w, p * count, q * count, count, c, s);
+				}
+			}
+			if(!rotated) {
+				return;
+			}
+		}
+		throw new MathException("O método de Jacobi não convergiu");
+	}
+
+	private static void rotate(double[] x, int p, int q, int length, double c, double s) {
+		for(int i = 0; i < length; i++) {
+			double xp = x[p + i];
+			double xq = x[q + i];
+			x[p + i] = c * xp - s * xq;
+			x[q + i] = s * xp + c * xq;
+		}
+	}
+
+	/**
+	 * Ordena os valores singulares em ordem decrescente, levando junto as
+	 * colunas correspondentes de a e de w.
+	 */
+	private static void sort(double[] s, double[] a, int length, double[] w, int count) {
+		for(int i = 0; i < count - 1; i++) {
+			int max = i;
+			for(int j = i + 1; j < count; j++) {
+				if(s[j] > s[max]) {
+					max = j;
+				}
+			}
+			if(max != i) {
+				double temp = s[i];
+				s[i] = s[max];
+				s[max] = temp;
+				swapColumns(a, i, max, length);
+				swapColumns(w, i, max, count);
+			}
+		}
+	}
+
+	private static void swapColumns(double[] x, int i, int j, int length) {
+		for(int k = 0; k < length; k++) {
+			double temp = x[i * length + k];
+			x[i * length + k] = x[j * length + k];
+			x[j * length + k] = temp;
+		}
+	}
+
+	/**
+	 * Substitui as colunas correspondentes a valores singulares nulos por
+	 * vetores unitários ortogonais às demais, para que a matriz de vetores
+	 * singulares continue tendo colunas ortonormais.
+	 */
+	private static void complete(double[] a, int length, double[] s) {
+		int candidate = 0;
+		for(int j = 0; j < s.length; j++) {
+			if(s[j] != 0) {
+				continue;
+			}
+			int column = j * length;
+			while(true) {
+				for(int i = 0; i < length; i++) {
+					a[column + i] = i == candidate ? 1 : 0;
+				}
+				candidate++;
+				for(int pass = 0; pass < 2; pass++) {
+					for(int k = 0; k < s.length; k++) {
+						if(k == j || (s[k] == 0 && k > j)) {
+							continue;
+						}
+						double projection = MatrixKernels.dot(a, k * length, a, column, length);
+						MatrixKernels.axpy(-projection, a, k * length, a, column, length);
+					}
+				}
+				double norm = QRDecomposition.norm(a, column, length);
+				if(norm > 0.5) {
+					MatrixKernels.scale(1 / norm, a, column, a, column, length);
+					break;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Calcula os k maiores valores singulares da matriz fornecida, e os
+	 * vetores singulares correspondentes, pelo método aleatorizado de
+	 * Halko, Martinsson e Tropp. Uma base ortonormal Q para a imagem de A é
+	 * estimada multiplicando A por k + oversampling vetores aleatórios; a
+	 * decomposição completa é então feita apenas na matriz pequena QᵀA. O
+	 * custo é dominado por multiplicações de matrizes, O(mnk), em vez de
+	 * O(mn min(m, n)).
+	 * <p>A precisão depende do decaimento dos valores singulares: cada
+	 * iteração de potência (multiplicação por AAᵀ) melhora a aproximação
+	 * quando o decaimento é lento. Em geral, oversampling = 10 e 2 iterações
+	 * de potência bastam.
+	 * @param m a matriz a ser decomposta.
+	 * @param k a quantidade de valores singulares desejada.
+	 * @param oversampling a quantidade de vetores aleatórios adicionais.
+	 * @param powerIterations a quantidade de iterações de potência.
+	 * @param seed a semente do gerador de números aleatórios.
+	 * @return a decomposição truncada, com r = k.
+	 * @throws NullPointerException se a matriz for nula.
+	 * @throws IllegalArgumentException se k não estiver entre 1 e min(m, n)
+	 * ou se oversampling ou powerIterations forem negativos.
+	 */
+	public static SingularValueDecomposition randomized(Matrix m, int k, int oversampling, int powerIterations, long seed) {
+		if(m == null) {
+			throw new NullPointerException("Matriz nula");
+		}
+		int lines = m.getLines();
+		int columns = m.getColumns();
+		if(k < 1 || k > Math.min(lines, columns)) {
+			throw new IllegalArgumentException("k deve estar entre 1 e " + Math.min(lines, columns));
+		}
+		if(oversampling < 0 || powerIterations < 0) {
+			throw new IllegalArgumentException("oversampling e powerIterations não podem ser negativos");
+		}
+		int size = Math.min(k + oversampling, Math.min(lines, columns));
+		Random random = new Random(seed);
+		Matrix omega = new Matrix(columns, size);
+		double[] data = omega.getData();
+		for(int i = 0; i < data.length; i++) {
+			data[i] = random.nextGaussian();
+		}
+		Matrix q = m.multiply(omega).qr().getQ();
+		Matrix transposed = null;
+		if(powerIterations > 0) {
+			transposed = m.transposed();
+		}
+		for(int i = 0; i < powerIterations; i++) {
+			Matrix z = transposed.multiply(q).qr().getQ();
+			q = m.multiply(z).qr().getQ();
+		}
+		SingularValueDecomposition small = new SingularValueDecomposition(q.transposed().multiply(m));
+		Matrix smallU = new Matrix(size, k);
+		MatrixKernels.transpose(small.u, 0, size, smallU.getData(), 0, k, k, size);
+		Matrix bigU = q.multiply(smallU);
+		double[] u = new double[lines * k];
+		MatrixKernels.transpose(bigU.getData(), 0, k, u, 0, lines, lines, k);
+		double[] s = new double[k];
+		System.arraycopy(small.singularValues, 0, s, 0, k);
+		double[] v = new double[columns * k];
+		System.arraycopy(small.v, 0, v, 0, columns * k);
+		return new SingularValueDecomposition(lines, columns, u, s, v);
+	}
+
+	/**
+	 * @return a quantidade de linhas da matriz decomposta.
+	 */
+	public int getLines() {
+		return lines;
+	}
+
+	/**
+	 * @return a quantidade de colunas da matriz decomposta.
+	 */
+	public int getColumns() {
+		return columns;
+	}
+
+	/**
+	 * @return uma cópia dos valores singulares, em ordem decrescente.
+	 */
+	public double[] getSingularValues() {
+		return singularValues.clone();
+	}
+
+	/**
+	 * @return a matriz m x r dos vetores singulares à esquerda.
+	 */
+	public Matrix getU() {
+		int r = singularValues.length;
+		Matrix result = new Matrix(lines, r);
+		MatrixKernels.transpose(u, 0, lines, result.getData(), 0, r, r, lines);
+		return result;
+	}
+
+	/**
+	 * @return a matriz n x r dos vetores singulares à direita.
+	 */
+	public Matrix getV() {
+		int r = singularValues.length;
+		Matrix result = new Matrix(columns, r);
+		MatrixKernels.transpose(v, 0, columns, result.getData(), 0, r, r, columns);
+		return result;
+	}
+
+	/**
+	 * @return a matriz diagonal r x r dos valores singulares.
+	 */
+	public Matrix getS() {
+		int r = singularValues.length;
+		Matrix s = new Matrix(r);
+		for(int i = 0; i < r; i++) {
+			s.setValue(i, i, singularValues[i]);
+		}
+		return s;
+	}
+
+	/**
+	 * @return a norma 2 da matriz decomposta, que é seu maior valor singular.
+	 */
+	public double norm2() {
+		return singularValues[0];
+	}
+
+	/**
+	 * @return o número de condição da matriz decomposta na norma 2, que é a
+	 * razão entre o maior e o menor valor singular. Numa decomposição
+	 * truncada, considera apenas os valores singulares calculados.
+	 */
+	public double conditionNumber() {
+		return singularValues[0] / singularValues[singularValues.length - 1];
+	}
+
+	/**
+	 * @return o posto numérico da matriz decomposta: a quantidade de valores
+	 * singulares maiores que max(m, n) * ε * σ₁.
+	 */
+	public int getRank() {
+		double tolerance = Math.max(lines, columns) * Math.ulp(1.0) * singularValues[0];
+		int rank = 0;
+		for(double value : singularValues) {
+			if(value > tolerance) {
+				rank++;
+			}
+		}
+		return rank;
+	}
+
+	/**
+	 * Calcula a pseudo-inversa de Moore-Penrose da matriz decomposta,
+	 * VS⁺Uᵀ, sendo S⁺ a matriz S com os valores singulares não desprezíveis
+	 * (veja {@link #getRank()}) invertidos e os demais zerados.
+	 * @return a pseudo-inversa n x m.
+	 */
+	public Matrix pseudoInverse() {
+		int rank = getRank();
+		if(rank == 0) {
+			return new Matrix(columns, lines);
+		}
+		Matrix scaled = new Matrix(columns, rank);
+		double[] data = scaled.getData();
+		for(int i = 0; i < columns; i++) {
+			for(int j = 0; j < rank; j++) {
+				data[i * rank + j] = v[j * columns + i] / singularValues[j];
+			}
+		}
+		Matrix ut = new Matrix(rank, lines);
+		System.arraycopy(u, 0, ut.getData(), 0, rank * lines);
+		return scaled.multiply(ut);
+	}
+
+}
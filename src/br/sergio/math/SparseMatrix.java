@@ -0,0 +1,626 @@
+package br.sergio.math;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Classe que representa uma matriz esparsa, ou seja, uma matriz em que
+ * a maior parte dos elementos vale 0. Apenas os elementos não nulos são
+ * armazenados, em um dos formatos comprimidos {@link Layout#CSR} (linha a
+ * linha) ou {@link Layout#CSC} (coluna a coluna). Para montar uma matriz
+ * esparsa elemento a elemento, use {@link Builder}.
+ * <p>No formato CSR, os elementos não nulos da linha i estão nas posições
+ * pointers[i] (inclusive) a pointers[i + 1] (exclusive) dos arrays indices
+ * (que guarda as colunas) e values (que guarda os valores). O formato CSC é
+ * análogo, trocando linhas por colunas.
+ * @author Sergio Luis
+ *
+ */
+public class SparseMatrix implements LinearOperator, Serializable {
+
+	private static final long serialVersionUID = -7405284263148723391L;
+
+	/**
+	 * Formatos de armazenamento de uma matriz esparsa.
+	 */
+	public enum Layout {
+
+		/**
+		 * Compressed Sparse Row: elementos agrupados por linha.
+		 */
+		CSR,
+
+		/**
+		 * Compressed Sparse Column: elementos agrupados por coluna.
+		 */
+		CSC;
+
+	}
+
+	private int lines;
+	private int columns;
+	private Layout layout;
+	private int[] pointers;
+	private int[] indices;
+	private double[] values;
+
+	/**
+	 * Constrói uma matriz esparsa sobre arrays já no formato comprimido,
+	 * sem copiá-los. Os índices de cada linha (CSR) ou coluna (CSC) devem
+	 * estar em ordem estritamente crescente.
+	 * @param lines a quantidade de linhas.
+	 * @param columns a quantidade de colunas.
+	 * @param layout o formato dos arrays.
+	 * @param pointers o início de cada linha (CSR) ou coluna (CSC) nos arrays
+	 * indices e values, com um elemento final igual à quantidade de não nulos.
+	 * @param indices a coluna (CSR) ou linha (CSC) de cada elemento não nulo.
+	 * @param values o valor de cada elemento não nulo.
+	 * @throws NullPointerException se algum argumento for nulo.
+	 * @throws IllegalArgumentException se linhas ou colunas forem menores que 1.
+	 * @throws MathException se os arrays forem inconsistentes entre si.
+	 */
+	public SparseMatrix(int lines, int columns, Layout layout, int[] pointers, int[] indices, double[] values) {
+		if(lines < 1 || columns < 1) {
+			throw new IllegalArgumentException("Linhas e colunas não podem ser menores que 1");
+		}
+		this.layout = Objects.requireNonNull(layout, "Formato nulo");
+		Objects.requireNonNull(pointers, "Ponteiros nulos");
+		Objects.requireNonNull(indices, "Índices nulos");
+		Objects.requireNonNull(values, "Valores nulos");
+		int major = layout == Layout.CSR ? lines : columns;
+		int minor = layout == Layout.CSR ? columns : lines;
+		if(pointers.length != major + 1 || pointers[0] != 0) {
+			throw new MathException("O array de ponteiros deve ter " + (major + 1) + " elementos e começar em 0");
+		}
+		int nonZeros = pointers[major];
+		if(indices.length < nonZeros || values.length < nonZeros) {
+			throw new MathException("Os arrays de índices e valores devem ter ao menos " + nonZeros + " elementos");
+		}
+		for(int i = 0; i < major; i++) {
+			if(pointers[i] > pointers[i + 1]) {
+				throw new MathException("O array de ponteiros deve ser crescente");
+			}
+			for(int k = pointers[i]; k < pointers[i + 1]; k++) {
+				if(indices[k] < 0 || indices[k] >= minor || (k > pointers[i] && indices[k] <= indices[k - 1])) {
+					throw new MathException("Índices fora dos limites ou fora de ordem na posição " + k);
+				}
+			}
+		}
+		this.lines = lines;
+		this.columns = columns;
+		this.pointers = pointers;
+		this.indices = indices;
+		this.values = values;
+	}
+
+	/**
+	 * Constrói uma matriz esparsa no formato CSR com os elementos não nulos
+	 * de uma matriz densa.
+	 * @param m a matriz densa.
+	 */
+	public SparseMatrix(Matrix m) {
+		this(m, Layout.CSR);
+	}
+
+	/**
+	 * Constrói uma matriz esparsa no formato fornecido com os elementos não
+	 * nulos de uma matriz densa.
+	 * @param m a matriz densa.
+	 * @param layout o formato desejado.
+	 */
+	public SparseMatrix(Matrix m, Layout layout) {
+		this.layout = Objects.requireNonNull(layout, "Formato nulo");
+		lines = m.getLines();
+		columns = m.getColumns();
+		boolean csr = layout == Layout.CSR;
+		int major = csr ? lines : columns;
+		int minor = csr ? columns : lines;
+		m = m.contiguous();
+		double[] data = m.getData();
+		int offset = m.getOffset();
+		int stride = m.getStride();
+		int nonZeros = 0;
+		for(int i = 0; i < lines; i++) {
+			int row = offset + i * stride;
+			for(int j = 0; j < columns; j++) {
+				if(data[row + j] != 0) {
+					nonZeros++;
+				}
+			}
+		}
+		pointers = new int[major + 1];
+		indices = new int[nonZeros];
+		values = new double[nonZeros];
+		int k = 0;
+		for(int a = 0; a < major; a++) {
+			for(int b = 0; b < minor; b++) {
+				double value = csr ? data[offset + a * stride + b] : data[offset + b * stride + a];
+				if(value != 0) {
+					indices[k] = b;
+					values[k] = value;
+					k++;
+				}
+			}
+			pointers[a + 1] = k;
+		}
+	}
+
+	/**
+	 * Montador de matrizes esparsas a partir de triplas (linha, coluna, valor),
+	 * o chamado formato de coordenadas (COO). As triplas podem ser adicionadas
+	 * em qualquer ordem; valores adicionados mais de uma vez na mesma posição
+	 * são somados.
+	 */
+	public static class Builder {
+
+		private int lines;
+		private int columns;
+		private int size;
+		private int[] rows;
+		private int[] cols;
+		private double[] values;
+
+		/**
+		 * @param lines a quantidade de linhas da matriz a ser montada.
+		 * @param columns a quantidade de colunas da matriz a ser montada.
+		 * @throws IllegalArgumentException se linhas ou colunas forem menores que 1.
+		 */
+		public Builder(int lines, int columns) {
+			if(lines < 1 || columns < 1) {
+				throw new IllegalArgumentException("Linhas e colunas não podem ser menores que 1");
+			}
+			this.lines = lines;
+			this.columns = columns;
+			rows = new int[16];
+			cols = new int[16];
+			values = new double[16];
+		}
+
+		/**
+		 * Adiciona um valor na posição ij.
+		 * @param line a linha i.
+		 * @param column a coluna j.
+		 * @param value o valor.
+		 * @return este montador.
+		 * @throws ArrayIndexOutOfBoundsException se a posição estiver fora da matriz.
+		 */
+		public Builder add(int line, int column, double value) {
+			if(line < 0 || line >= lines || column < 0 || column >= columns) {
+				throw new ArrayIndexOutOfBoundsException("Posição (" + line + ", " + column + ") está fora dos "
+						+ "limites da matriz (" + lines + ", " + columns + ").");
+			}
+			if(size == rows.length) {
+				int capacity = size * 2;
+				rows = Arrays.copyOf(rows, capacity);
+				cols = Arrays.copyOf(cols, capacity);
+				values = Arrays.copyOf(values, capacity);
+			}
+			rows[size] = line;
+			cols[size] = column;
+			values[size] = value;
+			size++;
+			return this;
+		}
+
+		/**
+		 * @return a matriz esparsa no formato CSR.
+		 */
+		public SparseMatrix build() {
+			return build(Layout.CSR);
+		}
+
+		/**
+		 * Monta a matriz esparsa no formato fornecido. Valores repetidos na
+		 * mesma posição são somados e os que resultarem em 0 são descartados.
+		 * @param layout o formato desejado.
+		 * @return a matriz esparsa.
+		 */
+		public SparseMatrix build(Layout layout) {
+			boolean csr = layout == Layout.CSR;
+			int major = csr ? lines : columns;
+			int minor = csr ? columns : lines;
+			int[] majors = csr ? rows : cols;
+			int[] minors = csr ? cols : rows;
+			// duas passadas de counting sort, primeiro pelo índice menor e depois,
+			// de forma estável, pelo maior, deixam cada segmento já ordenado em
+			// tempo linear
+			int[] byMinor = new int[size];
+			int[] next = new int[Math.max(major, minor) + 1];
+			for(int k = 0; k < size; k++) {
+				next[minors[k] + 1]++;
+			}
+			for(int i = 0; i < minor; i++) {
+				next[i + 1] += next[i];
+			}
+			for(int k = 0; k < size; k++) {
+				byMinor[next[minors[k]]++] = k;
+			}
+			int[] counts = new int[major + 1];
+			for(int k = 0; k < size; k++) {
+				counts[majors[k] + 1]++;
+			}
+			for(int i = 0; i < major; i++) {
+				counts[i + 1] += counts[i];
+			}
+			System.arraycopy(counts, 0, next, 0, major);
+			int[] sortedIndices = new int[size];
+			double[] sortedValues = new double[size];
+			for(int k : byMinor) {
+				int position = next[majors[k]]++;
+				sortedIndices[position] = minors[k];
+				sortedValues[position] = values[k];
+			}
+			int[] pointers = new int[major + 1];
+			int nonZeros = 0;
+			for(int i = 0; i < major; i++) {
+				int start = counts[i];
+				int end = counts[i + 1];
+				int k = start;
+				while(k < end) {
+					int index = sortedIndices[k];
+					double value = 0;
+					while(k < end && sortedIndices[k] == index) {
+						value += sortedValues[k++];
+					}
+					if(value != 0) {
+						sortedIndices[nonZeros] = index;
+						sortedValues[nonZeros] = value;
+						nonZeros++;
+					}
+				}
+				pointers[i + 1] = nonZeros;
+			}
+			return new SparseMatrix(lines, columns, layout, pointers,
+					Arrays.copyOf(sortedIndices, nonZeros), Arrays.copyOf(sortedValues, nonZeros));
+		}
+
+	}
+
+	/**
+	 * @return a quantidade de linhas da matriz.
+	 */
+	public int getLines() {
+		return lines;
+	}
+
+	/**
+	 * @return a quantidade de colunas da matriz.
+	 */
+	public int getColumns() {
+		return columns;
+	}
+
+	/**
+	 * @return o formato de armazenamento desta matriz.
+	 */
+	public Layout getLayout() {
+		return layout;
+	}
+
+	/**
+	 * @return a quantidade de elementos armazenados (não nulos).
+	 */
+	public int getNonZeros() {
+		return pointers[pointers.length - 1];
+	}
+
+	/**
+	 * @return o array de ponteiros, sem cópia.
+	 */
+	public int[] getPointers() {
+		return pointers;
+	}
+
+	/**
+	 * @return o array de índices, sem cópia.
+	 */
+	public int[] getIndices() {
+		return indices;
+	}
+
+	/**
+	 * @return o array de valores, sem cópia.
+	 */
+	public double[] getValues() {
+		return values;
+	}
+
+	/**
+	 * Retorna o valor presente na posição ij da matriz. A busca é binária
+	 * dentro da linha (CSR) ou coluna (CSC) do elemento.
+	 * @param line o número i da linha.
+	 * @param column o número j da coluna.
+	 * @return o valor presente na posição ij.
+	 * @throws ArrayIndexOutOfBoundsException se a posição estiver fora da matriz.
+	 */
+	public double getValue(int line, int column) {
+		if(line < 0 || line >= lines || column < 0 || column >= columns) {
+			throw new ArrayIndexOutOfBoundsException("Posição (" + line + ", " + column + ") está fora dos "
+					+ "limites da matriz (" + lines + ", " + columns + ").");
+		}
+		int major = layout == Layout.CSR ? line : column;
+		int minor = layout == Layout.CSR ? column : line;
+		int position = Arrays.binarySearch(indices, pointers[major], pointers[major + 1], minor);
+		return position >= 0 ? values[position] : 0;
+	}
+
+	/**
+	 * @return a matriz densa equivalente a esta.
+	 */
+	public Matrix toMatrix() {
+		Matrix m = new Matrix(lines, columns);
+		double[] data = m.getData();
+		boolean csr = layout == Layout.CSR;
+		for(int a = 0; a < pointers.length - 1; a++) {
+			for(int k = pointers[a]; k < pointers[a + 1]; k++) {
+				int index = csr ? a * columns + indices[k] : indices[k] * columns + a;
+				data[index] = values[k];
+			}
+		}
+		return m;
+	}
+
+	/**
+	 * @return esta matriz no formato CSR. Se ela já estiver nesse formato,
+	 * é retornada ela própria.
+	 */
+	public SparseMatrix toCSR() {
+		return layout == Layout.CSR ? this : convert();
+	}
+
+	/**
+	 * @return esta matriz no formato CSC. Se ela já estiver nesse formato,
+	 * é retornada ela própria.
+	 */
+	public SparseMatrix toCSC() {
+		return layout == Layout.CSC ? this : convert();
+	}
+
+	/**
+	 * Troca o formato de armazenamento, o que equivale a transpor os arrays
+	 * comprimidos. Os índices de cada nova linha (ou coluna) saem ordenados.
+	 */
+	private SparseMatrix convert() {
+		int major = pointers.length - 1;
+		int minor = layout == Layout.CSR ? columns : lines;
+		int nonZeros = getNonZeros();
+		int[] newPointers = new int[minor + 1];
+		for(int k = 0; k < nonZeros; k++) {
+			newPointers[indices[k] + 1]++;
+		}
+		for(int i = 0; i < minor; i++) {
+			newPointers[i + 1] += newPointers[i];
+		}
+		int[] next = Arrays.copyOf(newPointers, minor);
+		int[] newIndices = new int[nonZeros];
+		double[] newValues = new double[nonZeros];
+		for(int a = 0; a < major; a++) {
+			for(int k = pointers[a]; k < pointers[a + 1]; k++) {
+				int position = next[indices[k]]++;
+				newIndices[position] = a;
+				newValues[position] = values[k];
+			}
+		}
+		Layout newLayout = layout == Layout.CSR ? Layout.CSC : Layout.CSR;
+		return new SparseMatrix(lines, columns, newLayout, newPointers, newIndices, newValues);
+	}
+
+	/**
+	 * Retorna a matriz transposta a esta. Como a transposta de uma matriz
+	 * CSR tem exatamente os mesmos arrays de uma matriz CSC (e vice-versa),
+	 * a transposta compartilha os arrays desta, sem cópia.
+	 * @return a matriz transposta.
+	 */
+	public SparseMatrix transposed() {
+		Layout newLayout = layout == Layout.CSR ? Layout.CSC : Layout.CSR;
+		return new SparseMatrix(columns, lines, newLayout, pointers, indices, values);
+	}
+
+	/**
+	 * Multiplicação desta matriz por um vetor.
+	 * @param x o vetor, com tantos elementos quanto esta matriz tem colunas.
+	 * @return o vetor produto, com tantos elementos quanto esta matriz tem linhas.
+	 * @throws MathException se o tamanho do vetor for incompatível.
+	 */
+	public double[] multiply(double[] x) {
+		double[] y = new double[lines];
+		multiply(x, y);
+		return y;
+	}
+
+	/**
+	 * Multiplicação desta matriz por um vetor, escrevendo o resultado num
+	 * vetor já existente.
+	 * @param x o vetor, com tantos elementos quanto esta matriz tem colunas.
+	 * @param y o vetor onde o produto será escrito, com tantos elementos
+	 * quanto esta matriz tem linhas.
+	 * @throws MathException se os tamanhos dos vetores forem incompatíveis ou
+	 * se forem o mesmo array.
+	 */
+	public void multiply(double[] x, double[] y) {
+		if(x.length != columns || y.length != lines) {
+			throw new MathException("Os vetores devem ter tamanhos " + columns + " e " + lines);
+		}
+		if(x == y) {
+			throw new MathException("O vetor de destino não pode ser o mesmo vetor multiplicado");
+		}
+		if(layout == Layout.CSR) {
+			for(int i = 0; i < lines; i++) {
+				double sum = 0;
+				for(int k = pointers[i]; k < pointers[i + 1]; k++) {
+					sum += values[k] * x[indices[k]];
+				}
+				y[i] = sum;
+			}
+		} else {
+			Arrays.fill(y, 0);
+			for(int j = 0; j < columns; j++) {
+				double value = x[j];
+				if(value == 0) {
+					continue;
+				}
+				for(int k = pointers[j]; k < pointers[j + 1]; k++) {
+					y[indices[k]] += values[k] * value;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Equivalente a {@link #multiply(double[], double[])}. Permite usar a
+	 * matriz nos métodos de {@link IterativeSolver}.
+	 */
+	@Override
+	public void apply(double[] in, double[] out) {
+		multiply(in, out);
+	}
+
+	/**
+	 * Multiplicação desta matriz esparsa por uma matriz densa. Cada elemento
+	 * não nulo aij desta matriz acumula aij vezes a linha j da matriz densa
+	 * na linha i do resultado, de forma que ambas são percorridas linha a linha.
+	 * @param m a matriz densa.
+	 * @return a matriz produto, densa.
+	 * @throws MathException se a quantidade de colunas desta for diferente da
+	 * quantidade de linhas da fornecida.
+	 */
+	public Matrix multiply(Matrix m) {
+		if(columns != m.getLines()) {
+			throw new MathException("Não é possível multiplicar matrizes tais que o número de colunas da "
+					+ "primeira seja diferente do número de linhas da segunda.");
+		}
+		int n = m.getColumns();
+		Matrix result = new Matrix(lines, n);
+		double[] c = result.getData();
+		m = m.contiguous();
+		double[] b = m.getData();
+		int bOffset = m.getOffset();
+		int bStride = m.getStride();
+		boolean csr = layout == Layout.CSR;
+		for(int a = 0; a < pointers.length - 1; a++) {
+			for(int k = pointers[a]; k < pointers[a + 1]; k++) {
+				int i = csr ? a : indices[k];
+				int j = csr ? indices[k] : a;
+				MatrixKernels.axpy(values[k], b, bOffset + j * bStride, c, i * n, n);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Multiplicação de matrizes esparsas, pelo algoritmo de Gustavson: cada
+	 * linha do produto é acumulada num vetor denso auxiliar, do qual apenas
+	 * as posições efetivamente atingidas são lidas. O custo é proporcional à
+	 * quantidade de multiplicações entre elementos não nulos.
+	 * @param m a matriz esparsa para ser multiplicada com esta.
+	 * @return a matriz produto, no formato CSR.
+	 * @throws MathException se a quantidade de colunas desta for diferente da
+	 * quantidade de linhas da fornecida.
+	 */
+	public SparseMatrix multiply(SparseMatrix m) {
+		if(columns != m.lines) {
+			throw new MathException("Não é possível multiplicar matrizes tais que o número de colunas da "
+					+ "primeira seja diferente do número de linhas da segunda.");
+		}
+		SparseMatrix a = toCSR();
+		SparseMatrix b = m.toCSR();
+		int n = b.columns;
+		double[] accumulator = new double[n];
+		int[] marker = new int[n];
+		Arrays.fill(marker, -1);
+		int[] rowIndices = new int[n];
+		int[] pointers = new int[lines + 1];
+		int[] indices = new int[Math.max(16, a.getNonZeros() + b.getNonZeros())];
+		double[] values = new double[indices.length];
+		int nonZeros = 0;
+		for(int i = 0; i < lines; i++) {
+			int count = 0;
+			for(int ka = a.pointers[i]; ka < a.pointers[i + 1]; ka++) {
+				int k = a.indices[ka];
+				double value = a.values[ka];
+				for(int kb = b.pointers[k]; kb < b.pointers[k + 1]; kb++) {
+					int j = b.indices[kb];
+					if(marker[j] != i) {
+						marker[j] = i;
+						accumulator[j] = 0;
+						rowIndices[count++] = j;
+					}
+					accumulator[j] += value * b.values[kb];
+				}
+			}
+			Arrays.sort(rowIndices, 0, count);
+			if(nonZeros + count > indices.length) {
+				int capacity = Math.max(nonZeros + count, indices.length * 2);
+				indices = Arrays.copyOf(indices, capacity);
+				values = Arrays.copyOf(values, capacity);
+			}
+			for(int c = 0; c < count; c++) {
+				int j = rowIndices[c];
+				double value = accumulator[j];
+				if(value != 0) {
+					indices[nonZeros] = j;
+					values[nonZeros] = value;
+					nonZeros++;
+				}
+			}
+			pointers[i + 1] = nonZeros;
+		}
+		return new SparseMatrix(lines, n, Layout.CSR, pointers,
+				Arrays.copyOf(indices, nonZeros), Arrays.copyOf(values, nonZeros));
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if(o == null) {
+			return false;
+		}
+		if(o == this) {
+			return true;
+		}
+		if(o instanceof SparseMatrix m) {
+			if(lines != m.lines || columns != m.columns) {
+				return false;
+			}
+			SparseMatrix a = toCSR();
+			SparseMatrix b = m.toCSR();
+			int nonZeros = a.getNonZeros();
+			return Arrays.equals(a.pointers, b.pointers)
+					&& Arrays.equals(a.indices, 0, nonZeros, b.indices, 0, nonZeros)
+					&& Arrays.equals(a.values, 0, nonZeros, b.values, 0, nonZeros);
+		}
+		return false;
+	}
+
+	@Override
+	public int hashCode() {
+		SparseMatrix a = toCSR();
+		int nonZeros = a.getNonZeros();
+		int hash = 31 * lines + columns;
+		for(int k = 0; k < nonZeros; k++) {
+			long bits = Double.doubleToLongBits(a.values[k]);
+			hash = 31 * hash + a.indices[k];
+			hash = 31 * hash + (int) (bits ^ (bits >>> 32));
+		}
+		return hash;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(lines + "x" + columns + " " + layout + " {");
+		boolean csr = layout == Layout.CSR;
+		boolean first = true;
+		for(int a = 0; a < pointers.length - 1; a++) {
+			for(int k = pointers[a]; k < pointers[a + 1]; k++) {
+				int i = csr ? a : indices[k];
+				int j = csr ? indices[k] : a;
+				sb.append((first ? "" : ", ") + "(" + i + ", " + j + ") = " + values[k]);
+				first = false;
+			}
+		}
+		sb.append("}");
+		return sb.toString();
+	}
+
+}
@@ -0,0 +1,185 @@
+package br.sergio.math;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Decomposição QR atualizável para problemas de mínimos quadrados cujas
+ * linhas chegam em blocos. Apenas o fator triangular R (n x n) e o vetor
+ * Qᵀy correspondente são guardados: cada bloco de linhas é incorporado a
+ * eles por reflexões de Householder e depois descartado. Assim, a memória
+ * usada independe da quantidade total de linhas, e a matriz completa nunca
+ * é formada.
+ * <p>Ao contrário das equações normais (XᵀX)β = Xᵀy, que elevam ao quadrado
+ * o número de condição do problema, as reflexões mantêm a precisão da
+ * decomposição QR da matriz completa.
+ * @author Sergio Luis
+ *
+ */
+public class UpdatableQRDecomposition implements Serializable {
+
+	private static final long serialVersionUID = 4907261830734825641L;
+
+	private int columns;
+	private long lines;
+
+	/**
+	 * Fator triangular superior, linha a linha.
+	 */
+	private double[] r;
+	private double[] qty;
+	private double residualSumOfSquares;
+
+	/**
+	 * Constrói uma decomposição vazia para n incógnitas.
+	 * @param columns a quantidade de colunas das linhas que serão adicionadas.
+	 * @throws IllegalArgumentException se a quantidade de colunas não for positiva.
+	 */
+	public UpdatableQRDecomposition(int columns) {
+		if(columns < 1) {
+			throw new IllegalArgumentException("A quantidade de colunas deve ser positiva");
+		}
+		this.columns = columns;
+		r = new double[columns * columns];
+		qty = new double[columns];
+	}
+
+	/**
+	 * Incorpora um bloco de linhas do sistema Xβ = y. O bloco pode ter
+	 * qualquer quantidade de linhas, e nem ele nem o vetor são alterados.
+	 * O custo é proporcional ao tamanho do bloco vezes n.
+	 * @param x o bloco de linhas, com n colunas.
+	 * @param y os termos independentes das linhas do bloco.
+	 * @throws NullPointerException se a matriz for nula.
+	 * @throws MathException se a quantidade de colunas do bloco for diferente
+	 * de n ou se o tamanho de y for diferente da quantidade de linhas do bloco.
+	 */
+	public void addRows(Matrix x, double[] y) {
+		if(x == null) {
+			throw new NullPointerException("Matriz nula");
+		}
+		if(x.getColumns() != columns) {
+			throw new MathException("O bloco deve ter " + columns + " colunas");
+		}
+		int count = x.getLines();
+		if(y.length != count) {
+			throw new MathException("O tamanho dos termos independentes deve ser igual à quantidade de linhas do bloco");
+		}
+		int n = columns;
+		double[] block = new double[count * n];
+		x = x.contiguous();
+		MatrixKernels.transpose(x.getData(), x.getOffset(), x.getStride(), block, 0, count, count, n);
+		double[] rhs = y.clone();
+		for(int k = 0; k < n; k++) {
+			int columnK = k * count;
+			double diagonal = r[k * n + k];
+			double norm = Math.hypot(diagonal, QRDecomposition.norm(block, columnK, count));
+			if(norm == 0) {
+				continue;
+			}
+			double alpha = diagonal > 0 ? -norm : norm;
+			double head = diagonal - alpha;
+			double scale = 1 / (norm * (norm + Math.abs(diagonal)));
+			for(int j = k + 1; j < n; j++) {
+				int columnJ = j * count;
+				double sum = head * r[k * n + j] + MatrixKernels.dot(block, columnK, block, columnJ, count);
+				if(sum == 0) {
+					continue;
+				}
+				double factor = sum * scale;
+				r[k * n + j] -= factor * head;
+				MatrixKernels.axpy(-factor, block, columnK, block, columnJ, count);
+			}
+			double sum = head * qty[k] + MatrixKernels.dot(block, columnK, rhs, 0, count);
+			if(sum != 0) {
+				double factor = sum * scale;
+				qty[k] -= factor * head;
+				MatrixKernels.axpy(-factor, block, columnK, rhs, 0, count);
+			}
+			r[k * n + k] = alpha;
+		}
+		residualSumOfSquares += MatrixKernels.dot(rhs, 0, rhs, 0, count);
+		lines += count;
+	}
+
+	/**
+	 * Incorpora uma única linha do sistema. Veja {@link #addRows(Matrix, double[])}.
+	 * @param row a linha, com n elementos.
+	 * @param y o termo independente da linha.
+	 */
+	public void addRow(double[] row, double y) {
+		if(row.length != columns) {
+			throw new MathException("A linha deve ter " + columns + " elementos");
+		}
+		addRows(new Matrix(1, columns, row), new double[] {y});
+	}
+
+	/**
+	 * @return a quantidade de incógnitas.
+	 */
+	public int getColumns() {
+		return columns;
+	}
+
+	/**
+	 * @return a quantidade de linhas incorporadas até agora.
+	 */
+	public long getLines() {
+		return lines;
+	}
+
+	/**
+	 * @return o fator triangular superior R, de tamanho n x n, tal que RᵀR
+	 * é igual a XᵀX para todas as linhas incorporadas até agora.
+	 */
+	public Matrix getR() {
+		return new Matrix(columns, columns, r.clone());
+	}
+
+	/**
+	 * @return a soma dos quadrados dos resíduos da solução de mínimos
+	 * quadrados das linhas incorporadas até agora, ou seja, o quadrado da
+	 * norma de Xβ - y.
+	 */
+	public double getResidualSumOfSquares() {
+		return residualSumOfSquares;
+	}
+
+	/**
+	 * @return true se as linhas incorporadas até agora determinam uma única
+	 * solução, ou seja, se R não tiver zero na diagonal.
+	 */
+	public boolean isFullRank() {
+		for(int k = 0; k < columns; k++) {
+			if(r[k * columns + k] == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Resolve Rβ = Qᵀy, obtendo a solução de mínimos quadrados com todas as
+	 * linhas incorporadas até agora. Novas linhas podem continuar sendo
+	 * adicionadas depois.
+	 * @return o vetor β, de n elementos.
+	 * @throws MathException se as linhas incorporadas não determinarem uma
+	 * única solução.
+	 */
+	public double[] solve() {
+		if(!isFullRank()) {
+			throw new MathException("A matriz não tem posto completo");
+		}
+		int n = columns;
+		double[] beta = Arrays.copyOf(qty, n);
+		for(int k = n - 1; k >= 0; k--) {
+			double sum = beta[k];
+			for(int j = k + 1; j < n; j++) {
+				sum -= r[k * n + j] * beta[j];
+			}
+			beta[k] = sum / r[k * n + k];
+		}
+		return beta;
+	}
+
+}
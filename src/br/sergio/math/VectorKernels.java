@@ -0,0 +1,241 @@
+package br.sergio.math;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Versões dos núcleos de {@link MatrixKernels} escritas com a Vector API
+ * (módulo jdk.incubator.vector), que são compiladas para instruções SIMD
+ * (SSE, AVX2, AVX-512, NEON) pelo compilador JIT. Esta classe só é carregada
+ * quando o módulo está presente na JVM; caso contrário, são usados os núcleos
+ * escalares de {@link MatrixKernels}.
+ * @author Sergio Luis
+ *
+ */
+final class VectorKernels {
+
+	private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+	private static final int LANES = SPECIES.length();
+
+	/**
+	 * Quantidade de colunas de cada micro-bloco: dois vetores por linha.
+	 */
+	private static final int PANEL_WIDTH = 2 * LANES;
+
+	private VectorKernels() {
+	}
+
+	/**
+	 * @return true se os vetores preferidos pela plataforma comportarem
+	 * ao menos dois valores double.
+	 */
+	static boolean isSupported() {
+		return LANES >= 2 && PANEL_WIDTH % MatrixKernels.MICRO_TILE == 0;
+	}
+
+	static void axpy(double alpha, double[] x, int xOffset, double[] y, int yOffset, int length) {
+		DoubleVector factor = DoubleVector.broadcast(SPECIES, alpha);
+		int bound = SPECIES.loopBound(length);
+		int i = 0;
+		for(; i < bound; i += LANES) {
+			DoubleVector vx = DoubleVector.fromArray(SPECIES, x, xOffset + i);
+			DoubleVector vy = DoubleVector.fromArray(SPECIES, y, yOffset + i);
+			vx.mul(factor).add(vy).intoArray(y, yOffset + i);
+		}
+		for(; i < length; i++) {
+			y[yOffset + i] += alpha * x[xOffset + i];
+		}
+	}
+
+	static double dot(double[] x, int xOffset, double[] y, int yOffset, int length) {
+		DoubleVector sum0 = DoubleVector.zero(SPECIES);
+		DoubleVector sum1 = DoubleVector.zero(SPECIES);
+		int bound = length - length % PANEL_WIDTH;
+		int i = 0;
+		for(; i < bound; i += PANEL_WIDTH) {
+			sum0 = DoubleVector.fromArray(SPECIES, x, xOffset + i)
+					.fma(DoubleVector.fromArray(SPECIES, y, yOffset + i), sum0);
+			sum1 = DoubleVector.fromArray(SPECIES, x, xOffset + i + LANES)
+					.fma(DoubleVector.fromArray(SPECIES, y, yOffset + i + LANES), sum1);
+		}
+		double sum = sum0.add(sum1).reduceLanes(VectorOperators.ADD);
+		for(; i < length; i++) {
+			sum += x[xOffset + i] * y[yOffset + i];
+		}
+		return sum;
+	}
+
+	static void scale(double scalar, double[] x, int xOffset, double[] y, int yOffset, int length) {
+		DoubleVector factor = DoubleVector.broadcast(SPECIES, scalar);
+		int bound = SPECIES.loopBound(length);
+		int i = 0;
+		for(; i < bound; i += LANES) {
+			DoubleVector.fromArray(SPECIES, x, xOffset + i).mul(factor).intoArray(y, yOffset + i);
+		}
+		for(; i < length; i++) {
+			y[yOffset + i] = scalar * x[xOffset + i];
+		}
+	}
+
+	/**
+	 * Equivalente a {@link MatrixKernels#gemv}: quatro linhas de A por vez,
+	 * com um acumulador vetorial por linha e cada vetor de x lido uma vez.
+	 */
+	static void gemv(double[] a, int aOffset, int aStride, double[] x, int xOffset,
+			double[] y, int yOffset, int rows, int columns) {
+		int bound = SPECIES.loopBound(columns);
+		int i = 0;
+		for(; i + 3 < rows; i += 4) {
+			int r0 = aOffset + i * aStride;
+			int r1 = r0 + aStride;
+			int r2 = r1 + aStride;
+			int r3 = r2 + aStride;
+			DoubleVector sum0 = DoubleVector.zero(SPECIES);
+			DoubleVector sum1 = DoubleVector.zero(SPECIES);
+			DoubleVector sum2 = DoubleVector.zero(SPECIES);
+			DoubleVector sum3 = DoubleVector.zero(SPECIES);
+			int j = 0;
+			for(; j < bound; j += LANES) {
+				DoubleVector vx = DoubleVector.fromArray(SPECIES, x, xOffset + j);
+				sum0 = DoubleVector.fromArray(SPECIES, a, r0 + j).fma(vx, sum0);
+				sum1 = DoubleVector.fromArray(SPECIES, a, r1 + j).fma(vx, sum1);
+				sum2 = DoubleVector.fromArray(SPECIES, a, r2 + j).fma(vx, sum2);
+				sum3 = DoubleVector.fromArray(SPECIES, a, r3 + j).fma(vx, sum3);
+			}
+			double s0 = sum0.reduceLanes(VectorOperators.ADD);
+			double s1 = sum1.reduceLanes(VectorOperators.ADD);
+			double s2 = sum2.reduceLanes(VectorOperators.ADD);
+			double s3 = sum3.reduceLanes(VectorOperators.ADD);
+			for(; j < columns; j++) {
+				double value = x[xOffset + j];
+				s0 += a[r0 + j] * value;
+				s1 += a[r1 + j] * value;
+				s2 += a[r2 + j] * value;
+				s3 += a[r3 + j] * value;
+			}
+			y[yOffset + i] = s0;
+			y[yOffset + i + 1] = s1;
+			y[yOffset + i + 2] = s2;
+			y[yOffset + i + 3] = s3;
+		}
+		for(; i < rows; i++) {
+			y[yOffset + i] = dot(a, aOffset + i * aStride, x, xOffset, columns);
+		}
+	}
+
+	/**
+	 * Acumula em y a combinação de quatro linhas consecutivas de A com os
+	 * coeficientes dados, usada por {@link MatrixKernels#gemvTransposed}.
+	 */
+	static void axpy4(double x0, double x1, double x2, double x3, double[] a, int aOffset, int aStride,
+			double[] y, int yOffset, int length) {
+		DoubleVector f0 = DoubleVector.broadcast(SPECIES, x0);
+		DoubleVector f1 = DoubleVector.broadcast(SPECIES, x1);
+		DoubleVector f2 = DoubleVector.broadcast(SPECIES, x2);
+		DoubleVector f3 = DoubleVector.broadcast(SPECIES, x3);
+		int r1 = aOffset + aStride;
+		int r2 = r1 + aStride;
+		int r3 = r2 + aStride;
+		int bound = SPECIES.loopBound(length);
+		int j = 0;
+		for(; j < bound; j += LANES) {
+			DoubleVector vy = DoubleVector.fromArray(SPECIES, y, yOffset + j);
+			vy = DoubleVector.fromArray(SPECIES, a, aOffset + j).fma(f0, vy);
+			vy = DoubleVector.fromArray(SPECIES, a, r1 + j).fma(f1, vy);
+			vy = DoubleVector.fromArray(SPECIES, a, r2 + j).fma(f2, vy);
+			vy = DoubleVector.fromArray(SPECIES, a, r3 + j).fma(f3, vy);
+			vy.intoArray(y, yOffset + j);
+		}
+		for(; j < length; j++) {
+			y[yOffset + j] += x0 * a[aOffset + j] + x1 * a[r1 + j] + x2 * a[r2 + j] + x3 * a[r3 + j];
+		}
+	}
+
+	/**
+	 * Equivalente a {@link MatrixKernels#multiply}, porém com micro-blocos de
+	 * 4 linhas por dois vetores de colunas, acumulados com instruções FMA.
+	 */
+	static void multiply(double[] a, int aOffset, int aStride,
+			double[] b, int bOffset, int bStride,
+			double[] c, int cOffset, int cStride,
+			int m, int n, int p, int blockSize) {
+		int block = Math.max(PANEL_WIDTH, blockSize - blockSize % PANEL_WIDTH);
+		double[] aPack = new double[block * Math.min(block, p)];
+		double[] bPack = new double[block * Math.min(block, p)];
+		double[] tile = new double[MatrixKernels.MICRO_TILE * PANEL_WIDTH];
+		for(int kk = 0; kk < p; kk += block) {
+			int kb = Math.min(block, p - kk);
+			for(int jj = 0; jj < n; jj += block) {
+				int nb = Math.min(block, n - jj);
+				MatrixKernels.packB(b, bOffset + kk * bStride + jj, bStride, kb, nb, PANEL_WIDTH, bPack);
+				for(int ii = 0; ii < m; ii += block) {
+					int mb = Math.min(block, m - ii);
+					MatrixKernels.packA(a, aOffset + ii * aStride + kk, aStride, mb, kb, aPack);
+					for(int i = 0; i < mb; i += MatrixKernels.MICRO_TILE) {
+						int rows = Math.min(MatrixKernels.MICRO_TILE, mb - i);
+						int aPanel = i * kb;
+						for(int j = 0; j < nb; j += PANEL_WIDTH) {
+							int cols = Math.min(PANEL_WIDTH, nb - j);
+							microKernel(aPack, aPanel, bPack, j * kb, kb,
+									c, cOffset + (ii + i) * cStride + jj + j, cStride, rows, cols, tile);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	private static void microKernel(double[] aPack, int aIndex, double[] bPack, int bIndex, int depth,
+			double[] c, int cIndex, int cStride, int rows, int cols, double[] tile) {
+		DoubleVector c00 = DoubleVector.zero(SPECIES), c01 = DoubleVector.zero(SPECIES);
+		DoubleVector c10 = DoubleVector.zero(SPECIES), c11 = DoubleVector.zero(SPECIES);
+		DoubleVector c20 = DoubleVector.zero(SPECIES), c21 = DoubleVector.zero(SPECIES);
+		DoubleVector c30 = DoubleVector.zero(SPECIES), c31 = DoubleVector.zero(SPECIES);
+		for(int k = 0; k < depth; k++) {
+			DoubleVector b0 = DoubleVector.fromArray(SPECIES, bPack, bIndex);
+			DoubleVector b1 = DoubleVector.fromArray(SPECIES, bPack, bIndex + LANES);
+			DoubleVector a0 = DoubleVector.broadcast(SPECIES, aPack[aIndex]);
+			DoubleVector a1 = DoubleVector.broadcast(SPECIES, aPack[aIndex + 1]);
+			DoubleVector a2 = DoubleVector.broadcast(SPECIES, aPack[aIndex + 2]);
+			DoubleVector a3 = DoubleVector.broadcast(SPECIES, aPack[aIndex + 3]);
+			c00 = b0.fma(a0, c00);
+			c01 = b1.fma(a0, c01);
+			c10 = b0.fma(a1, c10);
+			c11 = b1.fma(a1, c11);
+			c20 = b0.fma(a2, c20);
+			c21 = b1.fma(a2, c21);
+			c30 = b0.fma(a3, c30);
+			c31 = b1.fma(a3, c31);
+			aIndex += MatrixKernels.MICRO_TILE;
+			bIndex += PANEL_WIDTH;
+		}
+		if(rows == MatrixKernels.MICRO_TILE && cols == PANEL_WIDTH) {
+			accumulate(c00, c01, c, cIndex);
+			accumulate(c10, c11, c, cIndex + cStride);
+			accumulate(c20, c21, c, cIndex + 2 * cStride);
+			accumulate(c30, c31, c, cIndex + 3 * cStride);
+			return;
+		}
+		c00.intoArray(tile, 0);
+		c01.intoArray(tile, LANES);
+		c10.intoArray(tile, PANEL_WIDTH);
+		c11.intoArray(tile, PANEL_WIDTH + LANES);
+		c20.intoArray(tile, 2 * PANEL_WIDTH);
+		c21.intoArray(tile, 2 * PANEL_WIDTH + LANES);
+		c30.intoArray(tile, 3 * PANEL_WIDTH);
+		c31.intoArray(tile, 3 * PANEL_WIDTH + LANES);
+		for(int r = 0; r < rows; r++) {
+			int row = cIndex + r * cStride;
+			for(int col = 0; col < cols; col++) {
+				c[row + col] += tile[r * PANEL_WIDTH + col];
+			}
+		}
+	}
+
+	private static void accumulate(DoubleVector low, DoubleVector high, double[] c, int index) {
+		DoubleVector.fromArray(SPECIES, c, index).add(low).intoArray(c, index);
+		DoubleVector.fromArray(SPECIES, c, index + LANES).add(high).intoArray(c, index + LANES);
+	}
+
+}